@@ -0,0 +1,67 @@
+package io.lionweb.lioncore.java.experiments;
+
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.serialization.JsonSerialization;
+import io.lionweb.lioncore.java.serialization.SerializationProvider;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measure how the time needed to deserialize a SerializedChunk grows with the number of nodes. As
+ * nodes are sorted leaves first before being instantiated, this shows whether that sorting scales
+ * linearly. Nodes are shuffled, so that they do not come in any convenient order.
+ */
+public class DeserializationScalingExperiment {
+
+  private static final int[] SIZES = new int[] {10_000, 100_000, 250_000, 500_000, 1_000_000};
+
+  public static void main(String[] args) {
+    // Warm up
+    measure(10_000);
+    measure(10_000);
+
+    double previousTimePerNode = -1;
+    for (int size : SIZES) {
+      long elapsed = measure(size);
+      double timePerNode = ((double) elapsed * 1_000_000) / size;
+      System.out.print(
+          "= "
+              + size
+              + " nodes: deserialized in "
+              + elapsed
+              + "ms ("
+              + String.format("%.2f", timePerNode)
+              + "ns per node");
+      if (previousTimePerNode > 0) {
+        System.out.print(
+            ", " + String.format("%.2f", timePerNode / previousTimePerNode) + "x the previous");
+      }
+      System.out.println(")");
+      previousTimePerNode = timePerNode;
+    }
+  }
+
+  private static long measure(int size) {
+    Node tree = new TreeGenerator(1).generate(size);
+    JsonSerialization jsonSerialization = SerializationProvider.getStandardJsonSerialization();
+    SerializedChunk chunk = jsonSerialization.serializeTreeToSerializationBlock(tree);
+    List<SerializedClassifierInstance> shuffled = new ArrayList<>(chunk.getClassifierInstances());
+    Collections.shuffle(shuffled, new Random(1));
+    SerializedChunk shuffledChunk = new SerializedChunk();
+    shuffledChunk.setSerializationFormatVersion(chunk.getSerializationFormatVersion());
+    chunk.getLanguages().forEach(shuffledChunk::addLanguage);
+    shuffled.forEach(shuffledChunk::addClassifierInstance);
+
+    JsonSerialization deserialization = SerializationProvider.getStandardJsonSerialization();
+    deserialization.enableDynamicNodes();
+    deserialization.registerLanguage(SimpleLanguage.language);
+    long t0 = System.currentTimeMillis();
+    deserialization.deserializeSerializationBlock(shuffledChunk);
+    long t1 = System.currentTimeMillis();
+    return t1 - t0;
+  }
+}
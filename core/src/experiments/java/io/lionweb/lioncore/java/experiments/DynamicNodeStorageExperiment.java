@@ -0,0 +1,117 @@
+package io.lionweb.lioncore.java.experiments;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.SlottedDynamicNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compare DynamicNode and SlottedDynamicNode: the memory needed for each node, and the throughput
+ * when writing and reading feature values.
+ */
+public class DynamicNodeStorageExperiment {
+
+  private static final int PROPERTIES = 12;
+  private static final int NODES = 1_000_000;
+  private static final int READS = 5;
+
+  public static void main(String[] args) {
+    Language language = new Language("StorageLanguage", "storage-id", "storage-key", "1");
+    Concept concept = new Concept(language, "Element", "element-id", "element-key");
+    for (int i = 0; i < PROPERTIES; i++) {
+      Property property = Property.createOptional("prop" + i, LionCoreBuiltins.getString());
+      property.setID("prop" + i + "-id").setKey("prop" + i + "-key");
+      concept.addFeature(property);
+    }
+    Containment children = Containment.createMultiple("children", concept);
+    children.setID("children-id").setKey("children-key");
+    concept.addFeature(children);
+    Reference reference = Reference.createOptional("ref", concept);
+    reference.setID("ref-id").setKey("ref-key");
+    concept.addFeature(reference);
+
+    // Warm up
+    for (int i = 0; i < 2; i++) {
+      measure("DynamicNode", concept, id -> new DynamicNode(id, concept), false);
+      measure("SlottedDynamicNode", concept, id -> new SlottedDynamicNode(id, concept), false);
+    }
+    measure("DynamicNode", concept, id -> new DynamicNode(id, concept), true);
+    measure("SlottedDynamicNode", concept, id -> new SlottedDynamicNode(id, concept), true);
+  }
+
+  private static void measure(
+      String description, Concept concept, Function<String, Node> factory, boolean report) {
+    List<Property> properties = concept.allProperties();
+    Containment children = concept.allContainments().get(0);
+    Reference reference = concept.allReferences().get(0);
+    String[] ids = new String[NODES];
+    for (int i = 0; i < NODES; i++) {
+      ids[i] = "n" + i;
+    }
+
+    long memoryBefore = usedMemory();
+    long t0 = System.currentTimeMillis();
+    List<Node> nodes = new ArrayList<>(NODES);
+    for (int i = 0; i < NODES; i++) {
+      Node node = factory.apply(ids[i]);
+      // Half of the properties are set, as not all features of a node have usually a value
+      for (int j = 0; j < properties.size(); j += 2) {
+        node.setPropertyValue(properties.get(j), ids[i]);
+      }
+      if (i % 10 != 0) {
+        Node parent = nodes.get(i - i % 10);
+        parent.addChild(children, node);
+        node.addReferenceValue(reference, new ReferenceValue(parent, ids[i - i % 10]));
+      }
+      nodes.add(node);
+    }
+    long t1 = System.currentTimeMillis();
+    long memoryAfter = usedMemory();
+
+    long t2 = System.currentTimeMillis();
+    long reads = 0;
+    for (int k = 0; k < READS; k++) {
+      for (Node node : nodes) {
+        for (Property property : properties) {
+          if (node.getPropertyValue(property) != null) {
+            reads++;
+          }
+        }
+        reads += node.getChildren(children).size();
+        reads += node.getReferenceValues(reference).size();
+      }
+    }
+    long t3 = System.currentTimeMillis();
+
+    if (report) {
+      // The IDs and the property values are shared, so they are not counted
+      System.out.println(
+          "= "
+              + description
+              + ": "
+              + (memoryAfter - memoryBefore) / NODES
+              + " bytes per node, built in "
+              + (t1 - t0)
+              + "ms, "
+              + reads
+              + " values read in "
+              + (t3 - t2)
+              + "ms");
+    }
+    if (nodes.size() != NODES) {
+      throw new IllegalStateException();
+    }
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
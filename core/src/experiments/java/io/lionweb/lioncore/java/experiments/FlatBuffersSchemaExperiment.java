@@ -0,0 +1,81 @@
+package io.lionweb.lioncore.java.experiments;
+
+import io.lionweb.lioncore.java.serialization.FlatBuffersSerialization;
+import io.lionweb.lioncore.java.serialization.LowLevelJsonSerialization;
+import io.lionweb.lioncore.java.serialization.ProtoBufSerialization;
+import io.lionweb.lioncore.java.serialization.ProtoBufStreamReader;
+import io.lionweb.lioncore.java.serialization.SerializationProvider;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compare the size of the chunks produced with the two versions of the FlatBuffers schema, and with
+ * ProtoBuf, and the time needed to decode them, on the JSON chunks used in the tests. The directory
+ * containing the chunks can be specified as the first argument.
+ */
+public class FlatBuffersSchemaExperiment {
+
+  private static final int ITERATIONS = 200;
+
+  public static void main(String[] args) throws IOException {
+    File directory = new File(args.length > 0 ? args[0] : "core/src/test/resources/serialization");
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(".json"));
+    if (files == null) {
+      throw new IllegalArgumentException("Unable to list the files in " + directory);
+    }
+    FlatBuffersSerialization v1 = SerializationProvider.getStandardFlatBuffersSerialization();
+    FlatBuffersSerialization v2 = SerializationProvider.getStandardFlatBuffersSerialization();
+    v2.setSchemaVersion(FlatBuffersSerialization.SchemaVersion.V2);
+    ProtoBufSerialization protoBuf = SerializationProvider.getStandardProtoBufSerialization();
+    LowLevelJsonSerialization json = new LowLevelJsonSerialization();
+
+    for (File file : files) {
+      SerializedChunk chunk;
+      try {
+        chunk = json.deserializeSerializationBlock(file);
+      } catch (RuntimeException e) {
+        // Some of the files are not chunks (e.g., the JSON schema)
+        continue;
+      }
+      byte[] v1Bytes = v1.serialize(chunk);
+      byte[] v2Bytes = v2.serialize(chunk);
+      byte[] pbBytes = protoBuf.serializeToByteArray(chunk);
+
+      long t0 = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        v1.deserializeToSerializationBlock(v1Bytes);
+      }
+      long t1 = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        v2.deserializeToSerializationBlock(v2Bytes);
+      }
+      long t2 = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        ProtoBufStreamReader reader = new ProtoBufStreamReader(pbBytes);
+        while (reader.hasNext()) {
+          reader.next();
+        }
+      }
+      long t3 = System.nanoTime();
+      System.out.println(
+          "= "
+              + file.getName()
+              + " ("
+              + chunk.getClassifierInstances().size()
+              + " nodes): FB v1 "
+              + v1Bytes.length
+              + "B, "
+              + (t1 - t0) / ITERATIONS / 1000
+              + "us; FB v2 "
+              + v2Bytes.length
+              + "B, "
+              + (t2 - t1) / ITERATIONS / 1000
+              + "us; ProtoBuf "
+              + pbBytes.length
+              + "B, "
+              + (t3 - t2) / ITERATIONS / 1000
+              + "us");
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package io.lionweb.lioncore.java.experiments;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.FlatBuffersChunkView;
+import io.lionweb.lioncore.java.serialization.FlatBuffersSerialization;
+import io.lionweb.lioncore.java.serialization.SerializationProvider;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compare loading a FlatBuffers chunk by deserializing it, and by opening a FlatBuffersChunkView
+ * over it: the time needed to load the chunk, the memory used after loading it, and the time needed
+ * to then read one property of each node.
+ */
+public class FlatBuffersViewExperiment {
+
+  private static final int NODES = 500_000;
+  private static final int PROPERTIES = 8;
+
+  public static void main(String[] args) throws IOException {
+    Language language = new Language("ViewLanguage", "view-id", "view-key", "1");
+    Concept concept = new Concept(language, "Element", "element-id", "element-key");
+    for (int i = 0; i < PROPERTIES; i++) {
+      Property property = Property.createOptional("prop" + i, LionCoreBuiltins.getString());
+      property.setID("prop" + i + "-id").setKey("prop" + i + "-key");
+      concept.addFeature(property);
+    }
+    Containment children = Containment.createMultiple("children", concept);
+    children.setID("children-id").setKey("children-key");
+    concept.addFeature(children);
+    Reference reference = Reference.createOptional("ref", concept);
+    reference.setID("ref-id").setKey("ref-key");
+    concept.addFeature(reference);
+
+    DynamicNode root = new DynamicNode("root", concept);
+    for (Property property : concept.allProperties()) {
+      root.setPropertyValue(property, "root");
+    }
+    for (int i = 0; i < NODES - 1; i++) {
+      DynamicNode node = new DynamicNode("n" + i, concept);
+      for (Property property : concept.allProperties()) {
+        node.setPropertyValue(property, property.getName() + "-" + i);
+      }
+      node.addReferenceValue(reference, new ReferenceValue(root, "root"));
+      root.addChild(children, node);
+    }
+    byte[] bytes =
+        SerializationProvider.getStandardFlatBuffersSerialization().serializeTreesToByteArray(root);
+    root = null;
+    System.out.println("= Chunk of " + NODES + " nodes, " + bytes.length / 1024 + "KB");
+
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    Property property = concept.getPropertyByName("prop3");
+
+    for (int i = 0; i < 3; i++) {
+      boolean report = i == 2;
+      long memoryBefore = usedMemory();
+      long t0 = System.currentTimeMillis();
+      List<Node> nodes = serialization.deserializeToNodes(bytes);
+      long t1 = System.currentTimeMillis();
+      long memory = usedMemory() - memoryBefore;
+      long t2 = System.currentTimeMillis();
+      int read = readAll(nodes, property);
+      long t3 = System.currentTimeMillis();
+      if (report) {
+        report("Deserialized", t1 - t0, memory, read, t3 - t2);
+      }
+      nodes = null;
+
+      memoryBefore = usedMemory();
+      t0 = System.currentTimeMillis();
+      FlatBuffersChunkView view = serialization.viewChunk(bytes);
+      t1 = System.currentTimeMillis();
+      memory = usedMemory() - memoryBefore;
+      t2 = System.currentTimeMillis();
+      read = readAll(view.getNodes(), property);
+      t3 = System.currentTimeMillis();
+      if (report) {
+        report("Viewed", t1 - t0, memory, read, t3 - t2);
+      }
+    }
+  }
+
+  private static int readAll(List<Node> nodes, Property property) {
+    int read = 0;
+    for (Node node : nodes) {
+      if (node.getPropertyValue(property) != null) {
+        read++;
+      }
+    }
+    return read;
+  }
+
+  private static void report(String description, long loadTime, long memory, int read, long time) {
+    System.out.println(
+        "= "
+            + description
+            + ": loaded in "
+            + loadTime
+            + "ms, using "
+            + memory / (1024 * 1024)
+            + "MB, "
+            + read
+            + " values read in "
+            + time
+            + "ms");
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
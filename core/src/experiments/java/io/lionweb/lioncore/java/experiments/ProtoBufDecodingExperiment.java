@@ -0,0 +1,78 @@
+package io.lionweb.lioncore.java.experiments;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.ProtoBufSerialization;
+import io.lionweb.lioncore.java.serialization.SerializationProvider;
+import io.lionweb.lioncore.protobuf.PBChunk;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compare decoding a ProtoBuf chunk by first parsing the whole PBChunk message, and by reading it
+ * in a single pass with a ProtoBufStreamReader.
+ */
+public class ProtoBufDecodingExperiment {
+
+  private static final int NODES = 1_000_000;
+  private static final int ITERATIONS = 5;
+
+  public static void main(String[] args) throws IOException {
+    int nodes = args.length > 0 ? Integer.parseInt(args[0]) : NODES;
+    Language language = new Language("PBLanguage", "pb-id", "pb-key", "1");
+    Concept concept = new Concept(language, "Element", "element-id", "element-key");
+    Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+    name.setID("name-id").setKey("name-key");
+    concept.addFeature(name);
+    Containment children = Containment.createMultiple("children", concept);
+    children.setID("children-id").setKey("children-key");
+    concept.addFeature(children);
+    Reference reference = Reference.createOptional("ref", concept);
+    reference.setID("ref-id").setKey("ref-key");
+    concept.addFeature(reference);
+
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "root");
+    DynamicNode parent = root;
+    for (int i = 0; i < nodes - 1; i++) {
+      DynamicNode node = new DynamicNode("n" + i, concept);
+      node.setPropertyValue(name, "name-" + i);
+      node.addReferenceValue(reference, new ReferenceValue(parent, null));
+      // Trees with 100 children per node
+      if (i % 100 == 0 && i > 0) {
+        parent = (DynamicNode) parent.getChildren(children).get(0);
+      }
+      parent.addChild(children, node);
+    }
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    byte[] bytes = serialization.serializeTreesToByteArray(root);
+    root = null;
+    parent = null;
+    System.out.println("= Chunk of " + nodes + " nodes, " + bytes.length / 1024 + "KB");
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+
+    for (int i = 0; i < ITERATIONS; i++) {
+      long t0 = System.currentTimeMillis();
+      List<Node> parsed = serialization.deserializeToNodes(PBChunk.parseFrom(bytes));
+      long t1 = System.currentTimeMillis();
+      parsed = null;
+      long t2 = System.currentTimeMillis();
+      List<Node> streamed = serialization.deserializeToNodes(new ByteArrayInputStream(bytes));
+      long t3 = System.currentTimeMillis();
+      System.out.println(
+          "= Iteration "
+              + i
+              + ": PBChunk "
+              + (t1 - t0)
+              + "ms, single pass "
+              + (t3 - t2)
+              + "ms ("
+              + streamed.size()
+              + " nodes)");
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package io.lionweb.lioncore.java.experiments;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.ProtoBufSerialization;
+import io.lionweb.lioncore.java.serialization.SerializationProvider;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compare encoding a ProtoBuf chunk by building a SerializedChunk and a PBChunk, and by writing the
+ * wire format directly, measuring time and bytes allocated by the current thread.
+ */
+public class ProtoBufEncodingExperiment {
+
+  private static final int NODES = 1_000_000;
+  private static final int ITERATIONS = 5;
+
+  public static void main(String[] args) {
+    int nodes = args.length > 0 ? Integer.parseInt(args[0]) : NODES;
+    Language language = new Language("PBLanguage", "pb-id", "pb-key", "1");
+    Concept concept = new Concept(language, "Element", "element-id", "element-key");
+    Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+    name.setID("name-id").setKey("name-key");
+    concept.addFeature(name);
+    Containment children = Containment.createMultiple("children", concept);
+    children.setID("children-id").setKey("children-key");
+    concept.addFeature(children);
+    Reference reference = Reference.createOptional("ref", concept);
+    reference.setID("ref-id").setKey("ref-key");
+    concept.addFeature(reference);
+
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "root");
+    DynamicNode parent = root;
+    for (int i = 0; i < nodes - 1; i++) {
+      DynamicNode node = new DynamicNode("n" + i, concept);
+      node.setPropertyValue(name, "name-" + i);
+      node.addReferenceValue(reference, new ReferenceValue(parent, null));
+      // Trees with 100 children per node
+      if (i % 100 == 0 && i > 0) {
+        parent = (DynamicNode) parent.getChildren(children).get(0);
+      }
+      parent.addChild(children, node);
+    }
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    System.out.println("= Chunk of " + nodes + " nodes");
+
+    for (int i = 0; i < ITERATIONS; i++) {
+      long a0 = threadMXBean.getThreadAllocatedBytes(threadId);
+      long t0 = System.currentTimeMillis();
+      byte[] viaBuilders = serialization.serializeTree(root).toByteArray();
+      long t1 = System.currentTimeMillis();
+      long a1 = threadMXBean.getThreadAllocatedBytes(threadId);
+      byte[] direct = serialization.serializeTreesToByteArray(root);
+      long t2 = System.currentTimeMillis();
+      long a2 = threadMXBean.getThreadAllocatedBytes(threadId);
+      System.out.println(
+          "= Iteration "
+              + i
+              + ": PBChunk "
+              + (t1 - t0)
+              + "ms, "
+              + (a1 - a0) / (1024 * 1024)
+              + "MB allocated, "
+              + viaBuilders.length / 1024
+              + "KB; direct "
+              + (t2 - t1)
+              + "ms, "
+              + (a2 - a1) / (1024 * 1024)
+              + "MB allocated, "
+              + direct.length / 1024
+              + "KB");
+    }
+  }
+}
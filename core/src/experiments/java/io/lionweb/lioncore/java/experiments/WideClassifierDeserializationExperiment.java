@@ -0,0 +1,131 @@
+package io.lionweb.lioncore.java.experiments;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.JsonSerialization;
+import io.lionweb.lioncore.java.serialization.SerializationProvider;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measure the deserialization throughput for nodes whose Classifier has many inherited features.
+ * Each feature of each node is looked up on the Classifier during deserialization, so this shows
+ * how the cost of those lookups grows with the number of features.
+ */
+public class WideClassifierDeserializationExperiment {
+
+  private static final int HIERARCHY_DEPTH = 10;
+  private static final int PROPERTIES_PER_CONCEPT = 6;
+  private static final int NODES = 20_000;
+  private static final int ITERATIONS = 5;
+  private static final int LOOKUPS = 10_000_000;
+
+  public static void main(String[] args) {
+    Language language = new Language("WideLanguage", "wide-id", "wide-key", "1");
+    Concept concept = buildHierarchy(language);
+    System.out.println(
+        "= Classifier with "
+            + concept.allFeatures().size()
+            + " features, "
+            + (concept.allFeatures().size() - concept.getFeatures().size())
+            + " of them inherited");
+
+    SerializedChunk chunk = buildChunk(concept);
+    JsonSerialization deserialization = SerializationProvider.getStandardJsonSerialization();
+    deserialization.enableDynamicNodes();
+    deserialization.registerLanguage(language);
+
+    // Warm up
+    for (int i = 0; i < 2; i++) {
+      deserialization.deserializeSerializationBlock(chunk);
+    }
+    long t0 = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      deserialization.deserializeSerializationBlock(chunk);
+    }
+    long t1 = System.currentTimeMillis();
+    double nodesPerSecond = ((double) NODES * ITERATIONS * 1000) / Math.max(1, t1 - t0);
+    System.out.println(
+        "= Deserialized "
+            + NODES
+            + " nodes "
+            + ITERATIONS
+            + " times in "
+            + (t1 - t0)
+            + "ms ("
+            + String.format("%.0f", nodesPerSecond)
+            + " nodes/s)");
+
+    List<MetaPointer> metaPointers = new ArrayList<>();
+    for (Property property : concept.allProperties()) {
+      metaPointers.add(
+          new MetaPointer(language.getKey(), language.getVersion(), property.getKey()));
+    }
+    int found = 0;
+    long t2 = System.nanoTime();
+    for (int i = 0; i < LOOKUPS; i++) {
+      if (concept.getPropertyByMetaPointer(metaPointers.get(i % metaPointers.size())) != null) {
+        found++;
+      }
+    }
+    long t3 = System.nanoTime();
+    System.out.println(
+        "= "
+            + found
+            + " lookups by MetaPointer: "
+            + String.format("%.2f", ((double) (t3 - t2)) / LOOKUPS)
+            + "ns per lookup");
+  }
+
+  private static Concept buildHierarchy(Language language) {
+    Concept concept = null;
+    for (int level = 0; level < HIERARCHY_DEPTH; level++) {
+      Concept subConcept =
+          new Concept(
+              language, "Level" + level, "level-" + level + "-id", "level-" + level + "-key");
+      subConcept.setExtendedConcept(concept);
+      for (int i = 0; i < PROPERTIES_PER_CONCEPT; i++) {
+        String name = "prop" + level + "_" + i;
+        Property property = new Property(name, subConcept, name + "-id");
+        property.setKey(name + "-key");
+        property.setType(LionCoreBuiltins.getString());
+        subConcept.addFeature(property);
+      }
+      if (concept == null) {
+        Containment children = Containment.createMultiple("children", subConcept);
+        children.setID("children-id").setKey("children-key");
+        subConcept.addFeature(children);
+        Reference previous = Reference.createOptional("previous", subConcept);
+        previous.setID("previous-id").setKey("previous-key");
+        subConcept.addFeature(previous);
+      }
+      concept = subConcept;
+    }
+    concept.allContainments().get(0).setType(concept);
+    concept.allReferences().get(0).setType(concept);
+    return concept;
+  }
+
+  private static SerializedChunk buildChunk(Concept concept) {
+    Containment children = concept.requireContainmentByName("children");
+    Reference previous = concept.requireReferenceByName("previous");
+    DynamicNode root = new DynamicNode("root", concept);
+    DynamicNode last = null;
+    for (int i = 0; i < NODES - 1; i++) {
+      DynamicNode node = new DynamicNode("n" + i, concept);
+      for (Property property : concept.allProperties()) {
+        node.setPropertyValue(property, property.getName() + "-" + i);
+      }
+      if (last != null) {
+        node.addReferenceValue(previous, new ReferenceValue(last, last.getID()));
+      }
+      root.addChild(children, node);
+      last = node;
+    }
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    return serialization.serializeTreeToSerializationBlock(root);
+  }
+}
@@ -3,8 +3,8 @@ package io.lionweb.lioncore.java.api;
 import io.lionweb.lioncore.java.model.ClassifierInstance;
 import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
 import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.utils.IDMap;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -15,7 +15,8 @@ import javax.annotation.Nullable;
  * ID.
  */
 public class LocalClassifierInstanceResolver implements ClassifierInstanceResolver {
-  private final Map<String, ClassifierInstance<?>> instances = new HashMap<>();
+  private final Map<String, ClassifierInstance<?>> instances = new IDMap<>();
+  private volatile boolean frozen = false;
 
   public LocalClassifierInstanceResolver() {}
 
@@ -27,7 +28,24 @@ public class LocalClassifierInstanceResolver implements ClassifierInstanceResolv
     instances.forEach(n -> add(n));
   }
 
+  /** Prevent adding further instances, so that only the ones added so far can be resolved. */
+  public void freeze() {
+    frozen = true;
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new IllegalStateException(
+          "This LocalClassifierInstanceResolver has been frozen and it cannot be modified");
+    }
+  }
+
   public void add(@Nonnull ClassifierInstance<?> instance) {
+    checkNotFrozen();
     instances.put(instance.getID(), instance);
   }
 
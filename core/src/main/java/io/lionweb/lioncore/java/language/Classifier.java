@@ -4,7 +4,6 @@ import io.lionweb.lioncore.java.LionWebVersion;
 import io.lionweb.lioncore.java.model.impl.M3Node;
 import io.lionweb.lioncore.java.serialization.data.MetaPointer;
 import java.util.*;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -24,6 +23,18 @@ import javax.annotation.Nullable;
  */
 public abstract class Classifier<T extends M3Node> extends LanguageEntity<T>
     implements NamespaceProvider {
+  /**
+   * The layout computed last. It is discarded when this Classifier, one of its ancestors, or the
+   * Language of one of them has been modified after it was computed.
+   */
+  private volatile @Nullable FeatureLayout featureLayout;
+
+  /**
+   * Incremented every time this Classifier or one of its own features is modified. Layouts record
+   * it to detect changes to the features and to the ancestors.
+   */
+  private volatile int modificationStamp;
+
   public Classifier() {
     super();
   }
@@ -47,10 +58,17 @@ public abstract class Classifier<T extends M3Node> extends LanguageEntity<T>
 
   public @Nullable Feature getFeatureByName(@Nonnull String name) {
     Objects.requireNonNull(name, "name should not be null");
-    return allFeatures().stream()
-        .filter(feature -> feature.getName().equals(name))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByName(name, Feature.class);
+  }
+
+  public @Nullable Feature<?> getFeatureByID(@Nonnull String featureID) {
+    Objects.requireNonNull(featureID, "featureID should not be null");
+    return getFeatureLayout().getFeatureByID(featureID, Feature.class);
+  }
+
+  public @Nullable Feature<?> getFeatureByKey(@Nonnull String featureKey) {
+    Objects.requireNonNull(featureKey, "featureKey should not be null");
+    return getFeatureLayout().getFeatureByKey(featureKey, Feature.class);
   }
 
   public abstract @Nonnull List<Classifier<?>> directAncestors();
@@ -76,44 +94,56 @@ public abstract class Classifier<T extends M3Node> extends LanguageEntity<T>
     return result;
   }
 
+  /**
+   * Return all the features of this Classifier, own and inherited. The list is computed once and
+   * reused until this Classifier or its ancestors are modified, and it cannot be modified.
+   */
   public @Nonnull List<Feature<?>> allFeatures() {
+    return getFeatureLayout().getFeatures();
+  }
+
+  /**
+   * Return the layout of the features of this Classifier. The layout is cached, and computed again
+   * only when this Classifier, its ancestors, their features, or the key or the version of their
+   * languages are modified.
+   */
+  public @Nonnull FeatureLayout getFeatureLayout() {
+    FeatureLayout layout = featureLayout;
+    if (layout == null || !layout.isUpToDate()) {
+      List<Classifier<?>> classifiers = new ArrayList<>();
+      classifiers.add(this);
+      classifiers.addAll(allAncestors());
+      layout = new FeatureLayout(classifiers, this::computeAllFeatures);
+      featureLayout = layout;
+    }
+    return layout;
+  }
+
+  private @Nonnull List<Feature<?>> computeAllFeatures() {
     // TODO Should this return features which are overriden?
     // TODO Should features be returned in a particular order?
-    List<Feature<?>> result = new LinkedList<>();
+    List<Feature<?>> result = new ArrayList<>();
     result.addAll(this.getFeatures());
     combineFeatures(result, this.inheritedFeatures());
-
     return result;
   }
 
   public abstract @Nonnull List<Feature<?>> inheritedFeatures();
 
   public @Nonnull List<Property> allProperties() {
-    return allFeatures().stream()
-        .filter(f -> f instanceof Property)
-        .map(f -> (Property) f)
-        .collect(Collectors.toList());
+    return getFeatureLayout().getProperties();
   }
 
   public @Nonnull List<Containment> allContainments() {
-    return allFeatures().stream()
-        .filter(f -> f instanceof Containment)
-        .map(f -> (Containment) f)
-        .collect(Collectors.toList());
+    return getFeatureLayout().getContainments();
   }
 
   public @Nonnull List<Reference> allReferences() {
-    return allFeatures().stream()
-        .filter(f -> f instanceof Reference)
-        .map(f -> (Reference) f)
-        .collect(Collectors.toList());
+    return getFeatureLayout().getReferences();
   }
 
   public @Nonnull List<Link<?>> allLinks() {
-    return allFeatures().stream()
-        .filter(f -> f instanceof Link)
-        .map(f -> (Link<?>) f)
-        .collect(Collectors.toList());
+    return getFeatureLayout().getLinks();
   }
 
   // TODO should this expose an immutable list to force users to use methods on this class
@@ -134,64 +164,43 @@ public abstract class Classifier<T extends M3Node> extends LanguageEntity<T>
     return this.qualifiedName();
   }
 
+  int getModificationStamp() {
+    return modificationStamp;
+  }
+
+  @Override
+  protected void markAsModified() {
+    modificationStamp++;
+  }
+
   public @Nullable Property getPropertyByID(@Nonnull String propertyId) {
     Objects.requireNonNull(propertyId, "propertyId should not be null");
-    return allFeatures().stream()
-        .filter(f -> f instanceof Property)
-        .map(f -> (Property) f)
-        .filter(p -> Objects.equals(p.getID(), propertyId))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByID(propertyId, Property.class);
   }
 
   public @Nullable Property getPropertyByName(@Nonnull String propertyName) {
     Objects.requireNonNull(propertyName, "propertyName should not be null");
-    return allFeatures().stream()
-        .filter(f -> f instanceof Property)
-        .map(f -> (Property) f)
-        .filter(p -> Objects.equals(p.getName(), propertyName))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByName(propertyName, Property.class);
   }
 
   public @Nullable Containment getContainmentByID(@Nonnull String containmentID) {
     Objects.requireNonNull(containmentID, "containmentID should not be null");
-    return allFeatures().stream()
-        .filter(f -> f instanceof Containment)
-        .map(f -> (Containment) f)
-        .filter(c -> Objects.equals(c.getID(), containmentID))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByID(containmentID, Containment.class);
   }
 
   public @Nullable Containment getContainmentByName(@Nonnull String containmentName) {
     Objects.requireNonNull(containmentName, "containmentName should not be null");
-    return allFeatures().stream()
-        .filter(f -> f instanceof Containment)
-        .map(f -> (Containment) f)
-        .filter(c -> Objects.equals(c.getName(), containmentName))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByName(containmentName, Containment.class);
   }
 
   public @Nullable Reference getReferenceByID(@Nonnull String referenceID) {
     Objects.requireNonNull(referenceID, "referenceID should not be null");
-    return allFeatures().stream()
-        .filter(f -> f instanceof Reference)
-        .map(f -> (Reference) f)
-        .filter(c -> Objects.equals(c.getID(), referenceID))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByID(referenceID, Reference.class);
   }
 
   public @Nullable Reference getReferenceByName(@Nonnull String referenceName) {
     Objects.requireNonNull(referenceName, "referenceName should not be null");
-    return allFeatures().stream()
-        .filter(f -> f instanceof Reference)
-        .map(f -> (Reference) f)
-        .filter(c -> Objects.equals(c.getName(), referenceName))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByName(referenceName, Reference.class);
   }
 
   public @Nonnull Containment requireContainmentByName(@Nonnull String containmentName) {
@@ -214,34 +223,19 @@ public abstract class Classifier<T extends M3Node> extends LanguageEntity<T>
 
   public @Nullable Link getLinkByName(@Nonnull String linkName) {
     Objects.requireNonNull(linkName, "linkName should not be null");
-    return allFeatures().stream()
-        .filter(f -> f instanceof Link)
-        .map(f -> (Link) f)
-        .filter(c -> Objects.equals(c.getName(), linkName))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByName(linkName, Link.class);
   }
 
   public @Nullable Property getPropertyByMetaPointer(MetaPointer metaPointer) {
-
-    return this.allProperties().stream()
-        .filter(p -> MetaPointer.from(p).equals(metaPointer))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByMetaPointer(metaPointer, Property.class);
   }
 
   public @Nullable Containment getContainmentByMetaPointer(MetaPointer metaPointer) {
-    return this.allContainments().stream()
-        .filter(p -> MetaPointer.from(p).equals(metaPointer))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByMetaPointer(metaPointer, Containment.class);
   }
 
   public @Nullable Reference getReferenceByMetaPointer(MetaPointer metaPointer) {
-    return this.allReferences().stream()
-        .filter(p -> MetaPointer.from(p).equals(metaPointer))
-        .findFirst()
-        .orElse(null);
+    return getFeatureLayout().getFeatureByMetaPointer(metaPointer, Reference.class);
   }
 
   protected void combineFeatures(List<Feature<?>> featuresA, List<Feature<?>> featuresB) {
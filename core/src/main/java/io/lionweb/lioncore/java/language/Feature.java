@@ -105,6 +105,14 @@ public abstract class Feature<T extends M3Node> extends M3Node<T>
     this.setPropertyValue("name", name);
   }
 
+  /** Changes to a feature can change the layout of the Classifier declaring it. */
+  @Override
+  protected void markAsModified() {
+    if (getParent() instanceof Classifier) {
+      ((Classifier<?>) getParent()).markAsModified();
+    }
+  }
+
   /** The container is always the parent. It is just casted for convenience. */
   @Override
   public @Nullable NamespaceProvider getContainer() {
@@ -0,0 +1,225 @@
+package io.lionweb.lioncore.java.language;
+
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import java.util.*;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The features of a Classifier, including the inherited ones, computed once and shared by all the
+ * operations needing them. Each feature has a position in the layout, and its MetaPointer is
+ * computed in advance. Features can be looked up in constant time by MetaPointer, key, ID and name.
+ *
+ * <p>A FeatureLayout is immutable: when the Classifier or any of its ancestors change, the
+ * Classifier computes a new layout (see {@link Classifier#getFeatureLayout()}).
+ */
+public final class FeatureLayout {
+  // The Classifier and its ancestors, and the languages containing them, with their modification
+  // stamps at the time the layout was computed
+  private final Classifier<?>[] classifiers;
+  private final int[] classifierStamps;
+  private final Language[] languages;
+  private final int[] languageStamps;
+  private final Feature<?>[] features;
+  private final MetaPointer[] metaPointers;
+  private final List<Feature<?>> featuresList;
+  private final List<Property> properties;
+  private final List<Containment> containments;
+  private final List<Reference> references;
+  private final List<Link<?>> links;
+  private final Map<Feature<?>, Integer> indexes;
+  // Features of different kinds can share a key, an ID or a name: each entry keeps the positions
+  // of all the features having it, in the order of the layout
+  private final Map<MetaPointer, int[]> indexesByMetaPointer;
+  private final Map<String, int[]> indexesByKey;
+  private final Map<String, int[]> indexesByID;
+  private final Map<String, int[]> indexesByName;
+
+  /**
+   * @param classifiers the Classifier and its ancestors, whose features are returned by the
+   *     supplier. Their stamps are recorded before the features are computed, so that changes made
+   *     meanwhile are detected by {@link #isUpToDate()}.
+   */
+  FeatureLayout(
+      @Nonnull List<Classifier<?>> classifiers, @Nonnull Supplier<List<Feature<?>>> features) {
+    this.classifiers = classifiers.toArray(new Classifier<?>[0]);
+    this.classifierStamps = new int[this.classifiers.length];
+    Set<Language> languages = new LinkedHashSet<>();
+    for (int i = 0; i < this.classifiers.length; i++) {
+      classifierStamps[i] = this.classifiers[i].getModificationStamp();
+      if (this.classifiers[i].getParent() instanceof Language) {
+        languages.add((Language) this.classifiers[i].getParent());
+      }
+    }
+    this.languages = languages.toArray(new Language[0]);
+    this.languageStamps = new int[this.languages.length];
+    for (int i = 0; i < this.languages.length; i++) {
+      languageStamps[i] = this.languages[i].getMetaPointersStamp();
+    }
+    this.features = features.get().toArray(new Feature<?>[0]);
+    this.metaPointers = new MetaPointer[this.features.length];
+    this.indexes = new IdentityHashMap<>(this.features.length);
+    this.indexesByMetaPointer = new HashMap<>();
+    this.indexesByKey = new HashMap<>();
+    this.indexesByID = new HashMap<>();
+    this.indexesByName = new HashMap<>();
+    List<Property> properties = new ArrayList<>();
+    List<Containment> containments = new ArrayList<>();
+    List<Reference> references = new ArrayList<>();
+    List<Link<?>> links = new ArrayList<>();
+    for (int i = 0; i < this.features.length; i++) {
+      Feature<?> feature = this.features[i];
+      metaPointers[i] = MetaPointer.from(feature);
+      indexes.put(feature, i);
+      addIndex(indexesByMetaPointer, metaPointers[i], i);
+      addIndex(indexesByKey, feature.getKey(), i);
+      addIndex(indexesByID, feature.getID(), i);
+      addIndex(indexesByName, feature.getName(), i);
+      if (feature instanceof Property) {
+        properties.add((Property) feature);
+      } else if (feature instanceof Link) {
+        links.add((Link<?>) feature);
+        if (feature instanceof Containment) {
+          containments.add((Containment) feature);
+        } else if (feature instanceof Reference) {
+          references.add((Reference) feature);
+        }
+      }
+    }
+    this.featuresList = Collections.unmodifiableList(Arrays.asList(this.features));
+    this.properties = immutableCopy(properties, new Property[0]);
+    this.containments = immutableCopy(containments, new Containment[0]);
+    this.references = immutableCopy(references, new Reference[0]);
+    this.links = immutableCopy(links, new Link<?>[0]);
+  }
+
+  /**
+   * A layout is up to date as long as the Classifier and its ancestors have not been modified, and
+   * the keys and versions of their languages, which are part of the MetaPointers, have not changed.
+   */
+  boolean isUpToDate() {
+    for (int i = 0; i < classifiers.length; i++) {
+      if (classifiers[i].getModificationStamp() != classifierStamps[i]) {
+        return false;
+      }
+    }
+    for (int i = 0; i < languages.length; i++) {
+      if (languages[i].getMetaPointersStamp() != languageStamps[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** All the features, own and inherited, in the same order returned by allFeatures. */
+  public @Nonnull List<Feature<?>> getFeatures() {
+    return featuresList;
+  }
+
+  public @Nonnull List<Property> getProperties() {
+    return properties;
+  }
+
+  public @Nonnull List<Containment> getContainments() {
+    return containments;
+  }
+
+  public @Nonnull List<Reference> getReferences() {
+    return references;
+  }
+
+  public @Nonnull List<Link<?>> getLinks() {
+    return links;
+  }
+
+  public int size() {
+    return features.length;
+  }
+
+  public boolean contains(@Nullable Feature<?> feature) {
+    return indexes.containsKey(feature);
+  }
+
+  /**
+   * Return the position of the feature in this layout, or -1 if the feature does not belong to the
+   * Classifier.
+   */
+  public int indexOf(@Nullable Feature<?> feature) {
+    Integer index = indexes.get(feature);
+    return index == null ? -1 : index;
+  }
+
+  public @Nonnull Feature<?> getFeature(int index) {
+    return features[index];
+  }
+
+  public @Nonnull MetaPointer getMetaPointer(int index) {
+    return metaPointers[index];
+  }
+
+  /**
+   * Return the MetaPointer of the given feature, or null if it does not belong to the Classifier.
+   */
+  public @Nullable MetaPointer getMetaPointer(@Nonnull Feature<?> feature) {
+    Integer index = indexes.get(feature);
+    return index == null ? null : metaPointers[index];
+  }
+
+  /**
+   * Return the first feature of the given kind with the given MetaPointer, or null if there is
+   * none.
+   */
+  public @Nullable <F extends Feature<?>> F getFeatureByMetaPointer(
+      @Nullable MetaPointer metaPointer, @Nonnull Class<F> kind) {
+    return firstOfKind(indexesByMetaPointer.get(metaPointer), kind);
+  }
+
+  /** Return the first feature of the given kind with the given key, or null if there is none. */
+  public @Nullable <F extends Feature<?>> F getFeatureByKey(
+      @Nullable String key, @Nonnull Class<F> kind) {
+    return firstOfKind(indexesByKey.get(key), kind);
+  }
+
+  /** Return the first feature of the given kind with the given ID, or null if there is none. */
+  public @Nullable <F extends Feature<?>> F getFeatureByID(
+      @Nullable String id, @Nonnull Class<F> kind) {
+    return firstOfKind(indexesByID.get(id), kind);
+  }
+
+  /** Return the first feature of the given kind with the given name, or null if there is none. */
+  public @Nullable <F extends Feature<?>> F getFeatureByName(
+      @Nullable String name, @Nonnull Class<F> kind) {
+    return firstOfKind(indexesByName.get(name), kind);
+  }
+
+  private @Nullable <F extends Feature<?>> F firstOfKind(
+      @Nullable int[] candidates, @Nonnull Class<F> kind) {
+    if (candidates != null) {
+      for (int index : candidates) {
+        if (kind.isInstance(features[index])) {
+          return kind.cast(features[index]);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static <K> void addIndex(Map<K, int[]> indexesByK, @Nullable K k, int index) {
+    if (k == null) {
+      return;
+    }
+    int[] existing = indexesByK.get(k);
+    if (existing == null) {
+      indexesByK.put(k, new int[] {index});
+    } else {
+      int[] extended = Arrays.copyOf(existing, existing.length + 1);
+      extended[existing.length] = index;
+      indexesByK.put(k, extended);
+    }
+  }
+
+  private static <F> List<F> immutableCopy(List<F> list, F[] template) {
+    return Collections.unmodifiableList(Arrays.asList(list.toArray(template)));
+  }
+}
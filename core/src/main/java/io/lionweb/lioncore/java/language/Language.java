@@ -26,6 +26,12 @@ import javax.annotation.Nullable;
  *     structure aspect</i> in documentation</a>
  */
 public class Language extends M3Node<Language> implements NamespaceProvider, IKeyed<Language> {
+  /**
+   * Incremented every time the key or the version of this Language change, as they are part of the
+   * MetaPointers of its elements.
+   */
+  private volatile int metaPointersStamp;
+
   public Language(@Nonnull LionWebVersion lionWebVersion) {
     super(lionWebVersion);
   }
@@ -84,6 +90,18 @@ public class Language extends M3Node<Language> implements NamespaceProvider, IKe
     return getName();
   }
 
+  int getMetaPointersStamp() {
+    return metaPointersStamp;
+  }
+
+  @Override
+  protected void setPropertyValue(String propertyName, Object value) {
+    super.setPropertyValue(propertyName, value);
+    if ("key".equals(propertyName) || "version".equals(propertyName)) {
+      metaPointersStamp++;
+    }
+  }
+
   public @Nonnull List<Language> dependsOn() {
     return this.getReferenceMultipleValue("dependsOn");
   }
@@ -1,5 +1,6 @@
 package io.lionweb.lioncore.java.model;
 
+import io.lionweb.lioncore.java.language.Containment;
 import javax.annotation.Nullable;
 
 /**
@@ -8,4 +9,14 @@ import javax.annotation.Nullable;
  */
 public interface HasSettableParent {
   void setParent(@Nullable Node parent);
+
+  /**
+   * Set the parent, when the node is added to the children the parent holds in the given
+   * containment, at the given position. Implementations can record the containment and the
+   * position, so that getContainmentFeature and removeChild do not need to scan the children of the
+   * parent. By default only the parent is set.
+   */
+  default void setParent(@Nullable Node parent, @Nullable Containment containment, int position) {
+    setParent(parent);
+  }
 }
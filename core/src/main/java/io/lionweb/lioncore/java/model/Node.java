@@ -66,6 +66,25 @@ public interface Node extends ClassifierInstance<Concept> {
    */
   Containment getContainmentFeature();
 
+  /**
+   * Return the position of this Node among the children its parent holds in the containment
+   * feature, or -1 for root nodes and dangling nodes.
+   */
+  default int getIndexInParent() {
+    Node parent = getParent();
+    Containment containment = getContainmentFeature();
+    if (parent == null || containment == null) {
+      return -1;
+    }
+    List<? extends Node> siblings = parent.getChildren(containment);
+    for (int i = 0; i < siblings.size(); i++) {
+      if (siblings.get(i) == this) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   /**
    * Return a list containing this node and all its descendants. Does <i>not</i> include
    * annotations.
@@ -14,6 +14,16 @@ public abstract class AbstractClassifierInstance<T extends Classifier<T>>
     implements ClassifierInstance<T> {
   protected final List<AnnotationInstance> annotations = new ArrayList<>();
 
+  /**
+   * The containment holding this instance within its parent, and the last known position of this
+   * instance among the children held by it. They are recorded when this instance is added as a
+   * child, forgotten when the parent changes, and checked before being used, as the children can
+   * also be modified through the lists returned by getChildren.
+   */
+  private @Nullable Containment containmentInParent = null;
+
+  private int positionHintInParent = -1;
+
   // Public methods for annotations
 
   @Override
@@ -75,6 +85,9 @@ public abstract class AbstractClassifierInstance<T extends Classifier<T>>
 
   @Override
   public void removeChild(Node child) {
+    if (removeChildInRecordedContainment(child)) {
+      return;
+    }
     for (Containment containment : this.getClassifier().allContainments()) {
       List<? extends Node> children = this.getChildren(containment);
       if (children.remove(child)) {
@@ -88,7 +101,7 @@ public abstract class AbstractClassifierInstance<T extends Classifier<T>>
 
   @Override
   public void removeChild(@Nonnull Containment containment, int index) {
-    if (!getClassifier().allContainments().contains(containment)) {
+    if (!getClassifier().getFeatureLayout().contains(containment)) {
       throw new IllegalArgumentException("Containment not belonging to this concept");
     }
     List<? extends Node> children = this.getChildren(containment);
@@ -100,11 +113,89 @@ public abstract class AbstractClassifierInstance<T extends Classifier<T>>
     }
   }
 
+  // Protected methods for containments
+
+  protected void recordContainmentInParent(@Nullable Containment containment, int position) {
+    this.containmentInParent = containment;
+    this.positionHintInParent = position;
+  }
+
+  protected @Nullable Containment getRecordedContainmentInParent() {
+    return containmentInParent;
+  }
+
+  protected int getPositionHintInParent() {
+    return positionHintInParent;
+  }
+
+  /**
+   * Return the position of this instance among the children the given parent holds in the recorded
+   * containment, or -1 if no containment is recorded or this instance is not held by it anymore, in
+   * which case the recorded containment is forgotten.
+   */
+  protected int indexInRecordedContainment(@Nonnull ClassifierInstance<?> parent) {
+    if (containmentInParent == null
+        || !parent.getClassifier().getFeatureLayout().contains(containmentInParent)) {
+      return -1;
+    }
+    int index = indexOfChild(parent.getChildren(containmentInParent), this, positionHintInParent);
+    if (index == -1) {
+      containmentInParent = null;
+    } else {
+      positionHintInParent = index;
+    }
+    return index;
+  }
+
+  /**
+   * Remove the given child from the containment recorded in it, without looking at the children
+   * held by the other containments.
+   *
+   * @return false if the child has not been removed, as it does not record a containment of this
+   *     instance holding it
+   */
+  protected boolean removeChildInRecordedContainment(@Nonnull Node child) {
+    if (child.getParent() != this || !(child instanceof AbstractClassifierInstance)) {
+      return false;
+    }
+    AbstractClassifierInstance<?> instance = (AbstractClassifierInstance<?>) child;
+    int index = instance.indexInRecordedContainment(this);
+    if (index == -1) {
+      return false;
+    }
+    getChildren(instance.containmentInParent).remove(index);
+    if (child instanceof HasSettableParent) {
+      ((HasSettableParent) child).setParent(null);
+    }
+    return true;
+  }
+
+  /**
+   * Return the position of the child in the list, comparing by identity, or -1. The position hint
+   * is checked first, followed by the positions preceding it, where the child ends up when previous
+   * siblings are removed, and then by the following ones.
+   */
+  protected static int indexOfChild(
+      @Nonnull List<?> children, @Nonnull Object child, int positionHint) {
+    int start = Math.min(positionHint, children.size() - 1);
+    for (int i = start; i >= 0; i--) {
+      if (children.get(i) == child) {
+        return i;
+      }
+    }
+    for (int i = Math.max(start + 1, 0); i < children.size(); i++) {
+      if (children.get(i) == child) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   // Public methods for references
 
   @Override
   public void removeReferenceValue(@Nonnull Reference reference, int index) {
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this concept");
     }
     getReferenceValues(reference).remove(index);
@@ -113,7 +204,7 @@ public abstract class AbstractClassifierInstance<T extends Classifier<T>>
   @Override
   public void removeReferenceValue(
       @Nonnull Reference reference, @Nullable ReferenceValue referenceValue) {
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this concept");
     }
     if (!getReferenceValues(reference).remove(referenceValue)) {
@@ -58,8 +58,8 @@ public class DynamicAnnotationInstance extends DynamicClassifierInstance<Annotat
       // necessary to avoid infinite loops
       return;
     }
-    if (this.annotated != null && this.annotated instanceof DynamicNode) {
-      ((DynamicNode) this.annotated).tryToRemoveAnnotation(this);
+    if (this.annotated != null && this.annotated instanceof AbstractClassifierInstance) {
+      ((AbstractClassifierInstance<?>) this.annotated).tryToRemoveAnnotation(this);
     }
     this.annotated = annotated;
     if (this.annotated != null && this.annotated instanceof AbstractClassifierInstance) {
@@ -35,7 +35,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
   public Object getPropertyValue(@Nonnull Property property) {
     Objects.requireNonNull(property, "Property should not be null");
     Objects.requireNonNull(property.getKey(), "Property.key should not be null");
-    if (!getClassifier().allProperties().contains(property)) {
+    if (!getClassifier().getFeatureLayout().contains(property)) {
       throw new IllegalArgumentException("Property not belonging to this classifier");
     }
     Object storedValue = propertyValues.get(property.getKey());
@@ -51,7 +51,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
   public void setPropertyValue(@Nonnull Property property, @Nullable Object value) {
     Objects.requireNonNull(property, "Property should not be null");
     Objects.requireNonNull(property.getKey(), "Cannot assign a property with no Key specified");
-    if (!getClassifier().allProperties().contains(property)) {
+    if (!getClassifier().getFeatureLayout().contains(property)) {
       throw new IllegalArgumentException(
           "Property " + property + " is not belonging to classifier " + getClassifier());
     }
@@ -70,7 +70,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
   public List<Node> getChildren(@Nonnull Containment containment) {
     Objects.requireNonNull(containment, "Containment should not be null");
     Objects.requireNonNull(containment.getKey(), "Containment.key should not be null");
-    if (!getClassifier().allContainments().contains(containment)) {
+    if (!getClassifier().getFeatureLayout().contains(containment)) {
       throw new IllegalArgumentException("Containment not belonging to this concept");
     }
     if (containmentValues.containsKey(containment.getKey())) {
@@ -93,6 +93,9 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
 
   @Override
   public void removeChild(Node node) {
+    if (removeChildInRecordedContainment(node)) {
+      return;
+    }
     for (Map.Entry<String, List<Node>> entry : containmentValues.entrySet()) {
       if (entry.getValue().contains(node)) {
         entry.getValue().remove(node);
@@ -109,7 +112,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
   public void removeChild(@Nonnull Containment containment, int index) {
     Objects.requireNonNull(containment);
     Objects.requireNonNull(containment.getKey());
-    if (!getClassifier().allContainments().contains(containment)) {
+    if (!getClassifier().getFeatureLayout().contains(containment)) {
       throw new IllegalArgumentException("Containment not belonging to this concept");
     }
     if (containmentValues.containsKey(containment.getKey())) {
@@ -128,7 +131,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
   public List<ReferenceValue> getReferenceValues(@Nonnull Reference reference) {
     Objects.requireNonNull(reference);
     Objects.requireNonNull(reference.getKey());
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this concept");
     }
     if (referenceValues.containsKey(reference.getKey())) {
@@ -155,7 +158,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
       @Nonnull Reference reference, @Nullable ReferenceValue referenceValue) {
     Objects.requireNonNull(reference, "Reference should not be null");
     Objects.requireNonNull(reference.getKey(), "Reference.key should not be null");
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this concept");
     }
     if (referenceValues.containsKey(reference.getKey())) {
@@ -183,7 +186,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
   public void removeReferenceValue(@Nonnull Reference reference, int index) {
     Objects.requireNonNull(reference, "Reference should not be null");
     Objects.requireNonNull(reference.getKey(), "Reference.key should not be null");
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this classifier");
     }
     if (referenceValues.containsKey(reference.getKey())) {
@@ -205,7 +208,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
       @Nonnull Reference reference, @Nonnull List<? extends ReferenceValue> values) {
     Objects.requireNonNull(reference, "Reference should not be null");
     Objects.requireNonNull(reference.getKey(), "Reference.key should not be null");
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this classifier");
     }
     referenceValues.put(reference.getKey(), (List<ReferenceValue>) values);
@@ -215,11 +218,13 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
 
   private void addContainment(Containment link, Node value) {
     assert link.isMultiple();
+    List<Node> children = containmentValues.get(link.getKey());
     if (value instanceof HasSettableParent) {
-      ((HasSettableParent) value).setParent((Node) this);
+      ((HasSettableParent) value)
+          .setParent((Node) this, link, children == null ? 0 : children.size());
     }
-    if (containmentValues.containsKey(link.getKey())) {
-      containmentValues.get(link.getKey()).add(value);
+    if (children != null) {
+      children.add(value);
     } else {
       containmentValues.put(link.getKey(), new ArrayList(Arrays.asList(value)));
     }
@@ -235,7 +240,7 @@ public abstract class DynamicClassifierInstance<T extends Classifier<T>>
       containmentValues.remove(link.getKey());
     } else {
       if (value instanceof HasSettableParent) {
-        ((HasSettableParent) value).setParent((Node) this);
+        ((HasSettableParent) value).setParent((Node) this, link, 0);
       }
       containmentValues.put(link.getKey(), new ArrayList(Arrays.asList(value)));
     }
@@ -48,6 +48,9 @@ public class DynamicNode extends DynamicClassifierInstance<Concept>
     if (parent == null) {
       return null;
     }
+    if (indexInRecordedContainment(parent) != -1) {
+      return getRecordedContainmentInParent();
+    }
     for (Containment containment : parent.getClassifier().allContainments()) {
       if (parent.getChildren(containment).stream().anyMatch(it -> it == this)) {
         return containment;
@@ -56,9 +59,27 @@ public class DynamicNode extends DynamicClassifierInstance<Concept>
     throw new IllegalStateException("Unable to find the containment feature");
   }
 
+  @Override
+  public int getIndexInParent() {
+    if (parent == null) {
+      return -1;
+    }
+    int index = indexInRecordedContainment(parent);
+    return index != -1 ? index : Node.super.getIndexInParent();
+  }
+
   @Override
   public void setParent(Node parent) {
+    if (parent != this.parent) {
+      recordContainmentInParent(null, -1);
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public void setParent(@Nullable Node parent, @Nullable Containment containment, int position) {
     this.parent = parent;
+    recordContainmentInParent(containment, position);
   }
 
   @Override
@@ -95,7 +116,7 @@ public class DynamicNode extends DynamicClassifierInstance<Concept>
             });
   }
 
-  private static boolean shallowNodeEquality(@Nullable Node node1, @Nullable Node node2) {
+  static boolean shallowNodeEquality(@Nullable Node node1, @Nullable Node node2) {
     if (node1 == null && node2 == null) {
       return true;
     }
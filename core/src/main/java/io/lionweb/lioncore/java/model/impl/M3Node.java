@@ -33,6 +33,8 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
   // The reason why we do that, is to avoid a circular dependency as the classes for defining
   // language
   // elements are inheriting from this class.
+  // For the same reason, children added to these maps only record their position in the parent,
+  // and not the containment holding them.
   private final Map<String, Object> propertyValues = new HashMap<>();
   private final Map<String, List<Node>> containmentValues = new HashMap<>();
   private final Map<String, List<ReferenceValue>> referenceValues = new HashMap<>();
@@ -48,11 +50,13 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
 
   public T setID(String id) {
     this.id = id;
+    markAsModified();
     return (T) this;
   }
 
   public T setParent(Node parent) {
     this.parent = parent;
+    markAsModified();
     return (T) this;
   }
 
@@ -71,13 +75,28 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
 
   @Override
   public Containment getContainmentFeature() {
-    throw new UnsupportedOperationException();
+    if (parent == null) {
+      return null;
+    }
+    if (parent instanceof M3Node) {
+      String linkName = ((M3Node<?>) parent).findLinkOfChild(this);
+      if (linkName != null) {
+        return parent.getClassifier().requireContainmentByName(linkName);
+      }
+    } else {
+      for (Containment containment : parent.getClassifier().allContainments()) {
+        if (parent.getChildren(containment).stream().anyMatch(it -> it == this)) {
+          return containment;
+        }
+      }
+    }
+    throw new IllegalStateException("Unable to find the containment feature");
   }
 
   @Override
   public @Nullable Object getPropertyValue(@Nonnull Property property) {
     Objects.requireNonNull(property, "property should not be null");
-    if (!getClassifier().allProperties().contains(property)) {
+    if (!getClassifier().getFeatureLayout().contains(property)) {
       throw new IllegalArgumentException("Property not belonging to this concept: " + property);
     }
     return propertyValues.get(property.getName());
@@ -104,7 +123,7 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
   @Override
   public void setPropertyValue(@Nonnull Property property, @Nullable Object value) {
     Objects.requireNonNull(property, "property should not be null");
-    if (!getClassifier().allProperties().contains(property)) {
+    if (!getClassifier().getFeatureLayout().contains(property)) {
       throw new IllegalArgumentException("Property not belonging to this concept");
     }
     setPropertyValue(property.getName(), value);
@@ -112,12 +131,13 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
 
   protected void setPropertyValue(String propertyName, Object value) {
     propertyValues.put(propertyName, value);
+    markAsModified();
   }
 
   @Override
   public @Nonnull List<Node> getChildren(@Nonnull Containment containment) {
     Objects.requireNonNull(containment, "containment should not be null");
-    if (!getClassifier().allContainments().contains(containment)) {
+    if (!getClassifier().getFeatureLayout().contains(containment)) {
       throw new IllegalArgumentException("Containment not belonging to this concept");
     }
     return containmentValues.getOrDefault(containment.getName(), Collections.emptyList());
@@ -137,14 +157,23 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
   @Override
   public void removeChild(@Nonnull Node child) {
     Objects.requireNonNull(child);
-    throw new UnsupportedOperationException();
+    String linkName = findLinkOfChild(child);
+    if (linkName == null) {
+      return;
+    }
+    M3Node<?> m3Child = (M3Node<?>) child;
+    List<Node> values = containmentValues.get(linkName);
+    values.remove(indexOfChild(values, child, m3Child.getPositionHintInParent()));
+    m3Child.setParent(null);
+    m3Child.recordContainmentInParent(null, -1);
+    markAsModified();
   }
 
   @Nonnull
   @Override
   public List<ReferenceValue> getReferenceValues(@Nonnull Reference reference) {
     Objects.requireNonNull(reference, "reference should not be null");
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this concept");
     }
     return referenceValues.getOrDefault(reference.getName(), Collections.emptyList());
@@ -154,7 +183,7 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
   public void addReferenceValue(
       @Nonnull Reference reference, @Nullable ReferenceValue referenceValue) {
     Objects.requireNonNull(reference, "reference should not be null");
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this concept: " + reference);
     }
     if (reference.isMultiple()) {
@@ -168,10 +197,11 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
   public void setReferenceValues(
       @Nonnull Reference reference, @Nonnull List<? extends ReferenceValue> values) {
     Objects.requireNonNull(reference, "reference should not be null");
-    if (!getClassifier().allReferences().contains(reference)) {
+    if (!getClassifier().getFeatureLayout().contains(reference)) {
       throw new IllegalArgumentException("Reference not belonging to this concept");
     }
     referenceValues.put(reference.getName(), (List<ReferenceValue>) values);
+    markAsModified();
   }
 
   @Nullable
@@ -252,8 +282,10 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
       containmentValues.remove(linkName);
     } else {
       ((M3Node) value).setParent(this);
+      ((M3Node) value).recordContainmentInParent(null, 0);
       containmentValues.put(linkName, new ArrayList(Arrays.asList(value)));
     }
+    markAsModified();
   }
 
   /*
@@ -267,6 +299,7 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
     } else {
       referenceValues.put(linkName, new ArrayList(Arrays.asList(value)));
     }
+    markAsModified();
   }
 
   /**
@@ -278,18 +311,79 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
     if (value == null) {
       return false;
     }
-    if (getContainmentMultipleValue(linkName).contains(value)) {
+    List<Node> values = containmentValues.get(linkName);
+    if (values != null && isAmongChildren(values, value)) {
       return false;
     }
     ((M3Node) value).setParent(this);
-    if (containmentValues.containsKey(linkName)) {
-      containmentValues.get(linkName).add(value);
+    ((M3Node) value).recordContainmentInParent(null, values == null ? 0 : values.size());
+    if (values != null) {
+      values.add(value);
     } else {
       containmentValues.put(linkName, new ArrayList(Arrays.asList(value)));
     }
+    markAsModified();
     return true;
   }
 
+  /**
+   * Nodes without parent are not among the children, and nodes whose parent is this node are found
+   * starting from the position recorded when they have been added. Nodes pointing to this node as
+   * parent without a recorded position, like the ones created by the constructors taking their
+   * container, have never been added, so they are not among the children either. The children are
+   * only scanned in full for nodes with a different parent, or held by a different link.
+   */
+  private boolean isAmongChildren(List<Node> values, Node value) {
+    Node valueParent = value.getParent();
+    if (valueParent == null) {
+      return false;
+    }
+    if (valueParent == this && value instanceof M3Node) {
+      M3Node<?> m3Value = (M3Node<?>) value;
+      int positionHint = m3Value.getPositionHintInParent();
+      if (positionHint == -1) {
+        return false;
+      }
+      int index = indexOfChild(values, value, positionHint);
+      if (index != -1) {
+        m3Value.recordContainmentInParent(null, index);
+      }
+      return index != -1;
+    }
+    return values.contains(value);
+  }
+
+  /**
+   * Return the name of the link holding the given child, or null if it is not a child of this node.
+   * The position recorded by the child is checked first in each link, and recorded again when the
+   * child is found through a scan of the links.
+   */
+  private @Nullable String findLinkOfChild(@Nonnull Node child) {
+    if (child.getParent() != this || !(child instanceof M3Node)) {
+      return null;
+    }
+    M3Node<?> m3Child = (M3Node<?>) child;
+    int positionHint = m3Child.getPositionHintInParent();
+    if (positionHint != -1) {
+      for (Map.Entry<String, List<Node>> entry : containmentValues.entrySet()) {
+        List<Node> values = entry.getValue();
+        if (positionHint < values.size() && values.get(positionHint) == child) {
+          return entry.getKey();
+        }
+      }
+    }
+    for (Map.Entry<String, List<Node>> entry : containmentValues.entrySet()) {
+      List<Node> values = entry.getValue();
+      for (int i = 0; i < values.size(); i++) {
+        if (values.get(i) == child) {
+          m3Child.recordContainmentInParent(null, i);
+          return entry.getKey();
+        }
+      }
+    }
+    return null;
+  }
+
   protected void addReferenceMultipleValue(String linkName, ReferenceValue value) {
     if (value == null) {
       return;
@@ -299,10 +393,17 @@ public abstract class M3Node<T extends M3Node> extends AbstractClassifierInstanc
     } else {
       referenceValues.put(linkName, new ArrayList(Arrays.asList(value)));
     }
+    markAsModified();
   }
 
   @Nonnull
   public LionWebVersion getLionWebVersion() {
     return lionWebVersion;
   }
+
+  /**
+   * Invoked every time this node is modified. Language elements override it to discard the
+   * information derived from them, like the feature layout of classifiers.
+   */
+  protected void markAsModified() {}
 }
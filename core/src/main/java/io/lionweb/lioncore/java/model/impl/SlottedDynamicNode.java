@@ -0,0 +1,514 @@
+package io.lionweb.lioncore.java.model.impl;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.HasSettableParent;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A variant of {@link DynamicNode} which stores the values of its features in a single array,
+ * indexed by the position of each feature in the {@link FeatureLayout} of the Concept. Lists of
+ * children and of reference values are created only when the first value is added. This reduces the
+ * memory needed for each node and the cost of accessing its features, which matters when working
+ * with millions of nodes.
+ *
+ * <p>The behavior, as seen through {@link io.lionweb.lioncore.java.model.HasFeatureValues}, is the
+ * same of DynamicNode. Methods reading values do not modify the node, so they can be invoked from
+ * several threads, as long as the node is not being modified.
+ */
+public class SlottedDynamicNode extends AbstractClassifierInstance<Concept>
+    implements Node, HasSettableParent {
+  /** The ID should _eventually_ be not null. */
+  private @Nullable String id;
+
+  private @Nullable Node parent = null;
+  private @Nullable Concept concept;
+
+  /** The layout the slots are indexed by. */
+  private @Nullable FeatureLayout layout = null;
+
+  /**
+   * One slot for each feature: property values are stored as they are, while containments and
+   * references store the list of their values, or null when they have none.
+   */
+  private @Nullable Object[] slots = null;
+
+  public SlottedDynamicNode(@Nonnull String id, @Nonnull Concept concept) {
+    this.id = id;
+    this.concept = concept;
+  }
+
+  public SlottedDynamicNode() {
+    this.id = null;
+    this.concept = null;
+  }
+
+  @Nullable
+  @Override
+  public String getID() {
+    return id;
+  }
+
+  /** The ID can be _temporarily_ set to null, but _eventually_ it should be not null. */
+  public void setID(@Nullable String id) {
+    this.id = id;
+  }
+
+  public void setConcept(Concept concept) {
+    this.concept = concept;
+  }
+
+  @Override
+  public Node getParent() {
+    return this.parent;
+  }
+
+  @Override
+  public void setParent(Node parent) {
+    if (parent != this.parent) {
+      recordContainmentInParent(null, -1);
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public void setParent(@Nullable Node parent, @Nullable Containment containment, int position) {
+    this.parent = parent;
+    recordContainmentInParent(containment, position);
+  }
+
+  @Override
+  public Concept getClassifier() {
+    return this.concept;
+  }
+
+  @Override
+  @Nullable
+  public Containment getContainmentFeature() {
+    if (parent == null) {
+      return null;
+    }
+    if (indexInRecordedContainment(parent) != -1) {
+      return getRecordedContainmentInParent();
+    }
+    for (Containment containment : parent.getClassifier().allContainments()) {
+      if (parent.getChildren(containment).stream().anyMatch(it -> it == this)) {
+        return containment;
+      }
+    }
+    throw new IllegalStateException("Unable to find the containment feature");
+  }
+
+  @Override
+  public int getIndexInParent() {
+    if (parent == null) {
+      return -1;
+    }
+    int index = indexInRecordedContainment(parent);
+    return index != -1 ? index : Node.super.getIndexInParent();
+  }
+
+  // Public methods for properties
+
+  @Override
+  public Object getPropertyValue(@Nonnull Property property) {
+    Objects.requireNonNull(property, "Property should not be null");
+    Object storedValue = readValue(property, () -> "Property not belonging to this classifier");
+    if (storedValue == null
+        && property.getType() == LionCoreBuiltins.getBoolean()
+        && property.isRequired()) {
+      return false;
+    }
+    return storedValue;
+  }
+
+  @Override
+  public void setPropertyValue(@Nonnull Property property, @Nullable Object value) {
+    Objects.requireNonNull(property, "Property should not be null");
+    int index =
+        slotIndex(
+            property, () -> "Property " + property + " is not belonging to classifier " + concept);
+    if ((value == null || value == Boolean.FALSE) && property.isRequired()) {
+      // We do not store values corresponding to default values, so that comparisons of instances
+      // can be simplified
+      writeSlot(index, null);
+    } else {
+      writeSlot(index, value);
+    }
+  }
+
+  // Public methods for containments
+
+  @Override
+  public List<Node> getChildren(@Nonnull Containment containment) {
+    Objects.requireNonNull(containment, "Containment should not be null");
+    List<Node> children =
+        (List<Node>) readValue(containment, () -> "Containment not belonging to this concept");
+    return children == null ? Collections.emptyList() : children;
+  }
+
+  @Override
+  public void addChild(@Nonnull Containment containment, @Nonnull Node child) {
+    Objects.requireNonNull(containment);
+    Objects.requireNonNull(child);
+    int index = slotIndex(containment, () -> "Containment not belonging to this concept");
+    if (containment.isMultiple()) {
+      List<Node> children = (List<Node>) readSlot(index);
+      if (children == null) {
+        children = new ArrayList<>(1);
+        writeSlot(index, children);
+      }
+      if (child instanceof HasSettableParent) {
+        ((HasSettableParent) child).setParent(this, containment, children.size());
+      }
+      children.add(child);
+    } else {
+      List<Node> previousChildren = (List<Node>) readSlot(index);
+      if (previousChildren != null) {
+        new ArrayList<>(previousChildren).forEach(this::removeChild);
+      }
+      if (child instanceof HasSettableParent) {
+        ((HasSettableParent) child).setParent(this, containment, 0);
+      }
+      List<Node> children = new ArrayList<>(1);
+      children.add(child);
+      writeSlot(index, children);
+    }
+  }
+
+  @Override
+  public void removeChild(Node node) {
+    if (removeChildInRecordedContainment(node)) {
+      return;
+    }
+    FeatureLayout currentLayout = updateLayout();
+    if (slots != null) {
+      for (Containment containment : currentLayout.getContainments()) {
+        List<Node> children = (List<Node>) slots[currentLayout.indexOf(containment)];
+        if (children != null && children.remove(node)) {
+          if (node instanceof HasSettableParent) {
+            ((HasSettableParent) node).setParent(null);
+          }
+          return;
+        }
+      }
+    }
+    throw new IllegalArgumentException("The given node is not a child of this node");
+  }
+
+  @Override
+  public void removeChild(@Nonnull Containment containment, int index) {
+    Objects.requireNonNull(containment);
+    List<Node> children =
+        (List<Node>)
+            readSlot(slotIndex(containment, () -> "Containment not belonging to this concept"));
+    if (children != null) {
+      if (children.size() > index) {
+        children.remove(index);
+      } else {
+        throw new IllegalArgumentException(
+            "Invalid index " + index + " when children are " + children.size());
+      }
+    }
+  }
+
+  // Public methods for references
+
+  @Nonnull
+  @Override
+  public List<ReferenceValue> getReferenceValues(@Nonnull Reference reference) {
+    Objects.requireNonNull(reference);
+    List<ReferenceValue> values =
+        (List<ReferenceValue>)
+            readValue(reference, () -> "Reference not belonging to this concept");
+    return values == null ? Collections.emptyList() : values;
+  }
+
+  @Override
+  public void addReferenceValue(@Nonnull Reference reference, @Nullable ReferenceValue value) {
+    Objects.requireNonNull(reference, "Reference should not be null");
+    int index = slotIndex(reference, () -> "Reference not belonging to this concept");
+    if (reference.isMultiple()) {
+      if (value != null) {
+        List<ReferenceValue> values = (List<ReferenceValue>) readSlot(index);
+        if (values == null) {
+          values = new ArrayList<>(1);
+          writeSlot(index, values);
+        }
+        values.add(value);
+      }
+    } else {
+      if (value == null) {
+        writeSlot(index, null);
+      } else {
+        List<ReferenceValue> values = new ArrayList<>(1);
+        values.add(value);
+        writeSlot(index, values);
+      }
+    }
+  }
+
+  @Override
+  public void removeReferenceValue(
+      @Nonnull Reference reference, @Nullable ReferenceValue referenceValue) {
+    Objects.requireNonNull(reference, "Reference should not be null");
+    List<ReferenceValue> values =
+        (List<ReferenceValue>)
+            readSlot(slotIndex(reference, () -> "Reference not belonging to this concept"));
+    if (values != null && values.remove(referenceValue)) {
+      return;
+    }
+    throw new IllegalArgumentException(
+        "The given reference value could not be found under reference " + reference.getName());
+  }
+
+  @Override
+  public void removeReferenceValue(@Nonnull Reference reference, int index) {
+    Objects.requireNonNull(reference, "Reference should not be null");
+    List<ReferenceValue> values =
+        (List<ReferenceValue>)
+            readSlot(slotIndex(reference, () -> "Reference not belonging to this classifier"));
+    if (values != null) {
+      if (values.size() > index) {
+        values.remove(index);
+      } else {
+        throw new IllegalArgumentException(
+            "Invalid index " + index + " when reference values are " + values.size());
+      }
+    }
+  }
+
+  @Override
+  public void setReferenceValues(
+      @Nonnull Reference reference, @Nonnull List<? extends ReferenceValue> values) {
+    Objects.requireNonNull(reference, "Reference should not be null");
+    writeSlot(
+        slotIndex(reference, () -> "Reference not belonging to this classifier"),
+        (List<ReferenceValue>) values);
+  }
+
+  // Private methods for slots
+
+  /**
+   * Move the values to the positions of their features in the current layout of the Concept, if it
+   * differs from the layout the slots are indexed by, and return it. Values of features no longer
+   * belonging to the Concept are dropped. It is invoked only by the methods modifying the node.
+   */
+  private @Nonnull FeatureLayout updateLayout() {
+    FeatureLayout currentLayout = concept.getFeatureLayout();
+    if (currentLayout != layout) {
+      if (slots != null && layout != null) {
+        Object[] newSlots = new Object[currentLayout.size()];
+        for (int i = 0; i < slots.length; i++) {
+          int newIndex = currentLayout.indexOf(layout.getFeature(i));
+          if (newIndex != -1) {
+            newSlots[newIndex] = slots[i];
+          }
+        }
+        slots = newSlots;
+      }
+      layout = currentLayout;
+    }
+    return currentLayout;
+  }
+
+  /**
+   * Return the position of the feature in the current layout, after moving the values to it. It is
+   * invoked only by the methods modifying the node.
+   */
+  private int slotIndex(@Nonnull Feature<?> feature, @Nonnull Supplier<String> errorMessage) {
+    int index = updateLayout().indexOf(feature);
+    if (index == -1) {
+      throw new IllegalArgumentException(errorMessage.get());
+    }
+    return index;
+  }
+
+  /**
+   * Return the value of the feature, which should belong to the current layout of the Concept. The
+   * node is not modified: when the slots are indexed by a previous layout, the value is looked up
+   * at the position the feature had in it.
+   */
+  private @Nullable Object readValue(
+      @Nonnull Feature<?> feature, @Nonnull Supplier<String> errorMessage) {
+    FeatureLayout currentLayout = concept.getFeatureLayout();
+    int index = currentLayout.indexOf(feature);
+    if (index == -1) {
+      throw new IllegalArgumentException(errorMessage.get());
+    }
+    Object[] currentSlots = slots;
+    if (currentSlots == null) {
+      return null;
+    }
+    FeatureLayout slotsLayout = layout;
+    if (slotsLayout != currentLayout) {
+      index = slotsLayout.indexOf(feature);
+      if (index == -1) {
+        return null;
+      }
+    }
+    return currentSlots[index];
+  }
+
+  /** Return the value of the feature, or null if it has none, without modifying the node. */
+  private @Nullable Object valueOf(@Nonnull Feature<?> feature) {
+    Object[] currentSlots = slots;
+    if (currentSlots == null) {
+      return null;
+    }
+    int index = layout.indexOf(feature);
+    return index == -1 ? null : currentSlots[index];
+  }
+
+  /** Return the value at the given position of the current layout, obtained from slotIndex. */
+  private @Nullable Object readSlot(int index) {
+    return slots == null ? null : slots[index];
+  }
+
+  private void writeSlot(int index, @Nullable Object value) {
+    if (slots == null) {
+      if (value == null) {
+        return;
+      }
+      slots = new Object[layout.size()];
+    }
+    slots[index] = value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof SlottedDynamicNode)) {
+      return false;
+    }
+    SlottedDynamicNode that = (SlottedDynamicNode) o;
+    return Objects.equals(id, that.id)
+        && DynamicNode.shallowNodeEquality(parent, that.parent)
+        && DynamicNode.shallowNodeEquality(concept, that.concept)
+        && sameFeatureValues(that)
+        && Objects.equals(annotations, that.annotations);
+  }
+
+  /**
+   * Features are matched by MetaPointer, so that nodes of different instances of the same Concept
+   * can be compared. Missing lists of values are considered equal to empty ones.
+   */
+  private boolean sameFeatureValues(@Nonnull SlottedDynamicNode that) {
+    if (concept == null || that.concept == null) {
+      return concept == that.concept;
+    }
+    FeatureLayout thisLayout = concept.getFeatureLayout();
+    FeatureLayout thatLayout = that.concept.getFeatureLayout();
+    if (thisLayout.size() != thatLayout.size()) {
+      return false;
+    }
+    for (int i = 0; i < thisLayout.size(); i++) {
+      MetaPointer metaPointer = thisLayout.getMetaPointer(i);
+      Feature<?> feature = thisLayout.getFeature(i);
+      Feature<?> thatFeature = thatLayout.getFeatureByMetaPointer(metaPointer, Feature.class);
+      if (thatFeature == null) {
+        return false;
+      }
+      Object thisValue = valueOf(feature);
+      Object thatValue = that.valueOf(thatFeature);
+      if (feature instanceof Containment) {
+        if (!shallowChildrenEquality((List<Node>) thisValue, (List<Node>) thatValue)) {
+          return false;
+        }
+      } else if (feature instanceof Reference) {
+        if (!Objects.equals(
+            thisValue == null ? Collections.emptyList() : thisValue,
+            thatValue == null ? Collections.emptyList() : thatValue)) {
+          return false;
+        }
+      } else if (!Objects.equals(thisValue, thatValue)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean shallowChildrenEquality(
+      @Nullable List<Node> children1, @Nullable List<Node> children2) {
+    List<Node> nodes1 = children1 == null ? Collections.emptyList() : children1;
+    List<Node> nodes2 = children2 == null ? Collections.emptyList() : children2;
+    if (nodes1.size() != nodes2.size()) {
+      return false;
+    }
+    for (int i = 0; i < nodes1.size(); i++) {
+      if (!DynamicNode.shallowNodeEquality(nodes1.get(i), nodes2.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id);
+  }
+
+  @Override
+  public String toString() {
+    String qualifiedName;
+    try {
+      qualifiedName = concept.qualifiedName();
+    } catch (RuntimeException t) {
+      qualifiedName = "<cannot be calculated>";
+    }
+    StringBuilder propertyValues = new StringBuilder();
+    StringBuilder containmentValues = new StringBuilder();
+    StringBuilder referenceValues = new StringBuilder();
+    if (slots != null) {
+      for (int i = 0; i < slots.length; i++) {
+        if (slots[i] == null) {
+          continue;
+        }
+        Feature<?> feature = layout.getFeature(i);
+        if (feature instanceof Property) {
+          append(propertyValues, feature.getKey() + "=" + slots[i]);
+        } else if (feature instanceof Containment) {
+          List<Node> children = (List<Node>) slots[i];
+          String childrenRepr =
+              children.stream().map(c -> c.getID()).collect(Collectors.joining(", "));
+          append(containmentValues, feature.getKey() + "=" + childrenRepr);
+        } else {
+          append(referenceValues, feature.getKey() + "=" + slots[i]);
+        }
+      }
+    }
+
+    return "SlottedDynamicNode{"
+        + "id='"
+        + id
+        + '\''
+        + ", parent="
+        + (parent == null ? "null" : parent.getID())
+        + ", concept="
+        + qualifiedName
+        + ", propertyValues={"
+        + propertyValues
+        + "}, containmentValues={"
+        + containmentValues
+        + "}, referenceValues={"
+        + referenceValues
+        + "}, annotations={"
+        + annotations
+        + "} }";
+  }
+
+  private static void append(@Nonnull StringBuilder sb, @Nonnull String entry) {
+    if (sb.length() > 0) {
+      sb.append(", ");
+    }
+    sb.append(entry);
+  }
+}
@@ -0,0 +1,203 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static io.lionweb.lioncore.java.utils.Autoresolve.LIONCOREBUILTINS_AUTORESOLVE_PREFIX;
+import static io.lionweb.lioncore.java.utils.Autoresolve.LIONCORE_AUTORESOLVE_PREFIX;
+
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.language.LanguageEntity;
+import io.lionweb.lioncore.java.language.LionCoreBuiltins;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.self.LionCore;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only collection of classifier instances, identified by their position, from 0 to {@link
+ * #size()} - 1, in the order in which they have been serialized or loaded. Instances are exposed as
+ * {@link ReadOnlyClassifierInstance}s, reading their values from the view.
+ *
+ * <p>Classifier instances which are not part of the view are looked up in the instance resolver of
+ * the serialization which created it and, when they cannot be found there either, treated according
+ * to its UnavailableNodePolicies.
+ *
+ * @param <I> the type of the classifier instances of the view
+ * @param <N> the type of the nodes of the view, which are all the instances which are not
+ *     annotation instances
+ * @see LazyChunk
+ * @see FlatBuffersChunkView
+ * @see AbstractNodeStore
+ */
+public abstract class AbstractInstanceView<
+    I extends ReadOnlyClassifierInstance<?>, N extends Node> {
+  protected final @Nonnull AbstractSerialization serialization;
+  private final Map<String, ProxyNode> proxiesByID = new ConcurrentHashMap<>();
+  private volatile @Nullable Map<String, Node> autoResolveMap;
+
+  AbstractInstanceView(@Nonnull AbstractSerialization serialization) {
+    Objects.requireNonNull(serialization, "serialization should not be null");
+    this.serialization = serialization;
+  }
+
+  /** Number of classifier instances in the view, including the annotation instances. */
+  public abstract int size();
+
+  /** Return the classifier instance at the given position. */
+  public abstract @Nonnull I getInstance(int index);
+
+  /** The classifier instances of the view, in the order in which they have been serialized. */
+  public @Nonnull List<I> getInstances() {
+    return new AbstractList<I>() {
+      @Override
+      public I get(int index) {
+        return getInstance(index);
+      }
+
+      @Override
+      public int size() {
+        return AbstractInstanceView.this.size();
+      }
+    };
+  }
+
+  public boolean contains(@Nullable String id) {
+    return id != null && indexOf(id) != -1;
+  }
+
+  /** Return the classifier instance with the given ID, or null if the view does not contain it. */
+  public @Nullable I getInstanceByID(@Nullable String id) {
+    if (id == null) {
+      return null;
+    }
+    int index = indexOf(id);
+    return index == -1 ? null : getInstance(index);
+  }
+
+  /**
+   * Return the node with the given ID, or null if the view does not contain it, or if it is an
+   * annotation instance.
+   */
+  @SuppressWarnings("unchecked")
+  public @Nullable N getNodeByID(@Nullable String id) {
+    I instance = getInstanceByID(id);
+    return instance instanceof Node ? (N) instance : null;
+  }
+
+  /** The nodes of the view whose parent is not part of the view. */
+  @SuppressWarnings("unchecked")
+  public @Nonnull List<N> getRoots() {
+    List<N> roots = new ArrayList<>();
+    int size = size();
+    for (int index = 0; index < size; index++) {
+      if (!containsParentOf(index)) {
+        I instance = getInstance(index);
+        if (instance instanceof Node) {
+          roots.add((N) instance);
+        }
+      }
+    }
+    return roots;
+  }
+
+  //
+  // Methods to be implemented by the subclasses
+  //
+
+  /** The position of the classifier instance with the given ID, or -1 if it is not in the view. */
+  abstract int indexOf(@Nonnull String id);
+
+  /** Whether the parent of the classifier instance at the given position is part of the view. */
+  abstract boolean containsParentOf(int index);
+
+  //
+  // Methods used by the instances
+  //
+
+  @Nonnull
+  AbstractSerialization getSerialization() {
+    return serialization;
+  }
+
+  @Nonnull
+  LionWebVersion getLionWebVersion() {
+    return serialization.getLionWebVersion();
+  }
+
+  /**
+   * Find the classifier instance with the given ID, either in this view or among the instances
+   * known to the instance resolver of the serialization. When it is not found, the given policy is
+   * applied.
+   */
+  @Nullable
+  ClassifierInstance<?> resolve(
+      @Nullable String id, @Nonnull UnavailableNodePolicy policy, String role) {
+    if (id == null) {
+      return null;
+    }
+    ClassifierInstance<?> instance = getInstanceByID(id);
+    if (instance != null) {
+      return instance;
+    }
+    return resolveOutside(id, policy, role);
+  }
+
+  /** Like {@link #resolve}, for IDs which are known not to be part of the view. */
+  @Nullable
+  ClassifierInstance<?> resolveOutside(
+      @Nonnull String id, @Nonnull UnavailableNodePolicy policy, String role) {
+    ClassifierInstance<?> instance = serialization.getInstanceResolver().resolve(id);
+    if (instance != null) {
+      return instance;
+    }
+    switch (policy) {
+      case NULL_REFERENCES:
+        return null;
+      case PROXY_NODES:
+        return proxiesByID.computeIfAbsent(id, ProxyNode::new);
+      case THROW_ERROR:
+      default:
+        throw new DeserializationException("Unable to resolve " + role + " " + id);
+    }
+  }
+
+  /**
+   * The given parent of a node, as it is returned by getParent. A node contained in an annotation
+   * instance has a parent which is not a Node: it is represented by a ProxyNode when the policy for
+   * unavailable parents is PROXY_NODES, and by null otherwise. The policy is not applied as for
+   * missing parents, as the parent is available, only it cannot be returned as a Node.
+   */
+  @Nullable
+  Node parentNode(@Nullable ClassifierInstance<?> parent) {
+    if (parent == null || parent instanceof Node) {
+      return (Node) parent;
+    }
+    if (serialization.getUnavailableParentPolicy() == UnavailableNodePolicy.PROXY_NODES) {
+      return proxiesByID.computeIfAbsent(parent.getID(), ProxyNode::new);
+    }
+    return null;
+  }
+
+  /**
+   * Resolve a reference without target ID using its resolveInfo, as it is done during the
+   * deserialization for references to the elements of LionCore and of the LionCore builtins.
+   */
+  @Nullable
+  Node autoResolve(@Nullable String resolveInfo) {
+    Map<String, Node> map = autoResolveMap;
+    if (map == null) {
+      LionWebVersion lionWebVersion = getLionWebVersion();
+      map = new HashMap<>();
+      for (LanguageEntity<?> element : LionCoreBuiltins.getInstance(lionWebVersion).getElements()) {
+        map.put(LIONCOREBUILTINS_AUTORESOLVE_PREFIX + element.getName(), element);
+      }
+      for (LanguageEntity<?> element : LionCore.getInstance(lionWebVersion).getElements()) {
+        map.put(LIONCORE_AUTORESOLVE_PREFIX + element.getName(), element);
+      }
+      autoResolveMap = map;
+    }
+    return map.get(resolveInfo);
+  }
+}
@@ -0,0 +1,322 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.util.*;
+import java.util.function.IntConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only forest of classifier instances, each identified by a dense handle, from 0 to {@link
+ * #size()} - 1, assigned in the order in which the instances have been loaded. The way the
+ * instances are stored is left to the subclasses, which expose the parent, the classifier and the
+ * containment of each instance, and its children, annotations and reference values as ranges of
+ * entries.
+ *
+ * <p>Instances are exposed as {@link StoredNode}s and {@link StoredAnnotationInstance}s, which are
+ * flyweights created on access and read everything from the store. Handles are the positions used
+ * by {@link AbstractInstanceView}.
+ *
+ * @see NodeStore
+ * @see OffHeapNodeStore
+ */
+public abstract class AbstractNodeStore
+    extends AbstractInstanceView<StoredClassifierInstance<?>, StoredNode> {
+  /** Encodes the absence of a node in place of a handle. */
+  protected static final int NO_NODE = -1;
+
+  AbstractNodeStore(@Nonnull AbstractSerialization serialization) {
+    super(serialization);
+  }
+
+  /** Return the handle of the classifier instance with the given ID, or -1 if it is not stored. */
+  public abstract int getHandle(@Nullable String id);
+
+  public abstract @Nonnull String getID(int handle);
+
+  public abstract @Nonnull Classifier<?> getClassifier(int handle);
+
+  public abstract @Nullable Object getPropertyValue(int handle, @Nonnull Property property);
+
+  /**
+   * Pass to the given action the handles of all the instances of the given classifier, in the order
+   * in which they have been loaded. Instances of classifiers specializing it are not considered.
+   */
+  public abstract void forEachInstance(
+      @Nonnull Classifier<?> classifier, @Nonnull IntConsumer action);
+
+  /**
+   * Return the handle of the parent of the given classifier instance, or -1 if it has no parent or
+   * its parent is not part of the store.
+   */
+  public int getParent(int handle) {
+    int parent = parentOf(checkHandle(handle));
+    return parent >= 0 ? parent : NO_NODE;
+  }
+
+  /**
+   * Return the containment holding the given classifier instance, or null if it is an annotation,
+   * or if its parent is not part of the store.
+   */
+  public @Nullable Containment getContainment(int handle) {
+    int containment = containmentOf(checkHandle(handle));
+    if (containment == -1) {
+      return null;
+    }
+    return (Containment) layoutOf(parentOf(handle)).getFeature(containment);
+  }
+
+  /**
+   * The handles of the children of the given classifier instance which are part of the store, in
+   * all its containments. Annotations are not included.
+   */
+  public @Nonnull int[] getChildren(int handle) {
+    return childrenHandles(checkHandle(handle), -2);
+  }
+
+  /** The handles of the children in the given containment which are part of the store. */
+  public @Nonnull int[] getChildren(int handle, @Nonnull Containment containment) {
+    Objects.requireNonNull(containment, "Containment should not be null");
+    return childrenHandles(checkHandle(handle), featureIndex(handle, containment));
+  }
+
+  /** Return a view over the given classifier instance. */
+  @Override
+  public @Nonnull StoredClassifierInstance<?> getInstance(int handle) {
+    Classifier<?> classifier = getClassifier(handle);
+    if (classifier instanceof Annotation) {
+      return new StoredAnnotationInstance(this, handle);
+    }
+    return new StoredNode(this, handle);
+  }
+
+  //
+  // Methods to be implemented by the subclasses. Parents, children and reference targets are
+  // returned as handles when they are part of the store, as NO_NODE when there is no node, and as
+  // values <= -2 otherwise, which can be turned into IDs through externalID.
+  //
+
+  abstract int parentOf(int handle);
+
+  /** The position of the containment in the layout of the parent, or -1. */
+  abstract int containmentOf(int handle);
+
+  @Nonnull
+  abstract FeatureLayout layoutOf(int handle);
+
+  /** The first children entry of the given instance. For size(), the number of entries. */
+  abstract int childrenStart(int handle);
+
+  /** The position of the containment in the layout of the parent, or -1 for annotations. */
+  abstract int childFeature(int entry);
+
+  abstract int child(int entry);
+
+  /** The first references entry of the given instance. For size(), the number of entries. */
+  abstract int referencesStart(int handle);
+
+  abstract int referenceFeature(int entry);
+
+  abstract int referenceTarget(int entry);
+
+  @Nullable
+  abstract String resolveInfo(int entry);
+
+  @Nonnull
+  abstract String externalID(int encoded);
+
+  @Override
+  final int indexOf(@Nonnull String id) {
+    return getHandle(id);
+  }
+
+  @Override
+  final boolean containsParentOf(int handle) {
+    return parentOf(handle) >= 0;
+  }
+
+  //
+  // Methods used by the views
+  //
+
+  @Nullable
+  ClassifierInstance<?> getParentInstance(int handle) {
+    return resolve(parentOf(handle), serialization.getUnavailableParentPolicy(), "parent");
+  }
+
+  int getIndexInParent(int handle) {
+    int containment = containmentOf(handle);
+    if (containment == -1) {
+      return -1;
+    }
+    int parent = parentOf(handle);
+    int index = 0;
+    for (int i = childrenStart(parent); i < childrenStart(parent + 1); i++) {
+      if (childFeature(i) == containment) {
+        if (child(i) == handle) {
+          return index;
+        }
+        index++;
+      }
+    }
+    return -1;
+  }
+
+  @Nonnull
+  List<Node> getChildNodes(int handle, @Nonnull Containment containment) {
+    int feature = featureIndex(handle, containment);
+    UnavailableNodePolicy policy = serialization.getUnavailableChildrenPolicy();
+    List<Node> result = new ArrayList<>();
+    for (int i = childrenStart(handle); i < childrenStart(handle + 1); i++) {
+      if (childFeature(i) == feature) {
+        Node child = (Node) resolve(child(i), policy, "child");
+        if (child != null) {
+          result.add(child);
+        }
+      }
+    }
+    return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+  }
+
+  @Nonnull
+  List<ReferenceValue> getReferenceValues(int handle, @Nonnull Reference reference) {
+    int feature = featureIndex(handle, reference);
+    UnavailableNodePolicy policy = serialization.getUnavailableReferenceTargetPolicy();
+    List<ReferenceValue> result = new ArrayList<>();
+    for (int i = referencesStart(handle); i < referencesStart(handle + 1); i++) {
+      if (referenceFeature(i) == feature) {
+        int target = referenceTarget(i);
+        String resolveInfo = resolveInfo(i);
+        Node referred;
+        if (target == NO_NODE) {
+          referred = autoResolve(resolveInfo);
+        } else {
+          referred = (Node) resolve(target, policy, "reference target");
+        }
+        result.add(new ReferenceValue(referred, resolveInfo));
+      }
+    }
+    return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+  }
+
+  /**
+   * The annotations of the given classifier instance. Annotation instances which are not part of
+   * the store, nor known to the instance resolver of the serialization, are ignored.
+   */
+  @Nonnull
+  List<AnnotationInstance> getAnnotations(int handle) {
+    List<AnnotationInstance> result = new ArrayList<>();
+    for (int i = childrenStart(handle); i < childrenStart(handle + 1); i++) {
+      if (childFeature(i) == -1) {
+        ClassifierInstance<?> annotation =
+            resolve(child(i), UnavailableNodePolicy.NULL_REFERENCES, "annotation");
+        if (annotation instanceof AnnotationInstance) {
+          result.add((AnnotationInstance) annotation);
+        }
+      }
+    }
+    return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+  }
+
+  //
+  // Methods used by the subclasses
+  //
+
+  int checkHandle(int handle) {
+    int size = size();
+    if (handle < 0 || handle >= size) {
+      throw new IndexOutOfBoundsException("Invalid handle " + handle + " for " + size);
+    }
+    return handle;
+  }
+
+  int featureIndex(int handle, @Nonnull Feature<?> feature) {
+    FeatureLayout layout = layoutOf(handle);
+    int index = layout.indexOf(feature);
+    if (index == -1) {
+      throw new IllegalArgumentException(
+          "Feature " + feature + " is not belonging to classifier " + getClassifier(handle));
+    }
+    return index;
+  }
+
+  /** The position in the layout of the feature of the given kind with the given MetaPointer. */
+  static int featureIndex(
+      @Nonnull Classifier<?> classifier,
+      @Nonnull FeatureLayout layout,
+      @Nullable MetaPointer metaPointer,
+      @Nonnull Class<? extends Feature<?>> kind) {
+    Feature<?> feature = layout.getFeatureByMetaPointer(metaPointer, kind);
+    if (feature == null) {
+      throw new DeserializationException(
+          kind.getSimpleName()
+              + " with metaPointer "
+              + metaPointer
+              + " not found in classifier "
+              + classifier);
+    }
+    return layout.indexOf(feature);
+  }
+
+  /** Resolve the classifier of an instance to be stored, which must be a Concept or Annotation. */
+  @Nonnull
+  static Classifier<?> resolveStoredClassifier(
+      @Nonnull AbstractSerialization serialization,
+      @Nonnull SerializedClassifierInstance instance) {
+    MetaPointer metaPointer = instance.getClassifier();
+    if (metaPointer == null) {
+      throw new DeserializationException("No metaPointer available for " + instance);
+    }
+    Classifier<?> classifier = serialization.getClassifierResolver().resolveClassifier(metaPointer);
+    if (!(classifier instanceof Concept) && !(classifier instanceof Annotation)) {
+      throw new DeserializationException(
+          "Only instances of Concepts and Annotations can be stored, while "
+              + metaPointer
+              + " is "
+              + classifier);
+    }
+    return classifier;
+  }
+
+  //
+  // Private methods
+  //
+
+  /** With feature -2, the children in all the containments are returned. */
+  private int[] childrenHandles(int handle, int feature) {
+    int start = childrenStart(handle);
+    int end = childrenStart(handle + 1);
+    int[] result = new int[end - start];
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      int featureOfChild = childFeature(i);
+      int child = child(i);
+      if (child >= 0 && featureOfChild != -1 && (feature == -2 || featureOfChild == feature)) {
+        result[count++] = child;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Find the classifier instance with the given encoded handle, either in this store or among the
+   * instances known to the instance resolver of the serialization. When it is not found, the given
+   * policy is applied.
+   */
+  @Nullable
+  private ClassifierInstance<?> resolve(
+      int encoded, @Nonnull UnavailableNodePolicy policy, String role) {
+    if (encoded >= 0) {
+      return getInstance(encoded);
+    } else if (encoded == NO_NODE) {
+      return null;
+    }
+    return resolveOutside(externalID(encoded), policy, role);
+  }
+}
@@ -10,10 +10,20 @@ import io.lionweb.lioncore.java.model.AnnotationInstance;
 import io.lionweb.lioncore.java.model.ClassifierInstance;
 import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
 import io.lionweb.lioncore.java.model.HasSettableParent;
+import io.lionweb.lioncore.java.model.Node;
 import io.lionweb.lioncore.java.model.impl.AbstractClassifierInstance;
 import io.lionweb.lioncore.java.model.impl.ProxyNode;
 import io.lionweb.lioncore.java.serialization.data.*;
+import io.lionweb.lioncore.java.utils.IDMap;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -58,6 +68,17 @@ public abstract class AbstractSerialization {
 
   protected boolean builtinsReferenceDangling = false;
 
+  /**
+   * When set, large chunks are deserialized by running batches of nodes on this executor. When null
+   * (the default), everything happens on the calling thread.
+   */
+  private @Nullable Executor deserializationExecutor = null;
+
+  /** How many nodes are processed by each task submitted to the deserialization executor. */
+  private int deserializationBatchSize = 512;
+
+  private volatile boolean frozen = false;
+
   protected AbstractSerialization() {
     this(LionWebVersion.currentVersion);
   }
@@ -81,19 +102,23 @@ public abstract class AbstractSerialization {
   }
 
   public void setClassifierResolver(ClassifierResolver classifierResolver) {
+    checkNotFrozen();
     this.classifierResolver = classifierResolver;
   }
 
   public void setInstantiator(Instantiator instantiator) {
+    checkNotFrozen();
     this.instantiator = instantiator;
   }
 
   public void setPrimitiveValuesSerialization(
       PrimitiveValuesSerialization primitiveValuesSerialization) {
+    checkNotFrozen();
     this.primitiveValuesSerialization = primitiveValuesSerialization;
   }
 
   public void setInstanceResolver(LocalClassifierInstanceResolver instanceResolver) {
+    checkNotFrozen();
     this.instanceResolver = instanceResolver;
   }
 
@@ -110,10 +135,18 @@ public abstract class AbstractSerialization {
   }
 
   public void enableDynamicNodes() {
+    checkNotFrozen();
     instantiator.enableDynamicNodes();
     primitiveValuesSerialization.enableDynamicNodes();
   }
 
+  /** Like {@link #enableDynamicNodes()}, but nodes are instantiated as SlottedDynamicNode. */
+  public void enableSlottedDynamicNodes() {
+    checkNotFrozen();
+    instantiator.enableSlottedDynamicNodes();
+    primitiveValuesSerialization.enableDynamicNodes();
+  }
+
   public @Nonnull UnavailableNodePolicy getUnavailableParentPolicy() {
     return this.unavailableParentPolicy;
   }
@@ -127,31 +160,101 @@ public abstract class AbstractSerialization {
   }
 
   public void setUnavailableParentPolicy(@Nonnull UnavailableNodePolicy unavailableParentPolicy) {
+    checkNotFrozen();
     Objects.requireNonNull(unavailableParentPolicy);
     this.unavailableParentPolicy = unavailableParentPolicy;
   }
 
   public void setUnavailableChildrenPolicy(
       @Nonnull UnavailableNodePolicy unavailableChildrenPolicy) {
+    checkNotFrozen();
     Objects.requireNonNull(unavailableChildrenPolicy);
     this.unavailableChildrenPolicy = unavailableChildrenPolicy;
   }
 
   public void setUnavailableReferenceTargetPolicy(
       @Nonnull UnavailableNodePolicy unavailableReferenceTargetPolicy) {
+    checkNotFrozen();
     Objects.requireNonNull(unavailableReferenceTargetPolicy);
     this.unavailableReferenceTargetPolicy = unavailableReferenceTargetPolicy;
   }
 
+  public @Nullable Executor getDeserializationExecutor() {
+    return deserializationExecutor;
+  }
+
+  /**
+   * Enable the parallel deserialization of large chunks, using the given executor (for example a
+   * ForkJoinPool). Passing null goes back to the sequential deserialization.
+   *
+   * <p>The nodes obtained are the same, and come in the same order, as the ones obtained
+   * sequentially. Nodes are instantiated one level of the tree at a time, starting from the deepest
+   * one. Custom deserializers registered on the Instantiator may look up any node instantiated
+   * before: when there are any, nodes are instantiated sequentially, and only populated in
+   * parallel.
+   */
+  public void setDeserializationExecutor(@Nullable Executor deserializationExecutor) {
+    checkNotFrozen();
+    this.deserializationExecutor = deserializationExecutor;
+  }
+
+  public int getDeserializationBatchSize() {
+    return deserializationBatchSize;
+  }
+
+  /**
+   * Set how many nodes are processed by each task submitted to the deserialization executor.
+   * Chunks, or levels of their trees, with no more nodes than this are processed in the calling
+   * thread.
+   */
+  public void setDeserializationBatchSize(int deserializationBatchSize) {
+    checkNotFrozen();
+    if (deserializationBatchSize <= 0) {
+      throw new IllegalArgumentException("The deserialization batch size should be positive");
+    }
+    this.deserializationBatchSize = deserializationBatchSize;
+  }
+
   public void registerLanguage(Language language) {
+    checkNotFrozen();
     getClassifierResolver().registerLanguage(language);
     getPrimitiveValuesSerialization().registerLanguage(language);
   }
 
   public void makeBuiltinsReferenceDangling() {
+    checkNotFrozen();
     this.builtinsReferenceDangling = true;
   }
 
+  /**
+   * Prevent any further change to the configuration of this serialization, including the
+   * ClassifierResolver, Instantiator, PrimitiveValuesSerialization and instance resolver it uses.
+   * Once frozen, the same instance can be used to serialize and deserialize from multiple threads
+   * at the same time.
+   *
+   * <p>While a serialization which is not frozen registers the languages of the nodes it
+   * serializes, a frozen one does not: they are only recorded in the chunk being produced.
+   * Deserializing requires the languages to have been registered before freezing.
+   */
+  public void freeze() {
+    classifierResolver.freeze();
+    instantiator.freeze();
+    primitiveValuesSerialization.freeze();
+    instanceResolver.freeze();
+    frozen = true;
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  protected void checkNotFrozen() {
+    if (frozen) {
+      throw new IllegalStateException(
+          "This serialization has been frozen and its configuration cannot be modified");
+    }
+  }
+
   //
   // Serialization to chunk
   //
@@ -178,38 +281,94 @@ public abstract class AbstractSerialization {
                 considerLanguageDuringSerialization(
                     serializedChunk, annotationInstance.getClassifier().getLanguage());
               });
-      Objects.requireNonNull(
-          classifierInstance.getClassifier(),
-          "A node should have a concept in order to be serialized");
-      Objects.requireNonNull(
-          classifierInstance.getClassifier().getLanguage(),
-          "A Concept should be part of a Language in order to be serialized. Concept "
-              + classifierInstance.getClassifier()
-              + " is not");
-      considerLanguageDuringSerialization(
-          serializedChunk, classifierInstance.getClassifier().getLanguage());
-      classifierInstance
-          .getClassifier()
-          .allFeatures()
-          .forEach(
-              f -> considerLanguageDuringSerialization(serializedChunk, f.getDeclaringLanguage()));
-      classifierInstance
-          .getClassifier()
-          .allProperties()
-          .forEach(
-              p -> considerLanguageDuringSerialization(serializedChunk, p.getType().getLanguage()));
-      classifierInstance
-          .getClassifier()
-          .allLinks()
-          .forEach(
-              l -> considerLanguageDuringSerialization(serializedChunk, l.getType().getLanguage()));
+      considerUsedLanguages(
+          classifierInstance,
+          language -> considerLanguageDuringSerialization(serializedChunk, language));
     }
     return serializedChunk;
   }
 
+  /**
+   * Pass to the given consumer all the languages needed to serialize the given classifier instance:
+   * the language of its classifier, and the languages of its features and of their types. The
+   * consumer may receive the same language multiple times.
+   */
+  protected void considerUsedLanguages(
+      @Nonnull ClassifierInstance<?> classifierInstance, Consumer<Language> languageConsumer) {
+    Objects.requireNonNull(
+        classifierInstance.getClassifier(),
+        "A node should have a concept in order to be serialized");
+    Objects.requireNonNull(
+        classifierInstance.getClassifier().getLanguage(),
+        "A Concept should be part of a Language in order to be serialized. Concept "
+            + classifierInstance.getClassifier()
+            + " is not");
+    languageConsumer.accept(classifierInstance.getClassifier().getLanguage());
+    classifierInstance
+        .getClassifier()
+        .allFeatures()
+        .forEach(f -> languageConsumer.accept(f.getDeclaringLanguage()));
+    classifierInstance
+        .getClassifier()
+        .allProperties()
+        .forEach(p -> languageConsumer.accept(p.getType().getLanguage()));
+    classifierInstance
+        .getClassifier()
+        .allLinks()
+        .forEach(l -> languageConsumer.accept(l.getType().getLanguage()));
+  }
+
+  protected interface TreeVisitor {
+    void visit(ClassifierInstance<?> classifierInstance) throws IOException;
+  }
+
+  /**
+   * Visit the given trees depth-first, in the same order used by
+   * ClassifierInstance.collectSelfAndDescendants, including annotations and excluding proxies.
+   * Nodes with an ID already visited under a previous root are not visited again.
+   */
+  protected void visitTrees(ClassifierInstance<?>[] roots, TreeVisitor visitor) throws IOException {
+    // Tracking IDs is only needed to avoid repeating nodes shared among different roots
+    Set<String> visitedIDs = roots.length > 1 ? new HashSet<>() : null;
+    Deque<ClassifierInstance<?>> stack = new ArrayDeque<>();
+    List<ClassifierInstance<?>> toPush = new ArrayList<>();
+    for (ClassifierInstance<?> root : roots) {
+      stack.push(root);
+      while (!stack.isEmpty()) {
+        ClassifierInstance<?> classifierInstance = stack.pop();
+        if (visitedIDs != null && classifierInstance.getID() != null) {
+          if (!visitedIDs.add(classifierInstance.getID())) {
+            continue;
+          }
+        }
+        visitor.visit(classifierInstance);
+        toPush.clear();
+        toPush.addAll(classifierInstance.getAnnotations());
+        for (Node child : ClassifierInstanceUtils.getChildren(classifierInstance)) {
+          if (!(child instanceof ProxyNode)) {
+            toPush.add(child);
+          }
+        }
+        for (int i = toPush.size() - 1; i >= 0; i--) {
+          stack.push(toPush.get(i));
+        }
+      }
+    }
+  }
+
+  /**
+   * Register a language met while serializing nodes, unless this serialization has been frozen. In
+   * that case the serialization does not depend on the registration.
+   */
+  protected void registerUsedLanguage(@Nonnull Language language) {
+    if (!frozen) {
+      registerLanguage(language);
+    }
+  }
+
   private void considerLanguageDuringSerialization(
       SerializedChunk serializedChunk, Language language) {
-    registerLanguage(language);
+    registerUsedLanguage(language);
     UsedLanguage languageKeyVersion = UsedLanguage.fromLanguage(language);
     if (!serializedChunk.getLanguages().contains(languageKeyVersion)) {
       serializedChunk.addLanguage(languageKeyVersion);
@@ -221,7 +380,7 @@ public abstract class AbstractSerialization {
     return serializeNodesToSerializationBlock(Arrays.asList(classifierInstances));
   }
 
-  private SerializedClassifierInstance serializeNode(
+  protected SerializedClassifierInstance serializeNode(
       @Nonnull ClassifierInstance<?> classifierInstance) {
     Objects.requireNonNull(classifierInstance, "Node should not be null");
     SerializedClassifierInstance serializedClassifierInstance = new SerializedClassifierInstance();
@@ -270,15 +429,13 @@ public abstract class AbstractSerialization {
       SerializedClassifierInstance serializedClassifierInstance,
       boolean builtinsReferenceDangling) {
     Objects.requireNonNull(classifierInstance, "ClassifierInstance should not be null");
-    classifierInstance
-        .getClassifier()
-        .allReferences()
+    FeatureLayout featureLayout = classifierInstance.getClassifier().getFeatureLayout();
+    featureLayout
+        .getReferences()
         .forEach(
             reference -> {
               SerializedReferenceValue referenceValue = new SerializedReferenceValue();
-              referenceValue.setMetaPointer(
-                  MetaPointer.from(
-                      reference, ((LanguageEntity) reference.getContainer()).getLanguage()));
+              referenceValue.setMetaPointer(featureLayout.getMetaPointer(reference));
               referenceValue.setValue(
                   classifierInstance.getReferenceValues(reference).stream()
                       .map(
@@ -301,15 +458,13 @@ public abstract class AbstractSerialization {
       @Nonnull ClassifierInstance<?> classifierInstance,
       SerializedClassifierInstance serializedClassifierInstance) {
     Objects.requireNonNull(classifierInstance, "ClassifierInstance should not be null");
-    classifierInstance
-        .getClassifier()
-        .allContainments()
+    FeatureLayout featureLayout = classifierInstance.getClassifier().getFeatureLayout();
+    featureLayout
+        .getContainments()
         .forEach(
             containment -> {
               SerializedContainmentValue containmentValue = new SerializedContainmentValue();
-              containmentValue.setMetaPointer(
-                  MetaPointer.from(
-                      containment, ((LanguageEntity) containment.getContainer()).getLanguage()));
+              containmentValue.setMetaPointer(featureLayout.getMetaPointer(containment));
               containmentValue.setValue(
                   classifierInstance.getChildren(containment).stream()
                       .map(c -> c.getID())
@@ -321,15 +476,13 @@ public abstract class AbstractSerialization {
   private void serializeProperties(
       ClassifierInstance<?> classifierInstance,
       SerializedClassifierInstance serializedClassifierInstance) {
-    classifierInstance
-        .getClassifier()
-        .allProperties()
+    FeatureLayout featureLayout = classifierInstance.getClassifier().getFeatureLayout();
+    featureLayout
+        .getProperties()
         .forEach(
             property -> {
               SerializedPropertyValue propertyValue = new SerializedPropertyValue();
-              propertyValue.setMetaPointer(
-                  MetaPointer.from(
-                      property, ((LanguageEntity) property.getContainer()).getLanguage()));
+              propertyValue.setMetaPointer(featureLayout.getMetaPointer(property));
               propertyValue.setValue(
                   serializePropertyValue(
                       property.getType(), classifierInstance.getPropertyValue(property)));
@@ -337,14 +490,14 @@ public abstract class AbstractSerialization {
             });
   }
 
-  private String serializePropertyValue(@Nonnull DataType dataType, @Nullable Object value) {
+  protected String serializePropertyValue(@Nonnull DataType dataType, @Nullable Object value) {
     Objects.requireNonNull(dataType == null, "cannot serialize property when the dataType is null");
     Objects.requireNonNull(
         dataType.getID() == null, "cannot serialize property when the dataType.ID is null");
     if (value == null) {
       return null;
     }
-    return primitiveValuesSerialization.serialize(dataType.getID(), value);
+    return primitiveValuesSerialization.serialize(dataType, value);
   }
 
   //
@@ -353,17 +506,19 @@ public abstract class AbstractSerialization {
 
   protected void validateSerializationBlock(@Nonnull SerializedChunk serializationBlock) {
     Objects.requireNonNull(serializationBlock, "serializationBlock should not be null");
-    if (serializationBlock.getSerializationFormatVersion() == null) {
+    validateSerializationFormatVersion(serializationBlock.getSerializationFormatVersion());
+  }
+
+  protected void validateSerializationFormatVersion(@Nullable String serializationFormatVersion) {
+    if (serializationFormatVersion == null) {
       throw new IllegalArgumentException("The serializationFormatVersion should not be null");
     }
-    if (!serializationBlock
-        .getSerializationFormatVersion()
-        .equals(lionWebVersion.getVersionString())) {
+    if (!serializationFormatVersion.equals(lionWebVersion.getVersionString())) {
       throw new IllegalArgumentException(
           "Only serializationFormatVersion supported by this instance of Serialization is '"
               + lionWebVersion.getVersionString()
               + "' but we found '"
-              + serializationBlock.getSerializationFormatVersion()
+              + serializationFormatVersion
               + "'");
     }
   }
@@ -417,30 +572,19 @@ public abstract class AbstractSerialization {
         }
     }
 
-    // We can start by putting at the start all the elements which either have no parent,
-    // or had a parent already added to the list
-    while (deserializationStatus.howManySorted() < originalList.size()) {
-      int initialLength = deserializationStatus.howManySorted();
-      for (int i = 0; i < deserializationStatus.howManyToSort(); i++) {
-        SerializedClassifierInstance node = deserializationStatus.getNodeToSort(i);
-        if (node.getParentNodeID() == null
-            || deserializationStatus
-                .streamSorted()
-                .anyMatch(sn -> Objects.equals(sn.getID(), node.getParentNodeID()))) {
-          deserializationStatus.place(node);
-          i--;
-        }
-      }
-      if (initialLength == deserializationStatus.howManySorted()) {
-        if (deserializationStatus.howManySorted() == 0) {
-          throw new DeserializationException(
-              "No root found, we cannot deserialize this tree. Original list: " + originalList);
-        } else {
-          throw new DeserializationException(
-              "Something is not right: we are unable to complete sorting the list "
-                  + originalList
-                  + ". Probably there is a containment loop");
-        }
+    // We can start by putting at the start all the elements which have no parent, and then
+    // all the elements which had a parent already added to the list
+    deserializationStatus.placeNodesWithoutParent();
+    deserializationStatus.placeDescendantsOfPlacedNodes();
+    if (deserializationStatus.howManySorted() < originalList.size()) {
+      if (deserializationStatus.howManySorted() == 0) {
+        throw new DeserializationException(
+            "No root found, we cannot deserialize this tree. Original list: " + originalList);
+      } else {
+        throw new DeserializationException(
+            "Something is not right: we are unable to complete sorting the list "
+                + originalList
+                + ". Probably there is a containment loop");
       }
     }
 
@@ -455,9 +599,158 @@ public abstract class AbstractSerialization {
         serializationBlock.getClassifierInstances());
   }
 
+  /**
+   * Deserialize only the classifier instances of the chunk satisfying the filter: the other ones
+   * are not instantiated. Parents, children and reference targets which have been filtered out are
+   * treated as unavailable nodes, according to the UnavailableNodePolicies.
+   */
+  public List<ClassifierInstance<?>> deserializeSerializationBlock(
+      @Nonnull SerializedChunk serializationBlock,
+      @Nonnull Predicate<SerializedClassifierInstance> filter) {
+    Objects.requireNonNull(filter, "filter should not be null");
+    return deserializeClassifierInstances(
+        LionWebVersion.fromValue(serializationBlock.getSerializationFormatVersion()),
+        serializationBlock.getClassifierInstances().stream()
+            .filter(filter)
+            .collect(Collectors.toList()));
+  }
+
+  /**
+   * Deserialize only the subtrees of the chunk rooted in the classifier instances with the given
+   * IDs, including the annotations of their nodes. Everything else is not instantiated.
+   *
+   * <p>The parents of the roots, as well as reference targets outside the subtrees, are treated as
+   * unavailable nodes, according to the UnavailableNodePolicies. Unless the roots are roots of the
+   * whole chunk, the unavailableParentPolicy should therefore be NULL_REFERENCES or PROXY_NODES.
+   *
+   * @throws IllegalArgumentException if any of the root IDs is not present in the chunk
+   */
+  public List<ClassifierInstance<?>> deserializeSubtrees(
+      @Nonnull SerializedChunk serializationBlock, @Nonnull Collection<String> rootIDs) {
+    Objects.requireNonNull(serializationBlock, "serializationBlock should not be null");
+    Objects.requireNonNull(rootIDs, "rootIDs should not be null");
+    Map<String, SerializedClassifierInstance> byID =
+        serializationBlock.getClassifierInstancesByID();
+    Set<SerializedClassifierInstance> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<SerializedClassifierInstance> toVisit = new ArrayDeque<>();
+    for (String rootID : rootIDs) {
+      SerializedClassifierInstance root = byID.get(rootID);
+      if (root == null) {
+        throw new IllegalArgumentException("Root ID not found in the chunk: " + rootID);
+      }
+      toVisit.push(root);
+    }
+    while (!toVisit.isEmpty()) {
+      SerializedClassifierInstance current = toVisit.pop();
+      if (selected.add(current)) {
+        for (String childID : current.getChildren()) {
+          SerializedClassifierInstance child = byID.get(childID);
+          if (child != null) {
+            toVisit.push(child);
+          }
+        }
+        for (String annotationID : current.getAnnotations()) {
+          SerializedClassifierInstance annotation = byID.get(annotationID);
+          if (annotation != null) {
+            toVisit.push(annotation);
+          }
+        }
+      }
+    }
+    return deserializeSerializationBlock(serializationBlock, selected::contains);
+  }
+
+  /**
+   * Create a {@link LazyChunk} over the given chunk. No classifier instance is instantiated
+   * upfront: each one is decoded when it is accessed, using the ClassifierResolver, the
+   * PrimitiveValuesSerialization and the UnavailableNodePolicies of this serialization. The
+   * Instantiator is used when a subtree is materialized.
+   */
+  public LazyChunk deserializeLazily(@Nonnull SerializedChunk serializationBlock) {
+    return new LazyChunk(this, serializationBlock);
+  }
+
+  /**
+   * Load the given chunk into a {@link NodeStore}. Classifiers are resolved, and property values
+   * decoded, while loading, using the ClassifierResolver and the PrimitiveValuesSerialization of
+   * this serialization. The Instantiator is not used.
+   */
+  public NodeStore deserializeToNodeStore(@Nonnull SerializedChunk serializationBlock) {
+    validateSerializationBlock(serializationBlock);
+    List<SerializedClassifierInstance> instances = serializationBlock.getClassifierInstances();
+    NodeStore.Loader loader = new NodeStore.Loader(this, instances.size());
+    instances.forEach(loader::add);
+    return loader.build();
+  }
+
+  /**
+   * Load the given chunk into an {@link OffHeapNodeStore}, which should be closed once it is not
+   * needed anymore.
+   *
+   * @param directory the directory where the temporary files backing the store are created, or null
+   *     to store it in direct ByteBuffers, which are limited by -XX:MaxDirectMemorySize
+   */
+  public OffHeapNodeStore deserializeToOffHeapNodeStore(
+      @Nonnull SerializedChunk serializationBlock, @Nullable File directory) throws IOException {
+    validateSerializationBlock(serializationBlock);
+    return deserializeToOffHeapNodeStore(
+        serializationBlock.getClassifierInstances().iterator(), directory);
+  }
+
+  /**
+   * Load the classifier instances produced by the iterator into an {@link OffHeapNodeStore}, as
+   * they are decoded. The serialization format version is not checked, so it is up to the caller to
+   * validate it.
+   *
+   * @param directory the directory where the temporary files backing the store are created, or null
+   *     to store it in direct ByteBuffers, which are limited by -XX:MaxDirectMemorySize
+   */
+  public OffHeapNodeStore deserializeToOffHeapNodeStore(
+      @Nonnull Iterator<SerializedClassifierInstance> serializedClassifierInstances,
+      @Nullable File directory)
+      throws IOException {
+    Objects.requireNonNull(
+        serializedClassifierInstances, "serializedClassifierInstances should not be null");
+    OffHeapNodeStore.Loader loader = new OffHeapNodeStore.Loader(this, directory);
+    try {
+      serializedClassifierInstances.forEachRemaining(loader::add);
+      return loader.build();
+    } catch (IOException | RuntimeException | Error e) {
+      loader.discard();
+      throw e;
+    }
+  }
+
+  /**
+   * Deserialize the classifier instances produced by the iterator. They are all collected in a list
+   * before being deserialized, as sorting them leaves first requires all of them; only the
+   * SerializedChunk, and the format-specific chunk it would be built from, are not created.
+   */
+  protected List<ClassifierInstance<?>> deserializeClassifierInstances(
+      @Nonnull LionWebVersion lionWebVersion,
+      @Nonnull Iterator<SerializedClassifierInstance> serializedClassifierInstances) {
+    Objects.requireNonNull(
+        serializedClassifierInstances, "serializedClassifierInstances should not be null");
+    List<SerializedClassifierInstance> instances = new ArrayList<>();
+    serializedClassifierInstances.forEachRemaining(instances::add);
+    return deserializeClassifierInstances(lionWebVersion, instances);
+  }
+
   private List<ClassifierInstance<?>> deserializeClassifierInstances(
       @Nonnull LionWebVersion lionWebVersion,
       List<SerializedClassifierInstance> serializedClassifierInstances) {
+    return deserializeClassifierInstances(lionWebVersion, serializedClassifierInstances, null);
+  }
+
+  /**
+   * @param outsideInstancesResolver used to resolve the classifier instances which are not among
+   *     the ones being deserialized, before resorting to the instance resolver of this
+   *     serialization
+   */
+  List<ClassifierInstance<?>> deserializeClassifierInstances(
+      @Nonnull LionWebVersion lionWebVersion,
+      List<SerializedClassifierInstance> serializedClassifierInstances,
+      @Nullable ClassifierInstanceResolver outsideInstancesResolver) {
     Objects.requireNonNull(lionWebVersion, "lionWebVersion should not be null");
     // We want to deserialize the nodes starting from the leaves. This is useful because in certain
     // cases we may want to use the children as constructor parameters of the parent
@@ -467,20 +760,25 @@ public abstract class AbstractSerialization {
     if (sortedSerializedClassifierInstances.size() != serializedClassifierInstances.size()) {
       throw new IllegalStateException();
     }
-    Map<String, ClassifierInstance<?>> deserializedByID = new HashMap<>();
+    Map<String, ClassifierInstance<?>> deserializedByID =
+        new IDMap<>(serializedClassifierInstances.size());
     IdentityHashMap<SerializedClassifierInstance, ClassifierInstance<?>> serializedToInstanceMap =
         new IdentityHashMap<>();
-    sortedSerializedClassifierInstances.stream()
-        .forEach(
-            n -> {
-              ClassifierInstance<?> instantiated =
-                  instantiateFromSerialized(lionWebVersion, n, deserializedByID);
-              if (n.getID() != null && deserializedByID.containsKey(n.getID())) {
-                throw new IllegalStateException("Duplicate ID found: " + n.getID());
-              }
-              deserializedByID.put(n.getID(), instantiated);
-              serializedToInstanceMap.put(n, instantiated);
-            });
+    if (deserializationExecutor == null || instantiator.hasCustomDeserializers()) {
+      sortedSerializedClassifierInstances.stream()
+          .forEach(
+              n -> {
+                ClassifierInstance<?> instantiated =
+                    instantiateFromSerialized(lionWebVersion, n, deserializedByID);
+                registerInstantiated(n, instantiated, deserializedByID, serializedToInstanceMap);
+              });
+    } else {
+      instantiateByLevel(
+          lionWebVersion,
+          sortedSerializedClassifierInstances,
+          deserializedByID,
+          serializedToInstanceMap);
+    }
     if (sortedSerializedClassifierInstances.size() != serializedToInstanceMap.size()) {
       throw new IllegalStateException(
           "We got "
@@ -488,51 +786,42 @@ public abstract class AbstractSerialization {
               + " nodes to deserialize, but we deserialized "
               + serializedToInstanceMap.size());
     }
-    ClassifierInstanceResolver classifierInstanceResolver =
+    CompositeClassifierInstanceResolver classifierInstanceResolver =
         new CompositeClassifierInstanceResolver(
             new MapBasedResolver(deserializedByID),
-            deserializationStatus.getProxiesInstanceResolver(),
-            this.instanceResolver);
+            deserializationStatus.getProxiesInstanceResolver());
+    if (outsideInstancesResolver != null) {
+      classifierInstanceResolver.add(outsideInstancesResolver);
+    }
+    classifierInstanceResolver.add(this.instanceResolver);
     NodePopulator nodePopulator =
         new NodePopulator(this, classifierInstanceResolver, deserializationStatus, lionWebVersion);
-    serializedClassifierInstances.stream()
-        .forEach(
-            node -> {
-              nodePopulator.populateClassifierInstance(serializedToInstanceMap.get(node), node);
-              ClassifierInstance<?> classifierInstance = serializedToInstanceMap.get(node);
-              ClassifierInstance<?> parent =
-                  classifierInstanceResolver.resolve(node.getParentNodeID());
-              if (parent instanceof ProxyNode
-                  && unavailableParentPolicy == UnavailableNodePolicy.PROXY_NODES) {
-                // For real parents, the parent is not set directly, but it is set indirectly
-                // when adding the child to the parent. For proxy nodes instead we need to set
-                // the parent explicitly
-                ProxyNode proxyParent = (ProxyNode) parent;
-                if (proxyParent != null) {
-                  if (classifierInstance instanceof HasSettableParent) {
-                    ((HasSettableParent) classifierInstance).setParent(proxyParent);
-                  } else {
-                    throw new UnsupportedOperationException(
-                        "We do not know how to set explicitly the parent of " + classifierInstance);
-                  }
-                }
-              }
-              if (classifierInstance instanceof AnnotationInstance) {
-                if (node == null) {
-                  throw new IllegalStateException(
-                      "Dangling annotation instance found (annotated node is null). ");
-                }
-                AbstractClassifierInstance abstractClassifierInstance =
-                    (AbstractClassifierInstance) deserializedByID.get(node.getParentNodeID());
-                AnnotationInstance annotationInstance = (AnnotationInstance) classifierInstance;
-                if (abstractClassifierInstance != null) {
-                  abstractClassifierInstance.addAnnotation(annotationInstance);
-                } else {
-                  throw new IllegalStateException(
-                      "Cannot resolved annotated node " + annotationInstance.getParent());
-                }
-              }
-            });
+    if (deserializationExecutor == null) {
+      serializedClassifierInstances.stream()
+          .forEach(
+              node -> {
+                nodePopulator.populateClassifierInstance(serializedToInstanceMap.get(node), node);
+                attachToParent(
+                    node, serializedToInstanceMap, classifierInstanceResolver, deserializedByID);
+              });
+    } else {
+      // Proxies are created upfront, so that they are created in the same order as when
+      // populating the nodes sequentially, and so that the populating tasks do not modify them
+      if (unavailableReferenceTargetPolicy == UnavailableNodePolicy.PROXY_NODES) {
+        serializedClassifierInstances.forEach(nodePopulator::createReferenceProxies);
+      }
+      // Each task only modifies the nodes it populates and sets the parent of their children, so
+      // the tasks do not interfere with each other
+      forEachInParallel(
+          serializedClassifierInstances,
+          node ->
+              nodePopulator.populateClassifierInstance(serializedToInstanceMap.get(node), node));
+      // Annotations are attached to the annotated nodes in order, as in the sequential path
+      serializedClassifierInstances.forEach(
+          node ->
+              attachToParent(
+                  node, serializedToInstanceMap, classifierInstanceResolver, deserializedByID));
+    }
 
     // We want the nodes returned to be sorted as the original serializedNodes
     List<ClassifierInstance<?>> nodesWithOriginalSorting =
@@ -543,6 +832,161 @@ public abstract class AbstractSerialization {
     return nodesWithOriginalSorting;
   }
 
+  private void registerInstantiated(
+      SerializedClassifierInstance serializedClassifierInstance,
+      ClassifierInstance<?> instantiated,
+      Map<String, ClassifierInstance<?>> deserializedByID,
+      Map<SerializedClassifierInstance, ClassifierInstance<?>> serializedToInstanceMap) {
+    String id = serializedClassifierInstance.getID();
+    if (id != null && deserializedByID.containsKey(id)) {
+      throw new IllegalStateException("Duplicate ID found: " + id);
+    }
+    deserializedByID.put(id, instantiated);
+    serializedToInstanceMap.put(serializedClassifierInstance, instantiated);
+  }
+
+  /**
+   * Instantiate the nodes one level of the tree at a time, starting from the deepest one, so that
+   * the children of a node are always instantiated before it. The nodes of a level are instantiated
+   * in parallel, and then registered in the order of the sorted list.
+   */
+  private void instantiateByLevel(
+      @Nonnull LionWebVersion lionWebVersion,
+      List<SerializedClassifierInstance> sortedSerializedClassifierInstances,
+      Map<String, ClassifierInstance<?>> deserializedByID,
+      Map<SerializedClassifierInstance, ClassifierInstance<?>> serializedToInstanceMap) {
+    // In the sorted list children precede their parent, so going backward we meet the parents
+    // first
+    Map<String, Integer> depthByID = new IDMap<>(sortedSerializedClassifierInstances.size());
+    List<List<SerializedClassifierInstance>> levels = new ArrayList<>();
+    int[] depths = new int[sortedSerializedClassifierInstances.size()];
+    for (int i = sortedSerializedClassifierInstances.size() - 1; i >= 0; i--) {
+      SerializedClassifierInstance n = sortedSerializedClassifierInstances.get(i);
+      Integer parentDepth = n.getParentNodeID() == null ? null : depthByID.get(n.getParentNodeID());
+      depths[i] = parentDepth == null ? 0 : parentDepth + 1;
+      if (n.getID() != null) {
+        depthByID.putIfAbsent(n.getID(), depths[i]);
+      }
+    }
+    for (int i = 0; i < depths.length; i++) {
+      while (levels.size() <= depths[i]) {
+        levels.add(new ArrayList<>());
+      }
+      levels.get(depths[i]).add(sortedSerializedClassifierInstances.get(i));
+    }
+
+    for (int depth = levels.size() - 1; depth >= 0; depth--) {
+      List<SerializedClassifierInstance> level = levels.get(depth);
+      ClassifierInstance<?>[] instantiated = new ClassifierInstance<?>[level.size()];
+      forEachInParallel(
+          level.size(),
+          i ->
+              instantiated[i] =
+                  instantiateFromSerialized(lionWebVersion, level.get(i), deserializedByID));
+      for (int i = 0; i < level.size(); i++) {
+        registerInstantiated(
+            level.get(i), instantiated[i], deserializedByID, serializedToInstanceMap);
+      }
+    }
+  }
+
+  private void attachToParent(
+      SerializedClassifierInstance node,
+      Map<SerializedClassifierInstance, ClassifierInstance<?>> serializedToInstanceMap,
+      ClassifierInstanceResolver classifierInstanceResolver,
+      Map<String, ClassifierInstance<?>> deserializedByID) {
+    ClassifierInstance<?> classifierInstance = serializedToInstanceMap.get(node);
+    ClassifierInstance<?> parent = classifierInstanceResolver.resolve(node.getParentNodeID());
+    if (parent instanceof ProxyNode
+        && unavailableParentPolicy == UnavailableNodePolicy.PROXY_NODES) {
+      // For real parents, the parent is not set directly, but it is set indirectly
+      // when adding the child to the parent. For proxy nodes instead we need to set
+      // the parent explicitly
+      ProxyNode proxyParent = (ProxyNode) parent;
+      if (proxyParent != null) {
+        if (classifierInstance instanceof HasSettableParent) {
+          ((HasSettableParent) classifierInstance).setParent(proxyParent);
+        } else {
+          throw new UnsupportedOperationException(
+              "We do not know how to set explicitly the parent of " + classifierInstance);
+        }
+      }
+    }
+    if (classifierInstance instanceof AnnotationInstance) {
+      if (node == null) {
+        throw new IllegalStateException(
+            "Dangling annotation instance found (annotated node is null). ");
+      }
+      AbstractClassifierInstance abstractClassifierInstance =
+          (AbstractClassifierInstance) deserializedByID.get(node.getParentNodeID());
+      AnnotationInstance annotationInstance = (AnnotationInstance) classifierInstance;
+      if (abstractClassifierInstance != null) {
+        abstractClassifierInstance.addAnnotation(annotationInstance);
+      } else {
+        throw new IllegalStateException(
+            "Cannot resolved annotated node " + annotationInstance.getParent());
+      }
+    }
+  }
+
+  private <T> void forEachInParallel(List<T> elements, Consumer<T> action) {
+    forEachInParallel(elements.size(), i -> action.accept(elements.get(i)));
+  }
+
+  private void forEachInParallel(int size, IntConsumer action) {
+    forEachRangeInParallel(
+        size,
+        (start, end) -> {
+          for (int i = start; i < end; i++) {
+            action.accept(i);
+          }
+        });
+  }
+
+  protected interface RangeAction {
+    /** Process the indexes from start (included) to end (excluded). */
+    void run(int start, int end);
+  }
+
+  /**
+   * Split the indexes from 0 to size (excluded) in batches, and run the action on each batch,
+   * submitting the batches to the deserialization executor. Without an executor, or when there is a
+   * single batch, the action is run once, on the whole range, in the calling thread. When some
+   * batches fail, we wait for all of them to complete and rethrow the exception of the first
+   * failing one, which is the exception the sequential processing would have thrown.
+   */
+  protected void forEachRangeInParallel(int size, RangeAction action) {
+    Executor executor = deserializationExecutor;
+    int batchSize = deserializationBatchSize;
+    if (executor == null || size <= batchSize) {
+      action.run(0, size);
+      return;
+    }
+    List<CompletableFuture<Void>> batches = new ArrayList<>();
+    for (int start = 0; start < size; start += batchSize) {
+      int batchStart = start;
+      int batchEnd = Math.min(size, start + batchSize);
+      batches.add(CompletableFuture.runAsync(() -> action.run(batchStart, batchEnd), executor));
+    }
+    Throwable failure = null;
+    for (CompletableFuture<Void> batch : batches) {
+      try {
+        batch.join();
+      } catch (CompletionException e) {
+        if (failure == null) {
+          failure = e.getCause() == null ? e : e.getCause();
+        }
+      }
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new CompletionException(failure);
+    }
+  }
+
   private ClassifierInstance<?> instantiateFromSerialized(
       @Nonnull LionWebVersion lionWebVersion,
       SerializedClassifierInstance serializedClassifierInstance,
@@ -565,14 +1009,15 @@ public abstract class AbstractSerialization {
                   classifier.getPropertyByMetaPointer(serializedPropertyValue.getMetaPointer());
               Objects.requireNonNull(
                   property,
-                  "Property with metaPointer "
-                      + serializedPropertyValue.getMetaPointer()
-                      + " not found in classifier "
-                      + classifier
-                      + ". Properties: "
-                      + classifier.allProperties().stream()
-                          .map(p -> MetaPointer.from(p))
-                          .collect(Collectors.toList()));
+                  () ->
+                      "Property with metaPointer "
+                          + serializedPropertyValue.getMetaPointer()
+                          + " not found in classifier "
+                          + classifier
+                          + ". Properties: "
+                          + classifier.allProperties().stream()
+                              .map(p -> MetaPointer.from(p))
+                              .collect(Collectors.toList()));
               Objects.requireNonNull(property.getType(), "property type should not be null");
               Object deserializedValue =
                   primitiveValuesSerialization.deserialize(
@@ -19,39 +19,62 @@ public class ClassifierResolver {
   private final Map<MetaPointer, Concept> registeredConcepts = new HashMap<>();
   private final Map<MetaPointer, Annotation> registeredAnnotations = new HashMap<>();
 
+  private volatile boolean frozen = false;
+
+  /**
+   * Prevent the registration of further languages. Classifiers are then resolved against the
+   * concepts and annotations registered so far, which are no longer modified.
+   */
+  public void freeze() {
+    frozen = true;
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new IllegalStateException(
+          "This ClassifierResolver has been frozen and it cannot be modified");
+    }
+  }
+
   @Nonnull
   public Classifier<?> resolveClassifier(@Nonnull MetaPointer conceptMetaPointer) {
-    if (registeredConcepts.containsKey(conceptMetaPointer)) {
-      return registeredConcepts.get(conceptMetaPointer);
-    } else if (registeredAnnotations.containsKey(conceptMetaPointer)) {
-      return registeredAnnotations.get(conceptMetaPointer);
-    } else {
+    Classifier<?> classifier = registeredConcepts.get(conceptMetaPointer);
+    if (classifier == null) {
+      classifier = registeredAnnotations.get(conceptMetaPointer);
+    }
+    if (classifier == null) {
       throw new RuntimeException(
           "Unable to resolve classifier with metaPointer " + conceptMetaPointer);
     }
+    return classifier;
   }
 
   @Nonnull
   public Concept resolveConcept(@Nonnull MetaPointer conceptMetaPointer) {
-    if (registeredConcepts.containsKey(conceptMetaPointer)) {
-      return registeredConcepts.get(conceptMetaPointer);
-    } else {
+    Concept concept = registeredConcepts.get(conceptMetaPointer);
+    if (concept == null) {
       throw new RuntimeException(
           "Unable to resolve concept with metaPointer " + conceptMetaPointer);
     }
+    return concept;
   }
 
   @Nonnull
   public Annotation resolveAnnotation(@Nonnull MetaPointer metaPointer) {
-    if (registeredAnnotations.containsKey(metaPointer)) {
-      return registeredAnnotations.get(metaPointer);
-    } else {
+    Annotation annotation = registeredAnnotations.get(metaPointer);
+    if (annotation == null) {
       throw new RuntimeException("Unable to resolve annotation with metaPointer " + metaPointer);
     }
+    return annotation;
   }
 
   @Nonnull
   public ClassifierResolver registerLanguage(@Nonnull Language language) {
+    checkNotFrozen();
     language
         .getElements()
         .forEach(
@@ -9,9 +9,12 @@ import io.lionweb.lioncore.java.model.impl.ProxyNode;
 import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Stream;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -23,7 +26,23 @@ import javax.annotation.Nullable;
  */
 class DeserializationStatus {
   final List<SerializedClassifierInstance> sortedList;
-  final List<SerializedClassifierInstance> nodesToSort;
+  private final List<SerializedClassifierInstance> originalList;
+
+  /**
+   * Nodes indexed by the ID of their parent. It is built once, so that finding the children of a
+   * placed node does not require scanning the list of nodes to sort.
+   */
+  private final Map<String, List<SerializedClassifierInstance>> nodesByParentID;
+
+  private final Set<SerializedClassifierInstance> placed =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * Position in sortedList of the next node whose children have not yet been placed. The sorted
+   * list is used as the queue of a breadth-first visit.
+   */
+  private int expansionCursor = 0;
+
   final List<ProxyNode> proxies = new ArrayList<>();
   private LocalClassifierInstanceResolver proxiesInstanceResolver;
   /**
@@ -36,8 +55,14 @@ class DeserializationStatus {
   DeserializationStatus(
       List<SerializedClassifierInstance> originalList,
       ClassifierInstanceResolver outsideInstancesResolver) {
-    sortedList = new ArrayList<>();
-    nodesToSort = new ArrayList<>(originalList);
+    this.originalList = originalList;
+    sortedList = new ArrayList<>(originalList.size());
+    nodesByParentID = new HashMap<>();
+    for (SerializedClassifierInstance node : originalList) {
+      if (node.getParentNodeID() != null) {
+        nodesByParentID.computeIfAbsent(node.getParentNodeID(), k -> new ArrayList<>(1)).add(node);
+      }
+    }
     this.proxiesInstanceResolver = new LocalClassifierInstanceResolver();
     this.globalInstanceResolver =
         new CompositeClassifierInstanceResolver(outsideInstancesResolver, proxiesInstanceResolver);
@@ -47,14 +72,37 @@ class DeserializationStatus {
     // Nodes with null IDs are ambiguous but they cannot be the children of any node: they can
     // just be parent of other nodes, so we put all of them at the start (so they end up at the
     // end when we reverse the list)
-    nodesToSort.stream().filter(n -> n.getID() == null).forEach(n -> sortedList.add(n));
-    nodesToSort.removeAll(sortedList);
+    originalList.stream().filter(n -> n.getID() == null).forEach(n -> place(n));
   }
 
-  /** We place the node in the sorted list. */
+  /** Place all the nodes without a parent, in their original order. */
+  void placeNodesWithoutParent() {
+    originalList.stream().filter(n -> n.getParentNodeID() == null).forEach(n -> place(n));
+  }
+
+  /** We place the node in the sorted list. Placing a node twice has no effect. */
   void place(SerializedClassifierInstance node) {
-    sortedList.add(node);
-    nodesToSort.remove(node);
+    if (placed.add(node)) {
+      sortedList.add(node);
+    }
+  }
+
+  /**
+   * Place all the descendants of the nodes already placed, so that each node follows its parent.
+   * Every node and every parent-child relation is considered only once, so this is linear in the
+   * number of nodes.
+   */
+  void placeDescendantsOfPlacedNodes() {
+    while (expansionCursor < sortedList.size()) {
+      SerializedClassifierInstance node = sortedList.get(expansionCursor++);
+      if (node.getID() == null) {
+        continue;
+      }
+      List<SerializedClassifierInstance> children = nodesByParentID.remove(node.getID());
+      if (children != null) {
+        children.forEach(this::place);
+      }
+    }
   }
 
   void reverse() {
@@ -65,18 +113,6 @@ class DeserializationStatus {
     return sortedList.size();
   }
 
-  int howManyToSort() {
-    return nodesToSort.size();
-  }
-
-  SerializedClassifierInstance getNodeToSort(int index) {
-    return nodesToSort.get(index);
-  }
-
-  Stream<SerializedClassifierInstance> streamSorted() {
-    return sortedList.stream();
-  }
-
   /**
    * Resolve ensure that the nodeID is resolved to a Node. If possible it retrieves a proper node or
    * a previously instantiated ProxyNode, otherwise created a ProxyNode and return it.
@@ -0,0 +1,38 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.Annotation;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.serialization.flatbuffers.gen.FBNode;
+import javax.annotation.Nonnull;
+
+/**
+ * A read-only AnnotationInstance of a {@link FlatBuffersChunkView}, reading its values from the
+ * buffer.
+ */
+public final class FlatBuffersAnnotationInstance extends FlatBuffersClassifierInstance<Annotation>
+    implements AnnotationInstance {
+
+  FlatBuffersAnnotationInstance(
+      @Nonnull FlatBuffersChunkView view,
+      int index,
+      @Nonnull FBNode fbNode,
+      @Nonnull Annotation annotation) {
+    super(view, index, fbNode, annotation);
+  }
+
+  @Override
+  public Annotation getAnnotationDefinition() {
+    return getClassifier();
+  }
+
+  @Override
+  public Annotation getClassifier() {
+    return super.getClassifier();
+  }
+
+  @Override
+  public ClassifierInstance getParent() {
+    return getParentInstance();
+  }
+}
@@ -0,0 +1,178 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.Annotation;
+import io.lionweb.lioncore.java.language.Classifier;
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.serialization.flatbuffers.gen.FBChunk;
+import io.lionweb.serialization.flatbuffers.gen.FBMetaPointer;
+import io.lionweb.serialization.flatbuffers.gen.FBNode;
+import io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only view over a chunk serialized with FlatBuffers. Classifier instances are not
+ * deserialized upfront: the only work done when opening the view is building the map from IDs to
+ * positions in the buffer. When the chunk includes a node index, not even that is needed, as
+ * instances are then found by binary search in the index. Each node is then exposed as a {@link
+ * FlatBuffersNode}, and each annotation instance as a {@link FlatBuffersAnnotationInstance}, which
+ * read their values from the buffer when they are requested.
+ *
+ * <p>Classifiers are resolved, and property values decoded, using the configuration of the
+ * FlatBuffersSerialization which created the view. Classifier instances which are not part of the
+ * chunk are looked up in its instance resolver and, when they cannot be found there either, treated
+ * according to its UnavailableNodePolicies.
+ *
+ * <p>The view is not thread-safe.
+ */
+public class FlatBuffersChunkView
+    extends AbstractInstanceView<FlatBuffersClassifierInstance<?>, FlatBuffersNode> {
+  private final @Nonnull FBChunk chunk;
+  /** Null when the chunk includes a node index. */
+  private final @Nullable Map<String, Integer> indexByID;
+
+  private final FBNodeIndexEntry indexEntry = new FBNodeIndexEntry();
+  private final FlatBuffersClassifierInstance<?>[] instances;
+  /** The positions of the nodes among the instances, computed on the first request. */
+  private @Nullable int[] nodeIndexes;
+
+  private final Map<MetaPointer, Classifier<?>> classifiersByMetaPointer = new HashMap<>();
+
+  FlatBuffersChunkView(@Nonnull FlatBuffersSerialization serialization, @Nonnull FBChunk chunk) {
+    super(serialization);
+    Objects.requireNonNull(chunk, "chunk should not be null");
+    this.chunk = chunk;
+    int size = chunk.nodesLength();
+    this.instances = new FlatBuffersClassifierInstance<?>[size];
+    if (chunk.nodeIndexLength() > 0) {
+      this.indexByID = null;
+      return;
+    }
+    this.indexByID = new HashMap<>(size * 4 / 3 + 1);
+    FBNode fbNode = new FBNode();
+    for (int i = 0; i < size; i++) {
+      String id = chunk.nodes(fbNode, i).id();
+      if (id == null) {
+        throw new DeserializationException("Nodes without ID cannot be viewed");
+      }
+      if (indexByID.put(id, i) != null) {
+        throw new IllegalStateException("Duplicate ID found: " + id);
+      }
+    }
+  }
+
+  public @Nonnull String getSerializationFormatVersion() {
+    return chunk.serializationFormatVersion();
+  }
+
+  @Override
+  public int size() {
+    return instances.length;
+  }
+
+  /**
+   * The nodes of the chunk, in the order in which they have been serialized. Annotation instances
+   * are not included.
+   */
+  public @Nonnull List<Node> getNodes() {
+    int[] indexes = nodeIndexes();
+    return new AbstractList<Node>() {
+      @Override
+      public Node get(int index) {
+        return getNode(indexes[index]);
+      }
+
+      @Override
+      public int size() {
+        return indexes.length;
+      }
+    };
+  }
+
+  @Override
+  public @Nonnull FlatBuffersClassifierInstance<?> getInstance(int index) {
+    if (index < 0 || index >= instances.length) {
+      throw new IndexOutOfBoundsException("Invalid index " + index + " for " + instances.length);
+    }
+    FlatBuffersClassifierInstance<?> instance = instances[index];
+    if (instance == null) {
+      FBNode fbNode = chunk.nodes(index);
+      Classifier<?> classifier = resolveClassifier(fbNode.classifier());
+      if (classifier instanceof Concept) {
+        instance = new FlatBuffersNode(this, index, fbNode, (Concept) classifier);
+      } else {
+        instance = new FlatBuffersAnnotationInstance(this, index, fbNode, (Annotation) classifier);
+      }
+      instances[index] = instance;
+    }
+    return instance;
+  }
+
+  /**
+   * Return the node at the given position among the classifier instances of the chunk.
+   *
+   * @throws IllegalArgumentException if the instance at that position is an annotation instance
+   */
+  public @Nonnull FlatBuffersNode getNode(int index) {
+    FlatBuffersClassifierInstance<?> instance = getInstance(index);
+    if (!(instance instanceof FlatBuffersNode)) {
+      throw new IllegalArgumentException("The instance at index " + index + " is not a Node");
+    }
+    return (FlatBuffersNode) instance;
+  }
+
+  @Override
+  int indexOf(@Nonnull String id) {
+    if (indexByID == null) {
+      return FlatBuffersSerialization.indexOfNode(chunk, id, indexEntry);
+    }
+    Integer index = indexByID.get(id);
+    return index == null ? -1 : index;
+  }
+
+  @Override
+  boolean containsParentOf(int index) {
+    String parentID = chunk.nodes(index).parent();
+    return parentID != null && indexOf(parentID) != -1;
+  }
+
+  @Nonnull
+  Classifier<?> resolveClassifier(@Nonnull FBMetaPointer fbMetaPointer) {
+    MetaPointer metaPointer =
+        MetaPointer.get(fbMetaPointer.language(), fbMetaPointer.version(), fbMetaPointer.key());
+    Classifier<?> classifier = classifiersByMetaPointer.get(metaPointer);
+    if (classifier == null) {
+      classifier = serialization.getClassifierResolver().resolveClassifier(metaPointer);
+      if (!(classifier instanceof Concept) && !(classifier instanceof Annotation)) {
+        throw new DeserializationException(
+            "Only instances of Concepts and Annotations can be viewed, while "
+                + metaPointer
+                + " is "
+                + classifier);
+      }
+      classifiersByMetaPointer.put(metaPointer, classifier);
+    }
+    return classifier;
+  }
+
+  //
+  // Private methods
+  //
+
+  private int[] nodeIndexes() {
+    if (nodeIndexes == null) {
+      int[] indexes = new int[instances.length];
+      int count = 0;
+      for (int i = 0; i < instances.length; i++) {
+        if (getInstance(i) instanceof FlatBuffersNode) {
+          indexes[count++] = i;
+        }
+      }
+      nodeIndexes = count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+    }
+    return nodeIndexes;
+  }
+}
@@ -0,0 +1,156 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.serialization.flatbuffers.gen.*;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only ClassifierInstance backed by a classifier instance of a {@link FlatBuffersChunkView}.
+ * Nothing is copied out of the buffer until it is requested: property values are decoded on each
+ * access, while children, reference targets and annotations are looked up in the same view.
+ */
+public abstract class FlatBuffersClassifierInstance<T extends Classifier<T>>
+    extends ReadOnlyClassifierInstance<T> {
+  protected final @Nonnull FlatBuffersChunkView view;
+  protected final int index;
+  protected final @Nonnull FBNode fbNode;
+  private final @Nonnull T classifier;
+
+  FlatBuffersClassifierInstance(
+      @Nonnull FlatBuffersChunkView view,
+      int index,
+      @Nonnull FBNode fbNode,
+      @Nonnull T classifier) {
+    this.view = view;
+    this.index = index;
+    this.fbNode = fbNode;
+    this.classifier = classifier;
+  }
+
+  /** The position of this instance in the chunk. */
+  public int getIndex() {
+    return index;
+  }
+
+  @Override
+  public String getID() {
+    return fbNode.id();
+  }
+
+  @Override
+  public T getClassifier() {
+    return classifier;
+  }
+
+  @Nullable
+  @Override
+  ClassifierInstance<?> getParentInstance() {
+    return view.resolve(
+        fbNode.parent(), view.getSerialization().getUnavailableParentPolicy(), "parent");
+  }
+
+  @Override
+  public Object getPropertyValue(@Nonnull Property property) {
+    Objects.requireNonNull(property, "Property should not be null");
+    MetaPointer metaPointer = metaPointerOf(property);
+    FBProperty fbProperty = new FBProperty();
+    for (int i = 0; i < fbNode.propertiesLength(); i++) {
+      fbNode.properties(fbProperty, i);
+      if (matches(fbProperty.metaPointer(), metaPointer)) {
+        Objects.requireNonNull(property.getType(), "property type should not be null");
+        return view.getSerialization()
+            .getPrimitiveValuesSerialization()
+            .deserialize(property.getType(), fbProperty.value(), property.isRequired());
+      }
+    }
+    if (property.getType() == LionCoreBuiltins.getBoolean() && property.isRequired()) {
+      return false;
+    }
+    return null;
+  }
+
+  @Override
+  public List<? extends Node> getChildren(@Nonnull Containment containment) {
+    Objects.requireNonNull(containment, "Containment should not be null");
+    MetaPointer metaPointer = metaPointerOf(containment);
+    FBContainment fbContainment = new FBContainment();
+    for (int i = 0; i < fbNode.containmentsLength(); i++) {
+      fbNode.containments(fbContainment, i);
+      if (matches(fbContainment.metaPointer(), metaPointer)) {
+        UnavailableNodePolicy policy = view.getSerialization().getUnavailableChildrenPolicy();
+        List<Node> children = new ArrayList<>(fbContainment.childrenLength());
+        for (int j = 0; j < fbContainment.childrenLength(); j++) {
+          String childID = fbContainment.children(j);
+          if (FlatBuffersSerialization.NULL_CONSTANT.equals(childID)) {
+            throw new DeserializationException("Unable to deserialize child identified by Null ID");
+          }
+          Node child = (Node) view.resolve(childID, policy, "child");
+          if (child != null) {
+            children.add(child);
+          }
+        }
+        return Collections.unmodifiableList(children);
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  @Nonnull
+  @Override
+  public List<ReferenceValue> getReferenceValues(@Nonnull Reference reference) {
+    Objects.requireNonNull(reference, "Reference should not be null");
+    MetaPointer metaPointer = metaPointerOf(reference);
+    FBReference fbReference = new FBReference();
+    for (int i = 0; i < fbNode.referencesLength(); i++) {
+      fbNode.references(fbReference, i);
+      if (matches(fbReference.metaPointer(), metaPointer)) {
+        UnavailableNodePolicy policy =
+            view.getSerialization().getUnavailableReferenceTargetPolicy();
+        List<ReferenceValue> values = new ArrayList<>(fbReference.valuesLength());
+        FBReferenceValue fbValue = new FBReferenceValue();
+        for (int j = 0; j < fbReference.valuesLength(); j++) {
+          fbReference.values(fbValue, j);
+          Node referred = (Node) view.resolve(fbValue.referred(), policy, "reference target");
+          values.add(new ReferenceValue(referred, fbValue.resolveInfo()));
+        }
+        return Collections.unmodifiableList(values);
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * The annotation instances attached to this instance. Those which are neither in the view nor
+   * known to the instance resolver are skipped.
+   */
+  @Nonnull
+  @Override
+  public List<AnnotationInstance> getAnnotations() {
+    int length = fbNode.annotationsLength();
+    if (length == 0) {
+      return Collections.emptyList();
+    }
+    List<AnnotationInstance> annotations = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      ClassifierInstance<?> annotation =
+          view.resolve(fbNode.annotations(i), UnavailableNodePolicy.NULL_REFERENCES, "annotation");
+      if (annotation instanceof AnnotationInstance) {
+        annotations.add((AnnotationInstance) annotation);
+      }
+    }
+    return Collections.unmodifiableList(annotations);
+  }
+
+  static boolean matches(FBMetaPointer fbMetaPointer, MetaPointer metaPointer) {
+    return Objects.equals(fbMetaPointer.key(), metaPointer.getKey())
+        && Objects.equals(fbMetaPointer.language(), metaPointer.getLanguage())
+        && Objects.equals(fbMetaPointer.version(), metaPointer.getVersion());
+  }
+}
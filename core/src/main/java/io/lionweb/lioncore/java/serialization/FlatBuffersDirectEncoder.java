@@ -0,0 +1,251 @@
+package io.lionweb.lioncore.java.serialization;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.serialization.flatbuffers.gen.*;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class encodes classifier instances as an FBChunk, using the V1 schema, writing each node
+ * directly with the FlatBufferBuilder. No SerializedClassifierInstance is created: values are read
+ * from the nodes and written as they are met.
+ *
+ * <p>The FBMetaPointers of a classifier and of its features are created once, through the FBHelper,
+ * the first time an instance of the classifier is met, and shared by all the nodes referring to
+ * them. All other strings are shared through the builder.
+ */
+final class FlatBuffersDirectEncoder {
+
+  /** The offsets of the FBMetaPointers of a classifier and of its features. */
+  private static class ClassifierOffsets {
+    private final FeatureLayout layout;
+    private final int classifier;
+    private final int[] properties;
+    private final int[] containments;
+    private final int[] references;
+
+    private ClassifierOffsets(
+        FeatureLayout layout,
+        int classifier,
+        int[] properties,
+        int[] containments,
+        int[] references) {
+      this.layout = layout;
+      this.classifier = classifier;
+      this.properties = properties;
+      this.containments = containments;
+      this.references = references;
+    }
+  }
+
+  private final FlatBuffersSerialization serialization;
+  private final FlatBuffersSerialization.FBHelper helper;
+  private final FlatBufferBuilder builder;
+  private final IdentityHashMap<Classifier<?>, ClassifierOffsets> classifierOffsets =
+      new IdentityHashMap<>();
+  private final List<Language> languages = new ArrayList<>();
+  private final Set<Language> consideredLanguages = new HashSet<>();
+  private int[] nodes = new int[64];
+  // The offsets of the IDs of the nodes, or -1 for nodes without ID
+  private int[] ids = new int[64];
+  private int nodesCount;
+
+  FlatBuffersDirectEncoder(
+      @Nonnull FlatBuffersSerialization serialization,
+      @Nonnull FlatBuffersSerialization.FBHelper helper) {
+    this.serialization = serialization;
+    this.helper = helper;
+    this.builder = helper.builder;
+  }
+
+  /** Encode the given instance and add it to the nodes of the chunk. */
+  void encode(@Nonnull ClassifierInstance<?> classifierInstance) {
+    Objects.requireNonNull(classifierInstance, "classifierInstance should not be null");
+    ClassifierInstance<?> parent = classifierInstance.getParent();
+    int id = sharedString(classifierInstance.getID());
+    int node = node(classifierInstance, id, parent == null ? null : parent.getID());
+    if (nodesCount == nodes.length) {
+      nodes = Arrays.copyOf(nodes, nodes.length * 2);
+      ids = Arrays.copyOf(ids, ids.length * 2);
+    }
+    nodes[nodesCount] = node;
+    ids[nodesCount] = id == 0 ? -1 : id;
+    nodesCount++;
+  }
+
+  /**
+   * Encode the given instance as an FBNode, returning its offset, without adding it to the nodes of
+   * the chunk. The given parent ID is written in place of the ID of the parent of the instance.
+   */
+  int node(@Nonnull ClassifierInstance<?> classifierInstance, @Nullable String parentID) {
+    Objects.requireNonNull(classifierInstance, "classifierInstance should not be null");
+    return node(classifierInstance, sharedString(classifierInstance.getID()), parentID);
+  }
+
+  /** Complete the chunk, with all the nodes encoded so far, and finish the builder. */
+  void finish(@Nonnull String serializationFormatVersion) {
+    int[] languagesOffsets = new int[languages.size()];
+    for (int i = 0; i < languagesOffsets.length; i++) {
+      Language language = languages.get(i);
+      languagesOffsets[i] =
+          FBLanguage.createFBLanguage(
+              builder,
+              builder.createSharedString(language.getKey()),
+              builder.createSharedString(language.getVersion()));
+    }
+    int[] nodesOffsets = Arrays.copyOf(nodes, nodesCount);
+    int nodeIndexVector =
+        serialization.isWritingNodeIndex()
+            ? FlatBuffersSerialization.nodeIndexVector(builder, Arrays.copyOf(ids, nodesCount))
+            : 0;
+    int chunk =
+        FBChunk.createFBChunk(
+            builder,
+            builder.createSharedString(serializationFormatVersion),
+            FBChunk.createLanguagesVector(builder, languagesOffsets),
+            FBChunk.createNodesVector(builder, nodesOffsets),
+            nodeIndexVector);
+    builder.finish(chunk);
+  }
+
+  //
+  // Private methods
+  //
+
+  private int node(ClassifierInstance<?> classifierInstance, int id, @Nullable String parentID) {
+    ClassifierOffsets offsets = classifierOffsets(classifierInstance.getClassifier());
+    FeatureLayout layout = offsets.layout;
+
+    List<Property> properties = layout.getProperties();
+    int[] props = new int[properties.size()];
+    for (int i = 0; i < props.length; i++) {
+      Property property = properties.get(i);
+      String value =
+          serialization.serializePropertyValue(
+              property.getType(), classifierInstance.getPropertyValue(property));
+      props[i] = FBProperty.createFBProperty(builder, offsets.properties[i], sharedString(value));
+    }
+
+    List<Containment> containments = layout.getContainments();
+    int[] cons = new int[containments.size()];
+    for (int i = 0; i < cons.length; i++) {
+      List<? extends Node> children = classifierInstance.getChildren(containments.get(i));
+      int[] childrenOffsets = new int[children.size()];
+      for (int j = 0; j < childrenOffsets.length; j++) {
+        String childID = children.get(j).getID();
+        childrenOffsets[j] =
+            builder.createSharedString(
+                childID == null ? FlatBuffersSerialization.NULL_CONSTANT : childID);
+      }
+      cons[i] =
+          FBContainment.createFBContainment(
+              builder,
+              offsets.containments[i],
+              FBContainment.createChildrenVector(builder, childrenOffsets));
+    }
+
+    List<Reference> references = layout.getReferences();
+    int[] refs = new int[references.size()];
+    for (int i = 0; i < refs.length; i++) {
+      List<? extends ReferenceValue> values =
+          classifierInstance.getReferenceValues(references.get(i));
+      int[] valuesOffsets = new int[values.size()];
+      for (int j = 0; j < valuesOffsets.length; j++) {
+        ReferenceValue value = values.get(j);
+        Node referred = value.getReferred();
+        String referredID = referred == null ? null : referred.getID();
+        if (serialization.builtinsReferenceDangling
+            && ClassifierInstanceUtils.isBuiltinElement(referred)) {
+          referredID = null;
+        }
+        valuesOffsets[j] =
+            FBReferenceValue.createFBReferenceValue(
+                builder, sharedString(value.getResolveInfo()), sharedString(referredID));
+      }
+      refs[i] =
+          FBReference.createFBReference(
+              builder,
+              offsets.references[i],
+              FBReference.createValuesVector(builder, valuesOffsets));
+    }
+
+    List<? extends AnnotationInstance> annotations = classifierInstance.getAnnotations();
+    int[] anns = new int[annotations.size()];
+    for (int i = 0; i < anns.length; i++) {
+      String annotationID = annotations.get(i).getID();
+      anns[i] =
+          builder.createSharedString(
+              annotationID == null ? FlatBuffersSerialization.NULL_CONSTANT : annotationID);
+    }
+
+    return FBNode.createFBNode(
+        builder,
+        id,
+        offsets.classifier,
+        FBNode.createPropertiesVector(builder, props),
+        FBNode.createContainmentsVector(builder, cons),
+        FBNode.createReferencesVector(builder, refs),
+        FBNode.createAnnotationsVector(builder, anns),
+        sharedString(parentID));
+  }
+
+  /** Null strings are represented by absent fields, whose offset is 0. */
+  private int sharedString(@Nullable String string) {
+    return string == null ? 0 : builder.createSharedString(string);
+  }
+
+  private ClassifierOffsets classifierOffsets(Classifier<?> classifier) {
+    Objects.requireNonNull(classifier, "A node should have a concept in order to be serialized");
+    FeatureLayout layout = classifier.getFeatureLayout();
+    ClassifierOffsets offsets = classifierOffsets.get(classifier);
+    if (offsets == null || offsets.layout != layout) {
+      offsets =
+          new ClassifierOffsets(
+              layout,
+              helper.offsetForMetaPointer(MetaPointer.from(classifier)),
+              featureOffsets(layout, layout.getProperties()),
+              featureOffsets(layout, layout.getContainments()),
+              featureOffsets(layout, layout.getReferences()));
+      classifierOffsets.put(classifier, offsets);
+      considerUsedLanguages(classifier);
+    }
+    return offsets;
+  }
+
+  private int[] featureOffsets(FeatureLayout layout, List<? extends Feature<?>> features) {
+    int[] offsets = new int[features.size()];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = helper.offsetForMetaPointer(layout.getMetaPointer(features.get(i)));
+    }
+    return offsets;
+  }
+
+  /** The languages used by instances of a classifier only depend on the classifier. */
+  private void considerUsedLanguages(Classifier<?> classifier) {
+    Objects.requireNonNull(
+        classifier.getLanguage(),
+        "A Concept should be part of a Language in order to be serialized. Concept "
+            + classifier
+            + " is not");
+    considerLanguage(classifier.getLanguage());
+    FeatureLayout layout = classifier.getFeatureLayout();
+    layout.getFeatures().forEach(f -> considerLanguage(f.getDeclaringLanguage()));
+    layout.getProperties().forEach(p -> considerLanguage(p.getType().getLanguage()));
+    layout.getLinks().forEach(l -> considerLanguage(l.getType().getLanguage()));
+  }
+
+  private void considerLanguage(Language language) {
+    if (consideredLanguages.add(language)) {
+      serialization.registerUsedLanguage(language);
+      languages.add(language);
+    }
+  }
+}
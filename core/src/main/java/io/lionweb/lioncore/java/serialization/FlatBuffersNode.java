@@ -0,0 +1,63 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.language.Containment;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.serialization.flatbuffers.gen.FBContainment;
+import io.lionweb.serialization.flatbuffers.gen.FBMetaPointer;
+import io.lionweb.serialization.flatbuffers.gen.FBNode;
+import javax.annotation.Nonnull;
+
+/** A read-only Node of a {@link FlatBuffersChunkView}, reading its values from the buffer. */
+public final class FlatBuffersNode extends FlatBuffersClassifierInstance<Concept> implements Node {
+
+  FlatBuffersNode(
+      @Nonnull FlatBuffersChunkView view,
+      int index,
+      @Nonnull FBNode fbNode,
+      @Nonnull Concept concept) {
+    super(view, index, fbNode, concept);
+  }
+
+  @Override
+  public Node getParent() {
+    return view.parentNode(getParentInstance());
+  }
+
+  @Override
+  public Concept getClassifier() {
+    return super.getClassifier();
+  }
+
+  @Override
+  public Containment getContainmentFeature() {
+    ClassifierInstance<?> parent = getParentInstance();
+    if (!(parent instanceof FlatBuffersClassifierInstance)) {
+      return findContainmentIn(parent);
+    }
+    FlatBuffersClassifierInstance<?> parentInstance = (FlatBuffersClassifierInstance<?>) parent;
+    String id = getID();
+    FBContainment fbContainment = new FBContainment();
+    for (int i = 0; i < parentInstance.fbNode.containmentsLength(); i++) {
+      parentInstance.fbNode.containments(fbContainment, i);
+      for (int j = 0; j < fbContainment.childrenLength(); j++) {
+        if (id.equals(fbContainment.children(j))) {
+          FBMetaPointer metaPointer = fbContainment.metaPointer();
+          return parentInstance
+              .getClassifier()
+              .getContainmentByMetaPointer(
+                  MetaPointer.get(
+                      metaPointer.language(), metaPointer.version(), metaPointer.key()));
+        }
+      }
+    }
+    throw new IllegalStateException("Unable to find the containment holding " + id);
+  }
+
+  @Override
+  public int getIndexInParent() {
+    return indexInParent(getContainmentFeature());
+  }
+}
@@ -5,22 +5,115 @@ import io.lionweb.lioncore.java.model.*;
 import io.lionweb.lioncore.java.model.impl.ProxyNode;
 import io.lionweb.lioncore.java.serialization.data.*;
 import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.utils.IDDictionary;
 import io.lionweb.serialization.flatbuffers.gen.*;
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public class FlatBuffersSerialization extends AbstractSerialization {
 
-  private static final String NULL_CONSTANT = "NULL";
+  static final String NULL_CONSTANT = "NULL";
 
+  /** The versions of the FlatBuffers chunk schema. Chunks of both versions can be deserialized. */
+  public enum SchemaVersion {
+    /** The schema defined in chunk.fbs, in which each string is stored where it is used. */
+    V1,
+    /**
+     * The schema defined in chunk_v2.fbs, in which string values, IDs and MetaPointers are stored
+     * once, in tables at the level of the chunk, and referred to by index.
+     */
+    V2
+  }
+
+  private static final int MIN_BUILDER_CAPACITY = 1024;
+
+  /** Builders which grew past this capacity are not reused, to avoid retaining too much memory. */
+  private static final int MAX_POOLED_BUILDER_CAPACITY = 4 * 1024 * 1024;
+
+  /**
+   * Each thread reuses its builder, and the buffer which it grew, across serializations, whichever
+   * instance of FlatBuffersSerialization performs them. The pool is static, so that a thread
+   * retains at most one builder, of at most MAX_POOLED_BUILDER_CAPACITY, for as long as it lives,
+   * however many serializations it used.
+   */
+  private static final ThreadLocal<FlatBufferBuilder> pooledBuilders = new ThreadLocal<>();
+
+  private static final int MAX_ESTIMATED_SIZE = 1 << 30;
+
+  private SchemaVersion schemaVersion = SchemaVersion.V1;
+  private boolean idTable = true;
+  private boolean nodeIndex = false;
+
+  /** The version of the schema used when serializing. */
+  public SchemaVersion getSchemaVersion() {
+    return schemaVersion;
+  }
+
+  public void setSchemaVersion(SchemaVersion schemaVersion) {
+    Objects.requireNonNull(schemaVersion, "schemaVersion should not be null");
+    checkNotFrozen();
+    this.schemaVersion = schemaVersion;
+  }
+
+  public boolean isUsingIdTable() {
+    return idTable;
+  }
+
+  /**
+   * When using the V2 schema, decide if IDs are stored in their own table, or together with the
+   * other strings. A separate table, used by default, permits to read IDs without decoding the
+   * other strings.
+   */
+  public void setUsingIdTable(boolean idTable) {
+    checkNotFrozen();
+    this.idTable = idTable;
+  }
+
+  public boolean isWritingNodeIndex() {
+    return nodeIndex;
+  }
+
+  /**
+   * When using the V1 schema, decide if chunks include an index of their nodes, sorted by ID. The
+   * index permits to find nodes by ID with a binary search, without scanning the chunk, for a cost
+   * of about 16 bytes per node. It is not written by default.
+   *
+   * @see #findNode(ByteBuffer, String)
+   */
+  public void setWritingNodeIndex(boolean nodeIndex) {
+    checkNotFrozen();
+    this.nodeIndex = nodeIndex;
+  }
+
+  /** The version of the schema is recognized from the file identifier of the chunk. */
   public List<io.lionweb.lioncore.java.model.Node> deserializeToNodes(byte[] bytes)
       throws IOException {
     ByteBuffer bb = ByteBuffer.wrap(bytes);
+    if (FBChunkV2.FBChunkV2BufferHasIdentifier(bb)) {
+      return deserializeToNodes(FBChunkV2.getRootAsFBChunkV2(bb));
+    }
     return deserializeToNodes(FBChunk.getRootAsFBChunk(bb));
   }
 
+  /**
+   * Decode the given chunk, of either version of the schema, to its low-level representation,
+   * without instantiating its nodes.
+   */
+  public SerializedChunk deserializeToSerializationBlock(byte[] bytes) {
+    ByteBuffer bb = ByteBuffer.wrap(bytes);
+    if (FBChunkV2.FBChunkV2BufferHasIdentifier(bb)) {
+      return deserializeSerializationChunk(FBChunkV2.getRootAsFBChunkV2(bb));
+    }
+    return deserializeSerializationChunk(FBChunk.getRootAsFBChunk(bb));
+  }
+
   public List<io.lionweb.lioncore.java.model.Node> deserializeToNodes(FBChunk chunk) {
     return deserializeToClassifierInstances(chunk).stream()
         .filter(ci -> ci instanceof io.lionweb.lioncore.java.model.Node)
@@ -34,9 +127,149 @@ public class FlatBuffersSerialization extends AbstractSerialization {
     return deserializeSerializationBlock(serializationBlock);
   }
 
-  private class DeserializationHelper {
+  public List<io.lionweb.lioncore.java.model.Node> deserializeToNodes(FBChunkV2 chunk) {
+    return deserializeToClassifierInstances(chunk).stream()
+        .filter(ci -> ci instanceof io.lionweb.lioncore.java.model.Node)
+        .map(ci -> (io.lionweb.lioncore.java.model.Node) ci)
+        .collect(Collectors.toList());
+  }
+
+  public List<ClassifierInstance<?>> deserializeToClassifierInstances(FBChunkV2 chunk) {
+    SerializedChunk serializationBlock = deserializeSerializationChunk(chunk);
+    validateSerializationBlock(serializationBlock);
+    return deserializeSerializationBlock(serializationBlock);
+  }
+
+  /**
+   * Open a read-only view over the chunk contained in the given bytes, without deserializing its
+   * nodes upfront.
+   *
+   * @see FlatBuffersChunkView
+   */
+  public FlatBuffersChunkView viewChunk(byte[] bytes) {
+    return viewChunk(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Open a read-only view over the chunk contained in the given buffer, which may be a
+   * memory-mapped file. The buffer is read from its current position and it should not be modified
+   * while the view is used.
+   *
+   * @see FlatBuffersChunkView
+   */
+  public FlatBuffersChunkView viewChunk(ByteBuffer buffer) {
+    Objects.requireNonNull(buffer, "buffer should not be null");
+    if (FBChunkV2.FBChunkV2BufferHasIdentifier(buffer.slice())) {
+      throw new IllegalArgumentException("Views are only supported on chunks using the V1 schema");
+    }
+    FBChunk chunk = FBChunk.getRootAsFBChunk(buffer.slice());
+    String serializationFormatVersion = chunk.serializationFormatVersion();
+    if (!getLionWebVersion().getVersionString().equals(serializationFormatVersion)) {
+      throw new IllegalArgumentException(
+          "Only serializationFormatVersion supported by this instance of Serialization is '"
+              + getLionWebVersion().getVersionString()
+              + "' but we found '"
+              + serializationFormatVersion
+              + "'");
+    }
+    return new FlatBuffersChunkView(this, chunk);
+  }
+
+  /**
+   * Open a read-only view over the chunk stored in the given file. The file is memory-mapped, so
+   * only the parts of it which are actually accessed are loaded.
+   *
+   * @see FlatBuffersChunkView
+   */
+  public FlatBuffersChunkView viewChunk(File file) throws IOException {
+    Objects.requireNonNull(file, "file should not be null");
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return viewChunk(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  public NodeStore deserializeToNodeStore(byte[] bytes) {
+    return deserializeToNodeStore(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Load the chunk contained in the given buffer into a {@link NodeStore}. The nodes of chunks
+   * using the V1 schema are decoded one at a time, without building a SerializedChunk, while chunks
+   * using the V2 schema are decoded through their tables first.
+   */
+  public NodeStore deserializeToNodeStore(ByteBuffer buffer) {
+    Objects.requireNonNull(buffer, "buffer should not be null");
+    if (FBChunkV2.FBChunkV2BufferHasIdentifier(buffer.slice())) {
+      return deserializeToNodeStore(
+          deserializeSerializationChunk(FBChunkV2.getRootAsFBChunkV2(buffer.slice())));
+    }
+    FBChunk chunk = FBChunk.getRootAsFBChunk(buffer.slice());
+    validateSerializationFormatVersion(chunk.serializationFormatVersion());
+    DeserializationHelper helper = new DeserializationHelper();
+    NodeStore.Loader loader = new NodeStore.Loader(this, chunk.nodesLength());
+    FBNode fbNode = new FBNode();
+    for (int i = 0; i < chunk.nodesLength(); i++) {
+      loader.add(deserializeNode(chunk.nodes(fbNode, i), helper));
+    }
+    return loader.build();
+  }
+
+  /**
+   * Find the node with the given ID in the chunk contained in the given buffer, which may be a
+   * memory-mapped file, decoding only that node. When the chunk includes a node index the node is
+   * found by binary search, otherwise all the nodes are scanned.
+   *
+   * @return the node, or null if the chunk does not contain it
+   */
+  public @Nullable SerializedClassifierInstance findNode(
+      @Nonnull ByteBuffer buffer, @Nonnull String id) {
+    Objects.requireNonNull(buffer, "buffer should not be null");
+    Objects.requireNonNull(id, "id should not be null");
+    if (FBChunkV2.FBChunkV2BufferHasIdentifier(buffer.slice())) {
+      throw new IllegalArgumentException(
+          "Looking up nodes is only supported on chunks using the V1 schema");
+    }
+    FBChunk chunk = FBChunk.getRootAsFBChunk(buffer.slice());
+    int index = indexOfNode(chunk, id, new FBNodeIndexEntry());
+    if (index == -1) {
+      return null;
+    }
+    return deserializeNode(chunk.nodes(index), new DeserializationHelper());
+  }
+
+  /**
+   * Return the position in the chunk of the node with the given ID, or -1 if the chunk does not
+   * contain it.
+   */
+  static int indexOfNode(@Nonnull FBChunk chunk, @Nonnull String id, FBNodeIndexEntry entry) {
+    if (chunk.nodeIndexLength() > 0) {
+      return chunk.nodeIndexByKey(entry, id) == null ? -1 : (int) entry.node();
+    }
+    FBNode fbNode = new FBNode();
+    for (int i = 0; i < chunk.nodesLength(); i++) {
+      if (id.equals(chunk.nodes(fbNode, i).id())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * It decodes the parts of FBNodes. It is not thread-safe: threads decoding nodes in parallel
+   * should use one helper each. IDs are interned in a dictionary, so that all the occurrences of an
+   * ID decoded by the same helper share a single String instance.
+   */
+  protected class DeserializationHelper {
 
     private IdentityHashMap<FBMetaPointer, MetaPointer> metaPointersCache = new IdentityHashMap<>();
+    private final IDDictionary idDictionary = new IDDictionary();
+
+    public DeserializationHelper() {}
+
+    @Nullable
+    public String id(@Nullable String id) {
+      return idDictionary.intern(id);
+    }
 
     public MetaPointer deserialize(FBMetaPointer classifier) {
       if (classifier == null) {
@@ -44,13 +277,8 @@ public class FlatBuffersSerialization extends AbstractSerialization {
       }
       return metaPointersCache.computeIfAbsent(
           classifier,
-          fbMetaPointer -> {
-            MetaPointer metaPointer = new MetaPointer();
-            metaPointer.setKey(classifier.key());
-            metaPointer.setLanguage(classifier.language());
-            metaPointer.setVersion(classifier.version());
-            return metaPointer;
-          });
+          fbMetaPointer ->
+              MetaPointer.get(classifier.language(), classifier.version(), classifier.key()));
     }
 
     public SerializedContainmentValue deserialize(FBContainment containment) {
@@ -61,7 +289,7 @@ public class FlatBuffersSerialization extends AbstractSerialization {
         if (child.equals(NULL_CONSTANT)) {
           throw new DeserializationException("Unable to deserialize child identified by Null ID");
         } else {
-          children.add(child);
+          children.add(id(child));
         }
       }
       scv.setValue(children);
@@ -84,49 +312,210 @@ public class FlatBuffersSerialization extends AbstractSerialization {
     }
 
     for (int i = 0; i < chunk.nodesLength(); i++) {
-      FBNode n = chunk.nodes(i);
+      serializedChunk.addClassifierInstance(deserializeNode(chunk.nodes(i), helper));
+    }
+    return serializedChunk;
+  }
+
+  protected SerializedClassifierInstance deserializeNode(FBNode n, DeserializationHelper helper) {
+    SerializedClassifierInstance sci = new SerializedClassifierInstance();
+    sci.setID(helper.id(n.id()));
+    sci.setParentNodeID(helper.id(n.parent()));
+    sci.setClassifier(helper.deserialize(n.classifier()));
+    for (int j = 0; j < n.propertiesLength(); j++) {
+      FBProperty p = n.properties(j);
+      SerializedPropertyValue spv = new SerializedPropertyValue();
+      spv.setValue(p.value());
+      spv.setMetaPointer(helper.deserialize(p.metaPointer()));
+      sci.addPropertyValue(spv);
+    }
+
+    for (int j = 0; j < n.containmentsLength(); j++) {
+      FBContainment c = n.containments(j);
+      sci.addContainmentValue(helper.deserialize(c));
+    }
+
+    for (int j = 0; j < n.referencesLength(); j++) {
+      FBReference r = n.references(j);
+      SerializedReferenceValue srv = new SerializedReferenceValue();
+      for (int k = 0; k < r.valuesLength(); k++) {
+        FBReferenceValue rv = r.values(k);
+        SerializedReferenceValue.Entry entry = new SerializedReferenceValue.Entry();
+        entry.setReference(helper.id(rv.referred()));
+        entry.setResolveInfo(rv.resolveInfo());
+        srv.addValue(entry);
+      }
+
+      srv.setMetaPointer(helper.deserialize(r.metaPointer()));
+      sci.addReferenceValue(srv);
+    }
+    for (int j = 0; j < n.annotationsLength(); j++) {
+      sci.addAnnotation(helper.id(n.annotations(j)));
+    }
+    return sci;
+  }
+
+  /**
+   * Each string value, ID and MetaPointer is decoded once, when the tables are read, and then
+   * shared by all the nodes referring to it.
+   */
+  private SerializedChunk deserializeSerializationChunk(FBChunkV2 chunk) {
+    String[] strings = new String[chunk.stringsLength()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = chunk.strings(i);
+    }
+    String[] ids;
+    if (chunk.idsLength() == 0) {
+      ids = strings;
+    } else {
+      ids = new String[chunk.idsLength()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = chunk.ids(i);
+      }
+    }
+    MetaPointer[] metaPointers = new MetaPointer[chunk.metaPointersLength()];
+    FBMetaPointerV2 fbMetaPointer = new FBMetaPointerV2();
+    for (int i = 0; i < metaPointers.length; i++) {
+      chunk.metaPointers(fbMetaPointer, i);
+      metaPointers[i] =
+          MetaPointer.get(
+              stringAt(strings, fbMetaPointer.language()),
+              stringAt(strings, fbMetaPointer.version()),
+              stringAt(strings, fbMetaPointer.key()));
+    }
+
+    SerializedChunk serializedChunk = new SerializedChunk();
+    serializedChunk.setSerializationFormatVersion(chunk.serializationFormatVersion());
+    FBLanguageV2 fbLanguage = new FBLanguageV2();
+    for (int i = 0; i < chunk.languagesLength(); i++) {
+      chunk.languages(fbLanguage, i);
+      UsedLanguage usedLanguage = new UsedLanguage();
+      usedLanguage.setKey(stringAt(strings, fbLanguage.key()));
+      usedLanguage.setVersion(stringAt(strings, fbLanguage.version()));
+      serializedChunk.addLanguage(usedLanguage);
+    }
+
+    // The accessors are reused for all the nodes
+    FBNodeV2 n = new FBNodeV2();
+    FBPropertyV2 p = new FBPropertyV2();
+    FBContainmentV2 c = new FBContainmentV2();
+    FBReferenceV2 r = new FBReferenceV2();
+    FBReferenceValueV2 rv = new FBReferenceValueV2();
+    for (int i = 0; i < chunk.nodesLength(); i++) {
+      chunk.nodes(n, i);
       SerializedClassifierInstance sci = new SerializedClassifierInstance();
-      sci.setID(n.id());
-      sci.setParentNodeID(n.parent());
-      sci.setClassifier(helper.deserialize(n.classifier()));
+      sci.setID(stringAt(ids, n.id()));
+      sci.setParentNodeID(stringAt(ids, n.parent()));
+      sci.setClassifier(metaPointerAt(metaPointers, n.classifier()));
       for (int j = 0; j < n.propertiesLength(); j++) {
-        FBProperty p = n.properties(j);
+        n.properties(p, j);
         SerializedPropertyValue spv = new SerializedPropertyValue();
-        spv.setValue(p.value());
-        spv.setMetaPointer(helper.deserialize(p.metaPointer()));
+        spv.setValue(stringAt(strings, p.value()));
+        spv.setMetaPointer(metaPointerAt(metaPointers, p.metaPointer()));
         sci.addPropertyValue(spv);
       }
-
       for (int j = 0; j < n.containmentsLength(); j++) {
-        FBContainment c = n.containments(j);
-        sci.addContainmentValue(helper.deserialize(c));
+        n.containments(c, j);
+        List<String> children = new ArrayList<>(c.childrenLength());
+        for (int k = 0; k < c.childrenLength(); k++) {
+          String child = stringAt(ids, c.children(k));
+          if (child == null) {
+            throw new DeserializationException("Unable to deserialize child identified by Null ID");
+          }
+          children.add(child);
+        }
+        SerializedContainmentValue scv = new SerializedContainmentValue();
+        scv.setValue(children);
+        scv.setMetaPointer(metaPointerAt(metaPointers, c.metaPointer()));
+        sci.addContainmentValue(scv);
       }
-
       for (int j = 0; j < n.referencesLength(); j++) {
-        FBReference r = n.references(j);
+        n.references(r, j);
         SerializedReferenceValue srv = new SerializedReferenceValue();
         for (int k = 0; k < r.valuesLength(); k++) {
-          FBReferenceValue rv = r.values(k);
+          r.values(rv, k);
           SerializedReferenceValue.Entry entry = new SerializedReferenceValue.Entry();
-          entry.setReference(rv.referred());
-          entry.setResolveInfo(rv.resolveInfo());
+          entry.setReference(stringAt(ids, rv.referred()));
+          entry.setResolveInfo(stringAt(strings, rv.resolveInfo()));
           srv.addValue(entry);
         }
-
-        srv.setMetaPointer(helper.deserialize(r.metaPointer()));
+        srv.setMetaPointer(metaPointerAt(metaPointers, r.metaPointer()));
         sci.addReferenceValue(srv);
       }
       for (int j = 0; j < n.annotationsLength(); j++) {
-        String annotationID = n.annotations(j);
-        sci.addAnnotation(annotationID);
+        sci.addAnnotation(stringAt(ids, n.annotations(j)));
       }
       serializedChunk.addClassifierInstance(sci);
     }
-    ;
     return serializedChunk;
   }
 
+  /** In the V2 schema, 0 represents null and i the string at position i - 1. */
+  private static String stringAt(String[] strings, long index) {
+    if (index == 0) {
+      return null;
+    }
+    if (index > strings.length) {
+      throw new DeserializationException("Invalid string index " + index);
+    }
+    return strings[(int) (index - 1)];
+  }
+
+  private static MetaPointer metaPointerAt(MetaPointer[] metaPointers, long index) {
+    if (index >= metaPointers.length) {
+      throw new DeserializationException("Invalid MetaPointer index " + index);
+    }
+    return metaPointers[(int) index];
+  }
+
+  /**
+   * Serialize the given trees. When using the V1 schema, each node is encoded directly, without
+   * building the intermediate SerializedChunk.
+   */
   public byte[] serializeTreesToByteArray(ClassifierInstance<?>... roots) {
+    if (schemaVersion != SchemaVersion.V1) {
+      return serializeNodesToByteArray(collectTrees(roots));
+    }
+    FlatBufferBuilder builder = encodeTrees(roots);
+    byte[] bytes = builder.sizedByteArray();
+    releaseBuilder(builder);
+    return bytes;
+  }
+
+  /**
+   * Serialize the given trees to the given stream, writing the bytes directly from the buffer of
+   * the builder.
+   */
+  public void serializeTreesToOutputStream(
+      @Nonnull OutputStream outputStream, ClassifierInstance<?>... roots) throws IOException {
+    Objects.requireNonNull(outputStream, "outputStream should not be null");
+    if (schemaVersion != SchemaVersion.V1) {
+      serialize(serializeNodesToSerializationBlock(collectTrees(roots)), outputStream);
+      return;
+    }
+    FlatBufferBuilder builder = encodeTrees(roots);
+    writeFinishedBuffer(builder, outputStream);
+    releaseBuilder(builder);
+  }
+
+  private FlatBufferBuilder encodeTrees(ClassifierInstance<?>... roots) {
+    FlatBufferBuilder builder = acquireBuilder(MIN_BUILDER_CAPACITY);
+    FlatBuffersDirectEncoder encoder = new FlatBuffersDirectEncoder(this, new FBHelper(builder));
+    try {
+      visitTrees(
+          Arrays.stream(roots)
+              .filter(n -> !(n instanceof ProxyNode))
+              .toArray(ClassifierInstance<?>[]::new),
+          encoder::encode);
+    } catch (IOException e) {
+      // The encoder does not throw IOExceptions
+      throw new UncheckedIOException(e);
+    }
+    encoder.finish(getLionWebVersion().getVersionString());
+    return builder;
+  }
+
+  private List<ClassifierInstance<?>> collectTrees(ClassifierInstance<?>... roots) {
     Set<String> nodesIDs = new HashSet<>();
     List<ClassifierInstance<?>> allNodes = new ArrayList<>();
     for (ClassifierInstance<?> root : roots) {
@@ -146,8 +535,7 @@ public class FlatBuffersSerialization extends AbstractSerialization {
             }
           });
     }
-    return serializeNodesToByteArray(
-        allNodes.stream().filter(n -> !(n instanceof ProxyNode)).collect(Collectors.toList()));
+    return allNodes.stream().filter(n -> !(n instanceof ProxyNode)).collect(Collectors.toList());
   }
 
   public byte[] serializeNodesToByteArray(List<ClassifierInstance<?>> classifierInstances) {
@@ -180,6 +568,7 @@ public class FlatBuffersSerialization extends AbstractSerialization {
   protected class FBHelper {
     FlatBufferBuilder builder;
     Map<MetaPointer, Integer> serializedMetapointers = new HashMap<>();
+    private FlatBuffersDirectEncoder directEncoder;
 
     public FBHelper(FlatBufferBuilder builder) {
       this.builder = builder;
@@ -201,6 +590,19 @@ public class FlatBuffersSerialization extends AbstractSerialization {
       return serializedMetapointers.get(metaPointer);
     }
 
+    /**
+     * Encode the given node directly as an FBNode, without building a SerializedClassifierInstance,
+     * and return its offset. The given parent ID is written in place of the ID of the parent of the
+     * node. This method can create objects, so it should not be nested inside another object
+     * creation.
+     */
+    public int node(@Nonnull ClassifierInstance<?> node, @Nullable String parentID) {
+      if (directEncoder == null) {
+        directEncoder = new FlatBuffersDirectEncoder(FlatBuffersSerialization.this, this);
+      }
+      return directEncoder.node(node, parentID);
+    }
+
     public int[] languagesVector(List<UsedLanguage> usedLanguages) {
       int[] languagesOffsets = new int[usedLanguages.size()];
       for (int i = 0; i < usedLanguages.size(); i++) {
@@ -220,9 +622,7 @@ public class FlatBuffersSerialization extends AbstractSerialization {
         SerializedPropertyValue el = properties.get(j);
         props[j] =
             FBProperty.createFBProperty(
-                builder,
-                offsetForMetaPointer(el.getMetaPointer()),
-                builder.createSharedString(el.getValue()));
+                builder, offsetForMetaPointer(el.getMetaPointer()), sharedString(el.getValue()));
       }
       return props;
     }
@@ -257,8 +657,8 @@ public class FlatBuffersSerialization extends AbstractSerialization {
           values[k] =
               FBReferenceValue.createFBReferenceValue(
                   builder,
-                  builder.createSharedString(el.getValue().get(k).getResolveInfo()),
-                  builder.createSharedString(el.getValue().get(k).getReference()));
+                  sharedString(el.getValue().get(k).getResolveInfo()),
+                  sharedString(el.getValue().get(k).getReference()));
         }
         refs[j] =
             FBReference.createFBReference(
@@ -271,25 +671,151 @@ public class FlatBuffersSerialization extends AbstractSerialization {
 
     public int[] annotationsVector(List<String> annotations) {
       int[] anns = new int[annotations.size()];
-      if (anns.length > 0) {
-        throw new UnsupportedOperationException();
+      for (int j = 0; j < annotations.size(); j++) {
+        String annotation = annotations.get(j);
+        anns[j] = builder.createSharedString(annotation == null ? NULL_CONSTANT : annotation);
       }
       return anns;
     }
+
+    /** Null strings are represented by absent fields, whose offset is 0. */
+    private int sharedString(String string) {
+      return string == null ? 0 : builder.createSharedString(string);
+    }
   }
 
+  /** Serialize the given chunk, using the schema version configured on this serialization. */
   public byte[] serialize(SerializedChunk serializedChunk) {
-    FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+    FlatBufferBuilder builder = acquireBuilder(estimateSize(serializedChunk));
+    writeChunk(builder, serializedChunk);
+    byte[] bytes = builder.sizedByteArray();
+    releaseBuilder(builder);
+    return bytes;
+  }
+
+  /**
+   * Serialize the given chunk to the given stream. The bytes are written directly from the buffer
+   * of the builder, without copying them to an intermediate array.
+   */
+  public void serialize(SerializedChunk serializedChunk, @Nonnull OutputStream outputStream)
+      throws IOException {
+    Objects.requireNonNull(outputStream, "outputStream should not be null");
+    FlatBufferBuilder builder = acquireBuilder(estimateSize(serializedChunk));
+    writeChunk(builder, serializedChunk);
+    writeFinishedBuffer(builder, outputStream);
+    releaseBuilder(builder);
+  }
 
+  /**
+   * Serialize the given chunk to the given channel. The bytes are written directly from the buffer
+   * of the builder, without copying them to an intermediate array.
+   */
+  public void serialize(SerializedChunk serializedChunk, @Nonnull WritableByteChannel channel)
+      throws IOException {
+    Objects.requireNonNull(channel, "channel should not be null");
+    FlatBufferBuilder builder = acquireBuilder(estimateSize(serializedChunk));
+    writeChunk(builder, serializedChunk);
+    ByteBuffer buffer = builder.dataBuffer().duplicate();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    releaseBuilder(builder);
+  }
+
+  /**
+   * Serialize the given chunk, returning the buffer in which it has been built, without copying it.
+   * The returned buffer starts at the beginning of the chunk and it is not reused by later
+   * serializations.
+   */
+  public ByteBuffer serializeToByteBuffer(SerializedChunk serializedChunk) {
+    FlatBufferBuilder builder =
+        new FlatBufferBuilder(Math.max(MIN_BUILDER_CAPACITY, estimateSize(serializedChunk)));
+    writeChunk(builder, serializedChunk);
+    return builder.dataBuffer().slice();
+  }
+
+  /**
+   * Return a builder having at least the given capacity, reusing the one of the current thread when
+   * possible. Builders are not shared: the same builder is never returned twice before being
+   * released.
+   */
+  protected FlatBufferBuilder acquireBuilder(int estimatedSize) {
+    FlatBufferBuilder builder = pooledBuilders.get();
+    if (builder != null) {
+      pooledBuilders.remove();
+      if (builder.dataBuffer().capacity() >= estimatedSize) {
+        builder.clear();
+        return builder;
+      }
+    }
+    return new FlatBufferBuilder(Math.max(MIN_BUILDER_CAPACITY, estimatedSize));
+  }
+
+  /**
+   * Make a finished builder available for reuse. The buffer of the builder should not be used after
+   * releasing it. Builders whose serialization failed are simply not released.
+   */
+  protected void releaseBuilder(FlatBufferBuilder builder) {
+    if (builder.dataBuffer().capacity() <= MAX_POOLED_BUILDER_CAPACITY) {
+      pooledBuilders.set(builder);
+    }
+  }
+
+  protected static void writeFinishedBuffer(FlatBufferBuilder builder, OutputStream outputStream)
+      throws IOException {
+    ByteBuffer buffer = builder.dataBuffer();
+    if (buffer.hasArray()) {
+      outputStream.write(
+          buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    } else {
+      outputStream.write(builder.sizedByteArray());
+    }
+  }
+
+  /**
+   * Estimate the size of the serialized chunk, so that the builder rarely needs to grow while
+   * writing it. Strings and MetaPointers which are shared are counted once per use, so the estimate
+   * errs on the side of a larger buffer.
+   */
+  static int estimateSize(SerializedChunk serializedChunk) {
+    long size = 64;
+    for (SerializedClassifierInstance sci : serializedChunk.getClassifierInstances()) {
+      size += 48 + estimateSize(sci.getID());
+      for (SerializedPropertyValue property : sci.getProperties()) {
+        size += 16 + estimateSize(property.getValue());
+      }
+      for (SerializedContainmentValue containment : sci.getContainments()) {
+        size += 16 + 4L * containment.getValue().size();
+      }
+      for (SerializedReferenceValue reference : sci.getReferences()) {
+        size += 16 + 16L * reference.getValue().size();
+      }
+      size += 4L * sci.getAnnotations().size();
+    }
+    return (int) Math.min(size, MAX_ESTIMATED_SIZE);
+  }
+
+  private static int estimateSize(String string) {
+    // Length, terminator and padding, assuming mostly ASCII content
+    return string == null ? 0 : string.length() + 8;
+  }
+
+  private void writeChunk(FlatBufferBuilder builder, SerializedChunk serializedChunk) {
+    if (schemaVersion == SchemaVersion.V2) {
+      writeChunkV2(builder, serializedChunk);
+      return;
+    }
     FBHelper helper = new FBHelper(builder);
 
     int[] languagesOffsets = helper.languagesVector(serializedChunk.getLanguages());
 
     int[] nodesOffsets = new int[serializedChunk.getClassifierInstances().size()];
+    int[] idsOffsets = new int[nodesOffsets.length];
     for (int i = 0; i < serializedChunk.getClassifierInstances().size(); i++) {
       SerializedClassifierInstance sci = serializedChunk.getClassifierInstances().get(i);
 
       int idOffset = sci.getID() == null ? -1 : builder.createSharedString(sci.getID());
+      idsOffsets[i] = idOffset;
       int classifierOffset = helper.offsetForMetaPointer(sci.getClassifier());
       int parentOffset =
           sci.getParentNodeID() == null ? -1 : builder.createSharedString(sci.getParentNodeID());
@@ -319,14 +845,236 @@ public class FlatBuffersSerialization extends AbstractSerialization {
       nodesOffsets[i] = FBNode.endFBNode(builder);
     }
 
+    int nodeIndexVector = nodeIndex ? nodeIndexVector(builder, idsOffsets) : 0;
+
     int chunk =
         FBChunk.createFBChunk(
             builder,
             builder.createSharedString(serializedChunk.getSerializationFormatVersion()),
             FBChunk.createLanguagesVector(builder, languagesOffsets),
-            FBChunk.createNodesVector(builder, nodesOffsets));
+            FBChunk.createNodesVector(builder, nodesOffsets),
+            nodeIndexVector);
 
     builder.finish(chunk);
-    return builder.dataBuffer().compact().array();
+  }
+
+  /**
+   * Create the node index, given the offsets of the IDs of the nodes, with -1 for nodes without ID.
+   * The IDs should be shared strings, so that the index refers to the same strings used by the
+   * nodes.
+   */
+  static int nodeIndexVector(FlatBufferBuilder builder, int[] idsOffsets) {
+    int[] entries = new int[(int) Arrays.stream(idsOffsets).filter(o -> o != -1).count()];
+    int entry = 0;
+    for (int i = 0; i < idsOffsets.length; i++) {
+      if (idsOffsets[i] != -1) {
+        entries[entry++] = FBNodeIndexEntry.createFBNodeIndexEntry(builder, idsOffsets[i], i);
+      }
+    }
+    return builder.createSortedVectorOfTables(new FBNodeIndexEntry(), entries);
+  }
+
+  /**
+   * This helper assigns indexes to string values, IDs and MetaPointers, as they are met, so that
+   * the tables can be written once all nodes have been written.
+   */
+  protected class FBHelperV2 {
+    final FlatBufferBuilder builder;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final List<String> stringsList = new ArrayList<>();
+    private final Map<String, Integer> ids;
+    private final List<String> idsList;
+    private final Map<MetaPointer, Integer> metaPointers = new HashMap<>();
+    private final List<MetaPointer> metaPointersList = new ArrayList<>();
+
+    public FBHelperV2(FlatBufferBuilder builder, boolean idTable) {
+      this.builder = builder;
+      this.ids = idTable ? new HashMap<>() : strings;
+      this.idsList = idTable ? new ArrayList<>() : stringsList;
+    }
+
+    /** Return the index of the given string value, shifted by one, or 0 for null. */
+    public int stringIndex(String string) {
+      return index(string, strings, stringsList);
+    }
+
+    /** Return the index of the given ID, shifted by one, or 0 for null. */
+    public int idIndex(String id) {
+      return index(id, ids, idsList);
+    }
+
+    private int index(String string, Map<String, Integer> indexes, List<String> values) {
+      if (string == null) {
+        return 0;
+      }
+      Integer index = indexes.get(string);
+      if (index == null) {
+        values.add(string);
+        index = values.size();
+        indexes.put(string, index);
+      }
+      return index;
+    }
+
+    public int metaPointerIndex(MetaPointer metaPointer) {
+      Integer index = metaPointers.get(metaPointer);
+      if (index == null) {
+        index = metaPointersList.size();
+        metaPointersList.add(metaPointer);
+        metaPointers.put(metaPointer, index);
+      }
+      return index;
+    }
+
+    public int node(SerializedClassifierInstance sci) {
+      int propsVector = 0;
+      List<SerializedPropertyValue> properties = sci.getProperties();
+      if (!properties.isEmpty()) {
+        // Indexes are computed before starting the vector, in which nothing else can be created
+        int[] values = new int[properties.size() * 2];
+        for (int j = 0; j < properties.size(); j++) {
+          values[j * 2] = metaPointerIndex(properties.get(j).getMetaPointer());
+          values[j * 2 + 1] = stringIndex(properties.get(j).getValue());
+        }
+        FBNodeV2.startPropertiesVector(builder, properties.size());
+        for (int j = properties.size() - 1; j >= 0; j--) {
+          FBPropertyV2.createFBPropertyV2(builder, values[j * 2], values[j * 2 + 1]);
+        }
+        propsVector = builder.endVector();
+      }
+      int consVector = 0;
+      List<SerializedContainmentValue> containments = sci.getContainments();
+      if (!containments.isEmpty()) {
+        int[] cons = new int[containments.size()];
+        for (int j = 0; j < containments.size(); j++) {
+          SerializedContainmentValue el = containments.get(j);
+          int childrenVector = 0;
+          if (!el.getValue().isEmpty()) {
+            long[] children = new long[el.getValue().size()];
+            for (int k = 0; k < children.length; k++) {
+              children[k] = idIndex(el.getValue().get(k));
+            }
+            childrenVector = FBContainmentV2.createChildrenVector(builder, children);
+          }
+          cons[j] =
+              FBContainmentV2.createFBContainmentV2(
+                  builder, metaPointerIndex(el.getMetaPointer()), childrenVector);
+        }
+        consVector = FBNodeV2.createContainmentsVector(builder, cons);
+      }
+      int refsVector = 0;
+      List<SerializedReferenceValue> references = sci.getReferences();
+      if (!references.isEmpty()) {
+        int[] refs = new int[references.size()];
+        for (int j = 0; j < references.size(); j++) {
+          SerializedReferenceValue el = references.get(j);
+          List<SerializedReferenceValue.Entry> entries = el.getValue();
+          int valuesVector = 0;
+          if (!entries.isEmpty()) {
+            int[] values = new int[entries.size() * 2];
+            for (int k = 0; k < entries.size(); k++) {
+              values[k * 2] = stringIndex(entries.get(k).getResolveInfo());
+              values[k * 2 + 1] = idIndex(entries.get(k).getReference());
+            }
+            FBReferenceV2.startValuesVector(builder, entries.size());
+            for (int k = entries.size() - 1; k >= 0; k--) {
+              FBReferenceValueV2.createFBReferenceValueV2(
+                  builder, values[k * 2], values[k * 2 + 1]);
+            }
+            valuesVector = builder.endVector();
+          }
+          refs[j] =
+              FBReferenceV2.createFBReferenceV2(
+                  builder, metaPointerIndex(el.getMetaPointer()), valuesVector);
+        }
+        refsVector = FBNodeV2.createReferencesVector(builder, refs);
+      }
+      int annsVector = 0;
+      List<String> annotations = sci.getAnnotations();
+      if (!annotations.isEmpty()) {
+        long[] anns = new long[annotations.size()];
+        for (int j = 0; j < anns.length; j++) {
+          anns[j] = idIndex(annotations.get(j));
+        }
+        annsVector = FBNodeV2.createAnnotationsVector(builder, anns);
+      }
+      return FBNodeV2.createFBNodeV2(
+          builder,
+          idIndex(sci.getID()),
+          metaPointerIndex(sci.getClassifier()),
+          propsVector,
+          consVector,
+          refsVector,
+          annsVector,
+          idIndex(sci.getParentNodeID()));
+    }
+
+    public int chunk(
+        String serializationFormatVersion, List<UsedLanguage> usedLanguages, int[] nodes) {
+      int[] languages = new int[usedLanguages.size() * 2];
+      for (int i = 0; i < usedLanguages.size(); i++) {
+        languages[i * 2] = stringIndex(usedLanguages.get(i).getKey());
+        languages[i * 2 + 1] = stringIndex(usedLanguages.get(i).getVersion());
+      }
+      int[] metaPointerValues = new int[metaPointersList.size() * 3];
+      for (int i = 0; i < metaPointersList.size(); i++) {
+        MetaPointer metaPointer = metaPointersList.get(i);
+        metaPointerValues[i * 3] = stringIndex(metaPointer.getLanguage());
+        metaPointerValues[i * 3 + 1] = stringIndex(metaPointer.getVersion());
+        metaPointerValues[i * 3 + 2] = stringIndex(metaPointer.getKey());
+      }
+      int nodesVector = FBChunkV2.createNodesVector(builder, nodes);
+      FBChunkV2.startLanguagesVector(builder, usedLanguages.size());
+      for (int i = usedLanguages.size() - 1; i >= 0; i--) {
+        FBLanguageV2.createFBLanguageV2(builder, languages[i * 2], languages[i * 2 + 1]);
+      }
+      int languagesVector = builder.endVector();
+      FBChunkV2.startMetaPointersVector(builder, metaPointersList.size());
+      for (int i = metaPointersList.size() - 1; i >= 0; i--) {
+        FBMetaPointerV2.createFBMetaPointerV2(
+            builder,
+            metaPointerValues[i * 3],
+            metaPointerValues[i * 3 + 1],
+            metaPointerValues[i * 3 + 2]);
+      }
+      int metaPointersVector = builder.endVector();
+      // All the strings are known at this point, as nothing else is left to index
+      int idsVector = idsList == stringsList ? 0 : stringsVector(idsList, true);
+      int stringsVector = stringsVector(stringsList, false);
+      return FBChunkV2.createFBChunkV2(
+          builder,
+          builder.createString(serializationFormatVersion),
+          stringsVector,
+          idsVector,
+          metaPointersVector,
+          languagesVector,
+          nodesVector);
+    }
+
+    private int stringsVector(List<String> values, boolean ids) {
+      int[] offsets = new int[values.size()];
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = builder.createString(values.get(i));
+      }
+      return ids
+          ? FBChunkV2.createIdsVector(builder, offsets)
+          : FBChunkV2.createStringsVector(builder, offsets);
+    }
+  }
+
+  private void writeChunkV2(FlatBufferBuilder builder, SerializedChunk serializedChunk) {
+    FBHelperV2 helper = new FBHelperV2(builder, idTable);
+    List<SerializedClassifierInstance> classifierInstances =
+        serializedChunk.getClassifierInstances();
+    int[] nodesOffsets = new int[classifierInstances.size()];
+    for (int i = 0; i < nodesOffsets.length; i++) {
+      nodesOffsets[i] = helper.node(classifierInstances.get(i));
+    }
+    int chunk =
+        helper.chunk(
+            serializedChunk.getSerializationFormatVersion(),
+            serializedChunk.getLanguages(),
+            nodesOffsets);
+    FBChunkV2.finishFBChunkV2Buffer(builder, chunk);
   }
 }
@@ -6,6 +6,7 @@ import io.lionweb.lioncore.java.model.ClassifierInstance;
 import io.lionweb.lioncore.java.model.Node;
 import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
 import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.SlottedDynamicNode;
 import io.lionweb.lioncore.java.self.LionCore;
 import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
 import java.util.HashMap;
@@ -34,10 +35,32 @@ public class Instantiator {
             throw new IllegalArgumentException(
                 "Unable to instantiate instance with classifier " + classifier);
           };
+  private volatile boolean frozen = false;
+  private boolean customDeserializersRegistered = false;
 
   public Instantiator() {}
 
+  /**
+   * Prevent the registration of further custom deserializers and changes to the default one, so
+   * that instantiation only reads the deserializers registered so far.
+   */
+  public void freeze() {
+    frozen = true;
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new IllegalStateException(
+          "This Instantiator has been frozen and it cannot be modified");
+    }
+  }
+
   public Instantiator enableDynamicNodes() {
+    checkNotFrozen();
     defaultNodeDeserializer =
         (classifier, serializedNode, deserializedNodesByID, propertiesValues) -> {
           if (classifier instanceof Concept) {
@@ -51,6 +74,25 @@ public class Instantiator {
     return this;
   }
 
+  /**
+   * Like {@link #enableDynamicNodes()}, but nodes are instantiated as {@link SlottedDynamicNode},
+   * which need less memory when deserializing large models.
+   */
+  public Instantiator enableSlottedDynamicNodes() {
+    checkNotFrozen();
+    defaultNodeDeserializer =
+        (classifier, serializedNode, deserializedNodesByID, propertiesValues) -> {
+          if (classifier instanceof Concept) {
+            return new SlottedDynamicNode(serializedNode.getID(), (Concept) classifier);
+          } else if (classifier instanceof Annotation) {
+            return new DynamicAnnotationInstance(serializedNode.getID(), (Annotation) classifier);
+          } else {
+            throw new IllegalStateException();
+          }
+        };
+    return this;
+  }
+
   public ClassifierInstance<?> instantiate(
       Classifier<?> classifier,
       SerializedClassifierInstance serializedClassifierInstance,
@@ -72,11 +114,23 @@ public class Instantiator {
 
   public Instantiator registerCustomDeserializer(
       String classifierID, ClassifierSpecificInstantiator<?> classifierSpecificInstantiator) {
+    checkNotFrozen();
     customDeserializers.put(classifierID, classifierSpecificInstantiator);
+    customDeserializersRegistered = true;
     return this;
   }
 
+  /**
+   * Return true if custom deserializers have been registered through {@link
+   * #registerCustomDeserializer}. The LionCore deserializers are not counted, as they only use the
+   * serialized classifier instance.
+   */
+  boolean hasCustomDeserializers() {
+    return customDeserializersRegistered;
+  }
+
   public void registerLionCoreCustomDeserializers(@Nonnull LionWebVersion lionWebVersion) {
+    checkNotFrozen();
     customDeserializers.put(
         LionCore.getLanguage(lionWebVersion).getID(),
         (concept, serializedNode, deserializedNodesByID, propertiesValues) ->
@@ -5,6 +5,7 @@ import static io.lionweb.lioncore.java.serialization.SerializationProvider.getSt
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import io.lionweb.lioncore.java.LionWebVersion;
 import io.lionweb.lioncore.java.language.*;
 import io.lionweb.lioncore.java.model.ClassifierInstance;
@@ -14,7 +15,10 @@ import io.lionweb.lioncore.java.serialization.data.*;
 import io.lionweb.lioncore.java.utils.NetworkUtils;
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
@@ -158,6 +162,112 @@ public class JsonSerialization extends AbstractSerialization {
     return jsonElementToString(serializeNodesToJsonElement(classifierInstances));
   }
 
+  //
+  // Serialization - Streaming
+  //
+
+  /** Where the languages section is written, when serializing directly to a stream. */
+  public enum LanguagesPosition {
+    /**
+     * Languages are written before the nodes, as in the other serialization methods. This requires
+     * visiting the trees twice: once to collect the languages and once to write the nodes.
+     */
+    BEFORE_NODES,
+    /**
+     * Languages are collected while the nodes are written, and written after them. The trees are
+     * visited only once.
+     */
+    AFTER_NODES
+  }
+
+  /**
+   * Serialize the given trees, writing each node as soon as it is visited, without building the
+   * intermediate SerializedChunk or a JSON tree. Nodes are written in the same order used by {@link
+   * #serializeTreesToJsonElement(ClassifierInstance[])}.
+   */
+  public void serializeTreesToJsonWriter(
+      @Nonnull JsonWriter jsonWriter,
+      @Nonnull LanguagesPosition languagesPosition,
+      ClassifierInstance<?>... roots)
+      throws IOException {
+    Objects.requireNonNull(jsonWriter, "jsonWriter should not be null");
+    Objects.requireNonNull(languagesPosition, "languagesPosition should not be null");
+    for (ClassifierInstance<?> root : roots) {
+      if (root instanceof ProxyNode) {
+        throw new IllegalArgumentException("Proxy nodes cannot be serialized");
+      }
+    }
+    LowLevelJsonStreamWriter streamWriter = new LowLevelJsonStreamWriter(jsonWriter);
+    Set<UsedLanguage> languages = new LinkedHashSet<>();
+    Consumer<Language> languageConsumer =
+        language -> {
+          if (languages.add(UsedLanguage.fromLanguage(language))) {
+            registerUsedLanguage(language);
+          }
+        };
+    streamWriter.beginChunk(getLionWebVersion().getVersionString());
+    if (languagesPosition == LanguagesPosition.BEFORE_NODES) {
+      visitTrees(
+          roots, classifierInstance -> considerUsedLanguages(classifierInstance, languageConsumer));
+      streamWriter.writeLanguages(languages);
+    }
+    streamWriter.beginNodes();
+    visitTrees(
+        roots,
+        classifierInstance -> {
+          streamWriter.writeClassifierInstance(serializeNode(classifierInstance));
+          if (languagesPosition == LanguagesPosition.AFTER_NODES) {
+            considerUsedLanguages(classifierInstance, languageConsumer);
+          }
+        });
+    streamWriter.endNodes();
+    if (languagesPosition == LanguagesPosition.AFTER_NODES) {
+      streamWriter.writeLanguages(languages);
+    }
+    streamWriter.endChunk();
+    streamWriter.flush();
+  }
+
+  /**
+   * Serialize the given trees directly to the given Writer, see {@link
+   * #serializeTreesToJsonWriter(JsonWriter, LanguagesPosition, ClassifierInstance[])}. The Writer
+   * is flushed but not closed.
+   */
+  public void serializeTreesToWriter(
+      @Nonnull Writer writer,
+      boolean prettyPrinting,
+      @Nonnull LanguagesPosition languagesPosition,
+      ClassifierInstance<?>... roots)
+      throws IOException {
+    Objects.requireNonNull(writer, "writer should not be null");
+    JsonWriter jsonWriter = new JsonWriter(writer);
+    // Same settings used when producing strings
+    jsonWriter.setSerializeNulls(true);
+    jsonWriter.setHtmlSafe(true);
+    if (prettyPrinting) {
+      jsonWriter.setIndent("  ");
+    }
+    serializeTreesToJsonWriter(jsonWriter, languagesPosition, roots);
+  }
+
+  /**
+   * Serialize the given trees directly to the given OutputStream, using UTF-8, see {@link
+   * #serializeTreesToJsonWriter(JsonWriter, LanguagesPosition, ClassifierInstance[])}. The
+   * OutputStream is flushed but not closed.
+   */
+  public void serializeTreesToOutputStream(
+      @Nonnull OutputStream outputStream,
+      boolean prettyPrinting,
+      @Nonnull LanguagesPosition languagesPosition,
+      ClassifierInstance<?>... roots)
+      throws IOException {
+    Objects.requireNonNull(outputStream, "outputStream should not be null");
+    Writer writer =
+        new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    serializeTreesToWriter(writer, prettyPrinting, languagesPosition, roots);
+    writer.flush();
+  }
+
   //
   // Serialization - Private
   //
@@ -197,7 +307,78 @@ public class JsonSerialization extends AbstractSerialization {
     return deserializeToNodes(JsonParser.parseString(json));
   }
 
+  /**
+   * The content of the InputStream is read incrementally, without building the whole JSON tree in
+   * memory.
+   */
   public List<Node> deserializeToNodes(InputStream inputStream) {
-    return deserializeToNodes(JsonParser.parseReader(new InputStreamReader(inputStream)));
+    return deserializeToClassifierInstances(inputStream).stream()
+        .filter(ci -> ci instanceof Node)
+        .map(ci -> (Node) ci)
+        .collect(Collectors.toList());
+  }
+
+  public List<ClassifierInstance<?>> deserializeToClassifierInstances(InputStream inputStream) {
+    SerializedChunk serializationBlock =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    validateSerializationBlock(serializationBlock);
+    return deserializeSerializationBlock(serializationBlock);
+  }
+
+  /**
+   * Deserialize only the classifier instances satisfying the filter. The content of the InputStream
+   * is read incrementally and the classifier instances filtered out are discarded while reading, so
+   * only the selected ones are kept in memory.
+   *
+   * @see #deserializeSerializationBlock(SerializedChunk, Predicate)
+   */
+  public List<ClassifierInstance<?>> deserializeToClassifierInstances(
+      InputStream inputStream, @Nonnull Predicate<SerializedClassifierInstance> filter) {
+    SerializedChunk serializationBlock =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8), filter);
+    validateSerializationBlock(serializationBlock);
+    return deserializeSerializationBlock(serializationBlock);
+  }
+
+  /**
+   * Read the chunk without instantiating its nodes: they are deserialized lazily, when they are
+   * accessed.
+   *
+   * @see LazyChunk
+   */
+  public LazyChunk deserializeLazily(JsonElement jsonElement) {
+    SerializedChunk serializationBlock =
+        new LowLevelJsonSerialization().deserializeSerializationBlock(jsonElement);
+    validateSerializationBlock(serializationBlock);
+    return deserializeLazily(serializationBlock);
+  }
+
+  /**
+   * Read the chunk without instantiating its nodes: they are deserialized lazily, when they are
+   * accessed.
+   *
+   * @see LazyChunk
+   */
+  public LazyChunk deserializeLazily(InputStream inputStream) {
+    SerializedChunk serializationBlock =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    validateSerializationBlock(serializationBlock);
+    return deserializeLazily(serializationBlock);
+  }
+
+  /**
+   * Load the chunk into a {@link NodeStore}.
+   *
+   * @see AbstractSerialization#deserializeToNodeStore(SerializedChunk)
+   */
+  public NodeStore deserializeToNodeStore(JsonElement jsonElement) {
+    return deserializeToNodeStore(
+        new LowLevelJsonSerialization().deserializeSerializationBlock(jsonElement));
   }
 }
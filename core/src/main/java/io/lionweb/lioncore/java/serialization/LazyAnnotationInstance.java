@@ -0,0 +1,37 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.Annotation;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import javax.annotation.Nonnull;
+
+/**
+ * A read-only AnnotationInstance of a {@link LazyChunk}, decoding its values only when they are
+ * requested.
+ */
+public final class LazyAnnotationInstance extends LazyClassifierInstance<Annotation>
+    implements AnnotationInstance {
+
+  LazyAnnotationInstance(
+      @Nonnull LazyChunk chunk,
+      @Nonnull SerializedClassifierInstance serializedInstance,
+      @Nonnull Annotation annotation) {
+    super(chunk, serializedInstance, annotation);
+  }
+
+  @Override
+  public Annotation getAnnotationDefinition() {
+    return getClassifier();
+  }
+
+  @Override
+  public Annotation getClassifier() {
+    return super.getClassifier();
+  }
+
+  @Override
+  public ClassifierInstance getParent() {
+    return getParentInstance();
+  }
+}
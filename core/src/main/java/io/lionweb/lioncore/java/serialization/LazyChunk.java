@@ -0,0 +1,163 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.api.ClassifierInstanceResolver;
+import io.lionweb.lioncore.java.language.Annotation;
+import io.lionweb.lioncore.java.language.Classifier;
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A chunk whose classifier instances are deserialized lazily. The only work done when creating it
+ * is indexing the serialized classifier instances by ID. Each instance is then exposed as a {@link
+ * LazyNode} or a {@link LazyAnnotationInstance}, which decodes its properties, children, reference
+ * targets and annotations when they are first requested, and caches them.
+ *
+ * <p>Classifiers are resolved, and property values decoded, using the configuration of the
+ * serialization which created the chunk. Classifier instances which are not part of the chunk are
+ * looked up in its instance resolver and, when they cannot be found there either, treated according
+ * to its UnavailableNodePolicies. A subtree can be turned into ordinary, mutable nodes using {@link
+ * LazyNode#materialize()}.
+ *
+ * <p>The chunk and its lazy instances are not thread-safe.
+ */
+public class LazyChunk extends AbstractInstanceView<LazyClassifierInstance<?>, LazyNode> {
+  private final @Nonnull SerializedChunk serializedChunk;
+  private final @Nonnull LionWebVersion lionWebVersion;
+  private final Map<String, Integer> indexByID;
+  private final LazyClassifierInstance<?>[] instances;
+
+  LazyChunk(
+      @Nonnull AbstractSerialization serialization, @Nonnull SerializedChunk serializedChunk) {
+    super(serialization);
+    Objects.requireNonNull(serializedChunk, "serializedChunk should not be null");
+    this.serializedChunk = serializedChunk;
+    this.lionWebVersion = LionWebVersion.fromValue(serializedChunk.getSerializationFormatVersion());
+    List<SerializedClassifierInstance> serialized = serializedChunk.getClassifierInstances();
+    this.indexByID = new HashMap<>(serialized.size() * 4 / 3 + 1);
+    this.instances = new LazyClassifierInstance<?>[serialized.size()];
+    for (int i = 0; i < serialized.size(); i++) {
+      String id = serialized.get(i).getID();
+      if (id == null) {
+        throw new DeserializationException(
+            "Classifier instances without ID cannot be loaded lazily");
+      }
+      if (indexByID.put(id, i) != null) {
+        throw new IllegalStateException("Duplicate ID found: " + id);
+      }
+    }
+  }
+
+  public @Nonnull SerializedChunk getSerializedChunk() {
+    return serializedChunk;
+  }
+
+  /** Number of classifier instances in the chunk. */
+  @Override
+  public int size() {
+    return instances.length;
+  }
+
+  @Override
+  public @Nonnull LazyClassifierInstance<?> getInstance(int index) {
+    if (index < 0 || index >= instances.length) {
+      throw new IndexOutOfBoundsException("Invalid index " + index + " for " + instances.length);
+    }
+    LazyClassifierInstance<?> instance = instances[index];
+    if (instance == null) {
+      SerializedClassifierInstance serialized = serializedChunk.getClassifierInstances().get(index);
+      if (serialized.getClassifier() == null) {
+        throw new DeserializationException("No metaPointer available for " + serialized);
+      }
+      Classifier<?> classifier =
+          serialization.getClassifierResolver().resolveClassifier(serialized.getClassifier());
+      if (classifier instanceof Concept) {
+        instance = new LazyNode(this, serialized, (Concept) classifier);
+      } else if (classifier instanceof Annotation) {
+        instance = new LazyAnnotationInstance(this, serialized, (Annotation) classifier);
+      } else {
+        throw new IllegalStateException(
+            "Unable to load lazily instances of " + serialized.getClassifier());
+      }
+      instances[index] = instance;
+    }
+    return instance;
+  }
+
+  @Override
+  int indexOf(@Nonnull String id) {
+    Integer index = indexByID.get(id);
+    return index == null ? -1 : index;
+  }
+
+  @Override
+  boolean containsParentOf(int index) {
+    String parentID = serializedChunk.getClassifierInstances().get(index).getParentNodeID();
+    return parentID != null && indexByID.containsKey(parentID);
+  }
+
+  @Nonnull
+  @Override
+  LionWebVersion getLionWebVersion() {
+    return lionWebVersion;
+  }
+
+  @Nullable
+  SerializedClassifierInstance getSerializedInstance(@Nullable String id) {
+    int index = id == null ? -1 : indexOf(id);
+    return index == -1 ? null : serializedChunk.getClassifierInstances().get(index);
+  }
+
+  /**
+   * Deserialize the subtree rooted in the given classifier instance, with the annotations of its
+   * nodes, through the ordinary deserialization process. References to classifier instances of this
+   * chunk which are outside the subtree are resolved to the lazy instances.
+   */
+  @Nonnull
+  ClassifierInstance<?> deserializeSubtree(@Nonnull SerializedClassifierInstance root) {
+    List<SerializedClassifierInstance> subtree = new ArrayList<>();
+    subtree.add(detachedCopy(root));
+    Deque<SerializedClassifierInstance> toVisit = new ArrayDeque<>();
+    toVisit.push(root);
+    while (!toVisit.isEmpty()) {
+      SerializedClassifierInstance current = toVisit.pop();
+      for (String id : current.getChildren()) {
+        addToSubtree(id, subtree, toVisit);
+      }
+      for (String id : current.getAnnotations()) {
+        addToSubtree(id, subtree, toVisit);
+      }
+    }
+    ClassifierInstanceResolver outsideSubtree = this::getInstanceByID;
+    List<ClassifierInstance<?>> deserialized =
+        serialization.deserializeClassifierInstances(lionWebVersion, subtree, outsideSubtree);
+    return deserialized.get(0);
+  }
+
+  private void addToSubtree(
+      String id,
+      List<SerializedClassifierInstance> subtree,
+      Deque<SerializedClassifierInstance> toVisit) {
+    SerializedClassifierInstance serialized = getSerializedInstance(id);
+    if (serialized != null) {
+      subtree.add(serialized);
+      toVisit.push(serialized);
+    }
+  }
+
+  private static SerializedClassifierInstance detachedCopy(
+      SerializedClassifierInstance serialized) {
+    SerializedClassifierInstance copy =
+        new SerializedClassifierInstance(serialized.getID(), serialized.getClassifier());
+    serialized.getProperties().forEach(copy::addPropertyValue);
+    serialized.getContainments().forEach(copy::addContainmentValue);
+    serialized.getReferences().forEach(copy::addReferenceValue);
+    copy.setAnnotations(serialized.getAnnotations());
+    return copy;
+  }
+}
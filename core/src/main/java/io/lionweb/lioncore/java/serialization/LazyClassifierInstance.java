@@ -0,0 +1,188 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import io.lionweb.lioncore.java.serialization.data.SerializedContainmentValue;
+import io.lionweb.lioncore.java.serialization.data.SerializedPropertyValue;
+import io.lionweb.lioncore.java.serialization.data.SerializedReferenceValue;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only ClassifierInstance backed by a SerializedClassifierInstance of a {@link LazyChunk}.
+ * Property values, children, reference values and annotations are decoded the first time they are
+ * requested, and then cached.
+ */
+public abstract class LazyClassifierInstance<T extends Classifier<T>>
+    extends ReadOnlyClassifierInstance<T> {
+  protected final @Nonnull LazyChunk chunk;
+  protected final @Nonnull SerializedClassifierInstance serializedInstance;
+  private final @Nonnull T classifier;
+  private @Nullable Map<Property, Object> propertyValues;
+  private @Nullable Map<Containment, List<Node>> children;
+  private @Nullable Map<Reference, List<ReferenceValue>> referenceValues;
+  private @Nullable List<AnnotationInstance> annotations;
+  private boolean parentResolved;
+  private @Nullable ClassifierInstance<?> parent;
+
+  LazyClassifierInstance(
+      @Nonnull LazyChunk chunk,
+      @Nonnull SerializedClassifierInstance serializedInstance,
+      @Nonnull T classifier) {
+    this.chunk = chunk;
+    this.serializedInstance = serializedInstance;
+    this.classifier = classifier;
+  }
+
+  public @Nonnull SerializedClassifierInstance getSerializedInstance() {
+    return serializedInstance;
+  }
+
+  @Override
+  public String getID() {
+    return serializedInstance.getID();
+  }
+
+  @Override
+  public T getClassifier() {
+    return classifier;
+  }
+
+  @Nullable
+  @Override
+  ClassifierInstance<?> getParentInstance() {
+    if (!parentResolved) {
+      parent =
+          chunk.resolve(
+              serializedInstance.getParentNodeID(),
+              chunk.getSerialization().getUnavailableParentPolicy(),
+              "parent");
+      parentResolved = true;
+    }
+    return parent;
+  }
+
+  @Override
+  public Object getPropertyValue(@Nonnull Property property) {
+    Objects.requireNonNull(property, "Property should not be null");
+    MetaPointer metaPointer = metaPointerOf(property);
+    if (propertyValues == null) {
+      propertyValues = new HashMap<>();
+    } else if (propertyValues.containsKey(property)) {
+      return propertyValues.get(property);
+    }
+    Object value = null;
+    for (SerializedPropertyValue serializedValue : serializedInstance.getProperties()) {
+      if (metaPointer.equals(serializedValue.getMetaPointer())) {
+        Objects.requireNonNull(property.getType(), "property type should not be null");
+        value =
+            chunk
+                .getSerialization()
+                .getPrimitiveValuesSerialization()
+                .deserialize(property.getType(), serializedValue.getValue(), property.isRequired());
+        break;
+      }
+    }
+    if (value == null
+        && property.getType() == LionCoreBuiltins.getBoolean()
+        && property.isRequired()) {
+      value = false;
+    }
+    propertyValues.put(property, value);
+    return value;
+  }
+
+  @Override
+  public List<? extends Node> getChildren(@Nonnull Containment containment) {
+    Objects.requireNonNull(containment, "Containment should not be null");
+    MetaPointer metaPointer = metaPointerOf(containment);
+    if (children == null) {
+      children = new HashMap<>();
+    }
+    List<Node> result = children.get(containment);
+    if (result == null) {
+      result = Collections.emptyList();
+      for (SerializedContainmentValue value : serializedInstance.getContainments()) {
+        if (metaPointer.equals(value.getMetaPointer())) {
+          UnavailableNodePolicy policy = chunk.getSerialization().getUnavailableChildrenPolicy();
+          result = new ArrayList<>(value.getValue().size());
+          for (String childID : value.getValue()) {
+            if (childID == null) {
+              throw new DeserializationException(
+                  "Unable to deserialize child identified by Null ID");
+            }
+            Node child = (Node) chunk.resolve(childID, policy, "child");
+            if (child != null) {
+              result.add(child);
+            }
+          }
+          result = Collections.unmodifiableList(result);
+          break;
+        }
+      }
+      children.put(containment, result);
+    }
+    return result;
+  }
+
+  @Nonnull
+  @Override
+  public List<ReferenceValue> getReferenceValues(@Nonnull Reference reference) {
+    Objects.requireNonNull(reference, "Reference should not be null");
+    MetaPointer metaPointer = metaPointerOf(reference);
+    if (referenceValues == null) {
+      referenceValues = new HashMap<>();
+    }
+    List<ReferenceValue> result = referenceValues.get(reference);
+    if (result == null) {
+      result = Collections.emptyList();
+      for (SerializedReferenceValue value : serializedInstance.getReferences()) {
+        if (metaPointer.equals(value.getMetaPointer())) {
+          UnavailableNodePolicy policy =
+              chunk.getSerialization().getUnavailableReferenceTargetPolicy();
+          result = new ArrayList<>(value.getValue().size());
+          for (SerializedReferenceValue.Entry entry : value.getValue()) {
+            Node referred;
+            if (entry.getReference() == null) {
+              referred = chunk.autoResolve(entry.getResolveInfo());
+            } else {
+              referred = (Node) chunk.resolve(entry.getReference(), policy, "reference target");
+            }
+            result.add(new ReferenceValue(referred, entry.getResolveInfo()));
+          }
+          result = Collections.unmodifiableList(result);
+          break;
+        }
+      }
+      referenceValues.put(reference, result);
+    }
+    return result;
+  }
+
+  /**
+   * The annotations of this instance. Annotation instances which are not part of the chunk, nor
+   * known to the instance resolver of the serialization, are ignored.
+   */
+  @Nonnull
+  @Override
+  public List<AnnotationInstance> getAnnotations() {
+    if (annotations == null) {
+      List<AnnotationInstance> result = new ArrayList<>(serializedInstance.getAnnotations().size());
+      for (String annotationID : serializedInstance.getAnnotations()) {
+        ClassifierInstance<?> annotation =
+            chunk.resolve(annotationID, UnavailableNodePolicy.NULL_REFERENCES, "annotation");
+        if (annotation instanceof AnnotationInstance) {
+          result.add((AnnotationInstance) annotation);
+        }
+      }
+      annotations = Collections.unmodifiableList(result);
+    }
+    return annotations;
+  }
+}
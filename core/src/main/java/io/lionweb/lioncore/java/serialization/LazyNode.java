@@ -0,0 +1,58 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.language.Containment;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import io.lionweb.lioncore.java.serialization.data.SerializedContainmentValue;
+import javax.annotation.Nonnull;
+
+/** A read-only Node of a {@link LazyChunk}, decoding its values only when they are requested. */
+public final class LazyNode extends LazyClassifierInstance<Concept> implements Node {
+
+  LazyNode(
+      @Nonnull LazyChunk chunk,
+      @Nonnull SerializedClassifierInstance serializedInstance,
+      @Nonnull Concept concept) {
+    super(chunk, serializedInstance, concept);
+  }
+
+  @Override
+  public Node getParent() {
+    return chunk.parentNode(getParentInstance());
+  }
+
+  @Override
+  public Containment getContainmentFeature() {
+    SerializedClassifierInstance parent =
+        chunk.getSerializedInstance(serializedInstance.getParentNodeID());
+    if (parent == null) {
+      return findContainmentIn(getParentInstance());
+    }
+    for (SerializedContainmentValue containmentValue : parent.getContainments()) {
+      if (containmentValue.getValue().contains(getID())) {
+        return chunk
+            .getInstanceByID(parent.getID())
+            .getClassifier()
+            .getContainmentByMetaPointer(containmentValue.getMetaPointer());
+      }
+    }
+    throw new IllegalStateException("Unable to find the containment holding " + getID());
+  }
+
+  @Override
+  public int getIndexInParent() {
+    return indexInParent(getContainmentFeature());
+  }
+
+  /**
+   * Deserialize this node and its descendants, with their annotations, into ordinary mutable nodes,
+   * using the Instantiator of the serialization. The returned node has no parent, while references
+   * to nodes of the chunk which are outside the subtree point to the corresponding LazyNodes.
+   *
+   * <p>Each invocation returns new instances.
+   */
+  public @Nonnull Node materialize() {
+    return (Node) chunk.deserializeSubtree(serializedInstance);
+  }
+}
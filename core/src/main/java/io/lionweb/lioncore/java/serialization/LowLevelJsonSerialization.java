@@ -2,14 +2,24 @@ package io.lionweb.lioncore.java.serialization;
 
 import com.google.gson.*;
 import io.lionweb.lioncore.java.serialization.data.*;
+import io.lionweb.lioncore.java.utils.IDDictionary;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
@@ -68,7 +78,61 @@ public class LowLevelJsonSerialization {
    * whenever is possible, in the measure that it is possible.
    */
   public SerializedChunk deserializeSerializationBlock(File file) throws FileNotFoundException {
-    return deserializeSerializationBlock(JsonParser.parseReader(new FileReader(file)));
+    Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+    try {
+      return deserializeSerializationBlock(reader);
+    } finally {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        // Nothing else to do, the content has been already read
+      }
+    }
+  }
+
+  /**
+   * This will return a lower-level representation of the information stored in JSON, reading it
+   * incrementally through a {@link LowLevelJsonStreamReader}. The JSON tree is never built in
+   * memory.
+   *
+   * <p>To process classifier instances one at a time, without collecting them in a chunk, use
+   * {@link LowLevelJsonStreamReader} directly.
+   */
+  public SerializedChunk deserializeSerializationBlock(Reader reader) {
+    return deserializeSerializationBlock(reader, classifierInstance -> true);
+  }
+
+  /**
+   * As {@link #deserializeSerializationBlock(Reader)}, but only the classifier instances satisfying
+   * the filter are kept in the returned chunk. The other ones are discarded as soon as they have
+   * been read, so the memory needed depends only on the classifier instances which are kept.
+   */
+  public SerializedChunk deserializeSerializationBlock(
+      Reader reader, @Nonnull Predicate<SerializedClassifierInstance> filter) {
+    return deserializeSerializationBlock(reader, filter, new IDDictionary());
+  }
+
+  /**
+   * The IDs of the kept classifier instances are interned in the given dictionary once the filter
+   * has accepted them, so that it never holds the IDs of discarded instances.
+   */
+  SerializedChunk deserializeSerializationBlock(
+      Reader reader,
+      @Nonnull Predicate<SerializedClassifierInstance> filter,
+      @Nonnull IDDictionary idDictionary) {
+    Objects.requireNonNull(filter, "filter should not be null");
+    LowLevelJsonStreamReader streamReader = new LowLevelJsonStreamReader(reader, null);
+    SerializedChunk serializedChunk = new SerializedChunk();
+    streamReader.forEachRemaining(
+        classifierInstance -> {
+          if (filter.test(classifierInstance)) {
+            internIDs(classifierInstance, idDictionary);
+            serializedChunk.addClassifierInstance(classifierInstance);
+          }
+        });
+    serializedChunk.setSerializationFormatVersion(streamReader.getSerializationFormatVersion());
+    streamReader.getLanguages().forEach(serializedChunk::addLanguage);
+    return serializedChunk;
   }
 
   public JsonElement serializeToJsonElement(SerializedChunk serializedChunk) {
@@ -195,11 +259,15 @@ public class LowLevelJsonSerialization {
       throw new IllegalArgumentException("nodes not specified");
     }
     if (topLevel.get("nodes").isJsonArray()) {
-      topLevel.get("nodes").getAsJsonArray().asList().stream()
+      JsonArray nodes = topLevel.get("nodes").getAsJsonArray();
+      // Each ID is kept as a single String instance, however many times it occurs
+      IDDictionary idDictionary = new IDDictionary(nodes.size());
+      nodes.asList().stream()
           .forEach(
               element -> {
                 try {
-                  SerializedClassifierInstance instance = deserializeClassifierInstance(element);
+                  SerializedClassifierInstance instance =
+                      deserializeClassifierInstance(element, idDictionary);
                   serializedChunk.addClassifierInstance(instance);
                 } catch (DeserializationException e) {
                   throw new DeserializationException(
@@ -229,8 +297,28 @@ public class LowLevelJsonSerialization {
     return jsonObject;
   }
 
+  private static void internIDs(
+      SerializedClassifierInstance classifierInstance, IDDictionary idDictionary) {
+    classifierInstance.setID(idDictionary.intern(classifierInstance.getID()));
+    classifierInstance.setParentNodeID(idDictionary.intern(classifierInstance.getParentNodeID()));
+    for (SerializedContainmentValue containmentValue : classifierInstance.getContainments()) {
+      List<String> children = new ArrayList<>(containmentValue.getValue());
+      children.replaceAll(idDictionary::intern);
+      containmentValue.setValue(children);
+    }
+    for (SerializedReferenceValue referenceValue : classifierInstance.getReferences()) {
+      referenceValue
+          .getValue()
+          .forEach(target -> target.setReference(idDictionary.intern(target.getReference())));
+    }
+    List<String> annotations = new ArrayList<>(classifierInstance.getAnnotations());
+    annotations.replaceAll(idDictionary::intern);
+    classifierInstance.setAnnotations(annotations);
+  }
+
   @Nullable
-  private SerializedClassifierInstance deserializeClassifierInstance(JsonElement jsonElement) {
+  private SerializedClassifierInstance deserializeClassifierInstance(
+      JsonElement jsonElement, IDDictionary idDictionary) {
     if (!jsonElement.isJsonObject()) {
       throw new IllegalArgumentException(
           "Malformed JSON. Object expected but found " + jsonElement);
@@ -243,10 +331,10 @@ public class LowLevelJsonSerialization {
       serializedClassifierInstance.setClassifier(
           SerializationUtils.tryToGetMetaPointerProperty(jsonObject, "classifier"));
       serializedClassifierInstance.setParentNodeID(
-          SerializationUtils.tryToGetStringProperty(jsonObject, "parent"));
+          idDictionary.intern(SerializationUtils.tryToGetStringProperty(jsonObject, "parent")));
 
       serializedClassifierInstance.setID(
-          SerializationUtils.tryToGetStringProperty(jsonObject, "id"));
+          idDictionary.intern(SerializationUtils.tryToGetStringProperty(jsonObject, "id")));
 
       JsonArray properties = jsonObject.get("properties").getAsJsonArray();
       properties.forEach(
@@ -271,20 +359,31 @@ public class LowLevelJsonSerialization {
       containments.forEach(
           containmentEntry -> {
             JsonObject containmentJO = containmentEntry.getAsJsonObject();
+            List<String> children =
+                SerializationUtils.tryToGetArrayOfIDs(containmentJO, "children");
+            if (children != null) {
+              children.replaceAll(idDictionary::intern);
+            }
             serializedClassifierInstance.addContainmentValue(
                 new SerializedContainmentValue(
                     SerializationUtils.tryToGetMetaPointerProperty(containmentJO, "containment"),
-                    SerializationUtils.tryToGetArrayOfIDs(containmentJO, "children")));
+                    children));
           });
 
       JsonArray references = jsonObject.get("references").getAsJsonArray();
       references.forEach(
           referenceEntry -> {
             JsonObject referenceJO = referenceEntry.getAsJsonObject();
+            List<SerializedReferenceValue.Entry> targets =
+                SerializationUtils.tryToGetArrayOfReferencesProperty(referenceJO, "targets");
+            if (targets != null) {
+              targets.forEach(
+                  target -> target.setReference(idDictionary.intern(target.getReference())));
+            }
             serializedClassifierInstance.addReferenceValue(
                 new SerializedReferenceValue(
                     SerializationUtils.tryToGetMetaPointerProperty(referenceJO, "reference"),
-                    SerializationUtils.tryToGetArrayOfReferencesProperty(referenceJO, "targets")));
+                    targets));
           });
 
       JsonElement annotationsJE = jsonObject.get("annotations");
@@ -295,7 +394,7 @@ public class LowLevelJsonSerialization {
                 .map(
                     annotationEntry -> {
                       JsonPrimitive annotationJP = annotationEntry.getAsJsonPrimitive();
-                      return annotationJP.getAsString();
+                      return idDictionary.intern(annotationJP.getAsString());
                     })
                 .collect(Collectors.toList()));
       }
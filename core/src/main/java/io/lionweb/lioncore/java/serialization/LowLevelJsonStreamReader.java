@@ -0,0 +1,483 @@
+package io.lionweb.lioncore.java.serialization;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import io.lionweb.lioncore.java.serialization.data.*;
+import io.lionweb.lioncore.java.utils.IDDictionary;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class reads the low-level representation of a chunk from JSON, without ever building the
+ * whole JSON tree in memory. Classifier instances are produced one at a time, while the "nodes"
+ * array is being read, so chunks larger than the available memory can be processed, and processing
+ * can start before the whole input has been read.
+ *
+ * <p>The same validation performed by {@link LowLevelJsonSerialization} is performed here.
+ *
+ * <p>The serialization format version and the languages are made available as soon as they have
+ * been read. As the JSON specification does not fix the order of keys, they could appear after the
+ * nodes: in that case they are available only once {@link #hasNext()} has returned false.
+ */
+public class LowLevelJsonStreamReader implements Iterator<SerializedClassifierInstance>, Closeable {
+
+  private static final List<String> TOP_LEVEL_KEYS =
+      Arrays.asList("nodes", "serializationFormatVersion", "languages");
+  private static final List<String> LANGUAGE_KEYS = Arrays.asList("key", "version");
+
+  private enum State {
+    BEFORE_TOP_LEVEL,
+    IN_TOP_LEVEL,
+    IN_NODES,
+    DONE
+  }
+
+  private final JsonReader jsonReader;
+  private State state = State.BEFORE_TOP_LEVEL;
+  private String serializationFormatVersion;
+  private boolean serializationFormatVersionFound = false;
+  private final List<UsedLanguage> languages = new ArrayList<>();
+  private boolean languagesFound = false;
+  private boolean nodesFound = false;
+  private final @Nullable IDDictionary idDictionary;
+
+  public LowLevelJsonStreamReader(@Nonnull Reader reader) {
+    this(reader, null);
+  }
+
+  /**
+   * @param idDictionary when not null, the IDs read, including the ones of parents, children,
+   *     annotations and reference targets, are interned in it, so that each ID is represented by a
+   *     single String instance
+   */
+  public LowLevelJsonStreamReader(@Nonnull Reader reader, @Nullable IDDictionary idDictionary) {
+    Objects.requireNonNull(reader, "reader should not be null");
+    this.jsonReader = new JsonReader(reader);
+    // Same behavior as JsonParser.parseReader
+    this.jsonReader.setLenient(true);
+    this.idDictionary = idDictionary;
+  }
+
+  /** The input stream is expected to be encoded in UTF-8. */
+  public LowLevelJsonStreamReader(@Nonnull InputStream inputStream) {
+    this(
+        new InputStreamReader(
+            Objects.requireNonNull(inputStream, "inputStream should not be null"),
+            StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Return the serialization format version, or null if it has not been read yet. Once {@link
+   * #hasNext()} has returned false, it is guaranteed to have been read.
+   */
+  @Nullable
+  public String getSerializationFormatVersion() {
+    return serializationFormatVersion;
+  }
+
+  /** Return the languages read so far. */
+  public List<UsedLanguage> getLanguages() {
+    return Collections.unmodifiableList(languages);
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      if (state == State.BEFORE_TOP_LEVEL) {
+        if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+          throw new IllegalArgumentException(
+              "We expected a Json Object, we got instead: " + jsonReader.peek());
+        }
+        jsonReader.beginObject();
+        state = State.IN_TOP_LEVEL;
+      }
+      if (state == State.IN_TOP_LEVEL) {
+        readTopLevelUntilNodes();
+      }
+      if (state == State.IN_NODES) {
+        if (jsonReader.hasNext()) {
+          return true;
+        }
+        jsonReader.endArray();
+        state = State.IN_TOP_LEVEL;
+        readTopLevelUntilNodes();
+      }
+      return false;
+    } catch (IOException e) {
+      throw wrap(e);
+    }
+  }
+
+  @Override
+  public SerializedClassifierInstance next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    String path = jsonReader.getPath();
+    try {
+      return readClassifierInstance();
+    } catch (DeserializationException e) {
+      throw new DeserializationException("Issue while deserializing classifier instances", e);
+    } catch (IOException e) {
+      throw wrap(e);
+    } catch (Exception e) {
+      throw new RuntimeException("Issue while deserializing " + path, e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    jsonReader.close();
+  }
+
+  //
+  // Private methods
+  //
+
+  /**
+   * Read the keys of the top level object, until the nodes array is found or the top level object
+   * is complete.
+   */
+  private void readTopLevelUntilNodes() throws IOException {
+    while (jsonReader.hasNext()) {
+      String name = jsonReader.nextName();
+      checkExpectedKey(name, TOP_LEVEL_KEYS);
+      switch (name) {
+        case "serializationFormatVersion":
+          requireIsString("serializationFormatVersion");
+          serializationFormatVersion = jsonReader.nextString();
+          serializationFormatVersionFound = true;
+          break;
+        case "languages":
+          readLanguages();
+          languagesFound = true;
+          break;
+        case "nodes":
+          if (jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IllegalArgumentException(
+                "We expected a Json Array, we got instead: " + jsonReader.peek());
+          }
+          jsonReader.beginArray();
+          nodesFound = true;
+          state = State.IN_NODES;
+          return;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+    jsonReader.endObject();
+    state = State.DONE;
+    if (!serializationFormatVersionFound) {
+      throw new IllegalArgumentException("serializationFormatVersion not specified");
+    }
+    if (!languagesFound) {
+      throw new IllegalArgumentException("languages not specified");
+    }
+    if (!nodesFound) {
+      throw new IllegalArgumentException("nodes not specified");
+    }
+  }
+
+  private void readLanguages() throws IOException {
+    if (jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+      throw new IllegalArgumentException(
+          "We expected a Json Array, we got instead: " + jsonReader.peek());
+    }
+    jsonReader.beginArray();
+    while (jsonReader.hasNext()) {
+      String path = jsonReader.getPath();
+      try {
+        if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+          throw new IllegalArgumentException(
+              "Language should be an object. Found: " + jsonReader.peek());
+        }
+        UsedLanguage languageKeyVersion = new UsedLanguage();
+        boolean keyFound = false;
+        boolean versionFound = false;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+          String name = jsonReader.nextName();
+          checkExpectedKey(name, LANGUAGE_KEYS);
+          requireIsString(name);
+          if (name.equals("key")) {
+            languageKeyVersion.setKey(jsonReader.nextString());
+            keyFound = true;
+          } else {
+            languageKeyVersion.setVersion(jsonReader.nextString());
+            versionFound = true;
+          }
+        }
+        jsonReader.endObject();
+        if (!keyFound || !versionFound) {
+          throw new IllegalArgumentException(
+              "Language should have keys key and version. Found: " + languageKeyVersion);
+        }
+        languages.add(languageKeyVersion);
+      } catch (IOException e) {
+        throw wrap(e);
+      } catch (Exception e) {
+        throw new RuntimeException("Issue while deserializing " + path, e);
+      }
+    }
+    jsonReader.endArray();
+  }
+
+  private SerializedClassifierInstance readClassifierInstance() throws IOException {
+    if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+      throw new IllegalArgumentException(
+          "Malformed JSON. Object expected but found " + jsonReader.peek());
+    }
+    String path = jsonReader.getPath();
+    try {
+      SerializedClassifierInstance serializedClassifierInstance =
+          new SerializedClassifierInstance();
+      boolean propertiesFound = false;
+      // As in the tree-based deserialization, "children" is used in place of "containments" when
+      // both are present
+      List<SerializedContainmentValue> children = null;
+      List<SerializedContainmentValue> containments = null;
+      boolean referencesFound = false;
+      jsonReader.beginObject();
+      while (jsonReader.hasNext()) {
+        String name = jsonReader.nextName();
+        switch (name) {
+          case "id":
+            serializedClassifierInstance.setID(tryToReadID());
+            break;
+          case "classifier":
+            serializedClassifierInstance.setClassifier(tryToReadMetaPointer());
+            break;
+          case "parent":
+            serializedClassifierInstance.setParentNodeID(tryToReadID());
+            break;
+          case "properties":
+            readArray(
+                () -> {
+                  SerializedPropertyValue propertyValue = new SerializedPropertyValue();
+                  readObject(
+                      key -> {
+                        if (key.equals("property")) {
+                          propertyValue.setMetaPointer(tryToReadMetaPointer());
+                        } else if (key.equals("value")) {
+                          propertyValue.setValue(tryToReadString());
+                        } else {
+                          jsonReader.skipValue();
+                        }
+                      });
+                  serializedClassifierInstance.addPropertyValue(propertyValue);
+                });
+            propertiesFound = true;
+            break;
+          case "children":
+            children = readContainmentValues();
+            break;
+          case "containments":
+            containments = readContainmentValues();
+            break;
+          case "references":
+            readArray(
+                () -> {
+                  SerializedReferenceValue referenceValue = new SerializedReferenceValue();
+                  readObject(
+                      key -> {
+                        if (key.equals("reference")) {
+                          referenceValue.setMetaPointer(tryToReadMetaPointer());
+                        } else if (key.equals("targets")) {
+                          readArray(
+                              () -> {
+                                SerializedReferenceValue.Entry entry =
+                                    new SerializedReferenceValue.Entry();
+                                readObject(
+                                    entryKey -> {
+                                      if (entryKey.equals("reference")) {
+                                        entry.setReference(tryToReadID());
+                                      } else if (entryKey.equals("resolveInfo")) {
+                                        entry.setResolveInfo(tryToReadString());
+                                      } else {
+                                        jsonReader.skipValue();
+                                      }
+                                    });
+                                referenceValue.addValue(entry);
+                              });
+                        } else {
+                          jsonReader.skipValue();
+                        }
+                      });
+                  serializedClassifierInstance.addReferenceValue(referenceValue);
+                });
+            referencesFound = true;
+            break;
+          case "annotations":
+            if (jsonReader.peek() == JsonToken.NULL) {
+              jsonReader.nextNull();
+            } else {
+              List<String> annotations = new ArrayList<>();
+              readArray(() -> annotations.add(intern(jsonReader.nextString())));
+              serializedClassifierInstance.setAnnotations(annotations);
+            }
+            break;
+          default:
+            jsonReader.skipValue();
+        }
+      }
+      jsonReader.endObject();
+      if (!propertiesFound) {
+        throw new IllegalArgumentException("Node is missing properties entry");
+      }
+      if (children == null) {
+        children = containments;
+      }
+      if (children == null) {
+        throw new UnsupportedOperationException("Node is missing containments entry");
+      }
+      children.forEach(serializedClassifierInstance::addContainmentValue);
+      if (!referencesFound) {
+        throw new IllegalArgumentException("Node is missing references entry");
+      }
+      return serializedClassifierInstance;
+    } catch (DeserializationException e) {
+      throw new DeserializationException("Issue occurred while deserializing " + path, e);
+    }
+  }
+
+  private List<SerializedContainmentValue> readContainmentValues() throws IOException {
+    List<SerializedContainmentValue> containmentValues = new ArrayList<>();
+    readArray(
+        () -> {
+          SerializedContainmentValue containmentValue = new SerializedContainmentValue();
+          readObject(
+              key -> {
+                if (key.equals("containment")) {
+                  containmentValue.setMetaPointer(tryToReadMetaPointer());
+                } else if (key.equals("children")) {
+                  containmentValue.setValue(readArrayOfIDs());
+                } else {
+                  jsonReader.skipValue();
+                }
+              });
+          containmentValues.add(containmentValue);
+        });
+    return containmentValues;
+  }
+
+  private List<String> readArrayOfIDs() throws IOException {
+    List<String> ids = new ArrayList<>();
+    readArray(
+        () -> {
+          if (jsonReader.peek() == JsonToken.NULL) {
+            throw new DeserializationException("Unable to deserialize child identified by Null ID");
+          }
+          ids.add(intern(jsonReader.nextString()));
+        });
+    return ids;
+  }
+
+  @Nullable
+  private String tryToReadID() throws IOException {
+    return intern(tryToReadString());
+  }
+
+  @Nullable
+  private String intern(@Nullable String id) {
+    return idDictionary == null ? id : idDictionary.intern(id);
+  }
+
+  /** Read a MetaPointer, returning null if the value is not an object. */
+  @Nullable
+  private MetaPointer tryToReadMetaPointer() throws IOException {
+    if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+      jsonReader.skipValue();
+      return null;
+    }
+    String[] parts = new String[3];
+    readObject(
+        key -> {
+          switch (key) {
+            case "language":
+              parts[0] = tryToReadString();
+              break;
+            case "version":
+              parts[1] = tryToReadString();
+              break;
+            case "key":
+              parts[2] = tryToReadString();
+              break;
+            default:
+              jsonReader.skipValue();
+          }
+        });
+    return MetaPointer.get(parts[0], parts[1], parts[2]);
+  }
+
+  /** Read a string, returning null if the value is not a string. */
+  @Nullable
+  private String tryToReadString() throws IOException {
+    if (jsonReader.peek() == JsonToken.STRING) {
+      return jsonReader.nextString();
+    } else {
+      jsonReader.skipValue();
+      return null;
+    }
+  }
+
+  private interface ElementReader {
+    void read() throws IOException;
+  }
+
+  private interface EntryReader {
+    void read(String key) throws IOException;
+  }
+
+  private void readArray(ElementReader elementReader) throws IOException {
+    jsonReader.beginArray();
+    while (jsonReader.hasNext()) {
+      elementReader.read();
+    }
+    jsonReader.endArray();
+  }
+
+  private void readObject(EntryReader entryReader) throws IOException {
+    jsonReader.beginObject();
+    while (jsonReader.hasNext()) {
+      entryReader.read(jsonReader.nextName());
+    }
+    jsonReader.endObject();
+  }
+
+  private void checkExpectedKey(String key, List<String> expectedKeys) {
+    if (!expectedKeys.contains(key)) {
+      throw new RuntimeException("Extra keys found: [" + key + "]. Expected keys: " + expectedKeys);
+    }
+  }
+
+  private void requireIsString(String desc) throws IOException {
+    if (jsonReader.peek() != JsonToken.STRING) {
+      throw new RuntimeException(desc + " should be present and be a string value");
+    }
+  }
+
+  /** Report IO problems the same way JsonParser.parseReader does. */
+  private RuntimeException wrap(IOException e) {
+    if (e instanceof MalformedJsonException) {
+      return new JsonSyntaxException(e);
+    } else {
+      return new JsonIOException(e);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package io.lionweb.lioncore.java.serialization;
+
+import com.google.gson.stream.JsonWriter;
+import io.lionweb.lioncore.java.serialization.data.*;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+
+/**
+ * This class writes the low-level representation of a chunk to JSON, one element at a time, without
+ * building a JSON tree in memory. The output has the same structure and the same order of keys
+ * produced by {@link LowLevelJsonSerialization#serializeToJsonElement(SerializedChunk)}.
+ *
+ * <p>A chunk is written by calling {@link #beginChunk(String)}, then {@link
+ * #writeLanguages(Collection)} and {@link #beginNodes()}, {@link
+ * #writeClassifierInstance(SerializedClassifierInstance)} for each instance, {@link #endNodes()},
+ * and finally {@link #endChunk()}. Languages can be written either before or after the nodes.
+ */
+public class LowLevelJsonStreamWriter implements Closeable, Flushable {
+  private final JsonWriter jsonWriter;
+
+  public LowLevelJsonStreamWriter(@Nonnull JsonWriter jsonWriter) {
+    Objects.requireNonNull(jsonWriter, "jsonWriter should not be null");
+    this.jsonWriter = jsonWriter;
+  }
+
+  public void write(@Nonnull SerializedChunk serializedChunk) throws IOException {
+    Objects.requireNonNull(serializedChunk, "serializedChunk should not be null");
+    beginChunk(serializedChunk.getSerializationFormatVersion());
+    writeLanguages(serializedChunk.getLanguages());
+    beginNodes();
+    for (SerializedClassifierInstance classifierInstance :
+        serializedChunk.getClassifierInstances()) {
+      writeClassifierInstance(classifierInstance);
+    }
+    endNodes();
+    endChunk();
+  }
+
+  public void beginChunk(String serializationFormatVersion) throws IOException {
+    jsonWriter.beginObject();
+    jsonWriter.name("serializationFormatVersion").value(serializationFormatVersion);
+  }
+
+  public void writeLanguages(Collection<UsedLanguage> languages) throws IOException {
+    jsonWriter.name("languages").beginArray();
+    for (UsedLanguage language : languages) {
+      jsonWriter.beginObject();
+      jsonWriter.name("key").value(language.getKey());
+      jsonWriter.name("version").value(language.getVersion());
+      jsonWriter.endObject();
+    }
+    jsonWriter.endArray();
+  }
+
+  public void beginNodes() throws IOException {
+    jsonWriter.name("nodes").beginArray();
+  }
+
+  public void writeClassifierInstance(SerializedClassifierInstance node) throws IOException {
+    jsonWriter.beginObject();
+    jsonWriter.name("id").value(node.getID());
+    jsonWriter.name("classifier");
+    writeMetaPointer(node.getClassifier());
+
+    jsonWriter.name("properties").beginArray();
+    for (SerializedPropertyValue propertyValue : node.getProperties()) {
+      jsonWriter.beginObject();
+      jsonWriter.name("property");
+      writeMetaPointer(propertyValue.getMetaPointer());
+      jsonWriter.name("value").value(propertyValue.getValue());
+      jsonWriter.endObject();
+    }
+    jsonWriter.endArray();
+
+    jsonWriter.name("containments").beginArray();
+    for (SerializedContainmentValue containmentValue : node.getContainments()) {
+      jsonWriter.beginObject();
+      jsonWriter.name("containment");
+      writeMetaPointer(containmentValue.getMetaPointer());
+      jsonWriter.name("children").beginArray();
+      for (String childID : containmentValue.getValue()) {
+        jsonWriter.value(childID);
+      }
+      jsonWriter.endArray();
+      jsonWriter.endObject();
+    }
+    jsonWriter.endArray();
+
+    jsonWriter.name("references").beginArray();
+    for (SerializedReferenceValue referenceValue : node.getReferences()) {
+      jsonWriter.beginObject();
+      jsonWriter.name("reference");
+      writeMetaPointer(referenceValue.getMetaPointer());
+      jsonWriter.name("targets").beginArray();
+      for (SerializedReferenceValue.Entry entry : referenceValue.getValue()) {
+        jsonWriter.beginObject();
+        jsonWriter.name("resolveInfo").value(entry.getResolveInfo());
+        jsonWriter.name("reference").value(entry.getReference());
+        jsonWriter.endObject();
+      }
+      jsonWriter.endArray();
+      jsonWriter.endObject();
+    }
+    jsonWriter.endArray();
+
+    jsonWriter.name("annotations").beginArray();
+    for (String annotationID : node.getAnnotations()) {
+      jsonWriter.value(annotationID);
+    }
+    jsonWriter.endArray();
+
+    jsonWriter.name("parent").value(node.getParentNodeID());
+    jsonWriter.endObject();
+  }
+
+  public void endNodes() throws IOException {
+    jsonWriter.endArray();
+  }
+
+  public void endChunk() throws IOException {
+    jsonWriter.endObject();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    jsonWriter.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    jsonWriter.close();
+  }
+
+  private void writeMetaPointer(MetaPointer metaPointer) throws IOException {
+    jsonWriter.beginObject();
+    jsonWriter.name("language").value(metaPointer.getLanguage());
+    jsonWriter.name("version").value(metaPointer.getVersion());
+    jsonWriter.name("key").value(metaPointer.getKey());
+    jsonWriter.endObject();
+  }
+}
@@ -2,7 +2,7 @@ package io.lionweb.lioncore.java.serialization;
 
 import io.lionweb.lioncore.java.api.ClassifierInstanceResolver;
 import io.lionweb.lioncore.java.model.ClassifierInstance;
-import java.util.HashMap;
+import io.lionweb.lioncore.java.utils.IDMap;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -11,12 +11,14 @@ import javax.annotation.Nullable;
  * position, so until we place them they could be a temporarily wrong ID.
  */
 class MapBasedResolver implements ClassifierInstanceResolver {
-  private final Map<String, ClassifierInstance<?>> instancesByID = new HashMap<>();
+  private final Map<String, ClassifierInstance<?>> instancesByID;
 
-  public MapBasedResolver() {}
+  public MapBasedResolver() {
+    this.instancesByID = new IDMap<>();
+  }
 
   public MapBasedResolver(Map<String, ClassifierInstance<?>> instancesByID) {
-    this.instancesByID.putAll(instancesByID);
+    this.instancesByID = new IDMap<>(instancesByID);
   }
 
   @Nullable
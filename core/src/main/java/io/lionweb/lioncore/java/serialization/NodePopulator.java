@@ -74,6 +74,28 @@ class NodePopulator {
     populateNodeReferences(node, serializedClassifierInstance);
   }
 
+  /**
+   * Create the ProxyNodes for the reference targets of the given classifier instance which cannot
+   * be resolved, as populating its references with the PROXY_NODES policy would do. After this
+   * populating the references does not create any ProxyNode, and it can therefore be done in
+   * parallel for different classifier instances.
+   */
+  void createReferenceProxies(SerializedClassifierInstance serializedClassifierInstance) {
+    serializedClassifierInstance
+        .getReferences()
+        .forEach(
+            serializedReferenceValue ->
+                serializedReferenceValue
+                    .getValue()
+                    .forEach(
+                        entry -> {
+                          if (entry.getReference() != null
+                              && classifierInstanceResolver.resolve(entry.getReference()) == null) {
+                            deserializationStatus.resolve(entry.getReference());
+                          }
+                        }));
+  }
+
   private void populateContainments(
       ClassifierInstance<?> node, SerializedClassifierInstance serializedClassifierInstance) {
     Classifier<?> concept = node.getClassifier();
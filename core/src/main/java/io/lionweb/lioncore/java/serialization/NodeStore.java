@@ -0,0 +1,423 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import io.lionweb.lioncore.java.serialization.data.SerializedContainmentValue;
+import io.lionweb.lioncore.java.serialization.data.SerializedPropertyValue;
+import io.lionweb.lioncore.java.serialization.data.SerializedReferenceValue;
+import io.lionweb.lioncore.java.utils.IDDictionary;
+import java.util.*;
+import java.util.function.IntConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only forest of classifier instances stored in columnar form, meant for large models which
+ * are mostly scanned rather than navigated one node at a time.
+ *
+ * <p>Parents, classifiers and containments are stored in int arrays indexed by handle, while
+ * children, annotations and reference targets are stored in contiguous arrays, with an offset array
+ * telling where the entries of each instance start. The instances of each classifier are listed in
+ * a {@link ClassifierTable}, which also holds one {@link PropertyColumn} per property, so that all
+ * the instances of a classifier, and their property values, can be scanned sequentially.
+ *
+ * <p>Once loaded, the store is immutable and it can be read from several threads.
+ */
+public final class NodeStore extends AbstractNodeStore {
+  // Handles are assigned by the dictionary, as instances are loaded
+  private final @Nonnull IDDictionary ids;
+  // For parents, children and reference targets, values >= 0 are handles, NO_NODE means no node,
+  // and values <= -2 encode the handle in externalIDs of an ID which is not part of the store
+  private final int[] parents;
+  private final int[] classifiers;
+  private final int[] rows;
+  // The position of the containment in the layout of the parent, or -1
+  private final int[] containments;
+  private final ClassifierTable[] tables;
+  private final Map<Classifier<?>, ClassifierTable> tablesByClassifier = new IdentityHashMap<>();
+  private final int[] childrenStart;
+  private final int[] children;
+  // The position of the containment in the layout of the parent, or -1 for annotations
+  private final int[] childrenFeatures;
+  private final int[] referencesStart;
+  private final int[] referenceTargets;
+  private final int[] referenceFeatures;
+  private final String[] resolveInfos;
+  private final @Nonnull IDDictionary externalIDs;
+
+  private NodeStore(@Nonnull Loader loader) {
+    super(loader.serialization);
+    int size = loader.size;
+    this.ids = loader.ids;
+    this.classifiers = Arrays.copyOf(loader.classifiers, size);
+    this.rows = Arrays.copyOf(loader.rows, size);
+    this.tables = loader.tables.toArray(new ClassifierTable[0]);
+    for (ClassifierTable table : tables) {
+      table.trim();
+      tablesByClassifier.put(table.classifier, table);
+    }
+    this.childrenStart = Arrays.copyOf(loader.childrenStart, size + 1);
+    this.childrenFeatures = Arrays.copyOf(loader.childrenFeatures, loader.childrenCount);
+    this.referencesStart = Arrays.copyOf(loader.referencesStart, size + 1);
+    this.referenceFeatures = Arrays.copyOf(loader.referenceFeatures, loader.referencesCount);
+    this.resolveInfos = Arrays.copyOf(loader.resolveInfos, loader.referencesCount);
+
+    this.externalIDs = new IDDictionary();
+    this.parents = new int[size];
+    for (int i = 0; i < size; i++) {
+      parents[i] = loader.encode(loader.parentIDs[i], externalIDs);
+    }
+    this.children = new int[loader.childrenCount];
+    for (int i = 0; i < children.length; i++) {
+      children[i] = loader.encode(loader.childrenIDs[i], externalIDs);
+    }
+    this.referenceTargets = new int[loader.referencesCount];
+    for (int i = 0; i < referenceTargets.length; i++) {
+      referenceTargets[i] = loader.encode(loader.targetIDs[i], externalIDs);
+    }
+
+    this.containments = new int[size];
+    Arrays.fill(containments, -1);
+    for (int handle = 0; handle < size; handle++) {
+      for (int i = childrenStart[handle]; i < childrenStart[handle + 1]; i++) {
+        int child = children[i];
+        if (child >= 0 && childrenFeatures[i] != -1 && parents[child] == handle) {
+          containments[child] = childrenFeatures[i];
+        }
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return ids.size();
+  }
+
+  @Override
+  public int getHandle(@Nullable String id) {
+    if (id == null) {
+      return NO_NODE;
+    }
+    return ids.indexOf(id);
+  }
+
+  @Override
+  public @Nonnull String getID(int handle) {
+    return ids.getID(checkHandle(handle));
+  }
+
+  @Override
+  public @Nonnull Classifier<?> getClassifier(int handle) {
+    return tables[classifiers[checkHandle(handle)]].classifier;
+  }
+
+  @Override
+  public @Nullable Object getPropertyValue(int handle, @Nonnull Property property) {
+    Objects.requireNonNull(property, "Property should not be null");
+    ClassifierTable table = tables[classifiers[checkHandle(handle)]];
+    return table.getColumn(property).get(rows[handle]);
+  }
+
+  @Override
+  public void forEachInstance(@Nonnull Classifier<?> classifier, @Nonnull IntConsumer action) {
+    Objects.requireNonNull(action, "action should not be null");
+    ClassifierTable table = getClassifierTable(classifier);
+    if (table != null) {
+      for (int row = 0; row < table.size; row++) {
+        action.accept(table.nodes[row]);
+      }
+    }
+  }
+
+  /** Return the table of the instances of the given classifier, or null if there are none. */
+  public @Nullable ClassifierTable getClassifierTable(@Nonnull Classifier<?> classifier) {
+    Objects.requireNonNull(classifier, "classifier should not be null");
+    return tablesByClassifier.get(classifier);
+  }
+
+  public @Nonnull List<ClassifierTable> getClassifierTables() {
+    return Collections.unmodifiableList(Arrays.asList(tables));
+  }
+
+  /**
+   * The classifier instances of each classifier, with the values of their properties. Rows are
+   * assigned in the order in which the instances have been loaded.
+   */
+  public static final class ClassifierTable {
+    private final @Nonnull Classifier<?> classifier;
+    private final @Nonnull FeatureLayout layout;
+    // One column for each property, at the position of the property in the layout
+    private final @Nonnull PropertyColumn[] columns;
+    private int[] nodes = new int[16];
+    private int size;
+
+    private ClassifierTable(@Nonnull Classifier<?> classifier, LionWebVersion lionWebVersion) {
+      this.classifier = classifier;
+      this.layout = classifier.getFeatureLayout();
+      this.columns = new PropertyColumn[layout.size()];
+      for (int i = 0; i < columns.length; i++) {
+        Feature<?> feature = layout.getFeature(i);
+        if (feature instanceof Property) {
+          Property property = (Property) feature;
+          Objects.requireNonNull(property.getType(), "property type should not be null");
+          columns[i] = PropertyColumn.forProperty(property, lionWebVersion);
+        }
+      }
+    }
+
+    public @Nonnull Classifier<?> getClassifier() {
+      return classifier;
+    }
+
+    /** Number of instances of the classifier. */
+    public int size() {
+      return size;
+    }
+
+    /** The handle of the instance in the given row. */
+    public int getNode(int row) {
+      if (row < 0 || row >= size) {
+        throw new IndexOutOfBoundsException("Invalid row " + row + " for " + size);
+      }
+      return nodes[row];
+    }
+
+    public @Nonnull PropertyColumn getColumn(@Nonnull Property property) {
+      Objects.requireNonNull(property, "Property should not be null");
+      int index = layout.indexOf(property);
+      if (index == -1) {
+        throw new IllegalArgumentException(
+            "Feature " + property + " is not belonging to classifier " + classifier);
+      }
+      return columns[index];
+    }
+
+    private int addRow(int handle) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, size * 2);
+      }
+      nodes[size] = handle;
+      return size++;
+    }
+
+    private int featureIndex(@Nonnull MetaPointer metaPointer, Class<? extends Feature<?>> kind) {
+      return AbstractNodeStore.featureIndex(classifier, layout, metaPointer, kind);
+    }
+
+    private void trim() {
+      nodes = Arrays.copyOf(nodes, size);
+      for (PropertyColumn column : columns) {
+        if (column != null) {
+          column.trim(size);
+        }
+      }
+    }
+  }
+
+  @Override
+  int parentOf(int handle) {
+    return parents[handle];
+  }
+
+  @Override
+  int containmentOf(int handle) {
+    return containments[handle];
+  }
+
+  @Override
+  @Nonnull
+  FeatureLayout layoutOf(int handle) {
+    return tables[classifiers[handle]].layout;
+  }
+
+  @Override
+  int childrenStart(int handle) {
+    return childrenStart[handle];
+  }
+
+  @Override
+  int childFeature(int entry) {
+    return childrenFeatures[entry];
+  }
+
+  @Override
+  int child(int entry) {
+    return children[entry];
+  }
+
+  @Override
+  int referencesStart(int handle) {
+    return referencesStart[handle];
+  }
+
+  @Override
+  int referenceFeature(int entry) {
+    return referenceFeatures[entry];
+  }
+
+  @Override
+  int referenceTarget(int entry) {
+    return referenceTargets[entry];
+  }
+
+  @Override
+  @Nullable
+  String resolveInfo(int entry) {
+    return resolveInfos[entry];
+  }
+
+  @Override
+  @Nonnull
+  String externalID(int encoded) {
+    return externalIDs.getID(-encoded - 2);
+  }
+
+  /**
+   * Collects the classifier instances, one at a time, in the growing arrays from which the store is
+   * built. IDs are turned into handles only once all the instances have been added, as instances
+   * can refer to instances added after them.
+   */
+  static final class Loader {
+    private final @Nonnull AbstractSerialization serialization;
+    private final Map<MetaPointer, Integer> tablesByMetaPointer = new HashMap<>();
+    private final Map<Classifier<?>, Integer> tablesByClassifier = new IdentityHashMap<>();
+    private final List<ClassifierTable> tables = new ArrayList<>();
+    private final IDDictionary ids;
+    private String[] parentIDs;
+    private int[] classifiers;
+    private int[] rows;
+    private int[] childrenStart;
+    private int[] referencesStart;
+    private int size;
+    private String[] childrenIDs = new String[16];
+    private int[] childrenFeatures = new int[16];
+    private int childrenCount;
+    private String[] targetIDs = new String[16];
+    private String[] resolveInfos = new String[16];
+    private int[] referenceFeatures = new int[16];
+    private int referencesCount;
+
+    Loader(@Nonnull AbstractSerialization serialization, int expectedSize) {
+      Objects.requireNonNull(serialization, "serialization should not be null");
+      this.serialization = serialization;
+      int capacity = Math.max(16, expectedSize);
+      this.ids = new IDDictionary(capacity);
+      this.parentIDs = new String[capacity];
+      this.classifiers = new int[capacity];
+      this.rows = new int[capacity];
+      this.childrenStart = new int[capacity + 1];
+      this.referencesStart = new int[capacity + 1];
+    }
+
+    void add(@Nonnull SerializedClassifierInstance instance) {
+      String id = instance.getID();
+      if (id == null) {
+        throw new DeserializationException("Classifier instances without ID cannot be stored");
+      }
+      if (ids.add(id) != size) {
+        throw new IllegalStateException("Duplicate ID found: " + id);
+      }
+      if (size == classifiers.length) {
+        int capacity = size * 2;
+        parentIDs = Arrays.copyOf(parentIDs, capacity);
+        classifiers = Arrays.copyOf(classifiers, capacity);
+        rows = Arrays.copyOf(rows, capacity);
+        childrenStart = Arrays.copyOf(childrenStart, capacity + 1);
+        referencesStart = Arrays.copyOf(referencesStart, capacity + 1);
+      }
+      int handle = size;
+      parentIDs[handle] = instance.getParentNodeID();
+      classifiers[handle] = tableIndex(instance);
+      ClassifierTable table = tables.get(classifiers[handle]);
+      int row = table.addRow(handle);
+      rows[handle] = row;
+
+      PrimitiveValuesSerialization primitiveValues =
+          serialization.getPrimitiveValuesSerialization();
+      for (SerializedPropertyValue propertyValue : instance.getProperties()) {
+        PropertyColumn column =
+            table.columns[table.featureIndex(propertyValue.getMetaPointer(), Property.class)];
+        Property property = column.getProperty();
+        column.set(
+            row,
+            primitiveValues.deserialize(
+                property.getType(), propertyValue.getValue(), property.isRequired()));
+      }
+      for (SerializedContainmentValue containmentValue : instance.getContainments()) {
+        int feature = table.featureIndex(containmentValue.getMetaPointer(), Containment.class);
+        for (String childID : containmentValue.getValue()) {
+          if (childID == null) {
+            throw new DeserializationException("Unable to deserialize child identified by Null ID");
+          }
+          addChild(childID, feature);
+        }
+      }
+      for (String annotationID : instance.getAnnotations()) {
+        addChild(annotationID, -1);
+      }
+      for (SerializedReferenceValue referenceValue : instance.getReferences()) {
+        int feature = table.featureIndex(referenceValue.getMetaPointer(), Reference.class);
+        for (SerializedReferenceValue.Entry entry : referenceValue.getValue()) {
+          if (referencesCount == targetIDs.length) {
+            int capacity = referencesCount * 2;
+            targetIDs = Arrays.copyOf(targetIDs, capacity);
+            resolveInfos = Arrays.copyOf(resolveInfos, capacity);
+            referenceFeatures = Arrays.copyOf(referenceFeatures, capacity);
+          }
+          targetIDs[referencesCount] = entry.getReference();
+          resolveInfos[referencesCount] = entry.getResolveInfo();
+          referenceFeatures[referencesCount] = feature;
+          referencesCount++;
+        }
+      }
+      size++;
+      childrenStart[size] = childrenCount;
+      referencesStart[size] = referencesCount;
+    }
+
+    @Nonnull
+    NodeStore build() {
+      return new NodeStore(this);
+    }
+
+    private void addChild(String childID, int feature) {
+      if (childrenCount == childrenIDs.length) {
+        int capacity = childrenCount * 2;
+        childrenIDs = Arrays.copyOf(childrenIDs, capacity);
+        childrenFeatures = Arrays.copyOf(childrenFeatures, capacity);
+      }
+      childrenIDs[childrenCount] = childID;
+      childrenFeatures[childrenCount] = feature;
+      childrenCount++;
+    }
+
+    private int tableIndex(@Nonnull SerializedClassifierInstance instance) {
+      MetaPointer metaPointer = instance.getClassifier();
+      Integer index = metaPointer == null ? null : tablesByMetaPointer.get(metaPointer);
+      if (index == null) {
+        Classifier<?> classifier = resolveStoredClassifier(serialization, instance);
+        index = tablesByClassifier.get(classifier);
+        if (index == null) {
+          index = tables.size();
+          tables.add(new ClassifierTable(classifier, serialization.getLionWebVersion()));
+          tablesByClassifier.put(classifier, index);
+        }
+        tablesByMetaPointer.put(metaPointer, index);
+      }
+      return index;
+    }
+
+    private int encode(@Nullable String id, @Nonnull IDDictionary external) {
+      if (id == null) {
+        return NO_NODE;
+      }
+      int handle = ids.indexOf(id);
+      if (handle != IDDictionary.NOT_FOUND) {
+        return handle;
+      }
+      return -external.add(id) - 2;
+    }
+  }
+}
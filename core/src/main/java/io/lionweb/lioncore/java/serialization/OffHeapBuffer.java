@@ -0,0 +1,175 @@
+package io.lionweb.lioncore.java.serialization;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A growable area of memory outside of the Java heap, addressed by long offsets. It is split in
+ * segments of 1 GB, as a single ByteBuffer cannot be larger than 2 GB, and it is backed either by
+ * direct ByteBuffers or by a temporary file mapped in memory, which is deleted when the buffer is
+ * closed, or as soon as it is opened on the file systems which allow it.
+ *
+ * <p>Ints and longs are expected to be stored at offsets which are multiples of their size, so that
+ * they never span two segments.
+ */
+final class OffHeapBuffer implements Closeable {
+  private static final int SEGMENT_SHIFT = 30;
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+  private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+  private static final int INITIAL_CAPACITY = 1 << 16;
+
+  private final @Nullable FileChannel channel;
+  private @Nullable ByteBuffer[] segments = new ByteBuffer[0];
+  private long capacity;
+
+  /**
+   * @param directory the directory where the temporary file backing the buffer is created, or null
+   *     to use direct ByteBuffers
+   */
+  OffHeapBuffer(@Nullable File directory) throws IOException {
+    if (directory == null) {
+      this.channel = null;
+    } else {
+      Path file = Files.createTempFile(directory.toPath(), "lionweb-", ".bin");
+      this.channel =
+          FileChannel.open(
+              file,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.DELETE_ON_CLOSE);
+    }
+    ensureCapacity(INITIAL_CAPACITY);
+  }
+
+  long capacity() {
+    return capacity;
+  }
+
+  /** Grow the buffer, if needed, so that the bytes up to the given offset can be accessed. */
+  void ensureCapacity(long required) {
+    checkOpen();
+    if (required <= capacity) {
+      return;
+    }
+    long newCapacity = Math.max(capacity, INITIAL_CAPACITY);
+    while (newCapacity < required) {
+      newCapacity = newCapacity < SEGMENT_SIZE ? newCapacity * 2 : newCapacity + SEGMENT_SIZE;
+    }
+    int count = (int) ((newCapacity + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+    ByteBuffer[] grown = Arrays.copyOf(segments, count);
+    for (int i = Math.max(0, segments.length - 1); i < count; i++) {
+      long start = (long) i << SEGMENT_SHIFT;
+      int size = (int) Math.min(SEGMENT_SIZE, newCapacity - start);
+      if (grown[i] == null || grown[i].capacity() < size) {
+        grown[i] = allocate(start, size, grown[i]);
+      }
+    }
+    segments = grown;
+    capacity = newCapacity;
+  }
+
+  int getInt(long offset) {
+    return segment(offset).getInt((int) (offset & SEGMENT_MASK));
+  }
+
+  void putInt(long offset, int value) {
+    segment(offset).putInt((int) (offset & SEGMENT_MASK), value);
+  }
+
+  long getLong(long offset) {
+    return segment(offset).getLong((int) (offset & SEGMENT_MASK));
+  }
+
+  void putLong(long offset, long value) {
+    segment(offset).putLong((int) (offset & SEGMENT_MASK), value);
+  }
+
+  void get(long offset, @Nonnull byte[] bytes, int length) {
+    int done = 0;
+    while (done < length) {
+      ByteBuffer segment = segment(offset + done).duplicate();
+      int position = (int) ((offset + done) & SEGMENT_MASK);
+      int count = Math.min(length - done, segment.capacity() - position);
+      segment.position(position);
+      segment.get(bytes, done, count);
+      done += count;
+    }
+  }
+
+  void put(long offset, @Nonnull byte[] bytes, int length) {
+    int done = 0;
+    while (done < length) {
+      ByteBuffer segment = segment(offset + done).duplicate();
+      int position = (int) ((offset + done) & SEGMENT_MASK);
+      int count = Math.min(length - done, segment.capacity() - position);
+      segment.position(position);
+      segment.put(bytes, done, count);
+      done += count;
+    }
+  }
+
+  /**
+   * Release the buffer. The memory of direct ByteBuffers and the mappings of the file are freed by
+   * the garbage collector, once the buffers are not referenced anymore, while the temporary file is
+   * deleted immediately, on the file systems which allow it. The buffer cannot be accessed
+   * afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    segments = null;
+    capacity = 0;
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  boolean isClosed() {
+    return segments == null;
+  }
+
+  private ByteBuffer segment(long offset) {
+    ByteBuffer[] current = checkOpen();
+    return current[(int) (offset >>> SEGMENT_SHIFT)];
+  }
+
+  private ByteBuffer[] checkOpen() {
+    ByteBuffer[] current = segments;
+    if (current == null) {
+      throw new IllegalStateException("The store has been closed");
+    }
+    return current;
+  }
+
+  /** Allocate a segment, keeping the content of the segment it replaces, if any. */
+  private ByteBuffer allocate(long start, int size, @Nullable ByteBuffer previous) {
+    ByteBuffer segment;
+    if (channel == null) {
+      segment = ByteBuffer.allocateDirect(size);
+      if (previous != null) {
+        ByteBuffer source = previous.duplicate();
+        source.clear();
+        segment.put(source);
+        segment.clear();
+      }
+    } else {
+      // The new mapping covers the region of the previous one, so its content is kept
+      try {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return segment.order(ByteOrder.nativeOrder());
+  }
+}
@@ -0,0 +1,503 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import io.lionweb.lioncore.java.serialization.data.SerializedContainmentValue;
+import io.lionweb.lioncore.java.serialization.data.SerializedPropertyValue;
+import io.lionweb.lioncore.java.serialization.data.SerializedReferenceValue;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only forest of classifier instances stored outside of the Java heap, meant for models too
+ * large to be kept on the heap without long garbage collection pauses.
+ *
+ * <p>The records of the instances, their property values, children, annotations and references, the
+ * IDs and all the other strings are stored in {@link OffHeapBuffer}s, either in direct ByteBuffers
+ * or in temporary files mapped in memory. Only the classifiers, and their feature layouts, are kept
+ * on the heap. IDs are looked up through an open addressing table, also stored off-heap, and
+ * property values are decoded on each access, using the PrimitiveValuesSerialization of the
+ * serialization which loaded the store.
+ *
+ * <p>Once loaded, the store is immutable and it can be read from several threads. It should be
+ * closed once it is not needed anymore, and it must not be accessed, also through its nodes, after
+ * it has been closed.
+ */
+public final class OffHeapNodeStore extends AbstractNodeStore implements Closeable {
+  // The fields of the record of each instance, as ints
+  private static final int ID = 0;
+  // Parents, children and reference targets are stored as string indexes while loading. Once loaded
+  // values >= 0 are handles, NO_NODE means no node, and values <= -2 encode the string index of an
+  // ID which is not part of the store
+  private static final int PARENT = 1;
+  private static final int CLASSIFIER = 2;
+  // The position of the containment in the layout of the parent, or -1
+  private static final int CONTAINMENT = 3;
+  private static final int PROPERTIES_START = 4;
+  private static final int CHILDREN_START = 5;
+  private static final int REFERENCES_START = 6;
+  private static final int ID_HASH = 7;
+  private static final int RECORD_SIZE = 8 * Integer.BYTES;
+  // Each property entry holds the feature and the string index of the value, or -1
+  private static final int PROPERTY_SIZE = 2 * Integer.BYTES;
+  // Each child entry holds the feature, or -1 for annotations, and the child
+  private static final int CHILD_SIZE = 2 * Integer.BYTES;
+  // Each reference entry holds the feature, the target and the string index of the resolveInfo
+  private static final int REFERENCE_SIZE = 3 * Integer.BYTES;
+
+  private final int size;
+  private final @Nonnull List<Classifier<?>> classifiers;
+  private final @Nonnull List<FeatureLayout> layouts;
+  private final @Nonnull Map<Classifier<?>, Integer> classifierIndexes;
+  private final @Nonnull OffHeapBuffer records;
+  private final @Nonnull OffHeapBuffer properties;
+  private final @Nonnull OffHeapBuffer children;
+  private final @Nonnull OffHeapBuffer references;
+  // The offset in stringBytes of each string, as longs, followed by the end of the last one
+  private final @Nonnull OffHeapBuffer stringOffsets;
+  private final @Nonnull OffHeapBuffer stringBytes;
+  // The handle + 1 of the instance with each ID, or 0 for empty slots
+  private final @Nonnull OffHeapBuffer idTable;
+  private final int idTableMask;
+
+  private OffHeapNodeStore(@Nonnull Loader loader, @Nonnull OffHeapBuffer idTable) {
+    super(loader.serialization);
+    this.size = loader.size;
+    this.classifiers = loader.classifiers;
+    this.layouts = loader.layouts;
+    this.classifierIndexes = loader.classifierIndexes;
+    this.records = loader.records;
+    this.properties = loader.properties;
+    this.children = loader.children;
+    this.references = loader.references;
+    this.stringOffsets = loader.stringOffsets;
+    this.stringBytes = loader.stringBytes;
+    this.idTable = idTable;
+    this.idTableMask = (int) (idTable.capacity() / Integer.BYTES) - 1;
+
+    for (int handle = 0; handle < size; handle++) {
+      int slot = slot(recordInt(handle, ID_HASH));
+      while (idTable.getInt(slot * (long) Integer.BYTES) != 0) {
+        int other = idTable.getInt(slot * (long) Integer.BYTES) - 1;
+        if (recordInt(other, ID_HASH) == recordInt(handle, ID_HASH)
+            && stringEquals(recordInt(other, ID), stringBytes(recordInt(handle, ID)))) {
+          throw new IllegalStateException(
+              "Duplicate ID found: " + readString(recordInt(handle, ID)));
+        }
+        slot = (slot + 1) & idTableMask;
+      }
+      idTable.putInt(slot * (long) Integer.BYTES, handle + 1);
+    }
+    for (int handle = 0; handle < size; handle++) {
+      setRecordInt(handle, PARENT, encode(recordInt(handle, PARENT)));
+    }
+    int childrenCount = recordInt(size, CHILDREN_START);
+    for (int i = 0; i < childrenCount; i++) {
+      long offset = i * (long) CHILD_SIZE + Integer.BYTES;
+      children.putInt(offset, encode(children.getInt(offset)));
+    }
+    int referencesCount = recordInt(size, REFERENCES_START);
+    for (int i = 0; i < referencesCount; i++) {
+      long offset = i * (long) REFERENCE_SIZE + Integer.BYTES;
+      references.putInt(offset, encode(references.getInt(offset)));
+    }
+    for (int handle = 0; handle < size; handle++) {
+      for (int i = childrenStart(handle); i < childrenStart(handle + 1); i++) {
+        int child = child(i);
+        int feature = childFeature(i);
+        if (child >= 0 && feature != -1 && parentOf(child) == handle) {
+          setRecordInt(child, CONTAINMENT, feature);
+        }
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int getHandle(@Nullable String id) {
+    if (id == null) {
+      return NO_NODE;
+    }
+    int hash = id.hashCode();
+    byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+    for (int slot = slot(hash); ; slot = (slot + 1) & idTableMask) {
+      int entry = idTable.getInt(slot * (long) Integer.BYTES);
+      if (entry == 0) {
+        return NO_NODE;
+      }
+      int handle = entry - 1;
+      if (recordInt(handle, ID_HASH) == hash && stringEquals(recordInt(handle, ID), bytes)) {
+        return handle;
+      }
+    }
+  }
+
+  @Override
+  public @Nonnull String getID(int handle) {
+    return readString(recordInt(checkHandle(handle), ID));
+  }
+
+  @Override
+  public @Nonnull Classifier<?> getClassifier(int handle) {
+    return classifiers.get(recordInt(checkHandle(handle), CLASSIFIER));
+  }
+
+  @Override
+  public @Nullable Object getPropertyValue(int handle, @Nonnull Property property) {
+    Objects.requireNonNull(property, "Property should not be null");
+    int feature = featureIndex(checkHandle(handle), property);
+    Objects.requireNonNull(property.getType(), "property type should not be null");
+    int end = recordInt(handle + 1, PROPERTIES_START);
+    for (int i = recordInt(handle, PROPERTIES_START); i < end; i++) {
+      long offset = i * (long) PROPERTY_SIZE;
+      if (properties.getInt(offset) == feature) {
+        String value = readString(properties.getInt(offset + Integer.BYTES));
+        return serialization
+            .getPrimitiveValuesSerialization()
+            .deserialize(property.getType(), value, property.isRequired());
+      }
+    }
+    // As for the NodeStore, required boolean properties without a value are false
+    if (property.isRequired()
+        && property.getType() == LionCoreBuiltins.getBoolean(serialization.getLionWebVersion())) {
+      return false;
+    }
+    return null;
+  }
+
+  @Override
+  public void forEachInstance(@Nonnull Classifier<?> classifier, @Nonnull IntConsumer action) {
+    Objects.requireNonNull(classifier, "classifier should not be null");
+    Objects.requireNonNull(action, "action should not be null");
+    Integer index = classifierIndexes.get(classifier);
+    if (index != null) {
+      for (int handle = 0; handle < size; handle++) {
+        if (recordInt(handle, CLASSIFIER) == index) {
+          action.accept(handle);
+        }
+      }
+    }
+  }
+
+  /** Whether the store has been closed. */
+  public boolean isClosed() {
+    return records.isClosed();
+  }
+
+  /**
+   * Release the memory and the temporary files used by the store. Direct ByteBuffers, and the
+   * mappings of the temporary files, are freed by the garbage collector once they are not
+   * referenced anymore, while the temporary files are deleted immediately.
+   */
+  @Override
+  public void close() throws IOException {
+    close(
+        Arrays.asList(
+            records, properties, children, references, stringOffsets, stringBytes, idTable));
+  }
+
+  @Override
+  int parentOf(int handle) {
+    return recordInt(handle, PARENT);
+  }
+
+  @Override
+  int containmentOf(int handle) {
+    return recordInt(handle, CONTAINMENT);
+  }
+
+  @Override
+  @Nonnull
+  FeatureLayout layoutOf(int handle) {
+    return layouts.get(recordInt(handle, CLASSIFIER));
+  }
+
+  @Override
+  int childrenStart(int handle) {
+    return recordInt(handle, CHILDREN_START);
+  }
+
+  @Override
+  int childFeature(int entry) {
+    return children.getInt(entry * (long) CHILD_SIZE);
+  }
+
+  @Override
+  int child(int entry) {
+    return children.getInt(entry * (long) CHILD_SIZE + Integer.BYTES);
+  }
+
+  @Override
+  int referencesStart(int handle) {
+    return recordInt(handle, REFERENCES_START);
+  }
+
+  @Override
+  int referenceFeature(int entry) {
+    return references.getInt(entry * (long) REFERENCE_SIZE);
+  }
+
+  @Override
+  int referenceTarget(int entry) {
+    return references.getInt(entry * (long) REFERENCE_SIZE + Integer.BYTES);
+  }
+
+  @Override
+  @Nullable
+  String resolveInfo(int entry) {
+    return readString(references.getInt(entry * (long) REFERENCE_SIZE + 2 * Integer.BYTES));
+  }
+
+  @Override
+  @Nonnull
+  String externalID(int encoded) {
+    return readString(-encoded - 2);
+  }
+
+  //
+  // Private methods
+  //
+
+  private int recordInt(int handle, int field) {
+    return records.getInt(handle * (long) RECORD_SIZE + field * Integer.BYTES);
+  }
+
+  private void setRecordInt(int handle, int field, int value) {
+    records.putInt(handle * (long) RECORD_SIZE + field * Integer.BYTES, value);
+  }
+
+  private int slot(int hash) {
+    return (hash ^ (hash >>> 16)) & idTableMask;
+  }
+
+  /** Turn the string index of an ID into the handle of the instance with that ID, if stored. */
+  private int encode(int stringIndex) {
+    if (stringIndex == -1) {
+      return NO_NODE;
+    }
+    int handle = getHandle(readString(stringIndex));
+    return handle == NO_NODE ? -stringIndex - 2 : handle;
+  }
+
+  @Nullable
+  private String readString(int index) {
+    if (index == -1) {
+      return null;
+    }
+    return new String(stringBytes(index), StandardCharsets.UTF_8);
+  }
+
+  private byte[] stringBytes(int index) {
+    long start = stringOffsets.getLong(index * (long) Long.BYTES);
+    long end = stringOffsets.getLong((index + 1) * (long) Long.BYTES);
+    byte[] bytes = new byte[(int) (end - start)];
+    stringBytes.get(start, bytes, bytes.length);
+    return bytes;
+  }
+
+  private boolean stringEquals(int index, byte[] bytes) {
+    long start = stringOffsets.getLong(index * (long) Long.BYTES);
+    long end = stringOffsets.getLong((index + 1) * (long) Long.BYTES);
+    return end - start == bytes.length && Arrays.equals(stringBytes(index), bytes);
+  }
+
+  private static void close(@Nonnull List<OffHeapBuffer> buffers) throws IOException {
+    IOException exception = null;
+    for (OffHeapBuffer buffer : buffers) {
+      try {
+        if (buffer != null) {
+          buffer.close();
+        }
+      } catch (IOException e) {
+        exception = e;
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  /**
+   * Writes the classifier instances, one at a time, in the buffers from which the store is built.
+   * IDs are turned into handles only once all the instances have been added, as instances can refer
+   * to instances added after them.
+   */
+  static final class Loader {
+    private final @Nonnull AbstractSerialization serialization;
+    private final @Nullable File directory;
+    private final Map<MetaPointer, Integer> classifiersByMetaPointer = new HashMap<>();
+    private final Map<Classifier<?>, Integer> classifierIndexes = new IdentityHashMap<>();
+    private final List<Classifier<?>> classifiers = new ArrayList<>();
+    private final List<FeatureLayout> layouts = new ArrayList<>();
+    private final OffHeapBuffer records;
+    private final OffHeapBuffer properties;
+    private final OffHeapBuffer children;
+    private final OffHeapBuffer references;
+    private final OffHeapBuffer stringOffsets;
+    private final OffHeapBuffer stringBytes;
+    private @Nullable OffHeapBuffer idTable;
+    private int size;
+    private int propertiesCount;
+    private int childrenCount;
+    private int referencesCount;
+    private int stringsCount;
+    private long stringBytesSize;
+
+    /**
+     * @param directory the directory where the temporary files backing the store are created, or
+     *     null to store it in direct ByteBuffers
+     */
+    Loader(@Nonnull AbstractSerialization serialization, @Nullable File directory)
+        throws IOException {
+      Objects.requireNonNull(serialization, "serialization should not be null");
+      this.serialization = serialization;
+      this.directory = directory;
+      List<OffHeapBuffer> buffers = new ArrayList<>();
+      try {
+        for (int i = 0; i < 6; i++) {
+          buffers.add(new OffHeapBuffer(directory));
+        }
+      } catch (IOException | RuntimeException e) {
+        close(buffers);
+        throw e;
+      }
+      this.records = buffers.get(0);
+      this.properties = buffers.get(1);
+      this.children = buffers.get(2);
+      this.references = buffers.get(3);
+      this.stringOffsets = buffers.get(4);
+      this.stringBytes = buffers.get(5);
+      stringOffsets.putLong(0, 0);
+    }
+
+    void add(@Nonnull SerializedClassifierInstance instance) {
+      String id = instance.getID();
+      if (id == null) {
+        throw new DeserializationException("Classifier instances without ID cannot be stored");
+      }
+      if (size == Integer.MAX_VALUE - 1) {
+        throw new IllegalStateException("Too many classifier instances");
+      }
+      int handle = size;
+      int classifierIndex = classifierIndex(instance);
+      Classifier<?> classifier = classifiers.get(classifierIndex);
+      FeatureLayout layout = layouts.get(classifierIndex);
+      records.ensureCapacity((handle + 2) * (long) RECORD_SIZE);
+      setRecordInt(handle, ID, addString(id));
+      setRecordInt(handle, PARENT, addString(instance.getParentNodeID()));
+      setRecordInt(handle, CLASSIFIER, classifierIndex);
+      setRecordInt(handle, CONTAINMENT, -1);
+      setRecordInt(handle, ID_HASH, id.hashCode());
+
+      for (SerializedPropertyValue propertyValue : instance.getProperties()) {
+        int feature =
+            featureIndex(classifier, layout, propertyValue.getMetaPointer(), Property.class);
+        long offset = propertiesCount++ * (long) PROPERTY_SIZE;
+        properties.ensureCapacity(offset + PROPERTY_SIZE);
+        properties.putInt(offset, feature);
+        properties.putInt(offset + Integer.BYTES, addString(propertyValue.getValue()));
+      }
+      for (SerializedContainmentValue containmentValue : instance.getContainments()) {
+        int feature =
+            featureIndex(classifier, layout, containmentValue.getMetaPointer(), Containment.class);
+        for (String childID : containmentValue.getValue()) {
+          if (childID == null) {
+            throw new DeserializationException("Unable to deserialize child identified by Null ID");
+          }
+          addChild(childID, feature);
+        }
+      }
+      for (String annotationID : instance.getAnnotations()) {
+        addChild(annotationID, -1);
+      }
+      for (SerializedReferenceValue referenceValue : instance.getReferences()) {
+        int feature =
+            featureIndex(classifier, layout, referenceValue.getMetaPointer(), Reference.class);
+        for (SerializedReferenceValue.Entry entry : referenceValue.getValue()) {
+          long offset = referencesCount++ * (long) REFERENCE_SIZE;
+          references.ensureCapacity(offset + REFERENCE_SIZE);
+          references.putInt(offset, feature);
+          references.putInt(offset + Integer.BYTES, addString(entry.getReference()));
+          references.putInt(offset + 2 * Integer.BYTES, addString(entry.getResolveInfo()));
+        }
+      }
+      size++;
+      setRecordInt(size, PROPERTIES_START, propertiesCount);
+      setRecordInt(size, CHILDREN_START, childrenCount);
+      setRecordInt(size, REFERENCES_START, referencesCount);
+    }
+
+    @Nonnull
+    OffHeapNodeStore build() throws IOException {
+      // The table is kept at most half full
+      long slots = Math.max(16, Long.highestOneBit(Math.max(1, size)) * 4);
+      idTable = new OffHeapBuffer(directory);
+      idTable.ensureCapacity(slots * Integer.BYTES);
+      return new OffHeapNodeStore(this, idTable);
+    }
+
+    /** Release the buffers written so far, when the store cannot be built. */
+    void discard() throws IOException {
+      close(
+          Arrays.asList(
+              records, properties, children, references, stringOffsets, stringBytes, idTable));
+    }
+
+    private void setRecordInt(int handle, int field, int value) {
+      records.putInt(handle * (long) RECORD_SIZE + field * Integer.BYTES, value);
+    }
+
+    private void addChild(@Nonnull String childID, int feature) {
+      long offset = childrenCount++ * (long) CHILD_SIZE;
+      children.ensureCapacity(offset + CHILD_SIZE);
+      children.putInt(offset, feature);
+      children.putInt(offset + Integer.BYTES, addString(childID));
+    }
+
+    /** Store the given string, returning its index, or -1 for null. */
+    private int addString(@Nullable String value) {
+      if (value == null) {
+        return -1;
+      }
+      if (stringsCount == Integer.MAX_VALUE - 1) {
+        throw new IllegalStateException("Too many strings");
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      stringBytes.ensureCapacity(stringBytesSize + bytes.length);
+      stringBytes.put(stringBytesSize, bytes, bytes.length);
+      stringBytesSize += bytes.length;
+      int index = stringsCount++;
+      stringOffsets.ensureCapacity((stringsCount + 1) * (long) Long.BYTES);
+      stringOffsets.putLong(stringsCount * (long) Long.BYTES, stringBytesSize);
+      return index;
+    }
+
+    private int classifierIndex(@Nonnull SerializedClassifierInstance instance) {
+      MetaPointer metaPointer = instance.getClassifier();
+      Integer index = metaPointer == null ? null : classifiersByMetaPointer.get(metaPointer);
+      if (index == null) {
+        Classifier<?> classifier = resolveStoredClassifier(serialization, instance);
+        index = classifierIndexes.get(classifier);
+        if (index == null) {
+          index = classifiers.size();
+          classifiers.add(classifier);
+          layouts.add(classifier.getFeatureLayout());
+          classifierIndexes.put(classifier, index);
+        }
+        classifiersByMetaPointer.put(metaPointer, index);
+      }
+      return index;
+    }
+  }
+}
@@ -26,8 +26,29 @@ public class PrimitiveValuesSerialization {
   private final Map<String, Enumeration> enumerationsByID = new HashMap<>();
   private final Map<String, StructuredDataType> strucuturesDataTypesByID = new HashMap<>();
   private boolean dynamicNodesEnabled = false;
+  private volatile boolean frozen = false;
+
+  /**
+   * Prevent the registration of further languages, serializers and deserializers, as well as
+   * enabling dynamic nodes. Values are then converted using only what has been registered so far.
+   */
+  public void freeze() {
+    frozen = true;
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new IllegalStateException(
+          "This PrimitiveValuesSerialization has been frozen and it cannot be modified");
+    }
+  }
 
   public void registerLanguage(Language language) {
+    checkNotFrozen();
     language.getElements().stream()
         .filter(e -> e instanceof Enumeration)
         .forEach(e -> enumerationsByID.put(e.getID(), (Enumeration) e));
@@ -37,6 +58,7 @@ public class PrimitiveValuesSerialization {
   }
 
   public void enableDynamicNodes() {
+    checkNotFrozen();
     dynamicNodesEnabled = true;
   }
 
@@ -63,12 +85,14 @@ public class PrimitiveValuesSerialization {
 
   public PrimitiveValuesSerialization registerDeserializer(
       String dataTypeID, PrimitiveDeserializer<?> deserializer) {
+    checkNotFrozen();
     this.primitiveDeserializers.put(dataTypeID, deserializer);
     return this;
   }
 
   public PrimitiveValuesSerialization registerSerializer(
       String dataTypeID, PrimitiveSerializer<?> serializer) {
+    checkNotFrozen();
     this.primitiveSerializers.put(dataTypeID, serializer);
     return this;
   }
@@ -98,6 +122,7 @@ public class PrimitiveValuesSerialization {
 
   public void registerLionBuiltinsPrimitiveSerializersAndDeserializers(
       @Nonnull LionWebVersion lionWebVersion) {
+    checkNotFrozen();
     Objects.requireNonNull(lionWebVersion, "lionWebVersion should not be null");
     primitiveDeserializers.put(
         LionCoreBuiltins.getBoolean(lionWebVersion).getID(),
@@ -197,12 +222,14 @@ public class PrimitiveValuesSerialization {
       Object fieldValue = structuredDataTypeInstance.getFieldValue(field);
       if (fieldValue == null) {
         jo.add(field.getKey(), JsonNull.INSTANCE);
-      } else if (isStructuredDataType(field.getType().getID())) {
+      } else if (isStructuredDataType(field.getType().getID())
+          || (field.getType() instanceof StructuredDataType
+              && !primitiveSerializers.containsKey(field.getType().getID()))) {
         // We need to handle those differently to avoid having nested strings
         StructuredDataTypeInstance fieldValueAsSDT = (StructuredDataTypeInstance) fieldValue;
         jo.add(field.getKey(), serializeSDT(fieldValueAsSDT));
       } else {
-        String serializedFieldValue = this.serialize(field.getType().getID(), fieldValue);
+        String serializedFieldValue = this.serialize(field.getType(), fieldValue);
         jo.addProperty(field.getKey(), serializedFieldValue);
       }
     }
@@ -222,46 +249,13 @@ public class PrimitiveValuesSerialization {
       // (and not the ID).
       // This is at least the default behavior, but the user can register specialized
       // primitiveSerializers, if a different behavior is needed
-      if (value instanceof EnumerationValue) {
-        EnumerationLiteral enumerationLiteral = ((EnumerationValue) value).getEnumerationLiteral();
-        if (enumerationLiteral.getKey() == null) {
-          throw new IllegalStateException("Cannot serialize enumaration literal with null key");
-        }
-        return enumerationLiteral.getKey();
-      } else if (value instanceof Enum<?>) {
-        Enumeration enumeration = enumerationsByID.get(primitiveTypeID);
-        if (enumeration == null) {
-          throw new RuntimeException(
-              "Cannot find enumeration with id "
-                  + primitiveTypeID
-                  + " while serializing primitive value "
-                  + value);
-        }
-        return PrimitiveValuesSerialization.<Enum>serializerFor(
-                (Class<Enum>) value.getClass(), enumeration)
-            .serialize((Enum) value);
-      } else {
-        throw new IllegalStateException(
-            "The primitive value with primitiveTypeID "
-                + primitiveTypeID
-                + " was expected to be an EnumerationValue or an instance of Enum. Instead it is: "
-                + value);
-      }
+      return serializeEnumerationValue(
+          primitiveTypeID, enumerationsByID.get(primitiveTypeID), value);
     } else if (isStructuredDataType(primitiveTypeID)) {
       if (value == null) {
         return null;
       }
-      if (value instanceof StructuredDataTypeInstance) {
-        StructuredDataTypeInstance structuredDataTypeInstance = (StructuredDataTypeInstance) value;
-        Gson gson = new GsonBuilder().serializeNulls().create();
-        return gson.toJson(serializeSDT(structuredDataTypeInstance));
-      } else {
-        throw new IllegalStateException(
-            "The primitive value with primitiveTypeID "
-                + primitiveTypeID
-                + " was expected to be a StructuredDataTypeInstance. Instead it is: "
-                + value);
-      }
+      return serializeStructuredDataTypeValue(primitiveTypeID, value);
     } else {
       throw new IllegalArgumentException(
           "Unable to serialize primitive values of type "
@@ -272,8 +266,74 @@ public class PrimitiveValuesSerialization {
     }
   }
 
+  /**
+   * Like {@link #serialize(String, Object)}, but values of Enumerations and StructuredDataTypes are
+   * serialized also when their language has not been registered, as the given DataType provides all
+   * the information needed.
+   */
+  public String serialize(@Nonnull DataType<?> dataType, @Nullable Object value) {
+    Objects.requireNonNull(dataType, "dataType should not be null");
+    String dataTypeID = dataType.getID();
+    Objects.requireNonNull(dataTypeID, "The dataType.ID should not be null");
+    if (!primitiveSerializers.containsKey(dataTypeID)
+        && !isEnum(dataTypeID)
+        && !isStructuredDataType(dataTypeID)
+        && value != null) {
+      if (dataType instanceof Enumeration) {
+        return serializeEnumerationValue(dataTypeID, (Enumeration) dataType, value);
+      } else if (dataType instanceof StructuredDataType) {
+        return serializeStructuredDataTypeValue(dataTypeID, value);
+      }
+    }
+    return serialize(dataTypeID, value);
+  }
+
+  private String serializeEnumerationValue(
+      @Nonnull String primitiveTypeID, @Nullable Enumeration enumeration, @Nonnull Object value) {
+    if (value instanceof EnumerationValue) {
+      EnumerationLiteral enumerationLiteral = ((EnumerationValue) value).getEnumerationLiteral();
+      if (enumerationLiteral.getKey() == null) {
+        throw new IllegalStateException("Cannot serialize enumaration literal with null key");
+      }
+      return enumerationLiteral.getKey();
+    } else if (value instanceof Enum<?>) {
+      if (enumeration == null) {
+        throw new RuntimeException(
+            "Cannot find enumeration with id "
+                + primitiveTypeID
+                + " while serializing primitive value "
+                + value);
+      }
+      return PrimitiveValuesSerialization.<Enum>serializerFor(
+              (Class<Enum>) value.getClass(), enumeration)
+          .serialize((Enum) value);
+    } else {
+      throw new IllegalStateException(
+          "The primitive value with primitiveTypeID "
+              + primitiveTypeID
+              + " was expected to be an EnumerationValue or an instance of Enum. Instead it is: "
+              + value);
+    }
+  }
+
+  private String serializeStructuredDataTypeValue(
+      @Nonnull String primitiveTypeID, @Nonnull Object value) {
+    if (value instanceof StructuredDataTypeInstance) {
+      StructuredDataTypeInstance structuredDataTypeInstance = (StructuredDataTypeInstance) value;
+      Gson gson = new GsonBuilder().serializeNulls().create();
+      return gson.toJson(serializeSDT(structuredDataTypeInstance));
+    } else {
+      throw new IllegalStateException(
+          "The primitive value with primitiveTypeID "
+              + primitiveTypeID
+              + " was expected to be a StructuredDataTypeInstance. Instead it is: "
+              + value);
+    }
+  }
+
   /** Please note that this will require support for reflection. */
   public <E extends Enum<E>> void registerEnumClass(Class<E> enumClass, Enumeration enumeration) {
+    checkNotFrozen();
     primitiveSerializers.put(enumeration.getID(), serializerFor(enumClass, enumeration));
     primitiveDeserializers.put(enumeration.getID(), deserializerFor(enumClass, enumeration));
   }
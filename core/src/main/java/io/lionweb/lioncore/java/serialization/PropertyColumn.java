@@ -0,0 +1,174 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.language.LionCoreBuiltins;
+import io.lionweb.lioncore.java.language.Property;
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The values of one property for all the instances of a classifier in a {@link NodeStore}, indexed
+ * by their row in the {@link NodeStore.ClassifierTable}. Values are decoded once, when the store is
+ * loaded. Integer and Boolean properties are stored in primitive form, so that they can be scanned
+ * without boxing.
+ */
+public abstract class PropertyColumn {
+  protected final @Nonnull Property property;
+
+  PropertyColumn(@Nonnull Property property) {
+    this.property = property;
+  }
+
+  public @Nonnull Property getProperty() {
+    return property;
+  }
+
+  /** The value of the property for the given row, as it would be returned by a node. */
+  public abstract @Nullable Object get(int row);
+
+  abstract void set(int row, @Nullable Object value);
+
+  abstract void trim(int rows);
+
+  static @Nonnull PropertyColumn forProperty(
+      @Nonnull Property property, @Nonnull LionWebVersion lionWebVersion) {
+    if (property.getType() == LionCoreBuiltins.getInteger(lionWebVersion)) {
+      return new IntColumn(property);
+    } else if (property.getType() == LionCoreBuiltins.getBoolean(lionWebVersion)) {
+      return new BooleanColumn(property);
+    } else {
+      return new ObjectColumn(property);
+    }
+  }
+
+  static int grownCapacity(int capacity, int row) {
+    return Math.max(row + 1, Math.max(16, capacity * 2));
+  }
+
+  /** A column of Integer values. Rows without a value are marked in a separate bit set. */
+  public static final class IntColumn extends PropertyColumn {
+    private int[] values = new int[0];
+    private final BitSet present = new BitSet();
+
+    IntColumn(@Nonnull Property property) {
+      super(property);
+    }
+
+    public boolean isNull(int row) {
+      return !present.get(row);
+    }
+
+    /** The value of the given row, or 0 when the row has no value. */
+    public int getInt(int row) {
+      return row < values.length ? values[row] : 0;
+    }
+
+    @Override
+    public @Nullable Object get(int row) {
+      return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    void set(int row, @Nullable Object value) {
+      if (value == null) {
+        present.clear(row);
+        return;
+      }
+      if (!(value instanceof Integer)) {
+        throw new IllegalStateException(
+            "Values of property " + property + " are expected to be Integers, but " + value);
+      }
+      if (row >= values.length) {
+        values = Arrays.copyOf(values, grownCapacity(values.length, row));
+      }
+      values[row] = (Integer) value;
+      present.set(row);
+    }
+
+    @Override
+    void trim(int rows) {
+      if (values.length > rows) {
+        values = Arrays.copyOf(values, rows);
+      }
+    }
+  }
+
+  /**
+   * A column of Boolean values. Like nodes do, it returns false for rows without a value when the
+   * property is required.
+   */
+  public static final class BooleanColumn extends PropertyColumn {
+    private final BitSet values = new BitSet();
+    private final BitSet present = new BitSet();
+
+    BooleanColumn(@Nonnull Property property) {
+      super(property);
+    }
+
+    public boolean isNull(int row) {
+      return !present.get(row) && !property.isRequired();
+    }
+
+    /** The value of the given row, or false when the row has no value. */
+    public boolean getBoolean(int row) {
+      return values.get(row);
+    }
+
+    @Override
+    public @Nullable Object get(int row) {
+      return isNull(row) ? null : values.get(row);
+    }
+
+    @Override
+    void set(int row, @Nullable Object value) {
+      if (value == null) {
+        present.clear(row);
+        values.clear(row);
+        return;
+      }
+      if (!(value instanceof Boolean)) {
+        throw new IllegalStateException(
+            "Values of property " + property + " are expected to be Booleans, but " + value);
+      }
+      values.set(row, (Boolean) value);
+      present.set(row);
+    }
+
+    @Override
+    void trim(int rows) {}
+  }
+
+  /** A column of values of any other type, as decoded by the PrimitiveValuesSerialization. */
+  public static final class ObjectColumn extends PropertyColumn {
+    private Object[] values = new Object[0];
+
+    ObjectColumn(@Nonnull Property property) {
+      super(property);
+    }
+
+    @Override
+    public @Nullable Object get(int row) {
+      return row < values.length ? values[row] : null;
+    }
+
+    @Override
+    void set(int row, @Nullable Object value) {
+      if (row >= values.length) {
+        if (value == null) {
+          return;
+        }
+        values = Arrays.copyOf(values, grownCapacity(values.length, row));
+      }
+      values[row] = value;
+    }
+
+    @Override
+    void trim(int rows) {
+      if (values.length > rows) {
+        values = Arrays.copyOf(values, rows);
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package io.lionweb.lioncore.java.serialization;
+
+import com.google.protobuf.CodedInputStream;
+import io.lionweb.lioncore.java.serialization.data.*;
+import io.lionweb.lioncore.protobuf.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class reads a chunk written in the streaming ProtoBuf format, described in
+ * ChunkStream.proto, for example by {@link ProtoBufDelimitedWriter}. Elements are read one at a
+ * time: only the current node and the string and MetaPointer tables are kept in memory, so the size
+ * of the chunk is not limited by the size limit of ProtoBuf messages.
+ */
+public class ProtoBufDelimitedReader implements Iterator<SerializedClassifierInstance>, Closeable {
+  private final InputStream inputStream;
+  private final CodedInputStream input;
+  private final String serializationFormatVersion;
+  private final ProtoBufTables tables = new ProtoBufTables();
+  private final List<UsedLanguage> languages = new ArrayList<>();
+  private @Nullable SerializedClassifierInstance nextClassifierInstance;
+  private boolean ended = false;
+
+  /** The header is read immediately. */
+  public ProtoBufDelimitedReader(@Nonnull InputStream inputStream) throws IOException {
+    Objects.requireNonNull(inputStream, "inputStream should not be null");
+    this.inputStream = inputStream;
+    this.input = CodedInputStream.newInstance(inputStream);
+    PBStreamElement header = readElement();
+    if (header == null || !header.hasHeader()) {
+      throw new DeserializationException("The stream should start with a header");
+    }
+    this.serializationFormatVersion = header.getHeader().getSerializationFormatVersion();
+  }
+
+  public @Nonnull String getSerializationFormatVersion() {
+    return serializationFormatVersion;
+  }
+
+  /** Return the languages read so far. */
+  public List<UsedLanguage> getLanguages() {
+    return Collections.unmodifiableList(languages);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextClassifierInstance != null) {
+      return true;
+    }
+    try {
+      while (!ended) {
+        PBStreamElement element = readElement();
+        if (element == null) {
+          ended = true;
+        } else if (element.hasDelta()) {
+          applyDelta(element.getDelta());
+        } else if (element.hasNode()) {
+          nextClassifierInstance =
+              ProtoBufSerialization.deserializeNode(
+                  element.getNode(), tables::string, tables::metaPointer);
+          return true;
+        } else if (element.hasHeader()) {
+          throw new DeserializationException("The stream should contain a single header");
+        }
+      }
+      return false;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Issue while reading the ProtoBuf stream", e);
+    }
+  }
+
+  @Override
+  public SerializedClassifierInstance next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    SerializedClassifierInstance classifierInstance = nextClassifierInstance;
+    nextClassifierInstance = null;
+    return classifierInstance;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  //
+  // Private methods
+  //
+
+  /** Return null when the end of the stream has been reached. */
+  private @Nullable PBStreamElement readElement() throws IOException {
+    if (input.isAtEnd()) {
+      return null;
+    }
+    int oldLimit = input.pushLimit(input.readRawVarint32());
+    PBStreamElement element = PBStreamElement.parseFrom(input);
+    input.popLimit(oldLimit);
+    // The size limit of CodedInputStream applies to the whole stream, unless it is reset
+    input.resetSizeCounter();
+    return element;
+  }
+
+  private void applyDelta(PBStreamDelta delta) {
+    if (delta.getReset()) {
+      tables.clear();
+    }
+    delta.getStringValuesList().forEach(tables::addString);
+    for (PBMetaPointer mp : delta.getMetaPointersList()) {
+      tables.addMetaPointer(mp.getLanguage(), mp.getVersion(), mp.getKey());
+    }
+    for (PBLanguage l : delta.getLanguagesList()) {
+      UsedLanguage usedLanguage = new UsedLanguage();
+      usedLanguage.setKey(tables.string(l.getKey()));
+      usedLanguage.setVersion(tables.string(l.getVersion()));
+      languages.add(usedLanguage);
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package io.lionweb.lioncore.java.serialization;
+
+import com.google.protobuf.CodedOutputStream;
+import io.lionweb.lioncore.java.serialization.data.*;
+import io.lionweb.lioncore.protobuf.*;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class writes a chunk in the streaming ProtoBuf format, described in ChunkStream.proto: a
+ * header, followed by length-delimited nodes, each preceded by the string values, MetaPointers and
+ * languages it introduces. Nodes are written as soon as they are received, so chunks of any size
+ * can be written without keeping them in memory.
+ *
+ * <p>The string values and MetaPointers are indexed as in a PBChunk. To keep the memory used
+ * bounded, the tables are reset once they contain more than {@link #getMaxTableSize()} entries.
+ */
+public class ProtoBufDelimitedWriter implements Closeable, Flushable {
+  public static final int DEFAULT_MAX_TABLE_SIZE = 1 << 20;
+
+  private final OutputStream outputStream;
+  private final CodedOutputStream output;
+  private final Map<String, Integer> strings = new HashMap<>();
+  private final Map<MetaPointer, Integer> metaPointers = new HashMap<>();
+  private final Set<UsedLanguage> languages = new HashSet<>();
+  private int maxTableSize = DEFAULT_MAX_TABLE_SIZE;
+  private PBStreamDelta.Builder delta = PBStreamDelta.newBuilder();
+  private boolean pendingDelta = false;
+
+  /** The header is written immediately. */
+  public ProtoBufDelimitedWriter(
+      @Nonnull OutputStream outputStream, @Nonnull String serializationFormatVersion)
+      throws IOException {
+    Objects.requireNonNull(outputStream, "outputStream should not be null");
+    Objects.requireNonNull(
+        serializationFormatVersion, "serializationFormatVersion should not be null");
+    this.outputStream = outputStream;
+    this.output = CodedOutputStream.newInstance(outputStream);
+    writeElement(
+        PBStreamElement.newBuilder()
+            .setHeader(
+                PBStreamHeader.newBuilder()
+                    .setSerializationFormatVersion(serializationFormatVersion))
+            .build());
+  }
+
+  public int getMaxTableSize() {
+    return maxTableSize;
+  }
+
+  /**
+   * Set the number of string values or MetaPointers after which the tables are reset. Smaller
+   * values reduce the memory used, at the price of repeating string values in the output.
+   */
+  public void setMaxTableSize(int maxTableSize) {
+    if (maxTableSize <= 0) {
+      throw new IllegalArgumentException("maxTableSize should be positive");
+    }
+    this.maxTableSize = maxTableSize;
+  }
+
+  /** Write the given chunk, without writing another header. */
+  public void write(@Nonnull SerializedChunk serializedChunk) throws IOException {
+    Objects.requireNonNull(serializedChunk, "serializedChunk should not be null");
+    for (UsedLanguage language : serializedChunk.getLanguages()) {
+      writeLanguage(language);
+    }
+    for (SerializedClassifierInstance classifierInstance :
+        serializedChunk.getClassifierInstances()) {
+      writeClassifierInstance(classifierInstance);
+    }
+  }
+
+  /**
+   * Record the given language among the ones used by the chunk. Languages already written are
+   * ignored. The language is written together with the next node, or when the writer is flushed.
+   */
+  public void writeLanguage(@Nonnull UsedLanguage language) {
+    Objects.requireNonNull(language, "language should not be null");
+    if (languages.add(language)) {
+      delta.addLanguages(
+          PBLanguage.newBuilder()
+              .setKey(stringIndex(language.getKey()))
+              .setVersion(stringIndex(language.getVersion())));
+      pendingDelta = true;
+    }
+  }
+
+  public void writeClassifierInstance(@Nonnull SerializedClassifierInstance classifierInstance)
+      throws IOException {
+    Objects.requireNonNull(classifierInstance, "classifierInstance should not be null");
+    if (strings.size() > maxTableSize || metaPointers.size() > maxTableSize) {
+      resetTables();
+    }
+    PBNode node = encodeNode(classifierInstance);
+    writePendingDelta();
+    writeElement(PBStreamElement.newBuilder().setNode(node).build());
+  }
+
+  @Override
+  public void flush() throws IOException {
+    writePendingDelta();
+    output.flush();
+    outputStream.flush();
+  }
+
+  /** Flush and close the underlying OutputStream. */
+  @Override
+  public void close() throws IOException {
+    flush();
+    outputStream.close();
+  }
+
+  //
+  // Private methods
+  //
+
+  private PBNode encodeNode(SerializedClassifierInstance n) {
+    PBNode.Builder nodeBuilder = PBNode.newBuilder();
+    nodeBuilder.setId(stringIndex(n.getID()));
+    nodeBuilder.setClassifier(metaPointerIndex(n.getClassifier()));
+    nodeBuilder.setParent(stringIndex(n.getParentNodeID()));
+    for (SerializedPropertyValue p : n.getProperties()) {
+      nodeBuilder.addProperties(
+          PBProperty.newBuilder()
+              .setMetaPointerIndex(metaPointerIndex(p.getMetaPointer()))
+              .setValue(stringIndex(p.getValue())));
+    }
+    for (SerializedContainmentValue c : n.getContainments()) {
+      PBContainment.Builder containmentBuilder =
+          PBContainment.newBuilder().setMetaPointerIndex(metaPointerIndex(c.getMetaPointer()));
+      for (String child : c.getValue()) {
+        containmentBuilder.addChildren(stringIndex(child));
+      }
+      nodeBuilder.addContainments(containmentBuilder);
+    }
+    for (SerializedReferenceValue r : n.getReferences()) {
+      PBReference.Builder referenceBuilder =
+          PBReference.newBuilder().setMetaPointerIndex(metaPointerIndex(r.getMetaPointer()));
+      for (SerializedReferenceValue.Entry entry : r.getValue()) {
+        referenceBuilder.addValues(
+            PBReferenceValue.newBuilder()
+                .setReferred(stringIndex(entry.getReference()))
+                .setResolveInfo(stringIndex(entry.getResolveInfo())));
+      }
+      nodeBuilder.addReferences(referenceBuilder);
+    }
+    for (String annotation : n.getAnnotations()) {
+      nodeBuilder.addAnnotations(stringIndex(annotation));
+    }
+    return nodeBuilder.build();
+  }
+
+  private int stringIndex(@Nullable String string) {
+    if (string == null) {
+      return -1;
+    }
+    Integer index = strings.get(string);
+    if (index == null) {
+      index = strings.size();
+      strings.put(string, index);
+      delta.addStringValues(string);
+      pendingDelta = true;
+    }
+    return index;
+  }
+
+  private int metaPointerIndex(@Nullable MetaPointer metaPointer) {
+    if (metaPointer == null) {
+      return -1;
+    }
+    Integer index = metaPointers.get(metaPointer);
+    if (index == null) {
+      PBMetaPointer pbMetaPointer =
+          PBMetaPointer.newBuilder()
+              .setLanguage(stringIndex(metaPointer.getLanguage()))
+              .setVersion(stringIndex(metaPointer.getVersion()))
+              .setKey(stringIndex(metaPointer.getKey()))
+              .build();
+      index = metaPointers.size();
+      metaPointers.put(metaPointer, index);
+      delta.addMetaPointers(pbMetaPointer);
+      pendingDelta = true;
+    }
+    return index;
+  }
+
+  private void resetTables() throws IOException {
+    writePendingDelta();
+    strings.clear();
+    metaPointers.clear();
+    delta.setReset(true);
+    pendingDelta = true;
+  }
+
+  private void writePendingDelta() throws IOException {
+    if (pendingDelta) {
+      writeElement(PBStreamElement.newBuilder().setDelta(delta).build());
+      delta = PBStreamDelta.newBuilder();
+      pendingDelta = false;
+    }
+  }
+
+  private void writeElement(PBStreamElement element) throws IOException {
+    output.writeUInt32NoTag(element.getSerializedSize());
+    element.writeTo(output);
+  }
+}
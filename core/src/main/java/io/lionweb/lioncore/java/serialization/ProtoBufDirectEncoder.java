@@ -0,0 +1,468 @@
+package io.lionweb.lioncore.java.serialization;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.protobuf.PBChunk;
+import io.lionweb.lioncore.protobuf.PBContainment;
+import io.lionweb.lioncore.protobuf.PBLanguage;
+import io.lionweb.lioncore.protobuf.PBMetaPointer;
+import io.lionweb.lioncore.protobuf.PBNode;
+import io.lionweb.lioncore.protobuf.PBProperty;
+import io.lionweb.lioncore.protobuf.PBReference;
+import io.lionweb.lioncore.protobuf.PBReferenceValue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class encodes classifier instances in the wire format of PBChunk, writing directly to a
+ * CodedOutputStream. Neither SerializedClassifierInstances nor PB builders are created: the indexes
+ * of each node are collected in a reusable int array, from which the node is sized and written.
+ *
+ * <p>The string values and the MetaPointers are written before the nodes, as ProtoBuf does, so that
+ * the chunk can be read in a single pass by {@link ProtoBufStreamReader}. As they are only known
+ * once all nodes have been visited, the nodes are kept encoded in a buffer until then, from which
+ * they are copied once, to the OutputStream or to an array of the exact size of the chunk.
+ */
+final class ProtoBufDirectEncoder {
+  /** The MetaPointer indexes of a classifier and of its features, computed once per classifier. */
+  private static class ClassifierIndexes {
+    private final FeatureLayout layout;
+    private final int classifier;
+    private final int[] properties;
+    private final int[] containments;
+    private final int[] references;
+
+    private ClassifierIndexes(
+        FeatureLayout layout,
+        int classifier,
+        int[] properties,
+        int[] containments,
+        int[] references) {
+      this.layout = layout;
+      this.classifier = classifier;
+      this.properties = properties;
+      this.containments = containments;
+      this.references = references;
+    }
+  }
+
+  /** The nodes encoded so far, which can be copied without copying the buffer first. */
+  private static final class NodesBuffer extends ByteArrayOutputStream {
+    private NodesBuffer() {
+      super(4096);
+    }
+
+    private void copyTo(CodedOutputStream output) throws IOException {
+      output.writeRawBytes(buf, 0, count);
+    }
+  }
+
+  private final AbstractSerialization serialization;
+  private final Map<String, Integer> strings = new HashMap<>();
+  private final List<String> stringValues = new ArrayList<>();
+  private final Map<MetaPointer, Integer> metaPointers = new HashMap<>();
+  // For each MetaPointer, the indexes of its language, version and key
+  private int[] metaPointerValues = new int[48];
+  private final List<int[]> languages = new ArrayList<>();
+  private final Set<Language> consideredLanguages = new HashSet<>();
+  private final IdentityHashMap<Classifier<?>, ClassifierIndexes> classifierIndexes =
+      new IdentityHashMap<>();
+  private final NodesBuffer nodesBuffer = new NodesBuffer();
+  private final CodedOutputStream nodesOutput = CodedOutputStream.newInstance(nodesBuffer);
+  // The indexes of the node being encoded
+  private int[] scratch = new int[64];
+  private int scratchSize;
+
+  ProtoBufDirectEncoder(@Nonnull AbstractSerialization serialization) {
+    this.serialization = serialization;
+  }
+
+  void encode(@Nonnull ClassifierInstance<?> classifierInstance) throws IOException {
+    Objects.requireNonNull(classifierInstance, "classifierInstance should not be null");
+    scratchSize = 0;
+    collectIndexes(classifierInstance);
+    nodesOutput.writeTag(PBChunk.NODES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    nodesOutput.writeUInt32NoTag(nodeSize());
+    writeNode();
+  }
+
+  /** Write the chunk, with all the nodes encoded so far. */
+  void writeTo(@Nonnull String serializationFormatVersion, @Nonnull OutputStream outputStream)
+      throws IOException {
+    nodesOutput.flush();
+    CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+    writeTables(output, serializationFormatVersion);
+    output.flush();
+    nodesBuffer.writeTo(outputStream);
+  }
+
+  /** Return the chunk, with all the nodes encoded so far, in an array of its exact size. */
+  @Nonnull
+  byte[] toByteArray(@Nonnull String serializationFormatVersion) throws IOException {
+    nodesOutput.flush();
+    byte[] bytes = new byte[tablesSize(serializationFormatVersion) + nodesBuffer.size()];
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    writeTables(output, serializationFormatVersion);
+    nodesBuffer.copyTo(output);
+    output.checkNoSpaceLeft();
+    return bytes;
+  }
+
+  //
+  // Private methods
+  //
+
+  /** The size of the fields written before the nodes. */
+  private int tablesSize(String serializationFormatVersion) {
+    int size = 0;
+    if (!serializationFormatVersion.isEmpty()) {
+      size +=
+          CodedOutputStream.computeStringSize(
+              PBChunk.SERIALIZATIONFORMATVERSION_FIELD_NUMBER, serializationFormatVersion);
+    }
+    for (String string : stringValues) {
+      size += CodedOutputStream.computeStringSize(PBChunk.STRINGVALUES_FIELD_NUMBER, string);
+    }
+    for (int i = 0; i < metaPointers.size(); i++) {
+      size += messageSize(PBChunk.METAPOINTERS_FIELD_NUMBER, metaPointerSize(i));
+    }
+    for (int[] language : languages) {
+      size += messageSize(PBChunk.LANGUAGES_FIELD_NUMBER, languageSize(language));
+    }
+    return size;
+  }
+
+  private void writeTables(CodedOutputStream output, String serializationFormatVersion)
+      throws IOException {
+    if (!serializationFormatVersion.isEmpty()) {
+      output.writeString(
+          PBChunk.SERIALIZATIONFORMATVERSION_FIELD_NUMBER, serializationFormatVersion);
+    }
+    for (String string : stringValues) {
+      output.writeString(PBChunk.STRINGVALUES_FIELD_NUMBER, string);
+    }
+    for (int i = 0; i < metaPointers.size(); i++) {
+      output.writeTag(PBChunk.METAPOINTERS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(metaPointerSize(i));
+      writeInt32(output, PBMetaPointer.LANGUAGE_FIELD_NUMBER, metaPointerValues[i * 3]);
+      writeInt32(output, PBMetaPointer.VERSION_FIELD_NUMBER, metaPointerValues[i * 3 + 1]);
+      writeInt32(output, PBMetaPointer.KEY_FIELD_NUMBER, metaPointerValues[i * 3 + 2]);
+    }
+    for (int[] language : languages) {
+      output.writeTag(PBChunk.LANGUAGES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(languageSize(language));
+      writeInt32(output, PBLanguage.KEY_FIELD_NUMBER, language[0]);
+      writeInt32(output, PBLanguage.VERSION_FIELD_NUMBER, language[1]);
+    }
+  }
+
+  private int metaPointerSize(int index) {
+    return int32Size(PBMetaPointer.LANGUAGE_FIELD_NUMBER, metaPointerValues[index * 3])
+        + int32Size(PBMetaPointer.VERSION_FIELD_NUMBER, metaPointerValues[index * 3 + 1])
+        + int32Size(PBMetaPointer.KEY_FIELD_NUMBER, metaPointerValues[index * 3 + 2]);
+  }
+
+  private static int languageSize(int[] language) {
+    return int32Size(PBLanguage.KEY_FIELD_NUMBER, language[0])
+        + int32Size(PBLanguage.VERSION_FIELD_NUMBER, language[1]);
+  }
+
+  /**
+   * The indexes are collected in this order: id, classifier, parent, then the number of properties
+   * followed by MetaPointer and value of each, the number of containments followed by MetaPointer,
+   * number of children and children of each, the number of references followed by MetaPointer,
+   * number of entries and resolveInfo and referred of each entry, and finally the number of
+   * annotations followed by the annotations.
+   */
+  private void collectIndexes(ClassifierInstance<?> classifierInstance) {
+    ClassifierIndexes indexes = classifierIndexes(classifierInstance.getClassifier());
+    FeatureLayout layout = indexes.layout;
+    add(stringIndex(classifierInstance.getID()));
+    add(indexes.classifier);
+    ClassifierInstance<?> parent = classifierInstance.getParent();
+    add(parent == null ? -1 : stringIndex(parent.getID()));
+
+    List<Property> properties = layout.getProperties();
+    add(properties.size());
+    for (int i = 0; i < properties.size(); i++) {
+      Property property = properties.get(i);
+      add(indexes.properties[i]);
+      add(
+          stringIndex(
+              serialization.serializePropertyValue(
+                  property.getType(), classifierInstance.getPropertyValue(property))));
+    }
+
+    List<Containment> containments = layout.getContainments();
+    add(containments.size());
+    for (int i = 0; i < containments.size(); i++) {
+      List<? extends Node> children = classifierInstance.getChildren(containments.get(i));
+      add(indexes.containments[i]);
+      add(children.size());
+      for (Node child : children) {
+        add(stringIndex(child.getID()));
+      }
+    }
+
+    List<Reference> references = layout.getReferences();
+    add(references.size());
+    for (int i = 0; i < references.size(); i++) {
+      List<? extends ReferenceValue> values =
+          classifierInstance.getReferenceValues(references.get(i));
+      add(indexes.references[i]);
+      add(values.size());
+      for (ReferenceValue value : values) {
+        Node referred = value.getReferred();
+        String referredID = referred == null ? null : referred.getID();
+        if (serialization.builtinsReferenceDangling
+            && ClassifierInstanceUtils.isBuiltinElement(referred)) {
+          referredID = null;
+        }
+        add(stringIndex(value.getResolveInfo()));
+        add(stringIndex(referredID));
+      }
+    }
+
+    List<? extends AnnotationInstance> annotations = classifierInstance.getAnnotations();
+    add(annotations.size());
+    for (AnnotationInstance annotation : annotations) {
+      add(stringIndex(annotation.getID()));
+    }
+  }
+
+  private int nodeSize() {
+    int size =
+        int32Size(PBNode.ID_FIELD_NUMBER, scratch[0])
+            + int32Size(PBNode.CLASSIFIER_FIELD_NUMBER, scratch[1]);
+    int parent = scratch[2];
+    int i = 3;
+    int propertiesCount = scratch[i++];
+    for (int p = 0; p < propertiesCount; p++) {
+      size += messageSize(PBNode.PROPERTIES_FIELD_NUMBER, propertySize(i));
+      i += 2;
+    }
+    int containmentsCount = scratch[i++];
+    for (int c = 0; c < containmentsCount; c++) {
+      int childrenCount = scratch[i + 1];
+      size += messageSize(PBNode.CONTAINMENTS_FIELD_NUMBER, containmentSize(i));
+      i += 2 + childrenCount;
+    }
+    int referencesCount = scratch[i++];
+    for (int r = 0; r < referencesCount; r++) {
+      int entriesCount = scratch[i + 1];
+      size += messageSize(PBNode.REFERENCES_FIELD_NUMBER, referenceSize(i));
+      i += 2 + entriesCount * 2;
+    }
+    int annotationsCount = scratch[i++];
+    size += packedSize(PBNode.ANNOTATIONS_FIELD_NUMBER, i, annotationsCount);
+    return size + int32Size(PBNode.PARENT_FIELD_NUMBER, parent);
+  }
+
+  private void writeNode() throws IOException {
+    CodedOutputStream output = nodesOutput;
+    writeInt32(output, PBNode.ID_FIELD_NUMBER, scratch[0]);
+    writeInt32(output, PBNode.CLASSIFIER_FIELD_NUMBER, scratch[1]);
+    int i = 3;
+    int propertiesCount = scratch[i++];
+    for (int p = 0; p < propertiesCount; p++) {
+      output.writeTag(PBNode.PROPERTIES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(propertySize(i));
+      writeInt32(output, PBProperty.METAPOINTERINDEX_FIELD_NUMBER, scratch[i]);
+      writeInt32(output, PBProperty.VALUE_FIELD_NUMBER, scratch[i + 1]);
+      i += 2;
+    }
+    int containmentsCount = scratch[i++];
+    for (int c = 0; c < containmentsCount; c++) {
+      int childrenCount = scratch[i + 1];
+      output.writeTag(PBNode.CONTAINMENTS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(containmentSize(i));
+      writeInt32(output, PBContainment.METAPOINTERINDEX_FIELD_NUMBER, scratch[i]);
+      writePacked(output, PBContainment.CHILDREN_FIELD_NUMBER, i + 2, childrenCount);
+      i += 2 + childrenCount;
+    }
+    int referencesCount = scratch[i++];
+    for (int r = 0; r < referencesCount; r++) {
+      int entriesCount = scratch[i + 1];
+      output.writeTag(PBNode.REFERENCES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(referenceSize(i));
+      writeInt32(output, PBReference.METAPOINTERINDEX_FIELD_NUMBER, scratch[i]);
+      i += 2;
+      for (int e = 0; e < entriesCount; e++) {
+        output.writeTag(PBReference.VALUES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(referenceValueSize(i));
+        writeInt32(output, PBReferenceValue.RESOLVEINFO_FIELD_NUMBER, scratch[i]);
+        writeInt32(output, PBReferenceValue.REFERRED_FIELD_NUMBER, scratch[i + 1]);
+        i += 2;
+      }
+    }
+    int annotationsCount = scratch[i++];
+    writePacked(output, PBNode.ANNOTATIONS_FIELD_NUMBER, i, annotationsCount);
+    writeInt32(output, PBNode.PARENT_FIELD_NUMBER, scratch[2]);
+  }
+
+  /** The size of the property whose MetaPointer index is at the given position of the scratch. */
+  private int propertySize(int i) {
+    return int32Size(PBProperty.METAPOINTERINDEX_FIELD_NUMBER, scratch[i])
+        + int32Size(PBProperty.VALUE_FIELD_NUMBER, scratch[i + 1]);
+  }
+
+  /** The size of the containment whose MetaPointer index is at the given position. */
+  private int containmentSize(int i) {
+    return int32Size(PBContainment.METAPOINTERINDEX_FIELD_NUMBER, scratch[i])
+        + packedSize(PBContainment.CHILDREN_FIELD_NUMBER, i + 2, scratch[i + 1]);
+  }
+
+  /** The size of the reference whose MetaPointer index is at the given position. */
+  private int referenceSize(int i) {
+    int size = int32Size(PBReference.METAPOINTERINDEX_FIELD_NUMBER, scratch[i]);
+    int entriesCount = scratch[i + 1];
+    for (int e = 0, j = i + 2; e < entriesCount; e++, j += 2) {
+      size += messageSize(PBReference.VALUES_FIELD_NUMBER, referenceValueSize(j));
+    }
+    return size;
+  }
+
+  private int referenceValueSize(int i) {
+    return int32Size(PBReferenceValue.RESOLVEINFO_FIELD_NUMBER, scratch[i])
+        + int32Size(PBReferenceValue.REFERRED_FIELD_NUMBER, scratch[i + 1]);
+  }
+
+  private ClassifierIndexes classifierIndexes(Classifier<?> classifier) {
+    Objects.requireNonNull(classifier, "A node should have a concept in order to be serialized");
+    FeatureLayout layout = classifier.getFeatureLayout();
+    ClassifierIndexes indexes = classifierIndexes.get(classifier);
+    if (indexes == null || indexes.layout != layout) {
+      indexes =
+          new ClassifierIndexes(
+              layout,
+              metaPointerIndex(MetaPointer.from(classifier)),
+              featureIndexes(layout, layout.getProperties()),
+              featureIndexes(layout, layout.getContainments()),
+              featureIndexes(layout, layout.getReferences()));
+      classifierIndexes.put(classifier, indexes);
+      considerUsedLanguages(classifier);
+    }
+    return indexes;
+  }
+
+  private int[] featureIndexes(FeatureLayout layout, List<? extends Feature<?>> features) {
+    int[] indexes = new int[features.size()];
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i] = metaPointerIndex(layout.getMetaPointer(features.get(i)));
+    }
+    return indexes;
+  }
+
+  /** The languages used by instances of a classifier only depend on the classifier. */
+  private void considerUsedLanguages(Classifier<?> classifier) {
+    Objects.requireNonNull(
+        classifier.getLanguage(),
+        "A Concept should be part of a Language in order to be serialized. Concept "
+            + classifier
+            + " is not");
+    considerLanguage(classifier.getLanguage());
+    FeatureLayout layout = classifier.getFeatureLayout();
+    layout.getFeatures().forEach(f -> considerLanguage(f.getDeclaringLanguage()));
+    layout.getProperties().forEach(p -> considerLanguage(p.getType().getLanguage()));
+    layout.getLinks().forEach(l -> considerLanguage(l.getType().getLanguage()));
+  }
+
+  private void considerLanguage(Language language) {
+    if (consideredLanguages.add(language)) {
+      serialization.registerUsedLanguage(language);
+      languages.add(new int[] {stringIndex(language.getKey()), stringIndex(language.getVersion())});
+    }
+  }
+
+  private int stringIndex(@Nullable String string) {
+    if (string == null) {
+      return -1;
+    }
+    Integer index = strings.get(string);
+    if (index == null) {
+      index = stringValues.size();
+      strings.put(string, index);
+      stringValues.add(string);
+    }
+    return index;
+  }
+
+  private int metaPointerIndex(MetaPointer metaPointer) {
+    Integer index = metaPointers.get(metaPointer);
+    if (index == null) {
+      index = metaPointers.size();
+      if (index * 3 + 3 > metaPointerValues.length) {
+        metaPointerValues = Arrays.copyOf(metaPointerValues, metaPointerValues.length * 2);
+      }
+      metaPointerValues[index * 3] = stringIndex(metaPointer.getLanguage());
+      metaPointerValues[index * 3 + 1] = stringIndex(metaPointer.getVersion());
+      metaPointerValues[index * 3 + 2] = stringIndex(metaPointer.getKey());
+      metaPointers.put(metaPointer, index);
+    }
+    return index;
+  }
+
+  private void add(int value) {
+    if (scratchSize == scratch.length) {
+      scratch = Arrays.copyOf(scratch, scratch.length * 2);
+    }
+    scratch[scratchSize++] = value;
+  }
+
+  /** The size of a packed repeated field made of the count values starting at offset. */
+  private int packedSize(int fieldNumber, int offset, int count) {
+    if (count == 0) {
+      return 0;
+    }
+    return messageSize(fieldNumber, valuesSize(offset, count));
+  }
+
+  private int valuesSize(int offset, int count) {
+    int size = 0;
+    for (int i = offset; i < offset + count; i++) {
+      size += CodedOutputStream.computeInt32SizeNoTag(scratch[i]);
+    }
+    return size;
+  }
+
+  private void writePacked(CodedOutputStream output, int fieldNumber, int offset, int count)
+      throws IOException {
+    if (count == 0) {
+      return;
+    }
+    output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    output.writeUInt32NoTag(valuesSize(offset, count));
+    for (int i = offset; i < offset + count; i++) {
+      output.writeInt32NoTag(scratch[i]);
+    }
+  }
+
+  /** Fields with the default value are not written, as in ProtoBuf 3. */
+  private static int int32Size(int fieldNumber, int value) {
+    return value == 0 ? 0 : CodedOutputStream.computeInt32Size(fieldNumber, value);
+  }
+
+  private static void writeInt32(CodedOutputStream output, int fieldNumber, int value)
+      throws IOException {
+    if (value != 0) {
+      output.writeInt32(fieldNumber, value);
+    }
+  }
+
+  private static int messageSize(int fieldNumber, int size) {
+    return CodedOutputStream.computeTagSize(fieldNumber)
+        + CodedOutputStream.computeUInt32SizeNoTag(size)
+        + size;
+  }
+}
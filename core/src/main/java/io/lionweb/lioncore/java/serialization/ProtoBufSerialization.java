@@ -1,29 +1,143 @@
 package io.lionweb.lioncore.java.serialization;
 
+import com.google.common.io.ByteStreams;
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.language.Language;
 import io.lionweb.lioncore.java.model.ClassifierInstance;
 import io.lionweb.lioncore.java.model.impl.ProxyNode;
 import io.lionweb.lioncore.java.serialization.data.*;
 import io.lionweb.lioncore.java.serialization.data.MetaPointer;
 import io.lionweb.lioncore.protobuf.*;
 import java.io.*;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public class ProtoBufSerialization extends AbstractSerialization {
 
+  /**
+   * The chunk is decoded in a single pass through a {@link ProtoBufStreamReader}, without building
+   * the PBChunk message nor a SerializedChunk.
+   */
   public List<io.lionweb.lioncore.java.model.Node> deserializeToNodes(byte[] bytes)
       throws IOException {
-    return deserializeToNodes(new ByteArrayInputStream(bytes));
+    return deserializeToClassifierInstances(bytes).stream()
+        .filter(ci -> ci instanceof io.lionweb.lioncore.java.model.Node)
+        .map(ci -> (io.lionweb.lioncore.java.model.Node) ci)
+        .collect(Collectors.toList());
   }
 
   public List<io.lionweb.lioncore.java.model.Node> deserializeToNodes(File file)
       throws IOException {
-    return deserializeToNodes(new FileInputStream(file));
+    return deserializeToNodes(Files.readAllBytes(file.toPath()));
   }
 
   public List<io.lionweb.lioncore.java.model.Node> deserializeToNodes(InputStream inputStream)
       throws IOException {
-    return deserializeToNodes(PBChunk.parseFrom(inputStream));
+    return deserializeToNodes(ByteStreams.toByteArray(inputStream));
+  }
+
+  /**
+   * The chunk is read in memory before being decoded, as nodes could refer to string values and
+   * MetaPointers following them, see {@link ProtoBufStreamReader}. The InputStream is closed.
+   */
+  public List<ClassifierInstance<?>> deserializeToClassifierInstances(InputStream inputStream)
+      throws IOException {
+    try (InputStream closedInputStream = inputStream) {
+      return deserializeToClassifierInstances(ByteStreams.toByteArray(closedInputStream));
+    }
+  }
+
+  public List<ClassifierInstance<?>> deserializeToClassifierInstances(byte[] bytes)
+      throws IOException {
+    try {
+      return deserializeToClassifierInstances(new ProtoBufStreamReader(bytes));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Deserialize the classifier instances as they are read by the given reader. */
+  public List<ClassifierInstance<?>> deserializeToClassifierInstances(ProtoBufStreamReader reader) {
+    String serializationFormatVersion = reader.getSerializationFormatVersion();
+    validateSerializationFormatVersion(serializationFormatVersion);
+    return deserializeClassifierInstances(
+        LionWebVersion.fromValue(serializationFormatVersion), reader);
+  }
+
+  /**
+   * Load the chunk into a {@link NodeStore}, reading it in a single pass through a {@link
+   * ProtoBufStreamReader}, without building the PBChunk message nor a SerializedChunk. Chunks whose
+   * nodes refer to string values or MetaPointers following them can only be loaded from a byte
+   * array.
+   */
+  public NodeStore deserializeToNodeStore(InputStream inputStream) throws IOException {
+    try (ProtoBufStreamReader reader = new ProtoBufStreamReader(inputStream)) {
+      return deserializeToNodeStore(reader);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  public NodeStore deserializeToNodeStore(byte[] bytes) throws IOException {
+    try {
+      return deserializeToNodeStore(new ProtoBufStreamReader(bytes));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private NodeStore deserializeToNodeStore(ProtoBufStreamReader reader) {
+    validateSerializationFormatVersion(reader.getSerializationFormatVersion());
+    NodeStore.Loader loader = new NodeStore.Loader(this, 0);
+    while (reader.hasNext()) {
+      loader.add(reader.next());
+    }
+    return loader.build();
+  }
+
+  /**
+   * Load the chunk into an {@link OffHeapNodeStore}, reading it in a single pass through a {@link
+   * ProtoBufStreamReader}, so that at no point the whole chunk is kept on the heap.
+   *
+   * @param directory the directory where the temporary files backing the store are created, or null
+   *     to store it in direct ByteBuffers
+   */
+  public OffHeapNodeStore deserializeToOffHeapNodeStore(
+      InputStream inputStream, @Nullable File directory) throws IOException {
+    try (ProtoBufStreamReader reader = new ProtoBufStreamReader(inputStream)) {
+      validateSerializationFormatVersion(reader.getSerializationFormatVersion());
+      return deserializeToOffHeapNodeStore(reader, directory);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Deserialize a chunk written in the streaming format, see {@link ProtoBufDelimitedReader}. The
+   * InputStream is closed at the end.
+   */
+  public List<io.lionweb.lioncore.java.model.Node> deserializeDelimitedToNodes(
+      InputStream inputStream) throws IOException {
+    return deserializeDelimitedToClassifierInstances(inputStream).stream()
+        .filter(ci -> ci instanceof io.lionweb.lioncore.java.model.Node)
+        .map(ci -> (io.lionweb.lioncore.java.model.Node) ci)
+        .collect(Collectors.toList());
+  }
+
+  public List<ClassifierInstance<?>> deserializeDelimitedToClassifierInstances(
+      InputStream inputStream) throws IOException {
+    try (ProtoBufDelimitedReader reader = new ProtoBufDelimitedReader(inputStream)) {
+      String serializationFormatVersion = reader.getSerializationFormatVersion();
+      validateSerializationFormatVersion(serializationFormatVersion);
+      return deserializeClassifierInstances(
+          LionWebVersion.fromValue(serializationFormatVersion), reader);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
   }
 
   public List<io.lionweb.lioncore.java.model.Node> deserializeToNodes(PBChunk chunk) {
@@ -40,20 +154,19 @@ public class ProtoBufSerialization extends AbstractSerialization {
   }
 
   private SerializedChunk deserializeSerializationChunk(PBChunk chunk) {
-    Map<Integer, String> stringsMap = new HashMap<>();
-    for (int i = 0; i < chunk.getStringValuesCount(); i++) {
-      stringsMap.put(i, chunk.getStringValues(i));
-    }
-    Map<Integer, MetaPointer> metapointersMap = new HashMap<>();
-    for (int i = 0; i < chunk.getMetaPointersCount(); i++) {
+    String[] strings = chunk.getStringValuesList().toArray(new String[0]);
+    // Negative indexes represent null
+    IntFunction<String> stringAt = i -> i < 0 ? null : strings[i];
+    MetaPointer[] metaPointers = new MetaPointer[chunk.getMetaPointersCount()];
+    for (int i = 0; i < metaPointers.length; i++) {
       PBMetaPointer mp = chunk.getMetaPointers(i);
-      MetaPointer metaPointer = new MetaPointer();
-      metaPointer.setKey(stringsMap.get(mp.getKey()));
-      metaPointer.setLanguage(stringsMap.get(mp.getLanguage()));
-      metaPointer.setVersion(stringsMap.get(mp.getVersion()));
-      metapointersMap.put(i, metaPointer);
+      metaPointers[i] =
+          MetaPointer.get(
+              stringAt.apply(mp.getLanguage()),
+              stringAt.apply(mp.getVersion()),
+              stringAt.apply(mp.getKey()));
     }
-    ;
+    IntFunction<MetaPointer> metaPointerAt = i -> i < 0 ? null : metaPointers[i];
 
     SerializedChunk serializedChunk = new SerializedChunk();
     serializedChunk.setSerializationFormatVersion(chunk.getSerializationFormatVersion());
@@ -62,86 +175,182 @@ public class ProtoBufSerialization extends AbstractSerialization {
         .forEach(
             l -> {
               UsedLanguage usedLanguage = new UsedLanguage();
-              usedLanguage.setKey(stringsMap.get(l.getKey()));
-              usedLanguage.setVersion(stringsMap.get(l.getVersion()));
+              usedLanguage.setKey(stringAt.apply(l.getKey()));
+              usedLanguage.setVersion(stringAt.apply(l.getVersion()));
               serializedChunk.addLanguage(usedLanguage);
             });
 
     chunk
         .getNodesList()
         .forEach(
-            n -> {
-              SerializedClassifierInstance sci = new SerializedClassifierInstance();
-              sci.setID(stringsMap.get(n.getId()));
-              sci.setParentNodeID(stringsMap.get(n.getParent()));
-              sci.setClassifier(metapointersMap.get(n.getClassifier()));
-              n.getPropertiesList()
-                  .forEach(
-                      p -> {
-                        SerializedPropertyValue spv = new SerializedPropertyValue();
-                        spv.setValue(stringsMap.get(p.getValue()));
-                        spv.setMetaPointer(metapointersMap.get(p.getMetaPointerIndex()));
-                        sci.addPropertyValue(spv);
-                      });
-              n.getContainmentsList()
-                  .forEach(
-                      c -> {
-                        SerializedContainmentValue scv = new SerializedContainmentValue();
-                        if (c.getChildrenList().stream().anyMatch(el -> el < 0)) {
-                          throw new DeserializationException(
-                              "Unable to deserialize child identified by Null ID");
-                        }
-                        scv.setValue(
-                            c.getChildrenList().stream()
-                                .map(el -> stringsMap.get(el))
-                                .collect(Collectors.toList()));
-                        scv.setMetaPointer(metapointersMap.get(c.getMetaPointerIndex()));
-                        sci.addContainmentValue(scv);
-                      });
-              n.getReferencesList()
+            n ->
+                serializedChunk.addClassifierInstance(deserializeNode(n, stringAt, metaPointerAt)));
+    return serializedChunk;
+  }
+
+  /**
+   * Decode a single node, given the functions returning the string and the MetaPointer with a given
+   * index, which should return null for negative indexes.
+   */
+  protected static SerializedClassifierInstance deserializeNode(
+      PBNode n, IntFunction<String> stringAt, IntFunction<MetaPointer> metaPointerAt) {
+    SerializedClassifierInstance sci = new SerializedClassifierInstance();
+    sci.setID(stringAt.apply(n.getId()));
+    sci.setParentNodeID(stringAt.apply(n.getParent()));
+    sci.setClassifier(metaPointerAt.apply(n.getClassifier()));
+    n.getPropertiesList()
+        .forEach(
+            p -> {
+              SerializedPropertyValue spv = new SerializedPropertyValue();
+              spv.setValue(stringAt.apply(p.getValue()));
+              spv.setMetaPointer(metaPointerAt.apply(p.getMetaPointerIndex()));
+              sci.addPropertyValue(spv);
+            });
+    n.getContainmentsList()
+        .forEach(
+            c -> {
+              SerializedContainmentValue scv = new SerializedContainmentValue();
+              List<String> children = new ArrayList<>(c.getChildrenCount());
+              for (int i = 0; i < c.getChildrenCount(); i++) {
+                int child = c.getChildren(i);
+                if (child < 0) {
+                  throw new DeserializationException(
+                      "Unable to deserialize child identified by Null ID");
+                }
+                children.add(stringAt.apply(child));
+              }
+              scv.setValue(children);
+              scv.setMetaPointer(metaPointerAt.apply(c.getMetaPointerIndex()));
+              sci.addContainmentValue(scv);
+            });
+    n.getReferencesList()
+        .forEach(
+            r -> {
+              SerializedReferenceValue srv = new SerializedReferenceValue();
+              r.getValuesList()
                   .forEach(
-                      r -> {
-                        SerializedReferenceValue srv = new SerializedReferenceValue();
-                        r.getValuesList()
-                            .forEach(
-                                rv -> {
-                                  SerializedReferenceValue.Entry entry =
-                                      new SerializedReferenceValue.Entry();
-                                  entry.setReference(stringsMap.get(rv.getReferred()));
-                                  entry.setResolveInfo(stringsMap.get(rv.getResolveInfo()));
-                                  srv.addValue(entry);
-                                });
-                        srv.setMetaPointer(metapointersMap.get(r.getMetaPointerIndex()));
-                        sci.addReferenceValue(srv);
+                      rv -> {
+                        SerializedReferenceValue.Entry entry = new SerializedReferenceValue.Entry();
+                        entry.setReference(stringAt.apply(rv.getReferred()));
+                        entry.setResolveInfo(stringAt.apply(rv.getResolveInfo()));
+                        srv.addValue(entry);
                       });
-              n.getAnnotationsList().forEach(a -> sci.addAnnotation(stringsMap.get(a)));
-              serializedChunk.addClassifierInstance(sci);
+              srv.setMetaPointer(metaPointerAt.apply(r.getMetaPointerIndex()));
+              sci.addReferenceValue(srv);
             });
-    return serializedChunk;
+    n.getAnnotationsList().forEach(a -> sci.addAnnotation(stringAt.apply(a)));
+    return sci;
+  }
+
+  /**
+   * Serialize the given trees in the streaming format, see {@link ProtoBufDelimitedWriter}. Each
+   * node is written as soon as it is visited, without building the intermediate SerializedChunk, so
+   * the size of the output is not limited by the size limit of ProtoBuf messages. The OutputStream
+   * is flushed but not closed.
+   */
+  public void serializeTreesToDelimitedStream(
+      @Nonnull OutputStream outputStream, ClassifierInstance<?>... roots) throws IOException {
+    Objects.requireNonNull(outputStream, "outputStream should not be null");
+    for (ClassifierInstance<?> root : roots) {
+      if (root instanceof ProxyNode) {
+        throw new IllegalArgumentException("Proxy nodes cannot be serialized");
+      }
+    }
+    ProtoBufDelimitedWriter writer =
+        new ProtoBufDelimitedWriter(outputStream, getLionWebVersion().getVersionString());
+    Set<Language> languages = new HashSet<>();
+    visitTrees(
+        roots,
+        classifierInstance -> {
+          considerUsedLanguages(
+              classifierInstance,
+              language -> {
+                if (languages.add(language)) {
+                  registerUsedLanguage(language);
+                  writer.writeLanguage(UsedLanguage.fromLanguage(language));
+                }
+              });
+          writer.writeClassifierInstance(serializeNode(classifierInstance));
+        });
+    writer.flush();
+  }
+
+  /**
+   * Convert a chunk from the classic format, a single PBChunk message, to the streaming format. The
+   * chunk is read with a {@link ProtoBufStreamReader}, so nodes are converted one at a time. The
+   * OutputStream is flushed but not closed, while the InputStream is closed.
+   */
+  public static void transcodeChunkToDelimited(
+      @Nonnull InputStream chunkInputStream, @Nonnull OutputStream delimitedOutputStream)
+      throws IOException {
+    Objects.requireNonNull(delimitedOutputStream, "delimitedOutputStream should not be null");
+    try (ProtoBufStreamReader reader = new ProtoBufStreamReader(chunkInputStream)) {
+      ProtoBufDelimitedWriter writer =
+          new ProtoBufDelimitedWriter(
+              delimitedOutputStream, reader.getSerializationFormatVersion());
+      reader.getLanguages().forEach(writer::writeLanguage);
+      while (reader.hasNext()) {
+        writer.writeClassifierInstance(reader.next());
+      }
+      // Languages usually precede the nodes, but they can also follow them. The writer skips the
+      // languages it already wrote
+      reader.getLanguages().forEach(writer::writeLanguage);
+      writer.flush();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Convert a chunk from the streaming format to the classic format. Note that the resulting
+   * PBChunk is subject to the size limit of ProtoBuf messages. The InputStream is closed.
+   */
+  public static PBChunk transcodeDelimitedToChunk(@Nonnull InputStream delimitedInputStream)
+      throws IOException {
+    try (ProtoBufDelimitedReader reader = new ProtoBufDelimitedReader(delimitedInputStream)) {
+      SerializedChunk serializedChunk = new SerializedChunk();
+      serializedChunk.setSerializationFormatVersion(reader.getSerializationFormatVersion());
+      reader.forEachRemaining(serializedChunk::addClassifierInstance);
+      reader.getLanguages().forEach(serializedChunk::addLanguage);
+      return new ProtoBufSerialization().serialize(serializedChunk);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
   }
 
   public byte[] serializeTreesToByteArray(ClassifierInstance<?>... roots) {
-    Set<String> nodesIDs = new HashSet<>();
-    List<ClassifierInstance<?>> allNodes = new ArrayList<>();
+    ProtoBufDirectEncoder encoder = new ProtoBufDirectEncoder(this);
+    try {
+      visitTrees(
+          Arrays.stream(roots)
+              .filter(n -> !(n instanceof ProxyNode))
+              .toArray(ClassifierInstance<?>[]::new),
+          encoder::encode);
+      return encoder.toByteArray(getLionWebVersion().getVersionString());
+    } catch (IOException e) {
+      // Encoding to byte arrays does not throw IOExceptions
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Serialize the given trees as a PBChunk, encoding each node directly in the ProtoBuf wire
+   * format, without building the intermediate SerializedChunk nor the PB messages. Nodes are
+   * written in the same order used by {@link #serializeTreesToByteArray(ClassifierInstance[])}. The
+   * OutputStream is flushed but not closed.
+   */
+  public void serializeTreesToOutputStream(
+      @Nonnull OutputStream outputStream, ClassifierInstance<?>... roots) throws IOException {
+    Objects.requireNonNull(outputStream, "outputStream should not be null");
     for (ClassifierInstance<?> root : roots) {
-      Set<ClassifierInstance<?>> classifierInstances = new LinkedHashSet<>();
-      ClassifierInstance.collectSelfAndDescendants(root, true, classifierInstances);
-      classifierInstances.forEach(
-          n -> {
-            // We support serialization of incorrect nodes, so we allow nodes without ID to be
-            // serialized
-            if (n.getID() != null) {
-              if (!nodesIDs.contains(n.getID())) {
-                allNodes.add(n);
-                nodesIDs.add(n.getID());
-              }
-            } else {
-              allNodes.add(n);
-            }
-          });
+      if (root instanceof ProxyNode) {
+        throw new IllegalArgumentException("Proxy nodes cannot be serialized");
+      }
     }
-    return serializeNodesToByteArray(
-        allNodes.stream().filter(n -> !(n instanceof ProxyNode)).collect(Collectors.toList()));
+    ProtoBufDirectEncoder encoder = new ProtoBufDirectEncoder(this);
+    visitTrees(roots, encoder::encode);
+    encoder.writeTo(getLionWebVersion().getVersionString(), outputStream);
+    outputStream.flush();
   }
 
   public byte[] serializeNodesToByteArray(List<ClassifierInstance<?>> classifierInstances) {
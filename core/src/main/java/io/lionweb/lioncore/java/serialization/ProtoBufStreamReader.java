@@ -0,0 +1,420 @@
+package io.lionweb.lioncore.java.serialization;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import io.lionweb.lioncore.java.serialization.data.*;
+import io.lionweb.lioncore.protobuf.PBChunk;
+import io.lionweb.lioncore.protobuf.PBContainment;
+import io.lionweb.lioncore.protobuf.PBLanguage;
+import io.lionweb.lioncore.protobuf.PBMetaPointer;
+import io.lionweb.lioncore.protobuf.PBNode;
+import io.lionweb.lioncore.protobuf.PBProperty;
+import io.lionweb.lioncore.protobuf.PBReference;
+import io.lionweb.lioncore.protobuf.PBReferenceValue;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class reads a chunk serialized with ProtoBuf in a single pass, without building the PBChunk
+ * message in memory. Classifier instances are produced one at a time, while the nodes are being
+ * read.
+ *
+ * <p>The string values and the MetaPointers are kept in arrays, indexed as in the chunk. As
+ * ProtoBuf writes the fields of a message in the order of their numbers, the string values and the
+ * MetaPointers usually precede the nodes. They can also follow them, for example in concatenated
+ * chunks: as they are appended to the ones read before, the nodes already read are not affected.
+ * When a node refers to a string value or MetaPointer which has not been read yet, a reader of a
+ * byte array keeps the positions of the remaining nodes, reads the rest of the chunk, and then
+ * decodes them. A reader of an InputStream, which cannot go back, throws a DeserializationException
+ * instead.
+ */
+public class ProtoBufStreamReader implements Iterator<SerializedClassifierInstance>, Closeable {
+
+  private final @Nullable InputStream inputStream;
+  private final @Nullable byte[] bytes;
+  private CodedInputStream input;
+  private String serializationFormatVersion = "";
+  private final ProtoBufTables tables = new ProtoBufTables();
+  private final List<UsedLanguage> languages = new ArrayList<>();
+  // The indexes of the key and version of the languages whose strings have not been read yet
+  private final List<int[]> unresolvedLanguages = new ArrayList<>();
+  /** The tag of the next field to read, or 0 when the end of the chunk has been reached. */
+  private int nextTag = -1;
+  // The offset and length of the nodes left to decode, once the whole chunk has been read
+  private @Nullable int[] pendingNodes;
+  private int pendingNodesCount = 0;
+  private int nextPendingNode = 0;
+
+  public ProtoBufStreamReader(@Nonnull InputStream inputStream) {
+    Objects.requireNonNull(inputStream, "inputStream should not be null");
+    this.inputStream = inputStream;
+    this.bytes = null;
+    this.input = CodedInputStream.newInstance(inputStream);
+  }
+
+  public ProtoBufStreamReader(@Nonnull byte[] bytes) {
+    Objects.requireNonNull(bytes, "bytes should not be null");
+    this.inputStream = null;
+    this.bytes = bytes;
+    this.input = CodedInputStream.newInstance(bytes);
+  }
+
+  /**
+   * Return the serialization format version. It is guaranteed to have been read once {@link
+   * #hasNext()} has been invoked.
+   */
+  public @Nonnull String getSerializationFormatVersion() {
+    hasNext();
+    return serializationFormatVersion;
+  }
+
+  /** Return the languages read so far. */
+  public List<UsedLanguage> getLanguages() {
+    // Languages are resolved in order, once the strings they refer to have been read
+    while (!unresolvedLanguages.isEmpty()
+        && tables.hasString(unresolvedLanguages.get(0)[0])
+        && tables.hasString(unresolvedLanguages.get(0)[1])) {
+      int[] language = unresolvedLanguages.remove(0);
+      UsedLanguage usedLanguage = new UsedLanguage();
+      usedLanguage.setKey(tables.string(language[0]));
+      usedLanguage.setVersion(tables.string(language[1]));
+      languages.add(usedLanguage);
+    }
+    return Collections.unmodifiableList(languages);
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      if (nextTag == -1) {
+        nextTag = input.readTag();
+        readUntilNode();
+      }
+      return nextTag != 0 || nextPendingNode < pendingNodesCount;
+    } catch (IOException e) {
+      throw wrap(e);
+    }
+  }
+
+  @Override
+  public SerializedClassifierInstance next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    try {
+      if (pendingNodes != null) {
+        int offset = pendingNodes[nextPendingNode * 2];
+        int length = pendingNodes[nextPendingNode * 2 + 1];
+        nextPendingNode++;
+        input = CodedInputStream.newInstance(bytes, offset, length);
+        return readNode();
+      }
+      int length = input.readRawVarint32();
+      int offset = input.getTotalBytesRead();
+      int oldLimit = input.pushLimit(length);
+      SerializedClassifierInstance classifierInstance;
+      try {
+        classifierInstance = readNode();
+      } catch (ProtoBufTables.MissingIndexException e) {
+        if (bytes == null) {
+          throw new DeserializationException(
+              "A node refers to string values or MetaPointers following it in the chunk, which"
+                  + " can only be read from a byte array",
+              e);
+        }
+        readPendingNodes(offset, length);
+        return next();
+      }
+      input.popLimit(oldLimit);
+      nextTag = input.readTag();
+      readUntilNode();
+      return classifierInstance;
+    } catch (IOException e) {
+      throw wrap(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (inputStream != null) {
+      inputStream.close();
+    }
+  }
+
+  //
+  // Private methods
+  //
+
+  /** Read the fields of the chunk until the next node, or the end of the chunk, is found. */
+  private void readUntilNode() throws IOException {
+    while (nextTag != 0) {
+      int fieldNumber = WireFormat.getTagFieldNumber(nextTag);
+      switch (fieldNumber) {
+        case PBChunk.SERIALIZATIONFORMATVERSION_FIELD_NUMBER:
+          serializationFormatVersion = input.readStringRequireUtf8();
+          break;
+        case PBChunk.STRINGVALUES_FIELD_NUMBER:
+          tables.addString(input.readStringRequireUtf8());
+          break;
+        case PBChunk.METAPOINTERS_FIELD_NUMBER:
+          readMetaPointer();
+          break;
+        case PBChunk.LANGUAGES_FIELD_NUMBER:
+          unresolvedLanguages.add(readLanguage());
+          break;
+        case PBChunk.NODES_FIELD_NUMBER:
+          return;
+        default:
+          input.skipField(nextTag);
+      }
+      nextTag = input.readTag();
+    }
+  }
+
+  /**
+   * Read the rest of the chunk, keeping the position of the nodes, starting from the one at the
+   * given offset, so that they are decoded once all the string values and MetaPointers are known.
+   */
+  private void readPendingNodes(int offset, int length) throws IOException {
+    pendingNodes = new int[64];
+    pendingNodes[0] = offset;
+    pendingNodes[1] = length;
+    pendingNodesCount = 1;
+    // The node could not be read completely, so reading continues from a new input
+    int start = offset + length;
+    input = CodedInputStream.newInstance(bytes, start, bytes.length - start);
+    nextTag = input.readTag();
+    readUntilNode();
+    while (nextTag != 0) {
+      length = input.readRawVarint32();
+      if (pendingNodesCount * 2 == pendingNodes.length) {
+        pendingNodes = Arrays.copyOf(pendingNodes, pendingNodes.length * 2);
+      }
+      pendingNodes[pendingNodesCount * 2] = start + input.getTotalBytesRead();
+      pendingNodes[pendingNodesCount * 2 + 1] = length;
+      pendingNodesCount++;
+      input.skipRawBytes(length);
+      nextTag = input.readTag();
+      readUntilNode();
+    }
+  }
+
+  private void readMetaPointer() throws IOException {
+    int oldLimit = input.pushLimit(input.readRawVarint32());
+    int language = 0;
+    int version = 0;
+    int key = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case PBMetaPointer.LANGUAGE_FIELD_NUMBER:
+          language = input.readInt32();
+          break;
+        case PBMetaPointer.VERSION_FIELD_NUMBER:
+          version = input.readInt32();
+          break;
+        case PBMetaPointer.KEY_FIELD_NUMBER:
+          key = input.readInt32();
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    input.popLimit(oldLimit);
+    tables.addMetaPointer(language, version, key);
+  }
+
+  /** Return the indexes of the key and version of the language. */
+  private int[] readLanguage() throws IOException {
+    int oldLimit = input.pushLimit(input.readRawVarint32());
+    int key = 0;
+    int version = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case PBLanguage.KEY_FIELD_NUMBER:
+          key = input.readInt32();
+          break;
+        case PBLanguage.VERSION_FIELD_NUMBER:
+          version = input.readInt32();
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    input.popLimit(oldLimit);
+    return new int[] {key, version};
+  }
+
+  private SerializedClassifierInstance readNode() throws IOException {
+    SerializedClassifierInstance sci = new SerializedClassifierInstance();
+    // Absent fields have the default value, 0
+    int id = 0;
+    int classifier = 0;
+    int parent = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case PBNode.ID_FIELD_NUMBER:
+          id = input.readInt32();
+          break;
+        case PBNode.CLASSIFIER_FIELD_NUMBER:
+          classifier = input.readInt32();
+          break;
+        case PBNode.PROPERTIES_FIELD_NUMBER:
+          sci.addPropertyValue(readProperty());
+          break;
+        case PBNode.CONTAINMENTS_FIELD_NUMBER:
+          sci.addContainmentValue(readContainment());
+          break;
+        case PBNode.REFERENCES_FIELD_NUMBER:
+          sci.addReferenceValue(readReference());
+          break;
+        case PBNode.ANNOTATIONS_FIELD_NUMBER:
+          if (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+            int oldLimit = input.pushLimit(input.readRawVarint32());
+            while (input.getBytesUntilLimit() > 0) {
+              sci.addAnnotation(tables.string(input.readInt32()));
+            }
+            input.popLimit(oldLimit);
+          } else {
+            sci.addAnnotation(tables.string(input.readInt32()));
+          }
+          break;
+        case PBNode.PARENT_FIELD_NUMBER:
+          parent = input.readInt32();
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    sci.setID(tables.string(id));
+    sci.setClassifier(tables.metaPointer(classifier));
+    sci.setParentNodeID(tables.string(parent));
+    return sci;
+  }
+
+  private SerializedPropertyValue readProperty() throws IOException {
+    int oldLimit = input.pushLimit(input.readRawVarint32());
+    int metaPointer = 0;
+    int value = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case PBProperty.METAPOINTERINDEX_FIELD_NUMBER:
+          metaPointer = input.readInt32();
+          break;
+        case PBProperty.VALUE_FIELD_NUMBER:
+          value = input.readInt32();
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    input.popLimit(oldLimit);
+    SerializedPropertyValue spv = new SerializedPropertyValue();
+    spv.setMetaPointer(tables.metaPointer(metaPointer));
+    spv.setValue(tables.string(value));
+    return spv;
+  }
+
+  private SerializedContainmentValue readContainment() throws IOException {
+    int oldLimit = input.pushLimit(input.readRawVarint32());
+    int metaPointer = 0;
+    List<String> children = new ArrayList<>();
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case PBContainment.METAPOINTERINDEX_FIELD_NUMBER:
+          metaPointer = input.readInt32();
+          break;
+        case PBContainment.CHILDREN_FIELD_NUMBER:
+          if (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+            int packedLimit = input.pushLimit(input.readRawVarint32());
+            while (input.getBytesUntilLimit() > 0) {
+              children.add(child(input.readInt32()));
+            }
+            input.popLimit(packedLimit);
+          } else {
+            children.add(child(input.readInt32()));
+          }
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    input.popLimit(oldLimit);
+    SerializedContainmentValue scv = new SerializedContainmentValue();
+    scv.setMetaPointer(tables.metaPointer(metaPointer));
+    scv.setValue(children);
+    return scv;
+  }
+
+  private SerializedReferenceValue readReference() throws IOException {
+    int oldLimit = input.pushLimit(input.readRawVarint32());
+    SerializedReferenceValue srv = new SerializedReferenceValue();
+    int metaPointer = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case PBReference.METAPOINTERINDEX_FIELD_NUMBER:
+          metaPointer = input.readInt32();
+          break;
+        case PBReference.VALUES_FIELD_NUMBER:
+          srv.addValue(readReferenceValue());
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    input.popLimit(oldLimit);
+    srv.setMetaPointer(tables.metaPointer(metaPointer));
+    return srv;
+  }
+
+  private SerializedReferenceValue.Entry readReferenceValue() throws IOException {
+    int oldLimit = input.pushLimit(input.readRawVarint32());
+    int resolveInfo = 0;
+    int referred = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case PBReferenceValue.RESOLVEINFO_FIELD_NUMBER:
+          resolveInfo = input.readInt32();
+          break;
+        case PBReferenceValue.REFERRED_FIELD_NUMBER:
+          referred = input.readInt32();
+          break;
+        default:
+          input.skipField(tag);
+      }
+    }
+    input.popLimit(oldLimit);
+    SerializedReferenceValue.Entry entry = new SerializedReferenceValue.Entry();
+    entry.setReference(tables.string(referred));
+    entry.setResolveInfo(tables.string(resolveInfo));
+    return entry;
+  }
+
+  private String child(int index) {
+    if (index < 0) {
+      throw new DeserializationException("Unable to deserialize child identified by Null ID");
+    }
+    return tables.string(index);
+  }
+
+  private static UncheckedIOException wrap(IOException e) {
+    return new UncheckedIOException("Issue while reading the ProtoBuf chunk", e);
+  }
+}
@@ -0,0 +1,93 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The string values and the MetaPointers read so far from a ProtoBuf chunk or stream, which nodes
+ * refer to by index. They are kept in arrays which grow as elements are added. Negative indexes
+ * represent null.
+ *
+ * <p>A MetaPointer is resolved the first time it is used, as its strings may follow it in the
+ * chunk. A {@link MissingIndexException} is thrown for indexes which have not been read yet.
+ */
+final class ProtoBufTables {
+
+  /** Thrown when an index refers to a string value or MetaPointer which has not been read yet. */
+  static final class MissingIndexException extends DeserializationException {
+    private MissingIndexException(String message) {
+      super(message);
+    }
+  }
+
+  private String[] strings = new String[64];
+  private int stringsCount = 0;
+  private MetaPointer[] metaPointers = new MetaPointer[16];
+  // For each MetaPointer, the indexes of its language, version and key
+  private int[] metaPointerIndexes = new int[48];
+  private int metaPointersCount = 0;
+
+  void addString(@Nonnull String string) {
+    if (stringsCount == strings.length) {
+      strings = Arrays.copyOf(strings, strings.length * 2);
+    }
+    strings[stringsCount++] = string;
+  }
+
+  /** Add the MetaPointer made of the strings with the given indexes. */
+  void addMetaPointer(int language, int version, int key) {
+    if (metaPointersCount == metaPointers.length) {
+      metaPointers = Arrays.copyOf(metaPointers, metaPointers.length * 2);
+      metaPointerIndexes = Arrays.copyOf(metaPointerIndexes, metaPointerIndexes.length * 2);
+    }
+    metaPointerIndexes[metaPointersCount * 3] = language;
+    metaPointerIndexes[metaPointersCount * 3 + 1] = version;
+    metaPointerIndexes[metaPointersCount * 3 + 2] = key;
+    metaPointersCount++;
+  }
+
+  /** Remove all the string values and MetaPointers, so that indexes start again from 0. */
+  void clear() {
+    Arrays.fill(strings, 0, stringsCount, null);
+    Arrays.fill(metaPointers, 0, metaPointersCount, null);
+    stringsCount = 0;
+    metaPointersCount = 0;
+  }
+
+  @Nullable
+  String string(int index) {
+    if (index < 0) {
+      return null;
+    }
+    if (index >= stringsCount) {
+      throw new MissingIndexException("Invalid string index " + index);
+    }
+    return strings[index];
+  }
+
+  boolean hasString(int index) {
+    return index < stringsCount;
+  }
+
+  @Nullable
+  MetaPointer metaPointer(int index) {
+    if (index < 0) {
+      return null;
+    }
+    if (index >= metaPointersCount) {
+      throw new MissingIndexException("Invalid MetaPointer index " + index);
+    }
+    MetaPointer metaPointer = metaPointers[index];
+    if (metaPointer == null) {
+      metaPointer =
+          MetaPointer.get(
+              string(metaPointerIndexes[index * 3]),
+              string(metaPointerIndexes[index * 3 + 1]),
+              string(metaPointerIndexes[index * 3 + 2]));
+      metaPointers[index] = metaPointer;
+    }
+    return metaPointer;
+  }
+}
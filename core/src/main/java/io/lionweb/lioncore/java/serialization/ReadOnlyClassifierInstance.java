@@ -0,0 +1,163 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A ClassifierInstance exposed by an {@link AbstractInstanceView}, whose values are read from the
+ * data of the view instead of being held by the instance.
+ *
+ * <p>All the methods which would modify the instance throw an UnsupportedOperationException.
+ */
+public abstract class ReadOnlyClassifierInstance<T extends Classifier<T>>
+    implements ClassifierInstance<T> {
+
+  ReadOnlyClassifierInstance() {}
+
+  /**
+   * The parent of this instance. It is returned by getParent for annotation instances, while the
+   * parent of a node can be an annotation instance, which getParent cannot return.
+   */
+  @Nullable
+  abstract ClassifierInstance<?> getParentInstance();
+
+  @Nonnull
+  @Override
+  public List<AnnotationInstance> getAnnotations(@Nonnull Annotation annotation) {
+    Objects.requireNonNull(annotation, "annotation should not be null");
+    return getAnnotations().stream()
+        .filter(a -> a.getAnnotationDefinition() == annotation)
+        .collect(Collectors.toList());
+  }
+
+  //
+  // Modifications are not supported
+  //
+
+  @Override
+  public void setPropertyValue(@Nonnull Property property, @Nullable Object value) {
+    throw readOnly();
+  }
+
+  @Override
+  public void addChild(@Nonnull Containment containment, @Nonnull Node child) {
+    throw readOnly();
+  }
+
+  @Override
+  public void removeChild(@Nonnull Node node) {
+    throw readOnly();
+  }
+
+  @Override
+  public void removeChild(@Nonnull Containment containment, int index) {
+    throw readOnly();
+  }
+
+  @Override
+  public void addReferenceValue(
+      @Nonnull Reference reference, @Nullable ReferenceValue referredNode) {
+    throw readOnly();
+  }
+
+  @Override
+  public void removeReferenceValue(
+      @Nonnull Reference reference, @Nullable ReferenceValue referenceValue) {
+    throw readOnly();
+  }
+
+  @Override
+  public void removeReferenceValue(@Nonnull Reference reference, int index) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setReferenceValues(
+      @Nonnull Reference reference, @Nonnull List<? extends ReferenceValue> values) {
+    throw readOnly();
+  }
+
+  @Override
+  public void addAnnotation(@Nonnull AnnotationInstance instance) {
+    throw readOnly();
+  }
+
+  @Override
+  public void removeAnnotation(@Nonnull AnnotationInstance instance) {
+    throw readOnly();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(" + getID() + ")";
+  }
+
+  //
+  // Methods used by the subclasses
+  //
+
+  @Nonnull
+  MetaPointer metaPointerOf(@Nonnull Feature<?> feature) {
+    Classifier<?> classifier = getClassifier();
+    FeatureLayout layout = classifier.getFeatureLayout();
+    if (!layout.contains(feature)) {
+      throw new IllegalArgumentException(
+          "Feature " + feature + " is not belonging to classifier " + classifier);
+    }
+    return layout.getMetaPointer(feature);
+  }
+
+  /**
+   * Find the containment holding this instance by looking at the children of the given parent. It
+   * is used for parents which are not part of the same view. Null is returned for proxies, whose
+   * children are unknown.
+   */
+  @Nullable
+  Containment findContainmentIn(@Nullable ClassifierInstance<?> parent) {
+    if (parent == null || parent instanceof ProxyNode) {
+      return null;
+    }
+    String id = getID();
+    for (Containment containment : parent.getClassifier().allContainments()) {
+      for (Node child : parent.getChildren(containment)) {
+        if (child == this || id.equals(child.getID())) {
+          return containment;
+        }
+      }
+    }
+    throw new IllegalStateException("Unable to find the containment holding " + id);
+  }
+
+  /** The position of this instance among the children its parent holds in the containment. */
+  int indexInParent(@Nullable Containment containment) {
+    ClassifierInstance<?> parent = getParentInstance();
+    if (parent == null || containment == null) {
+      return -1;
+    }
+    List<? extends Node> siblings = parent.getChildren(containment);
+    for (int i = 0; i < siblings.size(); i++) {
+      if (equals(siblings.get(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  //
+  // Private methods
+  //
+
+  private UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException(getClass().getSimpleName() + " is read-only");
+  }
+}
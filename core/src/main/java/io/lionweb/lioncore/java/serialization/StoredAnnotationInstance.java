@@ -0,0 +1,33 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.Annotation;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import javax.annotation.Nonnull;
+
+/**
+ * A read-only AnnotationInstance of an {@link AbstractNodeStore}, reading its values from the store
+ * on each access.
+ */
+public final class StoredAnnotationInstance extends StoredClassifierInstance<Annotation>
+    implements AnnotationInstance {
+
+  StoredAnnotationInstance(@Nonnull AbstractNodeStore store, int handle) {
+    super(store, handle);
+  }
+
+  @Override
+  public Annotation getAnnotationDefinition() {
+    return getClassifier();
+  }
+
+  @Override
+  public Annotation getClassifier() {
+    return super.getClassifier();
+  }
+
+  @Override
+  public ClassifierInstance getParent() {
+    return getParentInstance();
+  }
+}
@@ -0,0 +1,91 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only ClassifierInstance backed by a classifier instance of an {@link AbstractNodeStore}.
+ * It only holds the store and the handle of the instance: all values are read from the store on
+ * each access, so instances can be created and discarded cheaply. Two instances with the same store
+ * and handle are equal.
+ */
+public abstract class StoredClassifierInstance<T extends Classifier<T>>
+    extends ReadOnlyClassifierInstance<T> {
+  protected final @Nonnull AbstractNodeStore store;
+  protected final int handle;
+
+  StoredClassifierInstance(@Nonnull AbstractNodeStore store, int handle) {
+    this.store = store;
+    this.handle = handle;
+  }
+
+  public @Nonnull AbstractNodeStore getStore() {
+    return store;
+  }
+
+  /** The handle of this instance in the store. */
+  public int getHandle() {
+    return handle;
+  }
+
+  @Override
+  public String getID() {
+    return store.getID(handle);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public T getClassifier() {
+    return (T) store.getClassifier(handle);
+  }
+
+  @Nullable
+  @Override
+  ClassifierInstance<?> getParentInstance() {
+    return store.getParentInstance(handle);
+  }
+
+  @Override
+  public Object getPropertyValue(@Nonnull Property property) {
+    return store.getPropertyValue(handle, property);
+  }
+
+  @Override
+  public List<? extends Node> getChildren(@Nonnull Containment containment) {
+    Objects.requireNonNull(containment, "Containment should not be null");
+    return store.getChildNodes(handle, containment);
+  }
+
+  @Nonnull
+  @Override
+  public List<ReferenceValue> getReferenceValues(@Nonnull Reference reference) {
+    Objects.requireNonNull(reference, "Reference should not be null");
+    return store.getReferenceValues(handle, reference);
+  }
+
+  @Nonnull
+  @Override
+  public List<AnnotationInstance> getAnnotations() {
+    return store.getAnnotations(handle);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    StoredClassifierInstance<?> that = (StoredClassifierInstance<?>) o;
+    return store == that.store && handle == that.handle;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(System.identityHashCode(store), handle);
+  }
+}
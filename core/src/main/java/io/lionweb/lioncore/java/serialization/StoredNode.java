@@ -0,0 +1,37 @@
+package io.lionweb.lioncore.java.serialization;
+
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.language.Containment;
+import io.lionweb.lioncore.java.model.Node;
+import javax.annotation.Nonnull;
+
+/**
+ * A read-only Node of an {@link AbstractNodeStore}, reading its values from the store on each
+ * access.
+ */
+public final class StoredNode extends StoredClassifierInstance<Concept> implements Node {
+
+  StoredNode(@Nonnull AbstractNodeStore store, int handle) {
+    super(store, handle);
+  }
+
+  @Override
+  public Node getParent() {
+    return store.parentNode(getParentInstance());
+  }
+
+  @Override
+  public Concept getClassifier() {
+    return super.getClassifier();
+  }
+
+  @Override
+  public Containment getContainmentFeature() {
+    return store.getContainment(handle);
+  }
+
+  @Override
+  public int getIndexInParent() {
+    return store.getIndexInParent(handle);
+  }
+}
@@ -1,5 +1,7 @@
 package io.lionweb.lioncore.java.serialization.data;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import io.lionweb.lioncore.java.language.Feature;
 import io.lionweb.lioncore.java.language.IKeyed;
 import io.lionweb.lioncore.java.language.Language;
@@ -9,64 +11,60 @@ import java.util.Objects;
 /**
  * A MetaPointer is the combination of the pair Language and Version with a Key, which identify one
  * element within that language.
+ *
+ * <p>A MetaPointer is immutable. The same MetaPointers recur across all the nodes of a model, so
+ * they should be obtained through {@link #get(String, String, String)}, which returns a shared
+ * instance for equal MetaPointers. Shared instances are only weakly held, and they are compared by
+ * identity before their content is compared.
  */
-public class MetaPointer {
-  private String key;
-  private String version;
-  private String language;
+public final class MetaPointer {
+  private static final Interner<MetaPointer> INTERNER = Interners.newWeakInterner();
+
+  private final String key;
+  private final String version;
+  private final String language;
+  private final int hashCode;
 
   public MetaPointer(String language, String version, String key) {
     this.key = key;
     this.version = version;
     this.language = language;
+    this.hashCode = Objects.hash(key, version, language);
+  }
+
+  /** Return the shared instance of the MetaPointer with the given language, version and key. */
+  public static MetaPointer get(String language, String version, String key) {
+    return INTERNER.intern(new MetaPointer(language, version, key));
   }
 
-  public MetaPointer() {}
+  /** Return the shared instance of a MetaPointer equal to the given one. */
+  public static MetaPointer intern(MetaPointer metaPointer) {
+    return INTERNER.intern(metaPointer);
+  }
 
   public static MetaPointer from(Feature<?> feature) {
     return from(feature, feature.getDeclaringLanguage());
   }
 
   public static MetaPointer from(LanguageEntity<?> languageEntity) {
-    MetaPointer metaPointer = new MetaPointer();
-    metaPointer.setKey(languageEntity.getKey());
-    if (languageEntity.getLanguage() != null) {
-      metaPointer.setLanguage(languageEntity.getLanguage().getKey());
-      if (languageEntity.getLanguage().getVersion() != null) {
-        metaPointer.setVersion(languageEntity.getLanguage().getVersion());
-      }
-    }
-    return metaPointer;
+    return from(languageEntity, languageEntity.getLanguage());
   }
 
   public static MetaPointer from(IKeyed<?> elementWithKey, Language language) {
-    MetaPointer metaPointer = new MetaPointer();
-    metaPointer.setKey(elementWithKey.getKey());
-    if (language != null) {
-      metaPointer.setLanguage(language.getKey());
-      if (language.getVersion() != null) {
-        metaPointer.setVersion(language.getVersion());
-      }
+    if (language == null) {
+      return get(null, null, elementWithKey.getKey());
     }
-    return metaPointer;
+    return get(language.getKey(), language.getVersion(), elementWithKey.getKey());
   }
 
   public String getLanguage() {
     return language;
   }
 
-  public void setLanguage(String language) {
-    this.language = language;
-  }
-
   public String getKey() {
     return key;
   }
 
-  public void setKey(String key) {
-    this.key = key;
-  }
-
   public String getVersion() {
     return version;
   }
@@ -76,18 +74,15 @@ public class MetaPointer {
     if (this == o) return true;
     if (!(o instanceof MetaPointer)) return false;
     MetaPointer that = (MetaPointer) o;
-    return Objects.equals(key, that.key)
+    return hashCode == that.hashCode
+        && Objects.equals(key, that.key)
         && Objects.equals(version, that.version)
         && Objects.equals(language, that.language);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(key, version, language);
-  }
-
-  public void setVersion(String version) {
-    this.version = version;
+    return hashCode;
   }
 
   @Override
@@ -1,5 +1,6 @@
 package io.lionweb.lioncore.java.serialization.data;
 
+import io.lionweb.lioncore.java.utils.IDMap;
 import java.util.*;
 import javax.annotation.Nonnull;
 
@@ -10,7 +11,7 @@ import javax.annotation.Nonnull;
  */
 public class SerializedChunk {
 
-  private final Map<String, SerializedClassifierInstance> classifierInstancesByID = new HashMap<>();
+  private final Map<String, SerializedClassifierInstance> classifierInstancesByID = new IDMap<>();
 
   private String serializationFormatVersion;
   private final List<UsedLanguage> languages = new ArrayList<>();
@@ -0,0 +1,141 @@
+package io.lionweb.lioncore.java.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Assigns to each node ID a dense int handle, from 0 to {@link #size()} - 1, in the order in which
+ * the IDs are added. It can be used to key data by handle instead of by ID, and to share a single
+ * String instance for all the occurrences of the same ID.
+ *
+ * <p>IDs are stored in an array indexed by handle, while handles are found through an open
+ * addressing table with linear probing, which only holds ints. IDs cannot be removed.
+ *
+ * <p>The dictionary is not thread-safe, but it can be read from several threads as long as no ID is
+ * being added.
+ */
+public final class IDDictionary {
+  /** Returned for IDs which are not in the dictionary. */
+  public static final int NOT_FOUND = -1;
+
+  private String[] ids;
+  private int[] hashes;
+  // The handle + 1 of the ID in each slot, or 0 for empty slots
+  private int[] table;
+  private int size;
+
+  public IDDictionary() {
+    this(16);
+  }
+
+  public IDDictionary(int expectedSize) {
+    int capacity = Math.max(16, expectedSize);
+    this.ids = new String[capacity];
+    this.hashes = new int[capacity];
+    // The table is kept at most half full
+    this.table = new int[Integer.highestOneBit(capacity - 1) << 2];
+  }
+
+  public IDDictionary(@Nonnull IDDictionary other) {
+    Objects.requireNonNull(other, "other should not be null");
+    this.ids = Arrays.copyOf(other.ids, other.ids.length);
+    this.hashes = Arrays.copyOf(other.hashes, other.hashes.length);
+    this.table = Arrays.copyOf(other.table, other.table.length);
+    this.size = other.size;
+  }
+
+  /** Number of IDs in the dictionary. */
+  public int size() {
+    return size;
+  }
+
+  /** Return the handle of the given ID, adding it to the dictionary if it is not there yet. */
+  public int add(@Nonnull String id) {
+    Objects.requireNonNull(id, "id should not be null");
+    int hash = id.hashCode();
+    int slot = find(id, hash);
+    if (table[slot] != 0) {
+      return table[slot] - 1;
+    }
+    if (size == ids.length) {
+      grow();
+      slot = find(id, hash);
+    }
+    ids[size] = id;
+    hashes[size] = hash;
+    table[slot] = ++size;
+    return size - 1;
+  }
+
+  /** Return the handle of the given ID, or {@link #NOT_FOUND} if it is not in the dictionary. */
+  public int indexOf(@Nullable String id) {
+    if (id == null) {
+      return NOT_FOUND;
+    }
+    return table[find(id, id.hashCode())] - 1;
+  }
+
+  public boolean contains(@Nullable String id) {
+    return indexOf(id) != NOT_FOUND;
+  }
+
+  @Nonnull
+  public String getID(int handle) {
+    if (handle < 0 || handle >= size) {
+      throw new IndexOutOfBoundsException("Invalid handle " + handle + " for " + size);
+    }
+    return ids[handle];
+  }
+
+  /**
+   * Return the instance of the given ID held by the dictionary, adding the ID if it is not there
+   * yet, so that equal IDs are represented by the same String instance.
+   */
+  @Nullable
+  public String intern(@Nullable String id) {
+    if (id == null) {
+      return null;
+    }
+    int handle = add(id);
+    return ids[handle];
+  }
+
+  @Override
+  public String toString() {
+    return "IDDictionary(" + size + " IDs)";
+  }
+
+  //
+  // Private methods
+  //
+
+  /** The slot holding the given ID, or the empty slot where it should be added. */
+  private int find(@Nonnull String id, int hash) {
+    int mask = table.length - 1;
+    for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+      int entry = table[slot];
+      if (entry == 0 || (hashes[entry - 1] == hash && ids[entry - 1].equals(id))) {
+        return slot;
+      }
+    }
+  }
+
+  private void grow() {
+    int capacity = ids.length * 2;
+    ids = Arrays.copyOf(ids, capacity);
+    hashes = Arrays.copyOf(hashes, capacity);
+    if (capacity * 2 > table.length) {
+      table = new int[table.length * 2];
+      int mask = table.length - 1;
+      for (int handle = 0; handle < size; handle++) {
+        int slot = (hashes[handle] ^ (hashes[handle] >>> 16)) & mask;
+        while (table[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = handle + 1;
+      }
+    }
+  }
+}
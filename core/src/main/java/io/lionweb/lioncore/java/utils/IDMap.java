@@ -0,0 +1,220 @@
+package io.lionweb.lioncore.java.utils;
+
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A Map keyed by node IDs, which stores its values in an array indexed by the handles of an {@link
+ * IDDictionary}. Compared to a HashMap it needs no entry object per mapping, and the values can
+ * also be looked up by handle.
+ *
+ * <p>Removing a mapping does not remove its ID from the dictionary. The map is not thread-safe, but
+ * it can be read from several threads as long as it is not being modified.
+ */
+public class IDMap<V> extends AbstractMap<String, V> {
+  /** Stands for null values in the array of values, where null means that there is no mapping. */
+  private static final Object NULL_VALUE = new Object();
+
+  private IDDictionary dictionary;
+  private Object[] values;
+  private int size;
+  // HashMaps accept a null key, which the dictionary does not hold
+  private @Nullable Object nullKeyValue;
+
+  public IDMap() {
+    this(16);
+  }
+
+  public IDMap(int expectedSize) {
+    this.dictionary = new IDDictionary(expectedSize);
+    this.values = new Object[Math.max(16, expectedSize)];
+  }
+
+  public IDMap(@Nonnull Map<String, ? extends V> map) {
+    Objects.requireNonNull(map, "map should not be null");
+    if (map instanceof IDMap) {
+      IDMap<?> other = (IDMap<?>) map;
+      this.dictionary = new IDDictionary(other.dictionary);
+      this.values = Arrays.copyOf(other.values, other.values.length);
+      this.size = other.size;
+      this.nullKeyValue = other.nullKeyValue;
+    } else {
+      this.dictionary = new IDDictionary(map.size());
+      this.values = new Object[Math.max(16, map.size())];
+      putAll(map);
+    }
+  }
+
+  /** The dictionary assigning the handles of the IDs. */
+  @Nonnull
+  public IDDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /** Return the value associated to the ID with the given handle, or null if there is none. */
+  @Nullable
+  public V get(int handle) {
+    return handle < 0 || handle >= dictionary.size() ? null : unmask(values[handle]);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (key == null) {
+      return nullKeyValue != null;
+    }
+    return key instanceof String && valueAt(dictionary.indexOf((String) key)) != null;
+  }
+
+  @Override
+  public V get(Object key) {
+    if (key == null) {
+      return unmask(nullKeyValue);
+    }
+    return key instanceof String ? unmask(valueAt(dictionary.indexOf((String) key))) : null;
+  }
+
+  @Override
+  public V put(String key, V value) {
+    Object previous;
+    if (key == null) {
+      previous = nullKeyValue;
+      nullKeyValue = mask(value);
+    } else {
+      int handle = dictionary.add(key);
+      if (handle >= values.length) {
+        values = Arrays.copyOf(values, Math.max(values.length * 2, handle + 1));
+      }
+      previous = values[handle];
+      values[handle] = mask(value);
+    }
+    if (previous == null) {
+      size++;
+    }
+    return unmask(previous);
+  }
+
+  @Override
+  public V remove(Object key) {
+    Object previous;
+    if (key == null) {
+      previous = nullKeyValue;
+      nullKeyValue = null;
+    } else if (key instanceof String) {
+      int handle = dictionary.indexOf((String) key);
+      previous = valueAt(handle);
+      if (previous != null) {
+        values[handle] = null;
+      }
+    } else {
+      return null;
+    }
+    if (previous != null) {
+      size--;
+    }
+    return unmask(previous);
+  }
+
+  @Override
+  public void clear() {
+    dictionary = new IDDictionary();
+    values = new Object[16];
+    nullKeyValue = null;
+    size = 0;
+  }
+
+  @Override
+  @Nonnull
+  public Set<Entry<String, V>> entrySet() {
+    return new AbstractSet<Entry<String, V>>() {
+      @Override
+      public Iterator<Entry<String, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  //
+  // Private methods
+  //
+
+  @Nullable
+  private Object valueAt(int handle) {
+    return handle == IDDictionary.NOT_FOUND ? null : values[handle];
+  }
+
+  private static Object mask(@Nullable Object value) {
+    return value == null ? NULL_VALUE : value;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private static <V> V unmask(@Nullable Object value) {
+    return value == NULL_VALUE ? null : (V) value;
+  }
+
+  /** Iterates the mapping of the null key first, and then the others in the order of the IDs. */
+  private class EntryIterator implements Iterator<Entry<String, V>> {
+    // -1 stands for the null key
+    private int next = nullKeyValue == null ? 0 : -1;
+    private @Nullable Entry<String, V> last;
+
+    EntryIterator() {
+      skipToNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next == -1 || next < dictionary.size();
+    }
+
+    @Override
+    public Entry<String, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      String key = next == -1 ? null : dictionary.getID(next);
+      last = new MapEntry(key, next == -1 ? unmask(nullKeyValue) : unmask(values[next]));
+      next++;
+      skipToNext();
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      IDMap.this.remove(last.getKey());
+      last = null;
+    }
+
+    private void skipToNext() {
+      while (next >= 0 && next < dictionary.size() && values[next] == null) {
+        next++;
+      }
+    }
+  }
+
+  private class MapEntry extends SimpleEntry<String, V> {
+    MapEntry(@Nullable String key, @Nullable V value) {
+      super(key, value);
+    }
+
+    @Override
+    public V setValue(V value) {
+      put(getKey(), value);
+      return super.setValue(value);
+    }
+  }
+}
@@ -96,12 +96,56 @@ public final class FBChunk extends Table {
     return o != 0 ? obj.__assign(__vector(o), 4, bb) : null;
   }
 
+  public io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry nodeIndex(int j) {
+    return nodeIndex(new io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry(), j);
+  }
+
+  public io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry nodeIndex(
+      io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry obj, int j) {
+    int o = __offset(10);
+    return o != 0 ? obj.__assign(__indirect(__vector(o) + j * 4), bb) : null;
+  }
+
+  public int nodeIndexLength() {
+    int o = __offset(10);
+    return o != 0 ? __vector_len(o) : 0;
+  }
+
+  public io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry nodeIndexByKey(String key) {
+    int o = __offset(10);
+    return o != 0
+        ? io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry.__lookup_by_key(
+            null, __vector(o), key, bb)
+        : null;
+  }
+
+  public io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry nodeIndexByKey(
+      io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry obj, String key) {
+    int o = __offset(10);
+    return o != 0
+        ? io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry.__lookup_by_key(
+            obj, __vector(o), key, bb)
+        : null;
+  }
+
+  public io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry.Vector nodeIndexVector() {
+    return nodeIndexVector(new io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry.Vector());
+  }
+
+  public io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry.Vector nodeIndexVector(
+      io.lionweb.serialization.flatbuffers.gen.FBNodeIndexEntry.Vector obj) {
+    int o = __offset(10);
+    return o != 0 ? obj.__assign(__vector(o), 4, bb) : null;
+  }
+
   public static int createFBChunk(
       FlatBufferBuilder builder,
       int serializationFormatVersionOffset,
       int languagesOffset,
-      int nodesOffset) {
-    builder.startTable(3);
+      int nodesOffset,
+      int nodeIndexOffset) {
+    builder.startTable(4);
+    FBChunk.addNodeIndex(builder, nodeIndexOffset);
     FBChunk.addNodes(builder, nodesOffset);
     FBChunk.addLanguages(builder, languagesOffset);
     FBChunk.addSerializationFormatVersion(builder, serializationFormatVersionOffset);
@@ -109,7 +153,7 @@ public final class FBChunk extends Table {
   }
 
   public static void startFBChunk(FlatBufferBuilder builder) {
-    builder.startTable(3);
+    builder.startTable(4);
   }
 
   public static void addSerializationFormatVersion(
@@ -145,6 +189,20 @@ public final class FBChunk extends Table {
     builder.startVector(4, numElems, 4);
   }
 
+  public static void addNodeIndex(FlatBufferBuilder builder, int nodeIndexOffset) {
+    builder.addOffset(3, nodeIndexOffset, 0);
+  }
+
+  public static int createNodeIndexVector(FlatBufferBuilder builder, int[] data) {
+    builder.startVector(4, data.length, 4);
+    for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]);
+    return builder.endVector();
+  }
+
+  public static void startNodeIndexVector(FlatBufferBuilder builder, int numElems) {
+    builder.startVector(4, numElems, 4);
+  }
+
   public static int endFBChunk(FlatBufferBuilder builder) {
     int o = builder.endTable();
     return o;
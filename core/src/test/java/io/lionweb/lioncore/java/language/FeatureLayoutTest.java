@@ -0,0 +1,178 @@
+package io.lionweb.lioncore.java.language;
+
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Test;
+
+public class FeatureLayoutTest {
+
+  @Test
+  public void layoutIsReusedWhileNothingChanges() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    Property p1 = new Property("P1", a, "p1-id").setKey("p1-key");
+    a.addFeature(p1);
+
+    FeatureLayout layout = a.getFeatureLayout();
+    assertSame(layout, a.getFeatureLayout());
+    assertSame(layout.getFeatures(), a.allFeatures());
+    assertEquals(0, layout.indexOf(p1));
+    assertTrue(layout.contains(p1));
+    assertEquals(new MetaPointer("l-key", "123", "p1-key"), layout.getMetaPointer(p1));
+  }
+
+  @Test
+  public void unrelatedChangesDoNotInvalidateTheLayout() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    Concept b = new Concept(l, "B", "b-id", "b-key");
+    Concept c = new Concept(l, "C", "c-id", "c-key");
+    b.setExtendedConcept(a);
+    a.addFeature(new Property("P1", a, "p1-id").setKey("p1-key"));
+    Language other = new Language("OtherLanguage", "o-id", "o-key", "1");
+    Concept d = new Concept(other, "D", "d-id", "d-key");
+
+    FeatureLayout layout = b.getFeatureLayout();
+    c.addFeature(new Property("P2", c, "p2-id").setKey("p2-key"));
+    d.setExtendedConcept(c);
+    other.setVersion("2");
+    l.setName("RenamedLanguage");
+    new Concept(l, "E", "e-id", "e-key");
+    assertSame(layout, b.getFeatureLayout());
+
+    // A change to the ancestor is detected
+    a.addFeature(new Property("P3", a, "p3-id").setKey("p3-key"));
+    assertNotSame(layout, b.getFeatureLayout());
+    assertEquals(2, b.allFeatures().size());
+  }
+
+  @Test
+  public void layoutSeparatesFeaturesByKind() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    Property p1 = new Property("P1", a, "p1-id").setKey("p1-key");
+    Containment c1 = Containment.createMultiple("c1", a).setID("c1-id").setKey("c1-key");
+    Reference r1 = Reference.createOptional("r1", a).setID("r1-id").setKey("r1-key");
+    a.addFeature(p1);
+    a.addFeature(c1);
+    a.addFeature(r1);
+
+    FeatureLayout layout = a.getFeatureLayout();
+    assertEquals(3, layout.size());
+    assertEquals(Arrays.asList(p1), layout.getProperties());
+    assertEquals(Arrays.asList(c1), layout.getContainments());
+    assertEquals(Arrays.asList(r1), layout.getReferences());
+    assertEquals(Arrays.asList(c1, r1), layout.getLinks());
+    assertEquals(-1, layout.indexOf(new Property("P1", a, "p1-id")));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void layoutCannotBeModified() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    a.allFeatures().add(new Property("P1", a, "p1-id"));
+  }
+
+  @Test
+  public void addingFeaturesInvalidatesTheLayout() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    assertEquals(0, a.allFeatures().size());
+    Property p1 = new Property("P1", a, "p1-id").setKey("p1-key");
+    a.addFeature(p1);
+    assertEquals(Arrays.asList(p1), a.allFeatures());
+  }
+
+  @Test
+  public void changingAncestorsInvalidatesTheLayout() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    Concept b = new Concept(l, "B", "b-id", "b-key");
+    Interface i = new Interface(l, "I", "i-id", "i-key");
+    Property p1 = new Property("P1", a, "p1-id").setKey("p1-key");
+    a.addFeature(p1);
+    Property p2 = new Property("P2", i, "p2-id").setKey("p2-key");
+    i.addFeature(p2);
+    assertEquals(0, b.allFeatures().size());
+
+    b.setExtendedConcept(a);
+    assertEquals(Arrays.asList(p1), b.allFeatures());
+
+    b.addImplementedInterface(i);
+    assertEquals(new HashSet<>(Arrays.asList(p1, p2)), new HashSet<>(b.allFeatures()));
+
+    // A change to an ancestor of an ancestor
+    Property p3 = new Property("P3", i, "p3-id").setKey("p3-key");
+    i.addFeature(p3);
+    assertEquals(new HashSet<>(Arrays.asList(p1, p2, p3)), new HashSet<>(b.allFeatures()));
+
+    b.setExtendedConcept(null);
+    assertEquals(Arrays.asList(p2, p3), b.allFeatures());
+  }
+
+  @Test
+  public void changingTheLanguageVersionUpdatesMetaPointers() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    Property p1 = new Property("P1", a, "p1-id").setKey("p1-key");
+    a.addFeature(p1);
+    assertEquals(
+        new MetaPointer("l-key", "123", "p1-key"), a.getFeatureLayout().getMetaPointer(p1));
+
+    l.setVersion("124");
+    assertEquals(
+        new MetaPointer("l-key", "124", "p1-key"), a.getFeatureLayout().getMetaPointer(p1));
+  }
+
+  @Test
+  public void featuresAreLookedUpByMetaPointerKeyIDAndName() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    Concept b = new Concept(l, "B", "b-id", "b-key");
+    b.setExtendedConcept(a);
+    Property p = new Property("f", a, "p-id").setKey("p-key");
+    a.addFeature(p);
+    // A containment sharing the name of the property
+    Containment c = Containment.createMultiple("f", b).setID("c-id").setKey("c-key");
+    b.addFeature(c);
+
+    assertSame(p, b.getPropertyByName("f"));
+    assertSame(c, b.getContainmentByName("f"));
+    assertSame(c, b.getLinkByName("f"));
+    assertSame(c, b.getFeatureByName("f"));
+    assertNull(b.getReferenceByName("f"));
+    assertSame(p, b.getPropertyByID("p-id"));
+    assertSame(c, b.getContainmentByID("c-id"));
+    assertNull(b.getContainmentByID("p-id"));
+    assertSame(p, b.getFeatureByID("p-id"));
+    assertSame(c, b.getFeatureByKey("c-key"));
+    assertSame(p, b.getPropertyByMetaPointer(new MetaPointer("l-key", "123", "p-key")));
+    assertSame(c, b.getContainmentByMetaPointer(new MetaPointer("l-key", "123", "c-key")));
+    assertNull(b.getContainmentByMetaPointer(new MetaPointer("l-key", "123", "p-key")));
+    assertNull(b.getPropertyByMetaPointer(null));
+  }
+
+  @Test
+  public void lookupsFollowChangesToTheLanguage() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    Property p = new Property("p", a, "p-id").setKey("p-key");
+    a.addFeature(p);
+    assertSame(p, a.getPropertyByName("p"));
+
+    p.setName("q");
+    assertNull(a.getPropertyByName("p"));
+    assertSame(p, a.getPropertyByName("q"));
+
+    p.setKey("q-key");
+    assertNull(a.getFeatureByKey("p-key"));
+    assertSame(p, a.getPropertyByMetaPointer(new MetaPointer("l-key", "123", "q-key")));
+
+    l.setVersion("124");
+    assertNull(a.getPropertyByMetaPointer(new MetaPointer("l-key", "123", "q-key")));
+    assertSame(p, a.getPropertyByMetaPointer(new MetaPointer("l-key", "124", "q-key")));
+  }
+}
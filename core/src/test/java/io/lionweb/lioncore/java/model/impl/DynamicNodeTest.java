@@ -493,6 +493,54 @@ public class DynamicNodeTest {
     assertEquals("another-key", n3.getContainmentFeature().getKey());
   }
 
+  @Test
+  public void containmentAndIndexOfChildrenAreTracked() {
+    Concept c = new Concept();
+    Containment first = Containment.createMultiple("first", c);
+    first.setKey("first-key");
+    c.addFeature(first);
+    Containment second = Containment.createMultiple("second", c);
+    second.setKey("second-key");
+    c.addFeature(second);
+    DynamicNode parent = new DynamicNode("parent", c);
+    DynamicNode other = new DynamicNode("other", c);
+    DynamicNode n1 = new DynamicNode("n1", c);
+    DynamicNode n2 = new DynamicNode("n2", c);
+    DynamicNode n3 = new DynamicNode("n3", c);
+    DynamicNode n4 = new DynamicNode("n4", c);
+
+    parent.addChild(first, n1);
+    parent.addChild(second, n2);
+    parent.addChild(second, n3);
+    parent.addChild(second, n4);
+    assertSame(first, n1.getContainmentFeature());
+    assertSame(second, n3.getContainmentFeature());
+    assertEquals(0, n1.getIndexInParent());
+    assertEquals(2, n4.getIndexInParent());
+    assertEquals(-1, parent.getIndexInParent());
+
+    // Removing a sibling shifts the following children
+    parent.removeChild(n2);
+    assertNull(n2.getParent());
+    assertEquals(Arrays.asList(n3, n4), parent.getChildren(second));
+    assertEquals(1, n4.getIndexInParent());
+
+    // Moving a child to another parent
+    parent.removeChild(n4);
+    other.addChild(first, n4);
+    assertSame(other, n4.getParent());
+    assertSame(first, n4.getContainmentFeature());
+    assertEquals(0, n4.getIndexInParent());
+
+    // Modifying the list of children directly
+    parent.getChildren(second).add(0, n2);
+    n2.setParent(parent);
+    assertSame(second, n2.getContainmentFeature());
+    assertEquals(1, n3.getIndexInParent());
+    parent.removeChild(n3);
+    assertEquals(Arrays.asList(n2), parent.getChildren(second));
+  }
+
   @Test
   public void nodeWithStructuredDataType() {
     DynamicStructuredDataTypeInstance point1 =
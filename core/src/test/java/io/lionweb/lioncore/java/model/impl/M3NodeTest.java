@@ -1,9 +1,18 @@
 package io.lionweb.lioncore.java.model.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import io.lionweb.lioncore.java.language.Concept;
 import io.lionweb.lioncore.java.language.Containment;
 import io.lionweb.lioncore.java.language.EnumerationLiteral;
+import io.lionweb.lioncore.java.language.Language;
+import io.lionweb.lioncore.java.language.LionCoreBuiltins;
+import io.lionweb.lioncore.java.language.Property;
+import io.lionweb.lioncore.java.self.LionCore;
+import java.util.Arrays;
+import java.util.Collections;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -36,4 +45,76 @@ public class M3NodeTest {
     containment.setID("asdf");
     assertEquals("Containment[asdf]", containment.toString());
   }
+
+  @Test
+  public void addingAContainedNodeAgainHasNoEffect() {
+    Language language = new Language("MyLanguage", "my-language-id", "my-language-key", "1");
+    Concept c1 = new Concept("C1");
+    Concept c2 = new Concept("C2");
+    Concept c3 = new Concept("C3");
+    language.addElement(c1);
+    language.addElement(c2);
+    language.addElement(c3);
+    language.addElement(c2);
+    assertEquals(Arrays.asList(c1, c2, c3), language.getElements());
+
+    // Concepts created with a language are added to it once
+    Concept c4 = new Concept(language, "C4");
+    language.addElement(c4);
+    assertEquals(Arrays.asList(c1, c2, c3, c4), language.getElements());
+  }
+
+  @Test
+  public void featuresCreatedWithTheirConceptAreAddedOnce() {
+    Concept concept = new Concept("C");
+    Property p1 = new Property("p1", concept, "p1-id");
+    concept.addFeature(p1);
+    Property p2 = new Property("p2", concept, "p2-id");
+    concept.addFeature(p2);
+    concept.addFeature(p1);
+    assertEquals(Arrays.asList(p1, p2), concept.getFeatures());
+
+    Containment features = LionCore.getConcept().requireContainmentByName("features");
+    assertSame(features, p2.getContainmentFeature());
+    assertEquals(1, p2.getIndexInParent());
+  }
+
+  @Test
+  public void childrenCanBeRemoved() {
+    Concept concept = new Concept("C");
+    Property p1 = Property.createOptional("p1", LionCoreBuiltins.getString());
+    Property p2 = Property.createOptional("p2", LionCoreBuiltins.getString());
+    concept.addFeature(p1);
+    concept.addFeature(p2);
+
+    concept.removeChild(p1);
+    assertEquals(Collections.singletonList(p2), concept.getFeatures());
+    assertNull(p1.getParent());
+    assertNull(p1.getContainmentFeature());
+    assertEquals(0, p2.getIndexInParent());
+
+    // Removing a node which is not a child has no effect
+    concept.removeChild(p1);
+    assertEquals(Collections.singletonList(p2), concept.getFeatures());
+    concept.addFeature(p1);
+    assertEquals(Arrays.asList(p2, p1), concept.getFeatures());
+  }
+
+  @Test
+  public void childrenAreFoundAfterTheirSiblingsAreRemoved() {
+    Concept concept = new Concept("C");
+    Property p1 = Property.createOptional("p1", LionCoreBuiltins.getString());
+    Property p2 = Property.createOptional("p2", LionCoreBuiltins.getString());
+    Property p3 = Property.createOptional("p3", LionCoreBuiltins.getString());
+    concept.addFeature(p1);
+    concept.addFeature(p2);
+    concept.addFeature(p3);
+
+    concept.removeChild(p1);
+    concept.addFeature(p3);
+    assertEquals(Arrays.asList(p2, p3), concept.getFeatures());
+    Containment features = LionCore.getConcept().requireContainmentByName("features");
+    assertSame(features, p3.getContainmentFeature());
+    assertEquals(1, p3.getIndexInParent());
+  }
 }
@@ -0,0 +1,222 @@
+package io.lionweb.lioncore.java.model.impl;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonElement;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.serialization.JsonSerialization;
+import io.lionweb.lioncore.java.serialization.MyNodeWithReferences;
+import io.lionweb.lioncore.java.serialization.SerializationProvider;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class SlottedDynamicNodeTest {
+
+  @Test
+  public void propertiesAreStoredBySlot() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    a.addFeature(
+        Property.createRequired("flag", LionCoreBuiltins.getBoolean())
+            .setID("flag-id")
+            .setKey("flag-key"));
+    a.addFeature(
+        Property.createOptional("name", LionCoreBuiltins.getString())
+            .setID("name-id")
+            .setKey("name-key"));
+    SlottedDynamicNode n1 = new SlottedDynamicNode("n1", a);
+
+    assertEquals(false, ClassifierInstanceUtils.getPropertyValueByName(n1, "flag"));
+    assertNull(ClassifierInstanceUtils.getPropertyValueByName(n1, "name"));
+    ClassifierInstanceUtils.setPropertyValueByName(n1, "flag", true);
+    ClassifierInstanceUtils.setPropertyValueByName(n1, "name", "foo");
+    assertEquals(true, ClassifierInstanceUtils.getPropertyValueByName(n1, "flag"));
+    assertEquals("foo", ClassifierInstanceUtils.getPropertyValueByName(n1, "name"));
+    // This is interpreted as "go back to default value"
+    ClassifierInstanceUtils.setPropertyValueByName(n1, "flag", null);
+    assertEquals(false, ClassifierInstanceUtils.getPropertyValueByName(n1, "flag"));
+
+    Property other = Property.createOptional("other", LionCoreBuiltins.getString());
+    assertThrows(IllegalArgumentException.class, () -> n1.setPropertyValue(other, "bar"));
+  }
+
+  @Test
+  public void childrenAreAddedAndRemoved() {
+    Concept c = new Concept();
+    Containment single = Containment.createOptional("single", c);
+    single.setKey("single-key");
+    c.addFeature(single);
+    Containment multiple = Containment.createMultiple("multiple", c);
+    multiple.setKey("multiple-key");
+    c.addFeature(multiple);
+    SlottedDynamicNode n1 = new SlottedDynamicNode("n1", c);
+    SlottedDynamicNode n2 = new SlottedDynamicNode("n2", c);
+    SlottedDynamicNode n3 = new SlottedDynamicNode("n3", c);
+    SlottedDynamicNode n4 = new SlottedDynamicNode("n4", c);
+
+    assertEquals(Collections.emptyList(), n1.getChildren(multiple));
+    n1.addChild(multiple, n2);
+    n1.addChild(multiple, n3);
+    assertEquals(Arrays.asList(n2, n3), n1.getChildren(multiple));
+    assertSame(n1, n2.getParent());
+    assertSame(multiple, n2.getContainmentFeature());
+
+    n1.addChild(single, n4);
+    assertEquals(Arrays.asList(n4), n1.getChildren(single));
+    n1.addChild(single, n2);
+    assertEquals(Arrays.asList(n2), n1.getChildren(single));
+    assertNull(n4.getParent());
+
+    n1.removeChild(multiple, 0);
+    assertEquals(Arrays.asList(n3), n1.getChildren(multiple));
+    n1.removeChild(n3);
+    assertEquals(Collections.emptyList(), n1.getChildren(multiple));
+    assertNull(n3.getParent());
+    assertThrows(IllegalArgumentException.class, () -> n1.removeChild(n3));
+  }
+
+  @Test
+  public void referenceValuesAreAddedAndRemoved() {
+    SlottedDynamicNode n1 = new SlottedDynamicNode("n1", MyNodeWithReferences.CONCEPT);
+    SlottedDynamicNode n2 = new SlottedDynamicNode("n2", MyNodeWithReferences.CONCEPT);
+    Reference r1 = n1.getClassifier().getReferenceByName("r1");
+    Reference r2 = n1.getClassifier().getReferenceByName("r2");
+    assertEquals(Collections.emptyList(), ClassifierInstanceUtils.getReferenceValues(n1));
+
+    n1.addReferenceValue(r2, new ReferenceValue(n1, "bar"));
+    n1.addReferenceValue(r1, new ReferenceValue(n2, "foo"));
+    n1.addReferenceValue(r2, new ReferenceValue(null, "baz"));
+    assertEquals(Arrays.asList(n2, n1), ClassifierInstanceUtils.getReferredNodes(n1));
+
+    n1.removeReferenceValue(r2, new ReferenceValue(n1, "bar"));
+    assertEquals(Arrays.asList(new ReferenceValue(null, "baz")), n1.getReferenceValues(r2));
+    n1.removeReferenceValue(r2, 0);
+    assertEquals(Collections.emptyList(), n1.getReferenceValues(r2));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> n1.removeReferenceValue(r2, new ReferenceValue(n1, "bar")));
+  }
+
+  @Test
+  public void valuesAreKeptWhenTheLayoutChanges() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept base = new Concept(l, "Base", "base-id", "base-key");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    a.setExtendedConcept(base);
+    Property p1 = Property.createOptional("p1", LionCoreBuiltins.getString());
+    p1.setID("p1-id").setKey("p1-key");
+    a.addFeature(p1);
+    SlottedDynamicNode n1 = new SlottedDynamicNode("n1", a);
+    n1.setPropertyValue(p1, "foo");
+
+    // The inherited property comes after p1, so p1 does not move
+    Property p2 = Property.createOptional("p2", LionCoreBuiltins.getString());
+    p2.setID("p2-id").setKey("p2-key");
+    base.addFeature(p2);
+    n1.setPropertyValue(p2, "bar");
+    assertEquals("foo", n1.getPropertyValue(p1));
+    assertEquals("bar", n1.getPropertyValue(p2));
+
+    // Now p2 comes first
+    a.setExtendedConcept(null);
+    a.getFeatures().clear();
+    a.addFeature(p2);
+    a.addFeature(p1);
+    assertEquals("foo", n1.getPropertyValue(p1));
+    assertEquals("bar", n1.getPropertyValue(p2));
+  }
+
+  @Test
+  public void readingDoesNotMoveTheValues() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept base = new Concept(l, "Base", "base-id", "base-key");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    a.setExtendedConcept(base);
+    Property p1 = Property.createOptional("p1", LionCoreBuiltins.getString());
+    p1.setID("p1-id").setKey("p1-key");
+    a.addFeature(p1);
+    Containment c1 = Containment.createMultiple("c1", a);
+    c1.setID("c1-id").setKey("c1-key");
+    base.addFeature(c1);
+    SlottedDynamicNode n1 = new SlottedDynamicNode("n1", a);
+    SlottedDynamicNode n2 = new SlottedDynamicNode("n2", a);
+    n1.setPropertyValue(p1, "foo");
+    n1.addChild(c1, n2);
+
+    // Reading p1 while c1 does not belong to the Concept does not drop the children
+    a.setExtendedConcept(null);
+    assertEquals("foo", n1.getPropertyValue(p1));
+    assertThrows(IllegalArgumentException.class, () -> n1.getChildren(c1));
+    a.setExtendedConcept(base);
+    assertEquals("foo", n1.getPropertyValue(p1));
+    assertEquals(Collections.singletonList(n2), n1.getChildren(c1));
+
+    // Modifications move the values to the new layout
+    a.setExtendedConcept(null);
+    n1.setPropertyValue(p1, "bar");
+    a.setExtendedConcept(base);
+    assertEquals("bar", n1.getPropertyValue(p1));
+    assertEquals(Collections.emptyList(), n1.getChildren(c1));
+  }
+
+  @Test
+  public void equality() {
+    SlottedDynamicNode a = new SlottedDynamicNode("foo-1", MyNodeWithReferences.CONCEPT);
+    SlottedDynamicNode b = new SlottedDynamicNode("foo-1", MyNodeWithReferences.CONCEPT);
+    assertEquals(a, b);
+    Reference r1 = MyNodeWithReferences.CONCEPT.getReferenceByName("r1");
+    a.addReferenceValue(r1, new ReferenceValue(null, "foo"));
+    assertNotEquals(a, b);
+    b.addReferenceValue(r1, new ReferenceValue(null, "foo"));
+    assertEquals(a, b);
+    // An empty list of values is the same as no values
+    a.removeReferenceValue(r1, 0);
+    b.setReferenceValues(r1, Collections.emptyList());
+    assertEquals(a, b);
+
+    SlottedDynamicNode c = new SlottedDynamicNode("foo-2", MyNodeWithReferences.CONCEPT);
+    a.setParent(c);
+    assertNotEquals(a, b);
+  }
+
+  @Test
+  public void deserializationProducesSlottedNodes() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "1");
+    Concept c = new Concept(l, "C", "c-id", "c-key");
+    Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+    name.setID("name-id").setKey("name-key");
+    c.addFeature(name);
+    Containment children = Containment.createMultiple("children", c);
+    children.setID("children-id").setKey("children-key");
+    c.addFeature(children);
+    Reference ref = Reference.createOptional("ref", c);
+    ref.setID("ref-id").setKey("ref-key");
+    c.addFeature(ref);
+    Annotation a = new Annotation(l, "A", "a-id", "a-key");
+
+    DynamicNode n1 = new DynamicNode("n1", c);
+    DynamicNode n2 = new DynamicNode("n2", c);
+    DynamicNode n3 = new DynamicNode("n3", c);
+    n1.setPropertyValue(name, "first");
+    n2.setPropertyValue(name, "second");
+    n1.addChild(children, n2);
+    n1.addChild(children, n3);
+    n3.addReferenceValue(ref, new ReferenceValue(n2, "second"));
+    new DynamicAnnotationInstance("a1", a, n2);
+
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    serialization.registerLanguage(l);
+    serialization.enableSlottedDynamicNodes();
+    JsonElement json = serialization.serializeTreesToJsonElement(n1);
+    List<Node> deserialized = serialization.deserializeToNodes(json);
+
+    assertEquals(3, deserialized.size());
+    assertTrue(deserialized.stream().allMatch(n -> n instanceof SlottedDynamicNode));
+    assertEquals(json, serialization.serializeTreesToJsonElement(deserialized.get(0)));
+  }
+}
@@ -0,0 +1,193 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonElement;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.utils.IDDictionary;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class FilteredDeserializationTest {
+
+  private final Language language = new Language("MyLanguage", "l-id", "l-key", "1");
+  private final Concept folder = new Concept(language, "Folder", "folder-id", "folder-key");
+  private final Concept file = new Concept(language, "File", "file-id", "file-key");
+  private final Annotation comment =
+      new Annotation(language, "Comment", "comment-id", "comment-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Containment content = Containment.createMultiple("content", folder);
+  private final Reference link = Reference.createOptional("link", file);
+
+  public FilteredDeserializationTest() {
+    name.setID("name-id").setKey("name-key");
+    content.setID("content-id").setKey("content-key");
+    link.setID("link-id").setKey("link-key");
+    folder.addFeature(name);
+    folder.addFeature(content);
+    file.setExtendedConcept(folder);
+    file.addFeature(link);
+    comment.setAnnotates(folder);
+  }
+
+  /** root > (a > (a1, a2), b > (b1)), with a1 linking to b1 and a comment on a2. */
+  private JsonElement serializeExample() {
+    DynamicNode root = folder("root");
+    DynamicNode a = folder("a");
+    DynamicNode b = folder("b");
+    DynamicNode a1 = file("a1");
+    DynamicNode a2 = file("a2");
+    DynamicNode b1 = file("b1");
+    root.addChild(content, a);
+    root.addChild(content, b);
+    a.addChild(content, a1);
+    a.addChild(content, a2);
+    b.addChild(content, b1);
+    a1.addReferenceValue(link, new ReferenceValue(b1, "b1"));
+    a2.addAnnotation(new DynamicAnnotationInstance("c1", comment, a2));
+    return SerializationProvider.getStandardJsonSerialization().serializeTreesToJsonElement(root);
+  }
+
+  private DynamicNode folder(String id) {
+    DynamicNode node = new DynamicNode(id, folder);
+    node.setPropertyValue(name, id);
+    return node;
+  }
+
+  private DynamicNode file(String id) {
+    DynamicNode node = new DynamicNode(id, file);
+    node.setPropertyValue(name, id);
+    return node;
+  }
+
+  private JsonSerialization serialization() {
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  private SerializedChunk chunk() {
+    return new LowLevelJsonSerialization().deserializeSerializationBlock(serializeExample());
+  }
+
+  @Test
+  public void onlyInstancesSatisfyingThePredicateAreDeserialized() {
+    JsonSerialization serialization = serialization();
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.PROXY_NODES);
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.PROXY_NODES);
+    MetaPointer fileMetaPointer = MetaPointer.from(file);
+
+    List<ClassifierInstance<?>> instances =
+        serialization.deserializeSerializationBlock(
+            chunk(), instance -> fileMetaPointer.equals(instance.getClassifier()));
+
+    List<Node> files =
+        instances.stream()
+            .filter(i -> i instanceof DynamicNode)
+            .map(i -> (Node) i)
+            .collect(Collectors.toList());
+    assertEquals(Arrays.asList("a1", "a2", "b1"), ids(files));
+    Node a1 = files.get(0);
+    assertEquals(new ProxyNode("a"), a1.getParent());
+    assertSame(files.get(2), a1.getReferenceValues(link).get(0).getReferred());
+    // The comment has been filtered out as well
+    assertEquals(Collections.emptyList(), files.get(1).getAnnotations());
+  }
+
+  @Test
+  public void onlyTheSelectedSubtreesAreDeserialized() {
+    JsonSerialization serialization = serialization();
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.PROXY_NODES);
+
+    List<ClassifierInstance<?>> instances =
+        serialization.deserializeSubtrees(chunk(), Collections.singletonList("a"));
+
+    assertEquals(
+        Arrays.asList("a", "a1", "a2", "c1", "b1"),
+        instances.stream().map(ClassifierInstance::getID).collect(Collectors.toList()));
+    Node a = (Node) instances.get(0);
+    assertNull(a.getParent());
+    assertEquals(Arrays.asList("a1", "a2"), ids(a.getChildren(content)));
+    Node a1 = a.getChildren(content).get(0);
+    Node target = a1.getReferenceValues(link).get(0).getReferred();
+    assertTrue(target instanceof ProxyNode);
+    assertEquals("b1", target.getID());
+    assertEquals(1, a.getChildren(content).get(1).getAnnotations().size());
+  }
+
+  @Test
+  public void unavailableNodesFollowThePolicies() {
+    JsonSerialization serialization = serialization();
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    assertThrows(
+        DeserializationException.class,
+        () -> serialization.deserializeSubtrees(chunk(), Collections.singletonList("a")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> serialization.deserializeSubtrees(chunk(), Collections.singletonList("z")));
+
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    Node a1 =
+        (Node) serialization.deserializeSubtrees(chunk(), Collections.singletonList("a1")).get(0);
+    ReferenceValue value = a1.getReferenceValues(link).get(0);
+    assertNull(value.getReferred());
+    assertEquals("b1", value.getResolveInfo());
+  }
+
+  @Test
+  public void filterIsAppliedWhileStreaming() {
+    byte[] json = serializeExample().toString().getBytes(StandardCharsets.UTF_8);
+    JsonSerialization serialization = serialization();
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    serialization.setUnavailableChildrenPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+
+    List<ClassifierInstance<?>> instances =
+        serialization.deserializeToClassifierInstances(
+            new ByteArrayInputStream(json), instance -> instance.getID().startsWith("b"));
+
+    assertEquals(
+        Arrays.asList("b", "b1"),
+        instances.stream().map(ClassifierInstance::getID).collect(Collectors.toList()));
+    Node b = (Node) instances.get(0);
+    assertEquals(Collections.singletonList(instances.get(1)), b.getChildren(content));
+  }
+
+  @Test
+  public void onlyTheIDsOfTheKeptInstancesAreInterned() {
+    String json = serializeExample().toString();
+    IDDictionary idDictionary = new IDDictionary();
+
+    SerializedChunk chunk =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(
+                new StringReader(json), instance -> instance.getID().startsWith("b"), idDictionary);
+
+    assertEquals(2, chunk.getClassifierInstances().size());
+    // b, b1 and the parent of b
+    assertEquals(3, idDictionary.size());
+    assertTrue(idDictionary.contains("root"));
+    assertFalse(idDictionary.contains("a"));
+    assertSame(idDictionary.intern("b"), chunk.getInstanceByID("b1").getParentNodeID());
+    assertSame(idDictionary.intern("b1"), chunk.getInstanceByID("b").getChildren().get(0));
+  }
+
+  private static List<String> ids(List<? extends Node> nodes) {
+    return nodes.stream().map(Node::getID).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,319 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class FlatBuffersChunkViewTest {
+
+  private final Language language = new Language("MyLanguage", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "C", "c-id", "c-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Property flag = Property.createRequired("flag", LionCoreBuiltins.getBoolean());
+  private final Containment children = Containment.createMultiple("children", concept);
+  private final Reference ref = Reference.createMultiple("ref", concept);
+  private final Annotation comment =
+      new Annotation(language, "Comment", "comment-id", "comment-key");
+  private final Property text = Property.createOptional("text", LionCoreBuiltins.getString());
+  private final Containment body = Containment.createMultiple("body", concept);
+
+  public FlatBuffersChunkViewTest() {
+    name.setID("name-id").setKey("name-key");
+    flag.setID("flag-id").setKey("flag-key");
+    children.setID("children-id").setKey("children-key");
+    ref.setID("ref-id").setKey("ref-key");
+    concept.addFeature(name);
+    concept.addFeature(flag);
+    concept.addFeature(children);
+    concept.addFeature(ref);
+    text.setID("text-id").setKey("text-key");
+    comment.setAnnotates(concept);
+    comment.addFeature(text);
+    body.setID("body-id").setKey("body-key");
+    comment.addFeature(body);
+  }
+
+  private byte[] serializeExample() {
+    return serializeExample(false);
+  }
+
+  private byte[] serializeExample(boolean nodeIndex) {
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "the root");
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.setPropertyValue(name, "first");
+    n1.setPropertyValue(flag, true);
+    DynamicNode n2 = new DynamicNode("n2", concept);
+    n2.setPropertyValue(name, "second");
+    root.addChild(children, n1);
+    root.addChild(children, n2);
+    n1.addReferenceValue(ref, new ReferenceValue(n2, "second"));
+    n1.addReferenceValue(ref, new ReferenceValue(root, "the root"));
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    serialization.setWritingNodeIndex(nodeIndex);
+    return serialization.serializeTreesToByteArray(root);
+  }
+
+  private FlatBuffersSerialization serialization() {
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    serialization.registerLanguage(language);
+    return serialization;
+  }
+
+  @Test
+  public void nodesAreReadFromTheBuffer() {
+    FlatBuffersChunkView view = serialization().viewChunk(serializeExample());
+
+    assertEquals(3, view.size());
+    assertEquals(
+        Arrays.asList("root", "n1", "n2"),
+        view.getNodes().stream().map(Node::getID).collect(Collectors.toList()));
+    FlatBuffersNode root = view.getNodeByID("root");
+    FlatBuffersNode n1 = view.getNodeByID("n1");
+    FlatBuffersNode n2 = view.getNodeByID("n2");
+    assertNull(view.getNodeByID("n3"));
+    assertEquals(Collections.singletonList(root), view.getRoots());
+
+    assertSame(concept, root.getClassifier());
+    assertNull(root.getParent());
+    assertEquals("the root", root.getPropertyValue(name));
+    assertEquals(false, root.getPropertyValue(flag));
+    assertEquals(Arrays.asList(n1, n2), root.getChildren(children));
+    assertEquals(Collections.emptyList(), root.getReferenceValues(ref));
+
+    assertSame(root, n1.getParent());
+    assertSame(children, n1.getContainmentFeature());
+    assertEquals("first", n1.getPropertyValue(name));
+    assertEquals(true, n1.getPropertyValue(flag));
+    assertEquals(
+        Arrays.asList(new ReferenceValue(n2, "second"), new ReferenceValue(root, "the root")),
+        n1.getReferenceValues(ref));
+    assertEquals("second", n2.getPropertyValue(name));
+    assertEquals(Arrays.asList(root, n1, n2), root.thisAndAllDescendants());
+  }
+
+  @Test
+  public void viewMatchesDeserializedNodes() throws IOException {
+    byte[] bytes = serializeExample();
+    FlatBuffersSerialization serialization = serialization();
+    serialization.enableDynamicNodes();
+    List<Node> deserialized = serialization.deserializeToNodes(bytes);
+    List<Node> viewed = serialization.viewChunk(bytes).getNodes();
+
+    assertEquals(deserialized.size(), viewed.size());
+    for (int i = 0; i < deserialized.size(); i++) {
+      Node expected = deserialized.get(i);
+      Node actual = viewed.get(i);
+      assertEquals(expected.getID(), actual.getID());
+      assertEquals(
+          ClassifierInstanceUtils.getPropertyValueByName(expected, "name"),
+          ClassifierInstanceUtils.getPropertyValueByName(actual, "name"));
+      assertEquals(
+          ClassifierInstanceUtils.getPropertyValueByName(expected, "flag"),
+          ClassifierInstanceUtils.getPropertyValueByName(actual, "flag"));
+      assertEquals(ids(expected.getChildren(children)), ids(actual.getChildren(children)));
+      assertEquals(
+          ids(ClassifierInstanceUtils.getReferredNodes(expected)),
+          ids(ClassifierInstanceUtils.getReferredNodes(actual)));
+    }
+  }
+
+  @Test
+  public void viewOverMemoryMappedFile() throws IOException {
+    File file = File.createTempFile("chunk", ".fb");
+    file.deleteOnExit();
+    Files.write(file.toPath(), serializeExample());
+
+    FlatBuffersChunkView view = serialization().viewChunk(file);
+    assertEquals(3, view.size());
+    assertEquals("second", view.getNodeByID("n2").getPropertyValue(name));
+  }
+
+  @Test
+  public void nodesCannotBeModified() {
+    FlatBuffersNode root = serialization().viewChunk(serializeExample()).getNodeByID("root");
+    assertThrows(UnsupportedOperationException.class, () -> root.setPropertyValue(name, "x"));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> root.addChild(children, new DynamicNode("n3", concept)));
+    assertThrows(UnsupportedOperationException.class, () -> root.removeChild(children, 0));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> root.addReferenceValue(ref, new ReferenceValue(null, "x")));
+  }
+
+  @Test
+  public void unavailableNodesFollowThePolicies() {
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.setPropertyValue(name, "first");
+    n1.addReferenceValue(ref, new ReferenceValue(new ProxyNode("external"), "external"));
+    n1.setParent(new ProxyNode("outside"));
+    byte[] bytes =
+        SerializationProvider.getStandardFlatBuffersSerialization().serializeNodesToByteArray(n1);
+
+    FlatBuffersSerialization serialization = serialization();
+    FlatBuffersNode viewed = serialization.viewChunk(bytes).getNodeByID("n1");
+    assertThrows(DeserializationException.class, () -> viewed.getReferenceValues(ref));
+    assertThrows(DeserializationException.class, viewed::getParent);
+
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.PROXY_NODES);
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    Node target = viewed.getReferenceValues(ref).get(0).getReferred();
+    assertTrue(target instanceof ProxyNode);
+    assertEquals("external", target.getID());
+    assertSame(target, viewed.getReferenceValues(ref).get(0).getReferred());
+    assertNull(viewed.getParent());
+  }
+
+  @Test
+  public void viewUsingTheNodeIndex() {
+    FlatBuffersChunkView view = serialization().viewChunk(serializeExample(true));
+    assertEquals(3, view.size());
+    FlatBuffersNode root = view.getNodeByID("root");
+    assertEquals("the root", root.getPropertyValue(name));
+    assertEquals(
+        Arrays.asList(view.getNodeByID("n1"), view.getNodeByID("n2")), root.getChildren(children));
+    assertNull(view.getNodeByID("n3"));
+    assertFalse(view.contains("n3"));
+    assertEquals(Collections.singletonList(root), view.getRoots());
+  }
+
+  @Test
+  public void findNodeInMemoryMappedFile() throws IOException {
+    DynamicNode root = new DynamicNode("root", concept);
+    List<String> ids = new ArrayList<>();
+    Random random = new Random(1);
+    for (int i = 0; i < 500; i++) {
+      String id = "n" + random.nextInt(1_000_000) + "-" + i;
+      DynamicNode child = new DynamicNode(id, concept);
+      child.setPropertyValue(name, "child " + i);
+      root.addChild(children, child);
+      ids.add(id);
+    }
+    FlatBuffersSerialization serialization = serialization();
+    serialization.setWritingNodeIndex(true);
+    byte[] withIndex = serialization.serializeTreesToByteArray(root);
+    serialization.setWritingNodeIndex(false);
+    byte[] withoutIndex = serialization.serializeTreesToByteArray(root);
+    assertTrue(withIndex.length > withoutIndex.length);
+
+    File file = File.createTempFile("chunk", ".fb");
+    file.deleteOnExit();
+    Files.write(file.toPath(), withIndex);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      for (int i = 0; i < ids.size(); i++) {
+        SerializedClassifierInstance found = serialization.findNode(buffer, ids.get(i));
+        assertEquals(ids.get(i), found.getID());
+        assertEquals("root", found.getParentNodeID());
+        assertEquals("child " + i, found.getPropertyValue("name-key"));
+      }
+      assertEquals("root", serialization.findNode(buffer, "root").getID());
+      assertNull(serialization.findNode(buffer, "unknown"));
+    }
+
+    // Without an index the nodes are scanned
+    ByteBuffer buffer = ByteBuffer.wrap(withoutIndex);
+    assertEquals(ids.get(42), serialization.findNode(buffer, ids.get(42)).getID());
+    assertNull(serialization.findNode(buffer, "unknown"));
+  }
+
+  @Test
+  public void annotationsAreReadFromTheBuffer() {
+    DynamicNode root = new DynamicNode("root", concept);
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    root.addChild(children, n1);
+    DynamicAnnotationInstance note = new DynamicAnnotationInstance("a1", comment, n1);
+    note.setPropertyValue(text, "a note");
+    n1.addAnnotation(note);
+    byte[] bytes =
+        SerializationProvider.getStandardFlatBuffersSerialization().serializeTreesToByteArray(root);
+
+    FlatBuffersSerialization serialization = serialization();
+    FlatBuffersChunkView view = serialization.viewChunk(bytes);
+    assertEquals(3, view.size());
+    assertEquals(Arrays.asList("root", "n1"), ids(view.getNodes()));
+    assertEquals(Collections.singletonList(view.getNodeByID("root")), view.getRoots());
+    assertNull(view.getNodeByID("a1"));
+    assertTrue(view.contains("a1"));
+
+    FlatBuffersNode viewedN1 = view.getNodeByID("n1");
+    List<AnnotationInstance> annotations = viewedN1.getAnnotations();
+    assertEquals(1, annotations.size());
+    AnnotationInstance viewedNote = annotations.get(0);
+    assertTrue(viewedNote instanceof FlatBuffersAnnotationInstance);
+    assertSame(view.getInstanceByID("a1"), viewedNote);
+    assertSame(comment, viewedNote.getAnnotationDefinition());
+    assertSame(viewedN1, viewedNote.getParent());
+    assertEquals("a note", viewedNote.getPropertyValue(text));
+    assertEquals(annotations, viewedN1.getAnnotations(comment));
+    assertEquals(Collections.emptyList(), view.getNodeByID("root").getAnnotations());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> view.getNode(((FlatBuffersAnnotationInstance) viewedNote).getIndex()));
+    assertThrows(UnsupportedOperationException.class, () -> viewedNote.setPropertyValue(text, "x"));
+  }
+
+  @Test
+  public void nodesCanBeContainedInAnnotations() {
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.addAnnotation(new DynamicAnnotationInstance("a1", comment, n1));
+    FlatBuffersSerialization standard = SerializationProvider.getStandardFlatBuffersSerialization();
+    SerializedChunk chunk = standard.serializeTreeToSerializationBlock(n1);
+    // DynamicNodes cannot have an annotation instance as parent, so the child is added to the chunk
+    SerializedClassifierInstance inner =
+        standard
+            .serializeNodesToSerializationBlock(new DynamicNode("inner", concept))
+            .getInstanceByID("inner");
+    inner.setParentNodeID("a1");
+    chunk.addClassifierInstance(inner);
+    chunk.getInstanceByID("a1").addChildren(MetaPointer.from(body), Arrays.asList("inner"));
+    byte[] bytes = standard.serialize(chunk);
+
+    FlatBuffersChunkView view = serialization().viewChunk(bytes);
+    FlatBuffersNode viewedInner = view.getNodeByID("inner");
+    FlatBuffersAnnotationInstance viewedNote =
+        (FlatBuffersAnnotationInstance) view.getInstanceByID("a1");
+    assertEquals(Collections.singletonList(view.getNodeByID("n1")), view.getRoots());
+    assertEquals(Collections.singletonList(viewedInner), viewedNote.getChildren(body));
+    // The parent is available, but it is not a Node
+    assertNull(viewedInner.getParent());
+    assertSame(body, viewedInner.getContainmentFeature());
+    assertEquals(0, viewedInner.getIndexInParent());
+
+    FlatBuffersSerialization serialization = serialization();
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.PROXY_NODES);
+    Node parent = serialization.viewChunk(bytes).getNodeByID("inner").getParent();
+    assertTrue(parent instanceof ProxyNode);
+    assertEquals("a1", parent.getID());
+  }
+
+  private static List<String> ids(List<? extends Node> nodes) {
+    return nodes.stream().map(Node::getID).collect(Collectors.toList());
+  }
+}
@@ -16,7 +16,10 @@ import io.lionweb.lioncore.java.serialization.refsmm.RefsLanguage;
 import io.lionweb.lioncore.java.serialization.simplemath.IntLiteral;
 import io.lionweb.lioncore.java.serialization.simplemath.SimpleMathLanguage;
 import io.lionweb.lioncore.java.serialization.simplemath.Sum;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -343,4 +346,195 @@ public class FlatbuffersSerializationTest extends SerializationTest {
                     entry.getKey().equals(language.getKey())
                         && entry.getVersion().equals(language.getVersion())));
   }
+
+  private SerializedChunk chunkWithNulls() {
+    MetaPointer concept = MetaPointer.get("l", "1", "c");
+    MetaPointer property = MetaPointer.get("l", "1", "p");
+    MetaPointer containment = MetaPointer.get("l", "1", "cont");
+    MetaPointer reference = MetaPointer.get("l", "1", "ref");
+    SerializedChunk chunk = new SerializedChunk();
+    chunk.setSerializationFormatVersion("2023.1");
+    chunk.addLanguage(new UsedLanguage("l", "1"));
+    SerializedClassifierInstance root = new SerializedClassifierInstance("root", concept);
+    root.addPropertyValue(new SerializedPropertyValue(property, "root"));
+    root.addContainmentValue(
+        new SerializedContainmentValue(containment, Arrays.asList("child-1", "child-2")));
+    chunk.addClassifierInstance(root);
+    SerializedClassifierInstance child1 = new SerializedClassifierInstance("child-1", concept);
+    child1.setParentNodeID("root");
+    child1.addPropertyValue(new SerializedPropertyValue(property, null));
+    child1.addReferenceValue(
+        new SerializedReferenceValue(
+            reference,
+            Arrays.asList(
+                new SerializedReferenceValue.Entry("root", "root"),
+                new SerializedReferenceValue.Entry(null, "unresolved"),
+                new SerializedReferenceValue.Entry(null, null))));
+    chunk.addClassifierInstance(child1);
+    SerializedClassifierInstance child2 = new SerializedClassifierInstance("child-2", concept);
+    child2.setParentNodeID("root");
+    child2.addPropertyValue(new SerializedPropertyValue(property, ""));
+    chunk.addClassifierInstance(child2);
+    return chunk;
+  }
+
+  @Test
+  public void schemaV2PreservesTheSerializedChunk() {
+    for (boolean idTable : new boolean[] {true, false}) {
+      FlatBuffersSerialization serialization =
+          SerializationProvider.getStandardFlatBuffersSerialization();
+      serialization.setSchemaVersion(FlatBuffersSerialization.SchemaVersion.V2);
+      serialization.setUsingIdTable(idTable);
+      SerializedChunk chunk = chunkWithNulls();
+      byte[] serialized = serialization.serialize(chunk);
+      assertEquals(chunk, serialization.deserializeToSerializationBlock(serialized));
+    }
+  }
+
+  @Test
+  public void schemaV2IsSmallerThanSchemaV1() {
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    SerializedChunk chunk = chunkWithNulls();
+    byte[] v1 = serialization.serialize(chunk);
+    serialization.setSchemaVersion(FlatBuffersSerialization.SchemaVersion.V2);
+    byte[] v2 = serialization.serialize(chunk);
+    assertTrue(v2.length < v1.length);
+  }
+
+  @Test
+  public void chunksOfBothSchemaVersionsCanBeDeserialized() throws IOException {
+    Sum sum1 = new Sum(new IntLiteral(1), new IntLiteral(2));
+    Sum sum2 = new Sum(new IntLiteral(3), new IntLiteral(4));
+    FlatBuffersSerialization v1Serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    FlatBuffersSerialization v2Serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    v2Serialization.setSchemaVersion(FlatBuffersSerialization.SchemaVersion.V2);
+    byte[] v1 = v1Serialization.serializeTreesToByteArray(sum1, sum2);
+    byte[] v2 = v2Serialization.serializeTreesToByteArray(sum1, sum2);
+    assertEquals(
+        v1Serialization.deserializeToSerializationBlock(v1),
+        v2Serialization.deserializeToSerializationBlock(v2));
+
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    prepareDeserializationOfSimpleMath(serialization);
+    assertEquals(serialization.deserializeToNodes(v1), serialization.deserializeToNodes(v2));
+    assertEquals(
+        Arrays.asList(sum1, sum2),
+        serialization.deserializeToNodes(v2).stream()
+            .filter(n -> n instanceof Sum)
+            .collect(Collectors.toList()));
+  }
+
+  @Test(expected = DeserializationException.class)
+  public void schemaV2DeserializeChildrenWithNullID() throws IOException {
+    IntLiteral il1 = new IntLiteral(1, "int_1");
+    IntLiteral il2 = new IntLiteral(2, null);
+    Sum sum1 = new Sum(il1, il2, null);
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    serialization.setSchemaVersion(FlatBuffersSerialization.SchemaVersion.V2);
+    byte[] serialized = serialization.serializeNodesToByteArray(sum1, il1, il2);
+    prepareDeserializationOfSimpleMath(serialization);
+    serialization.deserializeToNodes(serialized);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void schemaV2ChunksCannotBeViewed() {
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    serialization.setSchemaVersion(FlatBuffersSerialization.SchemaVersion.V2);
+    serialization.viewChunk(serialization.serialize(chunkWithNulls()));
+  }
+
+  @Test
+  public void allOutputsProduceTheSameBytes() throws IOException {
+    for (FlatBuffersSerialization.SchemaVersion version :
+        FlatBuffersSerialization.SchemaVersion.values()) {
+      FlatBuffersSerialization serialization =
+          SerializationProvider.getStandardFlatBuffersSerialization();
+      serialization.setSchemaVersion(version);
+      SerializedChunk chunk = chunkWithNulls();
+      byte[] expected = serialization.serialize(chunk);
+
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      serialization.serialize(chunk, outputStream);
+      assertArrayEquals(expected, outputStream.toByteArray());
+
+      ByteArrayOutputStream channelStream = new ByteArrayOutputStream();
+      serialization.serialize(chunk, Channels.newChannel(channelStream));
+      assertArrayEquals(expected, channelStream.toByteArray());
+
+      ByteBuffer buffer = serialization.serializeToByteBuffer(chunk);
+      byte[] fromBuffer = new byte[buffer.remaining()];
+      buffer.get(fromBuffer);
+      assertArrayEquals(expected, fromBuffer);
+      assertEquals(chunk, serialization.deserializeToSerializationBlock(fromBuffer));
+    }
+  }
+
+  @Test
+  public void reusedBuildersProduceTheSameBytes() {
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    Sum sum = new Sum(new IntLiteral(1), new IntLiteral(2));
+    byte[] first = serialization.serializeTreesToByteArray(sum);
+    Sum[] sums = new Sum[1000];
+    for (int i = 0; i < sums.length; i++) {
+      sums[i] = new Sum(new IntLiteral(i), new IntLiteral(i + 1));
+    }
+    serialization.serializeTreesToByteArray(sums);
+    assertArrayEquals(first, serialization.serializeTreesToByteArray(sum));
+    assertArrayEquals(
+        first,
+        SerializationProvider.getStandardFlatBuffersSerialization().serializeTreesToByteArray(sum));
+  }
+
+  @Test
+  public void schemaV1PreservesNullValues() {
+    FlatBuffersSerialization serialization =
+        SerializationProvider.getStandardFlatBuffersSerialization();
+    SerializedChunk chunk = chunkWithNulls();
+    assertEquals(
+        chunk, serialization.deserializeToSerializationBlock(serialization.serialize(chunk)));
+  }
+
+  @Test
+  public void annotatedTreesRoundTripAsWithJson() {
+    Language metaLang = new Language("metaLang", "metaLang", "metaLang", "1");
+    Annotation metaAnn = new Annotation(metaLang, "metaAnn", "metaAnn", "metaAnn");
+    Language l = new Language("l", "l", "l", "1");
+    new Annotation(l, "a1", "a1", "a1");
+    Concept c = new Concept(l, "c", "c", "c");
+    c.addAnnotation(new DynamicAnnotationInstance("metaAnn_1", metaAnn, c));
+    Concept d = new Concept(l, "d", "d", "d");
+    d.addAnnotation(new DynamicAnnotationInstance("metaAnn_2", metaAnn, d));
+    d.addAnnotation(new DynamicAnnotationInstance("metaAnn_3", metaAnn, d));
+
+    JsonSerialization jsonSerialization = SerializationProvider.getStandardJsonSerialization();
+    SerializedChunk expected = jsonSerialization.serializeTreeToSerializationBlock(l);
+
+    for (FlatBuffersSerialization.SchemaVersion version :
+        FlatBuffersSerialization.SchemaVersion.values()) {
+      FlatBuffersSerialization serialization =
+          SerializationProvider.getStandardFlatBuffersSerialization();
+      serialization.setSchemaVersion(version);
+      // Both the direct encoding of the trees and the one going through the SerializedChunk
+      byte[] direct = serialization.serializeTreesToByteArray(l);
+      byte[] viaChunk = serialization.serialize(serialization.serializeTreeToSerializationBlock(l));
+      assertEquals(expected, serialization.deserializeToSerializationBlock(direct));
+      assertEquals(expected, serialization.deserializeToSerializationBlock(viaChunk));
+
+      serialization.registerLanguage(metaLang);
+      serialization.enableDynamicNodes();
+      List<ClassifierInstance<?>> deserialized =
+          serialization.deserializeSerializationBlock(
+              serialization.deserializeToSerializationBlock(direct));
+      Language deserializedLanguage = (Language) deserialized.get(0);
+      assertEquals(
+          expected, jsonSerialization.serializeTreeToSerializationBlock(deserializedLanguage));
+    }
+  }
 }
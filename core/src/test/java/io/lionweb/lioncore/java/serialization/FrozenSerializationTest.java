@@ -0,0 +1,113 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonElement;
+import io.lionweb.lioncore.java.language.Property;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.DynamicStructuredDataTypeInstance;
+import io.lionweb.lioncore.java.model.impl.EnumerationValueImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class FrozenSerializationTest {
+
+  private static MyNodeWithAmount nodeWithAmount(String id, int value) {
+    DynamicStructuredDataTypeInstance decimal =
+        new DynamicStructuredDataTypeInstance(MyNodeWithAmount.DECIMAL);
+    decimal.setFieldValue(MyNodeWithAmount.DECIMAL.getFieldByName("int"), value);
+    decimal.setFieldValue(MyNodeWithAmount.DECIMAL.getFieldByName("frac"), 50);
+    DynamicStructuredDataTypeInstance amount =
+        new DynamicStructuredDataTypeInstance(MyNodeWithAmount.AMOUNT);
+    amount.setFieldValue(MyNodeWithAmount.AMOUNT.getFieldByName("value"), decimal);
+    amount.setFieldValue(
+        MyNodeWithAmount.AMOUNT.getFieldByName("currency"),
+        new EnumerationValueImpl(MyNodeWithAmount.CURRENCY.getLiterals().get(1)));
+    amount.setFieldValue(MyNodeWithAmount.AMOUNT.getFieldByName("digital"), true);
+    MyNodeWithAmount node = new MyNodeWithAmount(id);
+    node.setAmount(amount);
+    return node;
+  }
+
+  @Test
+  public void configurationCannotChangeOnceFrozen() {
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    assertFalse(serialization.isFrozen());
+    serialization.freeze();
+    assertTrue(serialization.isFrozen());
+    assertTrue(serialization.getClassifierResolver().isFrozen());
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> serialization.registerLanguage(MyNodeWithAmount.LANGUAGE));
+    assertThrows(IllegalStateException.class, serialization::enableDynamicNodes);
+    assertThrows(
+        IllegalStateException.class,
+        () -> serialization.setUnavailableParentPolicy(UnavailableNodePolicy.PROXY_NODES));
+    assertThrows(
+        IllegalStateException.class,
+        () -> serialization.getClassifierResolver().registerLanguage(MyNodeWithAmount.LANGUAGE));
+    assertThrows(
+        IllegalStateException.class,
+        () -> serialization.getPrimitiveValuesSerialization().registerSerializer("id", v -> ""));
+    assertThrows(
+        IllegalStateException.class,
+        () -> serialization.getInstantiator().registerCustomDeserializer("id", null));
+    assertThrows(
+        IllegalStateException.class,
+        () -> serialization.getInstanceResolver().add(new DynamicNode("n1", null)));
+  }
+
+  @Test
+  public void frozenSerializationDoesNotRegisterLanguages() {
+    JsonSerialization registering = SerializationProvider.getStandardJsonSerialization();
+    JsonSerialization frozen = SerializationProvider.getStandardJsonSerialization();
+    frozen.freeze();
+
+    // The values of the Enumeration and of the StructuredDataTypes are serialized the same way,
+    // even if the language is not registered
+    MyNodeWithAmount node = nodeWithAmount("n1", 10);
+    assertEquals(
+        registering.serializeTreesToJsonElement(node), frozen.serializeTreesToJsonElement(node));
+    JsonElement json = frozen.serializeTreesToJsonElement(node);
+    assertThrows(RuntimeException.class, () -> frozen.deserializeToNodes(json));
+  }
+
+  @Test
+  public void frozenSerializationCanBeSharedBetweenThreads() throws Exception {
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    serialization.registerLanguage(MyNodeWithAmount.LANGUAGE);
+    serialization.enableDynamicNodes();
+    serialization.freeze();
+    Property amount = MyNodeWithAmount.CONCEPT.getPropertyByName("amount");
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        int value = i;
+        results.add(
+            executor.submit(
+                () -> {
+                  MyNodeWithAmount node = nodeWithAmount("n" + value, value);
+                  JsonElement json = serialization.serializeTreesToJsonElement(node);
+                  List<Node> deserialized = serialization.deserializeToNodes(json);
+                  Node copy = deserialized.get(0);
+                  return deserialized.size() == 1
+                      && node.getAmount().equals(copy.getPropertyValue(amount))
+                      && json.equals(serialization.serializeTreesToJsonElement(copy));
+                }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.language.Annotation;
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.language.Containment;
+import io.lionweb.lioncore.java.language.Language;
+import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.self.LionCore;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests of the serialization writing nodes directly to a stream. */
+public class JsonStreamingSerializationTest extends SerializationTest {
+
+  private String serializeToString(
+      JsonSerialization jsonSerialization,
+      boolean prettyPrinting,
+      JsonSerialization.LanguagesPosition languagesPosition,
+      Node... roots)
+      throws IOException {
+    StringWriter writer = new StringWriter();
+    jsonSerialization.serializeTreesToWriter(writer, prettyPrinting, languagesPosition, roots);
+    return writer.toString();
+  }
+
+  @Test
+  public void prettyOutputIsIdenticalToSerializationToString() throws IOException {
+    JsonSerialization jsonSerialization =
+        SerializationProvider.getStandardJsonSerialization(LionWebVersion.v2023_1);
+    Language lionCore = LionCore.getInstance(LionWebVersion.v2023_1);
+    assertEquals(
+        jsonSerialization.serializeTreesToJsonString(lionCore),
+        serializeToString(
+            jsonSerialization, true, JsonSerialization.LanguagesPosition.BEFORE_NODES, lionCore));
+  }
+
+  @Test
+  public void languagesAfterNodes() throws IOException {
+    JsonSerialization jsonSerialization =
+        SerializationProvider.getStandardJsonSerialization(LionWebVersion.v2023_1);
+    Language lionCore = LionCore.getInstance(LionWebVersion.v2023_1);
+    String json =
+        serializeToString(
+            jsonSerialization, false, JsonSerialization.LanguagesPosition.AFTER_NODES, lionCore);
+    assertFalse(json.contains("\n"));
+
+    JsonObject streamed = JsonParser.parseString(json).getAsJsonObject();
+    assertEquals("languages", streamed.keySet().stream().reduce((first, second) -> second).get());
+    JsonElement expected = jsonSerialization.serializeTreesToJsonElement(lionCore);
+    assertEquals(expected, streamed);
+  }
+
+  @Test
+  public void annotationsAndMultipleRoots() throws IOException {
+    Language l = new Language("l", "l", "l", "1");
+    Annotation a1 = new Annotation(l, "a1", "a1", "a1");
+    Concept c = new Concept(l, "c", "c", "c");
+    c.addFeature(Containment.createMultiple("cs", c).setID("cs").setKey("cs"));
+
+    DynamicNode n1 = new DynamicNode("n1", c);
+    DynamicNode n2 = new DynamicNode("n2", c);
+    DynamicNode n3 = new DynamicNode("n3", c);
+    n1.addChild(c.getContainmentByName("cs"), n2);
+    n1.addChild(c.getContainmentByName("cs"), new ProxyNode("p1"));
+    new DynamicAnnotationInstance("a1_1", a1, n2);
+    DynamicNode other = new DynamicNode("other", c);
+
+    JsonSerialization jsonSerialization =
+        SerializationProvider.getStandardJsonSerialization(LionWebVersion.v2023_1);
+    jsonSerialization.enableDynamicNodes();
+    // n2 is repeated, as a root and as a child of n1
+    Node[] roots = new Node[] {n1, n3, n2, other};
+    for (JsonSerialization.LanguagesPosition languagesPosition :
+        JsonSerialization.LanguagesPosition.values()) {
+      String json = serializeToString(jsonSerialization, true, languagesPosition, roots);
+      assertEquals(
+          jsonSerialization.serializeTreesToJsonElement(roots), JsonParser.parseString(json));
+    }
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    jsonSerialization.serializeTreesToOutputStream(
+        outputStream, false, JsonSerialization.LanguagesPosition.AFTER_NODES, roots);
+    jsonSerialization.setUnavailableChildrenPolicy(UnavailableNodePolicy.PROXY_NODES);
+    List<Node> deserialized =
+        jsonSerialization.deserializeToNodes(new ByteArrayInputStream(outputStream.toByteArray()));
+    assertEquals(4, deserialized.stream().filter(n -> !(n instanceof ProxyNode)).count());
+    assertEquals("n1", deserialized.get(0).getID());
+    assertEquals(2, ClassifierInstanceUtils.getChildren(deserialized.get(0)).size());
+    assertInstancesAreEquals(n2, deserialized.get(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void proxyNodesCannotBeSerialized() throws IOException {
+    JsonSerialization jsonSerialization =
+        SerializationProvider.getStandardJsonSerialization(LionWebVersion.v2023_1);
+    serializeToString(
+        jsonSerialization,
+        true,
+        JsonSerialization.LanguagesPosition.BEFORE_NODES,
+        new ProxyNode("foo"));
+  }
+}
@@ -0,0 +1,231 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonElement;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class LazyChunkTest {
+
+  private final Language language = new Language("MyLanguage", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "C", "c-id", "c-key");
+  private final Annotation comment =
+      new Annotation(language, "Comment", "comment-id", "comment-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Property flag = Property.createRequired("flag", LionCoreBuiltins.getBoolean());
+  private final Property text = Property.createOptional("text", LionCoreBuiltins.getString());
+  private final Containment children = Containment.createMultiple("children", concept);
+  private final Reference ref = Reference.createMultiple("ref", concept);
+  private final Containment body = Containment.createMultiple("body", concept);
+
+  public LazyChunkTest() {
+    name.setID("name-id").setKey("name-key");
+    flag.setID("flag-id").setKey("flag-key");
+    text.setID("text-id").setKey("text-key");
+    children.setID("children-id").setKey("children-key");
+    ref.setID("ref-id").setKey("ref-key");
+    body.setID("body-id").setKey("body-key");
+    concept.addFeature(name);
+    concept.addFeature(flag);
+    concept.addFeature(children);
+    concept.addFeature(ref);
+    comment.setAnnotates(concept);
+    comment.addFeature(text);
+    comment.addFeature(body);
+  }
+
+  private JsonElement serializeExample() {
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "the root");
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.setPropertyValue(name, "first");
+    n1.setPropertyValue(flag, true);
+    DynamicNode n2 = new DynamicNode("n2", concept);
+    n2.setPropertyValue(name, "second");
+    DynamicNode n3 = new DynamicNode("n3", concept);
+    n3.setPropertyValue(name, "third");
+    root.addChild(children, n1);
+    root.addChild(children, n2);
+    n1.addChild(children, n3);
+    n3.addReferenceValue(ref, new ReferenceValue(n2, "second"));
+    n3.addReferenceValue(ref, new ReferenceValue(n1, "first"));
+    DynamicAnnotationInstance note = new DynamicAnnotationInstance("a1", comment, n3);
+    note.setPropertyValue(text, "a note");
+    n3.addAnnotation(note);
+    return SerializationProvider.getStandardJsonSerialization().serializeTreesToJsonElement(root);
+  }
+
+  private JsonSerialization serialization() {
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  @Test
+  public void valuesAreDecodedOnAccessAndCached() {
+    LazyChunk chunk = serialization().deserializeLazily(serializeExample());
+
+    assertEquals(5, chunk.size());
+    LazyNode root = chunk.getNodeByID("root");
+    LazyNode n1 = chunk.getNodeByID("n1");
+    LazyNode n2 = chunk.getNodeByID("n2");
+    LazyNode n3 = chunk.getNodeByID("n3");
+    assertNull(chunk.getNodeByID("n4"));
+    assertNull(chunk.getNodeByID("a1"));
+    assertEquals(Collections.singletonList(root), chunk.getRoots());
+
+    assertSame(concept, root.getClassifier());
+    assertNull(root.getParent());
+    assertNull(root.getContainmentFeature());
+    assertEquals("the root", root.getPropertyValue(name));
+    assertEquals(false, root.getPropertyValue(flag));
+    assertEquals(true, n1.getPropertyValue(flag));
+    assertEquals(Arrays.asList(n1, n2), root.getChildren(children));
+    assertSame(root.getChildren(children), root.getChildren(children));
+
+    assertSame(n1, n3.getParent());
+    assertSame(children, n3.getContainmentFeature());
+    assertEquals(
+        Arrays.asList(new ReferenceValue(n2, "second"), new ReferenceValue(n1, "first")),
+        n3.getReferenceValues(ref));
+    assertEquals(Arrays.asList(root, n1, n3, n2), root.thisAndAllDescendants());
+
+    AnnotationInstance note = n3.getAnnotations().get(0);
+    assertTrue(note instanceof LazyAnnotationInstance);
+    assertSame(chunk.getInstanceByID("a1"), note);
+    assertSame(comment, note.getAnnotationDefinition());
+    assertSame(n3, note.getParent());
+    assertEquals("a note", note.getPropertyValue(text));
+    assertEquals(Collections.singletonList(note), n3.getAnnotations(comment));
+  }
+
+  @Test
+  public void lazyNodesCannotBeModified() {
+    LazyNode root = serialization().deserializeLazily(serializeExample()).getNodeByID("root");
+    assertThrows(UnsupportedOperationException.class, () -> root.setPropertyValue(name, "x"));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> root.addChild(children, new DynamicNode("n5", concept)));
+    assertThrows(UnsupportedOperationException.class, () -> root.removeChild(children, 0));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> root.addReferenceValue(ref, new ReferenceValue(null, "x")));
+  }
+
+  @Test
+  public void subtreeCanBeMaterialized() {
+    LazyChunk chunk = serialization().deserializeLazily(serializeExample());
+    LazyNode n1 = chunk.getNodeByID("n1");
+
+    Node materialized = n1.materialize();
+    assertTrue(materialized instanceof DynamicNode);
+    assertNotSame(materialized, n1.materialize());
+    assertEquals("n1", materialized.getID());
+    assertNull(materialized.getParent());
+    assertEquals(true, materialized.getPropertyValue(flag));
+
+    Node n3 = materialized.getChildren(children).get(0);
+    assertTrue(n3 instanceof DynamicNode);
+    assertSame(materialized, n3.getParent());
+    assertEquals("third", n3.getPropertyValue(name));
+    // References within the subtree point to the materialized nodes, the others to the lazy ones
+    assertSame(chunk.getNodeByID("n2"), n3.getReferenceValues(ref).get(0).getReferred());
+    assertSame(materialized, n3.getReferenceValues(ref).get(1).getReferred());
+    AnnotationInstance note = n3.getAnnotations().get(0);
+    assertTrue(note instanceof DynamicAnnotationInstance);
+    assertEquals("a note", note.getPropertyValue(text));
+
+    // Materialized nodes can be modified
+    n3.setPropertyValue(name, "changed");
+    assertEquals("changed", n3.getPropertyValue(name));
+    assertEquals("third", chunk.getNodeByID("n3").getPropertyValue(name));
+  }
+
+  @Test
+  public void materializingUsesTheInstantiator() {
+    JsonSerialization serialization = serialization();
+    serialization
+        .getInstantiator()
+        .registerCustomDeserializer(
+            concept.getID(),
+            (classifier, serializedNode, deserializedNodesByID, propertiesValues) ->
+                new DynamicNode(serializedNode.getID() + "-custom", (Concept) classifier));
+    LazyChunk chunk = serialization.deserializeLazily(serializeExample());
+
+    assertEquals("n3-custom", chunk.getNodeByID("n3").materialize().getID());
+  }
+
+  @Test
+  public void unavailableNodesFollowThePolicies() {
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.setPropertyValue(name, "first");
+    n1.addReferenceValue(ref, new ReferenceValue(new ProxyNode("external"), "external"));
+    n1.addChild(children, new ProxyNode("missing-child"));
+    n1.setParent(new ProxyNode("outside"));
+    JsonElement json =
+        SerializationProvider.getStandardJsonSerialization().serializeNodesToJsonElement(n1);
+
+    JsonSerialization serialization = serialization();
+    LazyNode lazy = serialization.deserializeLazily(json).getNodeByID("n1");
+    assertThrows(DeserializationException.class, () -> lazy.getReferenceValues(ref));
+    assertThrows(DeserializationException.class, lazy::getParent);
+    assertThrows(DeserializationException.class, () -> lazy.getChildren(children));
+    assertEquals("first", lazy.getPropertyValue(name));
+
+    serialization = serialization();
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.PROXY_NODES);
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    serialization.setUnavailableChildrenPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    LazyNode tolerant = serialization.deserializeLazily(json).getNodeByID("n1");
+    Node target = tolerant.getReferenceValues(ref).get(0).getReferred();
+    assertTrue(target instanceof ProxyNode);
+    assertEquals("external", target.getID());
+    assertNull(tolerant.getParent());
+    assertEquals(Collections.emptyList(), tolerant.getChildren(children));
+  }
+
+  @Test
+  public void nodesCanBeContainedInAnnotations() {
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.addAnnotation(new DynamicAnnotationInstance("a1", comment, n1));
+    JsonSerialization standard = SerializationProvider.getStandardJsonSerialization();
+    SerializedChunk chunk = standard.serializeTreeToSerializationBlock(n1);
+    // DynamicNodes cannot have an annotation instance as parent, so the child is added to the chunk
+    SerializedClassifierInstance inner =
+        standard
+            .serializeNodesToSerializationBlock(new DynamicNode("inner", concept))
+            .getInstanceByID("inner");
+    inner.setParentNodeID("a1");
+    chunk.addClassifierInstance(inner);
+    chunk.getInstanceByID("a1").addChildren(MetaPointer.from(body), Arrays.asList("inner"));
+
+    LazyChunk lazy = serialization().deserializeLazily(chunk);
+    LazyNode lazyInner = lazy.getNodeByID("inner");
+    LazyAnnotationInstance note = (LazyAnnotationInstance) lazy.getInstanceByID("a1");
+    assertEquals(Collections.singletonList(lazy.getNodeByID("n1")), lazy.getRoots());
+    assertEquals(Collections.singletonList(lazyInner), note.getChildren(body));
+    // The parent is available, but it is not a Node
+    assertNull(lazyInner.getParent());
+    assertSame(body, lazyInner.getContainmentFeature());
+    assertEquals(0, lazyInner.getIndexInParent());
+
+    JsonSerialization serialization = serialization();
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.PROXY_NODES);
+    Node parent = serialization.deserializeLazily(chunk).getNodeByID("inner").getParent();
+    assertTrue(parent instanceof ProxyNode);
+    assertEquals("a1", parent.getID());
+  }
+}
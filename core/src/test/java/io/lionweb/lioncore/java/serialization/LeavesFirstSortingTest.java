@@ -0,0 +1,200 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.language.Containment;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Nodes are instantiated starting from the leaves, so that children are available when their parent
+ * is instantiated. These tests verify that ordering, also on large trees.
+ */
+public class LeavesFirstSortingTest {
+
+  private static final MetaPointer CONCEPT = MetaPointer.from(MyNodeWithSelfContainment.CONCEPT);
+  private static final MetaPointer ANOTHER =
+      MetaPointer.from(
+          (Containment) MyNodeWithSelfContainment.CONCEPT.getContainmentByName("another"));
+
+  private JsonSerialization prepareSerialization(List<String> instantiationOrder) {
+    JsonSerialization jsonSerialization =
+        SerializationProvider.getStandardJsonSerialization(LionWebVersion.v2023_1);
+    jsonSerialization.registerLanguage(MyNodeWithSelfContainment.LANGUAGE);
+    jsonSerialization.enableDynamicNodes();
+    jsonSerialization
+        .getInstantiator()
+        .registerCustomDeserializer(
+            MyNodeWithSelfContainment.CONCEPT.getID(),
+            (classifier, serializedNode, deserializedNodesByID, propertiesValues) -> {
+              serializedNode
+                  .getChildren()
+                  .forEach(
+                      childID ->
+                          assertTrue(
+                              "Child " + childID + " should be instantiated before its parent",
+                              deserializedNodesByID.containsKey(childID)));
+              instantiationOrder.add(serializedNode.getID());
+              return new DynamicNode(serializedNode.getID(), MyNodeWithSelfContainment.CONCEPT);
+            });
+    return jsonSerialization;
+  }
+
+  /** Build a chain of nodes, each one contained in the previous one. */
+  private List<SerializedClassifierInstance> chain(String prefix, String rootParentID, int size) {
+    List<SerializedClassifierInstance> nodes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      SerializedClassifierInstance node = new SerializedClassifierInstance(prefix + i, CONCEPT);
+      node.setParentNodeID(i == 0 ? rootParentID : prefix + (i - 1));
+      if (i < size - 1) {
+        node.addChildren(ANOTHER, Collections.singletonList(prefix + (i + 1)));
+      } else {
+        node.addChildren(ANOTHER, Collections.emptyList());
+      }
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  private SerializedChunk chunk(List<SerializedClassifierInstance> nodes) {
+    SerializedChunk chunk = new SerializedChunk();
+    chunk.setSerializationFormatVersion(LionWebVersion.v2023_1.getVersionString());
+    nodes.forEach(chunk::addClassifierInstance);
+    return chunk;
+  }
+
+  @Test
+  public void childrenAreInstantiatedBeforeParentsWhenRootComesFirst() {
+    List<String> instantiationOrder = new ArrayList<>();
+    List<SerializedClassifierInstance> nodes = chain("n", null, 10);
+    List<ClassifierInstance<?>> deserialized =
+        prepareSerialization(instantiationOrder).deserializeSerializationBlock(chunk(nodes));
+
+    assertEquals(10, deserialized.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals("n" + i, deserialized.get(i).getID());
+      assertEquals("n" + (9 - i), instantiationOrder.get(i));
+    }
+    assertEquals(deserialized.get(0), ((Node) deserialized.get(1)).getParent());
+  }
+
+  @Test
+  public void childrenAreInstantiatedBeforeParentsWhenLeavesComeFirst() {
+    List<String> instantiationOrder = new ArrayList<>();
+    List<SerializedClassifierInstance> nodes = chain("n", null, 10);
+    Collections.reverse(nodes);
+    List<ClassifierInstance<?>> deserialized =
+        prepareSerialization(instantiationOrder).deserializeSerializationBlock(chunk(nodes));
+
+    assertEquals(10, deserialized.size());
+    // The result respects the original order
+    for (int i = 0; i < 10; i++) {
+      assertEquals("n" + (9 - i), deserialized.get(i).getID());
+      assertEquals("n" + (9 - i), instantiationOrder.get(i));
+    }
+  }
+
+  @Test
+  public void severalRootsAreAllSorted() {
+    List<String> instantiationOrder = new ArrayList<>();
+    List<SerializedClassifierInstance> nodes = new ArrayList<>();
+    List<SerializedClassifierInstance> a = chain("a", null, 5);
+    List<SerializedClassifierInstance> b = chain("b", null, 5);
+    for (int i = 0; i < 5; i++) {
+      nodes.add(b.get(4 - i));
+      nodes.add(a.get(i));
+    }
+    List<ClassifierInstance<?>> deserialized =
+        prepareSerialization(instantiationOrder).deserializeSerializationBlock(chunk(nodes));
+    assertEquals(10, deserialized.size());
+    assertEquals(10, new HashSet<>(instantiationOrder).size());
+  }
+
+  @Test
+  public void unknownParentsAreTreatedAsRootsWithNullReferencesPolicy() {
+    List<String> instantiationOrder = new ArrayList<>();
+    JsonSerialization jsonSerialization = prepareSerialization(instantiationOrder);
+    jsonSerialization.setUnavailableParentPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    List<SerializedClassifierInstance> nodes = chain("n", "missing", 5);
+    List<ClassifierInstance<?>> deserialized =
+        jsonSerialization.deserializeSerializationBlock(chunk(nodes));
+
+    assertEquals(5, deserialized.size());
+    assertEquals(5, instantiationOrder.size());
+    assertNull(((Node) deserialized.get(0)).getParent());
+  }
+
+  @Test
+  public void unknownParentsAreProxiedWithProxyNodesPolicy() {
+    List<String> instantiationOrder = new ArrayList<>();
+    JsonSerialization jsonSerialization = prepareSerialization(instantiationOrder);
+    jsonSerialization.setUnavailableParentPolicy(UnavailableNodePolicy.PROXY_NODES);
+    List<SerializedClassifierInstance> nodes = new ArrayList<>();
+    nodes.addAll(chain("a", "missing-1", 3));
+    nodes.addAll(chain("b", "missing-2", 3));
+    List<ClassifierInstance<?>> deserialized =
+        jsonSerialization.deserializeSerializationBlock(chunk(nodes));
+
+    assertEquals(8, deserialized.size());
+    assertEquals(6, instantiationOrder.size());
+    assertEquals(new ProxyNode("missing-1"), ((Node) deserialized.get(0)).getParent());
+    assertEquals(new ProxyNode("missing-2"), ((Node) deserialized.get(3)).getParent());
+    Set<String> proxyIDs = new HashSet<>();
+    proxyIDs.add(deserialized.get(6).getID());
+    proxyIDs.add(deserialized.get(7).getID());
+    assertEquals(new HashSet<>(Arrays.asList("missing-1", "missing-2")), proxyIDs);
+  }
+
+  @Test
+  public void noRootIsReported() {
+    List<SerializedClassifierInstance> nodes = chain("n", "n2", 3);
+    DeserializationException e =
+        assertThrows(
+            DeserializationException.class,
+            () ->
+                prepareSerialization(new ArrayList<>())
+                    .deserializeSerializationBlock(chunk(nodes)));
+    assertTrue(e.getMessage().contains("No root found"));
+  }
+
+  @Test
+  public void containmentLoopIsReported() {
+    List<SerializedClassifierInstance> nodes = new ArrayList<>();
+    nodes.addAll(chain("a", null, 3));
+    nodes.addAll(chain("b", "b2", 3));
+    DeserializationException e =
+        assertThrows(
+            DeserializationException.class,
+            () ->
+                prepareSerialization(new ArrayList<>())
+                    .deserializeSerializationBlock(chunk(nodes)));
+    assertTrue(e.getMessage().endsWith("Probably there is a containment loop"));
+  }
+
+  @Test(timeout = 30_000)
+  public void deepTreeIsSortedInLinearTime() {
+    // With a quadratic sorting this would take a very long time
+    int size = 200_000;
+    List<String> instantiationOrder = new ArrayList<>(size);
+    List<SerializedClassifierInstance> nodes = chain("n", null, size);
+    Collections.reverse(nodes);
+    List<ClassifierInstance<?>> deserialized =
+        prepareSerialization(instantiationOrder).deserializeSerializationBlock(chunk(nodes));
+    assertEquals(size, deserialized.size());
+    assertEquals("n" + (size - 1), instantiationOrder.get(0));
+    assertEquals("n0", instantiationOrder.get(size - 1));
+  }
+}
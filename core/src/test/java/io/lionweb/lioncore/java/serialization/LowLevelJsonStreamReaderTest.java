@@ -0,0 +1,215 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonParser;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import io.lionweb.lioncore.java.serialization.data.UsedLanguage;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class LowLevelJsonStreamReaderTest {
+
+  private void assertSameAsTreeBasedDeserialization(String path) {
+    InputStream treeIs = this.getClass().getResourceAsStream(path);
+    SerializedChunk expected =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(
+                JsonParser.parseReader(new InputStreamReader(treeIs, StandardCharsets.UTF_8)));
+    InputStream streamIs = this.getClass().getResourceAsStream(path);
+    SerializedChunk actual =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(new InputStreamReader(streamIs, StandardCharsets.UTF_8));
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void sameResultAsTreeBasedDeserialization() {
+    Arrays.asList(
+            "/serialization/lioncore.json",
+            "/serialization/library-language.json",
+            "/serialization/bobslibrary.json",
+            "/serialization/langeng-library.json",
+            "/serialization/TestLang-language.json",
+            "/serialization/todosWithMultipleProxies.json",
+            "/serialization/partialTree.json",
+            "/properties-example/starlasu.lmm.json")
+        .forEach(this::assertSameAsTreeBasedDeserialization);
+  }
+
+  @Test
+  public void eachIDIsReadAsASingleString() {
+    String path = "/serialization/bobslibrary.json";
+    InputStream treeIs = this.getClass().getResourceAsStream(path);
+    InputStream streamIs = this.getClass().getResourceAsStream(path);
+    for (SerializedChunk chunk :
+        Arrays.asList(
+            new LowLevelJsonSerialization()
+                .deserializeSerializationBlock(
+                    JsonParser.parseReader(new InputStreamReader(treeIs, StandardCharsets.UTF_8))),
+            new LowLevelJsonSerialization()
+                .deserializeSerializationBlock(
+                    new InputStreamReader(streamIs, StandardCharsets.UTF_8)))) {
+      for (SerializedClassifierInstance instance : chunk.getClassifierInstances()) {
+        for (String childID : instance.getChildren()) {
+          assertSame(chunk.getInstanceByID(childID).getID(), childID);
+          assertSame(instance.getID(), chunk.getInstanceByID(childID).getParentNodeID());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void classifierInstancesAreProducedOneAtATime() {
+    String json =
+        "{\n"
+            + "  \"serializationFormatVersion\": \"2023.1\",\n"
+            + "  \"nodes\": [\n"
+            + "    {\"id\": \"a\",\n"
+            + "     \"classifier\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"c\"},\n"
+            + "     \"properties\": [],\n"
+            + "     \"containments\": [{\n"
+            + "       \"containment\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"d\"},\n"
+            + "       \"children\": [\"b\"]}],\n"
+            + "     \"references\": [], \"annotations\": [], \"parent\": null},\n"
+            + "    {\"id\": \"b\",\n"
+            + "     \"classifier\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"c\"},\n"
+            + "     \"properties\": [{\n"
+            + "       \"property\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"p\"},\n"
+            + "       \"value\": \"v\"}],\n"
+            + "     \"containments\": [],\n"
+            + "     \"references\": [{\n"
+            + "       \"reference\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"r\"},\n"
+            + "       \"targets\": [{\"resolveInfo\": \"ri\", \"reference\": \"a\"}]}],\n"
+            + "     \"annotations\": [], \"parent\": \"a\"}\n"
+            + "  ],\n"
+            + "  \"languages\": [{\"key\": \"l\", \"version\": \"1\"}]\n"
+            + "}";
+    LowLevelJsonStreamReader reader = new LowLevelJsonStreamReader(new StringReader(json));
+    assertTrue(reader.hasNext());
+    assertEquals("2023.1", reader.getSerializationFormatVersion());
+    // Languages come after the nodes, so they have not been read yet
+    assertEquals(Collections.emptyList(), reader.getLanguages());
+
+    SerializedClassifierInstance a = reader.next();
+    assertEquals("a", a.getID());
+    assertEquals(Arrays.asList("b"), a.getChildren());
+    assertNull(a.getParentNodeID());
+
+    assertTrue(reader.hasNext());
+    SerializedClassifierInstance b = reader.next();
+    assertEquals("b", b.getID());
+    assertEquals("a", b.getParentNodeID());
+    assertEquals(1, b.getProperties().size());
+    assertEquals("v", b.getProperties().get(0).getValue());
+    assertEquals("a", b.getReferences().get(0).getValue().get(0).getReference());
+    assertEquals("ri", b.getReferences().get(0).getValue().get(0).getResolveInfo());
+
+    assertFalse(reader.hasNext());
+    assertEquals(Arrays.asList(new UsedLanguage("l", "1")), reader.getLanguages());
+  }
+
+  @Test
+  public void childrenTakePrecedenceOverContainments() {
+    String json =
+        "{\n"
+            + "  \"serializationFormatVersion\": \"2023.1\",\n"
+            + "  \"languages\": [],\n"
+            + "  \"nodes\": [\n"
+            + "    {\"id\": \"a\",\n"
+            + "     \"classifier\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"c\"},\n"
+            + "     \"properties\": [],\n"
+            + "     \"containments\": [{\n"
+            + "       \"containment\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"d\"},\n"
+            + "       \"children\": [\"b\"]}],\n"
+            + "     \"children\": [{\n"
+            + "       \"containment\": {\"language\": \"l\", \"version\": \"1\", \"key\": \"d\"},\n"
+            + "       \"children\": [\"c\"]}],\n"
+            + "     \"references\": [], \"annotations\": [], \"parent\": null}\n"
+            + "  ]\n"
+            + "}";
+    SerializedChunk expected =
+        new LowLevelJsonSerialization().deserializeSerializationBlock(JsonParser.parseString(json));
+    SerializedChunk actual =
+        new LowLevelJsonSerialization().deserializeSerializationBlock(new StringReader(json));
+
+    assertEquals(Arrays.asList("c"), actual.getInstanceByID("a").getChildren());
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void unexpectedTopLevelKey() {
+    String json =
+        "{\n"
+            + "  \"serializationFormatVersion\": \"1\",\n"
+            + "  \"languages\": [],\n"
+            + "  \"info\": \"should not be here\",\n"
+            + "  \"nodes\": []\n"
+            + "}";
+    RuntimeException e =
+        assertThrows(
+            RuntimeException.class,
+            () -> new LowLevelJsonStreamReader(new StringReader(json)).hasNext());
+    assertTrue(e.getMessage().startsWith("Extra keys found: [info]"));
+  }
+
+  @Test
+  public void unexpectedLanguageKey() {
+    String json =
+        "{\n"
+            + "  \"serializationFormatVersion\": \"1\",\n"
+            + "  \"languages\": [{\"key\": \"l\", \"version\": \"1\", \"name\": \"L\"}],\n"
+            + "  \"nodes\": []\n"
+            + "}";
+    assertThrows(
+        RuntimeException.class,
+        () -> new LowLevelJsonStreamReader(new StringReader(json)).hasNext());
+  }
+
+  @Test
+  public void serializationFormatVersionMustBeAString() {
+    String json =
+        "{\n"
+            + "  \"serializationFormatVersion\": 1,\n"
+            + "  \"languages\": [],\n"
+            + "  \"nodes\": []\n"
+            + "}";
+    RuntimeException e =
+        assertThrows(
+            RuntimeException.class,
+            () -> new LowLevelJsonStreamReader(new StringReader(json)).hasNext());
+    assertEquals(
+        "serializationFormatVersion should be present and be a string value", e.getMessage());
+  }
+
+  @Test
+  public void missingNodes() {
+    String json =
+        "{\n" + "  \"serializationFormatVersion\": \"1\",\n" + "  \"languages\": []\n" + "}";
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new LowLevelJsonStreamReader(new StringReader(json)).hasNext());
+    assertEquals("nodes not specified", e.getMessage());
+  }
+
+  @Test
+  public void childWithNullID() {
+    String json =
+        "{\n"
+            + "  \"serializationFormatVersion\": \"1\",\n"
+            + "  \"languages\": [],\n"
+            + "  \"nodes\": [{\"id\": \"a\", \"properties\": [], \"references\": [],\n"
+            + "     \"containments\": [{\"containment\": null, \"children\": [null]}]}]\n"
+            + "}";
+    LowLevelJsonStreamReader reader = new LowLevelJsonStreamReader(new StringReader(json));
+    assertTrue(reader.hasNext());
+    assertThrows(DeserializationException.class, reader::next);
+  }
+}
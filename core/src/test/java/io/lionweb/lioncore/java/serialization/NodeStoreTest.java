@@ -0,0 +1,266 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonElement;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class NodeStoreTest {
+
+  private final Language language = new Language("MyLanguage", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "C", "c-id", "c-key");
+  private final Concept other = new Concept(language, "D", "d-id", "d-key");
+  private final Annotation comment =
+      new Annotation(language, "Comment", "comment-id", "comment-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Property flag = Property.createRequired("flag", LionCoreBuiltins.getBoolean());
+  private final Property size = Property.createOptional("size", LionCoreBuiltins.getInteger());
+  private final Property text = Property.createOptional("text", LionCoreBuiltins.getString());
+  private final Containment children = Containment.createMultiple("children", concept);
+  private final Containment others = Containment.createMultiple("others", other);
+  private final Reference ref = Reference.createMultiple("ref", concept);
+
+  public NodeStoreTest() {
+    name.setID("name-id").setKey("name-key");
+    flag.setID("flag-id").setKey("flag-key");
+    size.setID("size-id").setKey("size-key");
+    text.setID("text-id").setKey("text-key");
+    children.setID("children-id").setKey("children-key");
+    others.setID("others-id").setKey("others-key");
+    ref.setID("ref-id").setKey("ref-key");
+    concept.addFeature(name);
+    concept.addFeature(flag);
+    concept.addFeature(size);
+    concept.addFeature(children);
+    concept.addFeature(others);
+    concept.addFeature(ref);
+    comment.setAnnotates(concept);
+    comment.addFeature(text);
+  }
+
+  private DynamicNode example() {
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "the root");
+    root.setPropertyValue(size, 3);
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.setPropertyValue(name, "first");
+    n1.setPropertyValue(flag, true);
+    n1.setPropertyValue(size, -7);
+    DynamicNode n2 = new DynamicNode("n2", concept);
+    n2.setPropertyValue(name, "second");
+    DynamicNode n3 = new DynamicNode("n3", concept);
+    n3.setPropertyValue(name, "third");
+    root.addChild(children, n1);
+    root.addChild(others, new DynamicNode("d1", other));
+    root.addChild(children, n2);
+    n1.addChild(children, n3);
+    n3.addReferenceValue(ref, new ReferenceValue(n2, "second"));
+    n3.addReferenceValue(ref, new ReferenceValue(n1, "first"));
+    DynamicAnnotationInstance note = new DynamicAnnotationInstance("a1", comment, n3);
+    note.setPropertyValue(text, "a note");
+    n3.addAnnotation(note);
+    return root;
+  }
+
+  private <S extends AbstractSerialization> S configure(S serialization) {
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  private NodeStore loadExample() {
+    JsonElement json =
+        SerializationProvider.getStandardJsonSerialization().serializeTreesToJsonElement(example());
+    return configure(SerializationProvider.getStandardJsonSerialization())
+        .deserializeToNodeStore(json);
+  }
+
+  @Test
+  public void valuesAreReadFromTheStore() {
+    NodeStore store = loadExample();
+
+    assertEquals(6, store.size());
+    StoredNode root = store.getNodeByID("root");
+    StoredNode n1 = store.getNodeByID("n1");
+    StoredNode n2 = store.getNodeByID("n2");
+    StoredNode n3 = store.getNodeByID("n3");
+    StoredNode d1 = store.getNodeByID("d1");
+    assertNull(store.getNodeByID("n4"));
+    assertNull(store.getNodeByID("a1"));
+    assertEquals(-1, store.getHandle("n4"));
+    assertEquals(Collections.singletonList(root), store.getRoots());
+
+    assertSame(concept, root.getClassifier());
+    assertNull(root.getParent());
+    assertNull(root.getContainmentFeature());
+    assertEquals("the root", root.getPropertyValue(name));
+    assertEquals(false, root.getPropertyValue(flag));
+    assertEquals(3, root.getPropertyValue(size));
+    assertEquals(true, n1.getPropertyValue(flag));
+    assertNull(n2.getPropertyValue(size));
+    assertEquals(Arrays.asList(n1, n2), root.getChildren(children));
+    assertEquals(Collections.singletonList(d1), root.getChildren(others));
+    assertEquals(new StoredNode(store, n1.getHandle()), n1);
+
+    assertEquals(n1, n3.getParent());
+    assertSame(children, n3.getContainmentFeature());
+    assertSame(others, d1.getContainmentFeature());
+    assertEquals(0, n3.getIndexInParent());
+    assertEquals(1, n2.getIndexInParent());
+    assertEquals(
+        Arrays.asList(new ReferenceValue(n2, "second"), new ReferenceValue(n1, "first")),
+        n3.getReferenceValues(ref));
+    assertEquals(Arrays.asList(root, n1, n3, n2, d1), root.thisAndAllDescendants());
+
+    AnnotationInstance note = n3.getAnnotations().get(0);
+    assertTrue(note instanceof StoredAnnotationInstance);
+    assertEquals(store.getInstanceByID("a1"), note);
+    assertSame(comment, note.getAnnotationDefinition());
+    assertEquals(n3, note.getParent());
+    assertEquals("a note", note.getPropertyValue(text));
+    assertEquals(Collections.singletonList(note), n3.getAnnotations(comment));
+    assertNull(store.getContainment(((StoredAnnotationInstance) note).getHandle()));
+  }
+
+  @Test
+  public void instancesCanBeScannedByClassifier() {
+    NodeStore store = loadExample();
+
+    List<String> ids = new ArrayList<>();
+    store.forEachInstance(concept, handle -> ids.add(store.getID(handle)));
+    assertEquals(Arrays.asList("root", "n1", "n3", "n2"), ids);
+
+    NodeStore.ClassifierTable table = store.getClassifierTable(concept);
+    assertSame(concept, table.getClassifier());
+    assertEquals(4, table.size());
+    PropertyColumn.IntColumn sizes = (PropertyColumn.IntColumn) table.getColumn(size);
+    PropertyColumn.BooleanColumn flags = (PropertyColumn.BooleanColumn) table.getColumn(flag);
+    int total = 0;
+    int flagged = 0;
+    for (int row = 0; row < table.size(); row++) {
+      total += sizes.getInt(row);
+      if (flags.getBoolean(row)) {
+        flagged++;
+      }
+    }
+    assertEquals(-4, total);
+    assertEquals(1, flagged);
+    assertTrue(sizes.isNull(3));
+    assertEquals("third", table.getColumn(name).get(2));
+    assertEquals(store.getHandle("n3"), table.getNode(2));
+
+    assertEquals(1, store.getClassifierTable(other).size());
+    assertEquals(1, store.getClassifierTable(comment).size());
+    assertEquals(3, store.getClassifierTables().size());
+
+    int root = store.getHandle("root");
+    int[] expected = {store.getHandle("n1"), store.getHandle("n2"), store.getHandle("d1")};
+    assertArrayEquals(expected, store.getChildren(root));
+    assertArrayEquals(new int[] {store.getHandle("d1")}, store.getChildren(root, others));
+    assertEquals(root, store.getParent(store.getHandle("n2")));
+    assertEquals(-1, store.getParent(root));
+    assertThrows(IllegalArgumentException.class, () -> table.getColumn(text));
+  }
+
+  @Test
+  public void storesCanBeLoadedFromBinaryFormats() throws IOException {
+    DynamicNode root = example();
+    byte[] protoBuf =
+        SerializationProvider.getStandardProtoBufSerialization().serializeTreesToByteArray(root);
+    FlatBuffersSerialization v2 = SerializationProvider.getStandardFlatBuffersSerialization();
+    v2.setSchemaVersion(FlatBuffersSerialization.SchemaVersion.V2);
+    byte[] flatBuffersV1 =
+        SerializationProvider.getStandardFlatBuffersSerialization().serializeTreesToByteArray(root);
+    byte[] flatBuffersV2 = v2.serializeTreesToByteArray(root);
+
+    List<NodeStore> stores =
+        Arrays.asList(
+            configure(SerializationProvider.getStandardProtoBufSerialization())
+                .deserializeToNodeStore(protoBuf),
+            configure(SerializationProvider.getStandardFlatBuffersSerialization())
+                .deserializeToNodeStore(flatBuffersV1),
+            configure(SerializationProvider.getStandardFlatBuffersSerialization())
+                .deserializeToNodeStore(flatBuffersV2));
+    for (NodeStore store : stores) {
+      assertEquals(6, store.size());
+      StoredNode n3 = store.getNodeByID("n3");
+      assertEquals("third", n3.getPropertyValue(name));
+      assertEquals(-7, n3.getParent().getPropertyValue(size));
+      assertEquals(store.getNodeByID("n2"), n3.getReferenceValues(ref).get(0).getReferred());
+      assertEquals("a note", n3.getAnnotations().get(0).getPropertyValue(text));
+      assertEquals(
+          Arrays.asList("root", "n1", "n3", "n2", "d1"),
+          store.getRoots().get(0).thisAndAllDescendants().stream()
+              .map(Node::getID)
+              .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void storedNodesCannotBeModified() {
+    StoredNode root = loadExample().getNodeByID("root");
+    assertThrows(UnsupportedOperationException.class, () -> root.setPropertyValue(name, "x"));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> root.addChild(children, new DynamicNode("n5", concept)));
+    assertThrows(UnsupportedOperationException.class, () -> root.removeChild(children, 0));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> root.addReferenceValue(ref, new ReferenceValue(null, "x")));
+  }
+
+  @Test
+  public void unavailableNodesFollowThePolicies() {
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.setPropertyValue(name, "first");
+    n1.addReferenceValue(ref, new ReferenceValue(new ProxyNode("external"), "external"));
+    n1.addChild(children, new ProxyNode("missing-child"));
+    n1.setParent(new ProxyNode("outside"));
+    JsonElement json =
+        SerializationProvider.getStandardJsonSerialization().serializeNodesToJsonElement(n1);
+
+    JsonSerialization serialization =
+        configure(SerializationProvider.getStandardJsonSerialization());
+    StoredNode stored = serialization.deserializeToNodeStore(json).getNodeByID("n1");
+    assertThrows(DeserializationException.class, () -> stored.getReferenceValues(ref));
+    assertThrows(DeserializationException.class, stored::getParent);
+    assertThrows(DeserializationException.class, () -> stored.getChildren(children));
+    assertEquals("first", stored.getPropertyValue(name));
+    assertEquals(0, stored.getStore().getChildren(stored.getHandle()).length);
+
+    serialization = configure(SerializationProvider.getStandardJsonSerialization());
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.PROXY_NODES);
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    serialization.setUnavailableChildrenPolicy(UnavailableNodePolicy.NULL_REFERENCES);
+    StoredNode tolerant = serialization.deserializeToNodeStore(json).getNodeByID("n1");
+    Node target = tolerant.getReferenceValues(ref).get(0).getReferred();
+    assertTrue(target instanceof ProxyNode);
+    assertEquals("external", target.getID());
+    assertNull(tolerant.getParent());
+    assertEquals(Collections.emptyList(), tolerant.getChildren(children));
+  }
+
+  @Test
+  public void duplicateIDsAreRejected() {
+    JsonElement json =
+        SerializationProvider.getStandardJsonSerialization()
+            .serializeNodesToJsonElement(
+                new DynamicNode("same", concept), new DynamicNode("same", concept));
+    JsonSerialization serialization =
+        configure(SerializationProvider.getStandardJsonSerialization());
+    assertThrows(IllegalStateException.class, () -> serialization.deserializeToNodeStore(json));
+  }
+}
@@ -0,0 +1,232 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.AnnotationInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class OffHeapNodeStoreTest {
+
+  private final Language language = new Language("MyLanguage", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "C", "c-id", "c-key");
+  private final Concept other = new Concept(language, "D", "d-id", "d-key");
+  private final Annotation comment =
+      new Annotation(language, "Comment", "comment-id", "comment-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Property flag = Property.createRequired("flag", LionCoreBuiltins.getBoolean());
+  private final Property size = Property.createOptional("size", LionCoreBuiltins.getInteger());
+  private final Property text = Property.createOptional("text", LionCoreBuiltins.getString());
+  private final Containment children = Containment.createMultiple("children", concept);
+  private final Containment others = Containment.createMultiple("others", other);
+  private final Reference ref = Reference.createMultiple("ref", concept);
+
+  public OffHeapNodeStoreTest() {
+    name.setID("name-id").setKey("name-key");
+    flag.setID("flag-id").setKey("flag-key");
+    size.setID("size-id").setKey("size-key");
+    text.setID("text-id").setKey("text-key");
+    children.setID("children-id").setKey("children-key");
+    others.setID("others-id").setKey("others-key");
+    ref.setID("ref-id").setKey("ref-key");
+    concept.addFeature(name);
+    concept.addFeature(flag);
+    concept.addFeature(size);
+    concept.addFeature(children);
+    concept.addFeature(others);
+    concept.addFeature(ref);
+    comment.setAnnotates(concept);
+    comment.addFeature(text);
+  }
+
+  private DynamicNode example() {
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "the root");
+    root.setPropertyValue(size, 3);
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.setPropertyValue(name, "first");
+    n1.setPropertyValue(flag, true);
+    n1.setPropertyValue(size, -7);
+    DynamicNode n2 = new DynamicNode("n2", concept);
+    n2.setPropertyValue(name, "second");
+    DynamicNode n3 = new DynamicNode("n3", concept);
+    n3.setPropertyValue(name, "third \u00e8\u4e2d");
+    root.addChild(children, n1);
+    root.addChild(others, new DynamicNode("d1", other));
+    root.addChild(children, n2);
+    n1.addChild(children, n3);
+    n3.addReferenceValue(ref, new ReferenceValue(n2, "second"));
+    n3.addReferenceValue(ref, new ReferenceValue(n1, "first"));
+    DynamicAnnotationInstance note = new DynamicAnnotationInstance("a1", comment, n3);
+    note.setPropertyValue(text, "a note");
+    n3.addAnnotation(note);
+    return root;
+  }
+
+  private <S extends AbstractSerialization> S configure(S serialization) {
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  private OffHeapNodeStore loadExample(File directory) throws IOException {
+    JsonSerialization serialization =
+        configure(SerializationProvider.getStandardJsonSerialization());
+    SerializedChunk chunk = serialization.serializeTreeToSerializationBlock(example());
+    return serialization.deserializeToOffHeapNodeStore(chunk, directory);
+  }
+
+  private File temporaryDirectory() throws IOException {
+    File directory = Files.createTempDirectory("offheap").toFile();
+    directory.deleteOnExit();
+    return directory;
+  }
+
+  @Test
+  public void valuesAreReadFromTheStore() throws IOException {
+    for (File directory : Arrays.asList(null, temporaryDirectory())) {
+      try (OffHeapNodeStore store = loadExample(directory)) {
+        assertEquals(6, store.size());
+        StoredNode root = store.getNodeByID("root");
+        StoredNode n1 = store.getNodeByID("n1");
+        StoredNode n2 = store.getNodeByID("n2");
+        StoredNode n3 = store.getNodeByID("n3");
+        StoredNode d1 = store.getNodeByID("d1");
+        assertNull(store.getNodeByID("n4"));
+        assertNull(store.getNodeByID("a1"));
+        assertEquals(-1, store.getHandle("n4"));
+        assertEquals(Collections.singletonList(root), store.getRoots());
+
+        assertSame(concept, root.getClassifier());
+        assertNull(root.getParent());
+        assertNull(root.getContainmentFeature());
+        assertEquals("the root", root.getPropertyValue(name));
+        assertEquals(false, root.getPropertyValue(flag));
+        assertEquals(3, root.getPropertyValue(size));
+        assertEquals(true, n1.getPropertyValue(flag));
+        assertNull(n2.getPropertyValue(size));
+        assertEquals("third \u00e8\u4e2d", n3.getPropertyValue(name));
+        assertEquals(Arrays.asList(n1, n2), root.getChildren(children));
+        assertEquals(Collections.singletonList(d1), root.getChildren(others));
+
+        assertEquals(n1, n3.getParent());
+        assertSame(children, n3.getContainmentFeature());
+        assertSame(others, d1.getContainmentFeature());
+        assertEquals(1, n2.getIndexInParent());
+        assertEquals(
+            Arrays.asList(new ReferenceValue(n2, "second"), new ReferenceValue(n1, "first")),
+            n3.getReferenceValues(ref));
+        assertEquals(
+            Arrays.asList("root", "n1", "n3", "n2", "d1"),
+            root.thisAndAllDescendants().stream().map(Node::getID).collect(Collectors.toList()));
+
+        AnnotationInstance note = n3.getAnnotations().get(0);
+        assertEquals(store.getInstanceByID("a1"), note);
+        assertSame(comment, note.getAnnotationDefinition());
+        assertEquals(n3, note.getParent());
+        assertEquals("a note", note.getPropertyValue(text));
+
+        List<String> ids = new ArrayList<>();
+        store.forEachInstance(concept, handle -> ids.add(store.getID(handle)));
+        assertEquals(Arrays.asList("root", "n1", "n3", "n2"), ids);
+        assertThrows(IllegalArgumentException.class, () -> root.getPropertyValue(text));
+      }
+    }
+  }
+
+  @Test
+  public void storesCanBeLoadedFromProtoBuf() throws IOException {
+    byte[] protoBuf =
+        SerializationProvider.getStandardProtoBufSerialization()
+            .serializeTreesToByteArray(example());
+    try (OffHeapNodeStore store =
+        configure(SerializationProvider.getStandardProtoBufSerialization())
+            .deserializeToOffHeapNodeStore(new ByteArrayInputStream(protoBuf), null)) {
+      assertEquals(6, store.size());
+      StoredNode n3 = store.getNodeByID("n3");
+      assertEquals(-7, n3.getParent().getPropertyValue(size));
+      assertEquals(store.getNodeByID("n2"), n3.getReferenceValues(ref).get(0).getReferred());
+      assertEquals("a note", n3.getAnnotations().get(0).getPropertyValue(text));
+    }
+  }
+
+  @Test
+  public void storesCannotBeReadOnceClosed() throws IOException {
+    File directory = temporaryDirectory();
+    OffHeapNodeStore store = loadExample(directory);
+    StoredNode root = store.getNodeByID("root");
+
+    store.close();
+    assertTrue(store.isClosed());
+    assertEquals(0, directory.list().length);
+    assertThrows(IllegalStateException.class, () -> store.getHandle("root"));
+    assertThrows(IllegalStateException.class, () -> root.getPropertyValue(name));
+  }
+
+  @Test
+  public void largeStoresGrowTheirBuffers() throws IOException {
+    DynamicNode root = new DynamicNode("root", concept);
+    for (int i = 0; i < 20000; i++) {
+      DynamicNode child = new DynamicNode("child-" + i, concept);
+      child.setPropertyValue(size, i);
+      root.addChild(children, child);
+    }
+    JsonSerialization serialization =
+        configure(SerializationProvider.getStandardJsonSerialization());
+    SerializedChunk chunk = serialization.serializeTreeToSerializationBlock(root);
+    for (File directory : Arrays.asList(null, temporaryDirectory())) {
+      try (OffHeapNodeStore store = serialization.deserializeToOffHeapNodeStore(chunk, directory)) {
+        assertEquals(20001, store.size());
+        assertEquals(12345, store.getNodeByID("child-12345").getPropertyValue(size));
+        assertEquals(20000, store.getChildren(store.getHandle("root")).length);
+        assertEquals(store.getHandle("root"), store.getParent(store.getHandle("child-19999")));
+      }
+    }
+  }
+
+  @Test
+  public void unavailableNodesFollowThePolicies() throws IOException {
+    DynamicNode n1 = new DynamicNode("n1", concept);
+    n1.addReferenceValue(ref, new ReferenceValue(new ProxyNode("external"), "external"));
+    n1.setParent(new ProxyNode("outside"));
+    JsonSerialization serialization =
+        configure(SerializationProvider.getStandardJsonSerialization());
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.PROXY_NODES);
+    SerializedChunk chunk = serialization.serializeNodesToSerializationBlock(n1);
+
+    try (OffHeapNodeStore store = serialization.deserializeToOffHeapNodeStore(chunk, null)) {
+      StoredNode stored = store.getNodeByID("n1");
+      assertThrows(DeserializationException.class, stored::getParent);
+      Node target = stored.getReferenceValues(ref).get(0).getReferred();
+      assertTrue(target instanceof ProxyNode);
+      assertEquals("external", target.getID());
+    }
+  }
+
+  @Test
+  public void duplicateIDsAreRejected() {
+    JsonSerialization serialization =
+        configure(SerializationProvider.getStandardJsonSerialization());
+    SerializedChunk chunk =
+        serialization.serializeNodesToSerializationBlock(
+            new DynamicNode("same", concept), new DynamicNode("same", concept));
+    assertThrows(
+        IllegalStateException.class,
+        () -> serialization.deserializeToOffHeapNodeStore(chunk, null));
+  }
+}
@@ -0,0 +1,204 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonElement;
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicAnnotationInstance;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.model.impl.ProxyNode;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelDeserializationTest {
+
+  private static final int NODES = 3_000;
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @After
+  public void shutdownPool() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void parallelDeserializationMatchesSequentialDeserialization() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "1");
+    Concept c = new Concept(l, "C", "c-id", "c-key");
+    Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+    name.setID("name-id").setKey("name-key");
+    c.addFeature(name);
+    Containment children = Containment.createMultiple("children", c);
+    children.setID("children-id").setKey("children-key");
+    c.addFeature(children);
+    Reference ref = Reference.createMultiple("ref", c);
+    ref.setID("ref-id").setKey("ref-key");
+    c.addFeature(ref);
+    Annotation a = new Annotation(l, "A", "a-id", "a-key");
+
+    DynamicNode root = new DynamicNode("root", c);
+    DynamicNode[] nodes = new DynamicNode[NODES];
+    for (int i = 0; i < NODES; i++) {
+      nodes[i] = new DynamicNode("n" + i, c);
+      nodes[i].setPropertyValue(name, "node " + i);
+      (i < 4 ? root : nodes[(i - 4) / 4]).addChild(children, nodes[i]);
+      if (i % 100 == 0) {
+        new DynamicAnnotationInstance("a" + i, a, nodes[i]);
+        new DynamicAnnotationInstance("b" + i, a, nodes[i]);
+      }
+    }
+    for (int i = 0; i < NODES; i++) {
+      nodes[i].addReferenceValue(ref, new ReferenceValue(nodes[(i * 7) % NODES], null));
+      // Targets which are not part of the chunk, so that proxies are created
+      nodes[i].addReferenceValue(ref, new ReferenceValue(new ProxyNode("m" + (i % 50)), null));
+    }
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    SerializedChunk tree = serialization.serializeTreeToSerializationBlock(root);
+    // Without the root, its children have a parent which is not part of the chunk
+    SerializedChunk chunk = new SerializedChunk();
+    chunk.setSerializationFormatVersion(tree.getSerializationFormatVersion());
+    tree.getClassifierInstances().stream()
+        .filter(n -> !"root".equals(n.getID()))
+        .forEach(chunk::addClassifierInstance);
+
+    List<ClassifierInstance<?>> sequential = deserialize(l, chunk, false);
+    List<ClassifierInstance<?>> parallel = deserialize(l, chunk, true);
+
+    assertEquals(chunk.getClassifierInstances().size() + 51, parallel.size());
+    assertEquals(ids(sequential), ids(parallel));
+    assertTrue(parallel.get(parallel.size() - 1) instanceof ProxyNode);
+    assertEquals(toJson(serialization, sequential), toJson(serialization, parallel));
+    for (int i = 0; i < chunk.getClassifierInstances().size(); i++) {
+      assertEquals(parentID(sequential.get(i)), parentID(parallel.get(i)));
+      assertEquals(ids(sequential.get(i).getAnnotations()), ids(parallel.get(i).getAnnotations()));
+    }
+  }
+
+  @Test
+  public void parallelDeserializationOfLanguages() {
+    JsonSerialization serialization =
+        SerializationProvider.getStandardJsonSerialization(LionWebVersion.v2023_1);
+    InputStream inputStream = this.getClass().getResourceAsStream("/serialization/lioncore.json");
+    SerializedChunk chunk =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(new InputStreamReader(inputStream));
+
+    List<ClassifierInstance<?>> sequential = serialization.deserializeSerializationBlock(chunk);
+    // The chunk is smaller than the default batch size, which would process it in a single batch
+    AtomicInteger tasks = new AtomicInteger();
+    serialization.setDeserializationExecutor(
+        task -> {
+          tasks.incrementAndGet();
+          pool.execute(task);
+        });
+    serialization.setDeserializationBatchSize(4);
+    List<ClassifierInstance<?>> parallel = serialization.deserializeSerializationBlock(chunk);
+
+    assertTrue(chunk.getClassifierInstances().size() > 4);
+    assertTrue(tasks.get() > 1);
+    assertEquals(ids(sequential), ids(parallel));
+    assertEquals(toJson(serialization, sequential), toJson(serialization, parallel));
+  }
+
+  @Test
+  public void customDeserializersSeeTheNodesInstantiatedBefore() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "1");
+    Concept c = new Concept(l, "C", "c-id", "c-key");
+    Containment children = Containment.createMultiple("children", c);
+    children.setID("children-id").setKey("children-key");
+    c.addFeature(children);
+    DynamicNode root = new DynamicNode("root", c);
+    for (int i = 0; i < NODES; i++) {
+      DynamicNode child = new DynamicNode("n" + i, c);
+      root.addChild(children, child);
+      child.addChild(children, new DynamicNode("m" + i, c));
+    }
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    SerializedChunk chunk = serialization.serializeTreeToSerializationBlock(root);
+
+    serialization.registerLanguage(l);
+    // Each node is instantiated after all the ones preceding it in the sorted list
+    List<Integer> seen = new ArrayList<>();
+    serialization
+        .getInstantiator()
+        .registerCustomDeserializer(
+            c.getID(),
+            (classifier, serializedNode, deserializedNodesByID, propertiesValues) -> {
+              seen.add(deserializedNodesByID.size());
+              return new DynamicNode(serializedNode.getID(), c);
+            });
+    serialization.setDeserializationExecutor(pool);
+    serialization.setDeserializationBatchSize(4);
+    List<ClassifierInstance<?>> parallel = serialization.deserializeSerializationBlock(chunk);
+
+    assertEquals(2 * NODES + 1, parallel.size());
+    assertEquals(IntStream.range(0, 2 * NODES + 1).boxed().collect(Collectors.toList()), seen);
+  }
+
+  @Test
+  public void duplicateIDsAreReportedInParallel() {
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    serialization.registerLanguage(MyNodeWithProperties.LANGUAGE);
+    serialization.enableDynamicNodes();
+    SerializedChunk chunk = new SerializedChunk();
+    chunk.setSerializationFormatVersion(serialization.getLionWebVersion().getVersionString());
+    for (int i = 0; i < NODES; i++) {
+      SerializedClassifierInstance serializedNode =
+          serialization.serializeNode(new MyNodeWithProperties(i == NODES - 1 ? "n0" : "n" + i));
+      chunk.addClassifierInstance(serializedNode);
+    }
+    serialization.setDeserializationExecutor(pool);
+
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class, () -> serialization.deserializeSerializationBlock(chunk));
+    assertEquals("Duplicate ID found: n0", e.getMessage());
+  }
+
+  @Test
+  public void deserializationBatchSizeShouldBePositive() {
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    assertThrows(
+        IllegalArgumentException.class, () -> serialization.setDeserializationBatchSize(0));
+  }
+
+  private List<ClassifierInstance<?>> deserialize(
+      Language language, SerializedChunk chunk, boolean parallel) {
+    JsonSerialization serialization = SerializationProvider.getStandardJsonSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    serialization.setUnavailableParentPolicy(UnavailableNodePolicy.PROXY_NODES);
+    serialization.setUnavailableReferenceTargetPolicy(UnavailableNodePolicy.PROXY_NODES);
+    if (parallel) {
+      serialization.setDeserializationExecutor(pool);
+    }
+    return serialization.deserializeSerializationBlock(chunk);
+  }
+
+  private static List<String> ids(List<? extends ClassifierInstance<?>> instances) {
+    return instances.stream().map(ClassifierInstance::getID).collect(Collectors.toList());
+  }
+
+  private static String parentID(ClassifierInstance<?> instance) {
+    return instance.getParent() == null ? null : instance.getParent().getID();
+  }
+
+  private static JsonElement toJson(
+      JsonSerialization serialization, List<ClassifierInstance<?>> instances) {
+    return serialization.serializeNodesToJsonElement(
+        instances.stream().filter(n -> !(n instanceof ProxyNode)).collect(Collectors.toList()));
+  }
+}
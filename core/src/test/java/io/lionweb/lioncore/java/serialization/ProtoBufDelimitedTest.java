@@ -0,0 +1,108 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import io.lionweb.lioncore.protobuf.PBChunk;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ProtoBufDelimitedTest {
+
+  private final Language language = new Language("MyLanguage", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "C", "c-id", "c-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Containment children = Containment.createMultiple("children", concept);
+  private final Reference ref = Reference.createMultiple("ref", concept);
+
+  public ProtoBufDelimitedTest() {
+    name.setID("name-id").setKey("name-key");
+    children.setID("children-id").setKey("children-key");
+    ref.setID("ref-id").setKey("ref-key");
+    concept.addFeature(name);
+    concept.addFeature(children);
+    concept.addFeature(ref);
+  }
+
+  private DynamicNode example() {
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "the root");
+    for (int i = 0; i < 10; i++) {
+      DynamicNode child = new DynamicNode("n" + i, concept);
+      child.setPropertyValue(name, i % 2 == 0 ? "child " + i : null);
+      child.addReferenceValue(ref, new ReferenceValue(root, "the root"));
+      child.addReferenceValue(ref, new ReferenceValue(null, null));
+      root.addChild(children, child);
+    }
+    return root;
+  }
+
+  @Test
+  public void roundTripOfTrees() throws IOException {
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    DynamicNode root = example();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    serialization.serializeTreesToDelimitedStream(outputStream, root);
+
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    List<Node> deserialized =
+        serialization.deserializeDelimitedToNodes(
+            new ByteArrayInputStream(outputStream.toByteArray()));
+    List<Node> fromChunk =
+        serialization.deserializeToNodes(serialization.serializeTreesToByteArray(root));
+    assertEquals(11, deserialized.size());
+    assertEquals(fromChunk, deserialized);
+  }
+
+  @Test
+  public void readsTheSameClassifierInstancesWhenTablesAreReset() throws IOException {
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    SerializedChunk expected = serialization.serializeTreeToSerializationBlock(example());
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    ProtoBufDelimitedWriter writer =
+        new ProtoBufDelimitedWriter(outputStream, expected.getSerializationFormatVersion());
+    writer.setMaxTableSize(3);
+    writer.write(expected);
+    writer.flush();
+
+    ProtoBufDelimitedReader reader =
+        new ProtoBufDelimitedReader(new ByteArrayInputStream(outputStream.toByteArray()));
+    assertEquals(expected.getSerializationFormatVersion(), reader.getSerializationFormatVersion());
+    List<SerializedClassifierInstance> read = new ArrayList<>();
+    reader.forEachRemaining(read::add);
+    assertEquals(expected.getClassifierInstances(), read);
+    assertEquals(expected.getLanguages(), reader.getLanguages());
+  }
+
+  @Test
+  public void transcodingToAndFromPBChunk() throws IOException {
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    DynamicNode root = example();
+    PBChunk chunk = serialization.serializeTree(root);
+
+    ByteArrayOutputStream delimited = new ByteArrayOutputStream();
+    ProtoBufSerialization.transcodeChunkToDelimited(
+        new ByteArrayInputStream(chunk.toByteArray()), delimited);
+    PBChunk transcoded =
+        ProtoBufSerialization.transcodeDelimitedToChunk(
+            new ByteArrayInputStream(delimited.toByteArray()));
+    assertEquals(chunk, transcoded);
+  }
+
+  @Test
+  public void streamWithoutHeaderIsRejected() {
+    assertThrows(
+        DeserializationException.class,
+        () -> new ProtoBufDelimitedReader(new ByteArrayInputStream(new byte[0])));
+  }
+}
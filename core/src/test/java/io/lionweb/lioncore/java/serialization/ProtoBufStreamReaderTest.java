@@ -0,0 +1,144 @@
+package io.lionweb.lioncore.java.serialization;
+
+import static org.junit.Assert.*;
+
+import com.google.protobuf.CodedOutputStream;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import io.lionweb.lioncore.protobuf.PBChunk;
+import io.lionweb.lioncore.protobuf.PBLanguage;
+import io.lionweb.lioncore.protobuf.PBMetaPointer;
+import io.lionweb.lioncore.protobuf.PBNode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ProtoBufStreamReaderTest {
+
+  private final Language language = new Language("MyLanguage", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "C", "c-id", "c-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Containment children = Containment.createMultiple("children", concept);
+  private final Reference ref = Reference.createMultiple("ref", concept);
+
+  public ProtoBufStreamReaderTest() {
+    name.setID("name-id").setKey("name-key");
+    children.setID("children-id").setKey("children-key");
+    ref.setID("ref-id").setKey("ref-key");
+    concept.addFeature(name);
+    concept.addFeature(children);
+    concept.addFeature(ref);
+  }
+
+  private DynamicNode example() {
+    DynamicNode root = new DynamicNode("root", concept);
+    root.setPropertyValue(name, "the root");
+    for (int i = 0; i < 10; i++) {
+      DynamicNode child = new DynamicNode("n" + i, concept);
+      // Null values are represented by negative indexes
+      child.setPropertyValue(name, i % 2 == 0 ? "child " + i : null);
+      child.addReferenceValue(ref, new ReferenceValue(root, "the root"));
+      child.addReferenceValue(ref, new ReferenceValue(null, null));
+      root.addChild(children, child);
+    }
+    return root;
+  }
+
+  @Test
+  public void readsTheSameClassifierInstancesWhichWereSerialized() {
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    DynamicNode root = example();
+    SerializedChunk expected = serialization.serializeTreeToSerializationBlock(root);
+    byte[] bytes = serialization.serializeTreesToByteArray(root);
+
+    ProtoBufStreamReader reader = new ProtoBufStreamReader(bytes);
+    assertEquals(expected.getSerializationFormatVersion(), reader.getSerializationFormatVersion());
+    List<SerializedClassifierInstance> read = new ArrayList<>();
+    reader.forEachRemaining(read::add);
+    assertEquals(expected.getClassifierInstances(), read);
+    assertEquals(expected.getLanguages(), reader.getLanguages());
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void deserializesFromAStream() throws IOException {
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    DynamicNode root = example();
+    byte[] bytes = serialization.serializeTreesToByteArray(root);
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+
+    List<Node> fromStream = serialization.deserializeToNodes(new ByteArrayInputStream(bytes));
+    List<Node> fromChunk = serialization.deserializeToNodes(PBChunk.parseFrom(bytes));
+    assertEquals(11, fromStream.size());
+    assertEquals(fromChunk, fromStream);
+  }
+
+  @Test
+  public void stringValuesAfterTheNodesAreAccepted() throws IOException {
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    DynamicNode root = example();
+    SerializedChunk expected = serialization.serializeTreeToSerializationBlock(root);
+    // Concatenated messages are merged, so this is a chunk with a string value after the nodes
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.write(serialization.serializeTreesToByteArray(root));
+    bytes.write(PBChunk.newBuilder().addStringValues("late").build().toByteArray());
+
+    ProtoBufStreamReader reader =
+        new ProtoBufStreamReader(new ByteArrayInputStream(bytes.toByteArray()));
+    List<SerializedClassifierInstance> read = new ArrayList<>();
+    reader.forEachRemaining(read::add);
+    assertEquals(expected.getClassifierInstances(), read);
+  }
+
+  @Test
+  public void nodesPrecedingTheirStringValuesAndMetaPointers() throws IOException {
+    ProtoBufSerialization serialization = SerializationProvider.getStandardProtoBufSerialization();
+    DynamicNode root = example();
+    SerializedChunk expected = serialization.serializeTreeToSerializationBlock(root);
+    PBChunk chunk = PBChunk.parseFrom(serialization.serializeTreesToByteArray(root));
+    // A valid PBChunk, whose fields are written in the reverse order
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+    for (PBNode node : chunk.getNodesList()) {
+      output.writeMessage(PBChunk.NODES_FIELD_NUMBER, node);
+    }
+    for (PBLanguage pbLanguage : chunk.getLanguagesList()) {
+      output.writeMessage(PBChunk.LANGUAGES_FIELD_NUMBER, pbLanguage);
+    }
+    for (PBMetaPointer metaPointer : chunk.getMetaPointersList()) {
+      output.writeMessage(PBChunk.METAPOINTERS_FIELD_NUMBER, metaPointer);
+    }
+    for (String string : chunk.getStringValuesList()) {
+      output.writeString(PBChunk.STRINGVALUES_FIELD_NUMBER, string);
+    }
+    output.writeString(
+        PBChunk.SERIALIZATIONFORMATVERSION_FIELD_NUMBER, chunk.getSerializationFormatVersion());
+    output.flush();
+    byte[] bytes = outputStream.toByteArray();
+    assertEquals(chunk, PBChunk.parseFrom(bytes));
+
+    ProtoBufStreamReader reader = new ProtoBufStreamReader(bytes);
+    List<SerializedClassifierInstance> read = new ArrayList<>();
+    reader.forEachRemaining(read::add);
+    assertEquals(expected.getClassifierInstances(), read);
+    assertEquals(expected.getLanguages(), reader.getLanguages());
+
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    assertEquals(
+        serialization.deserializeToNodes(chunk),
+        serialization.deserializeToNodes(new ByteArrayInputStream(bytes)));
+
+    // An InputStream cannot be read again
+    ProtoBufStreamReader streamReader = new ProtoBufStreamReader(new ByteArrayInputStream(bytes));
+    assertThrows(DeserializationException.class, streamReader::next);
+  }
+}
@@ -16,7 +16,10 @@ import io.lionweb.lioncore.java.serialization.refsmm.RefsLanguage;
 import io.lionweb.lioncore.java.serialization.simplemath.IntLiteral;
 import io.lionweb.lioncore.java.serialization.simplemath.SimpleMathLanguage;
 import io.lionweb.lioncore.java.serialization.simplemath.Sum;
+import io.lionweb.lioncore.protobuf.PBChunk;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -305,6 +308,35 @@ public class ProtobufSerializationTest extends SerializationTest {
     assertEquals(Arrays.asList(deserializedAnn), deserializedC.getAnnotations());
   }
 
+  @Test
+  public void directEncodingProducesTheSerializedChunk() throws IOException {
+    Language metaLang = new Language("metaLang", "metaLang", "metaLang", "1");
+    Annotation metaAnn = new Annotation(metaLang, "metaAnn", "metaAnn", "metaAnn");
+
+    Language l = new Language("l", "l", "l", "1");
+    new Annotation(l, "a1", "a1", "a1");
+    Concept c = new Concept(l, "c", "c", "c");
+    c.addAnnotation(new DynamicAnnotationInstance("metaAnn_1", metaAnn, c));
+
+    ProtoBufSerialization protoBufSerialization =
+        SerializationProvider.getStandardProtoBufSerialization();
+    SerializedChunk expected = protoBufSerialization.serializeTreeToSerializationBlock(l);
+    byte[] bytes = protoBufSerialization.serializeTreesToByteArray(l);
+
+    // The nodes are encoded as ProtoBuf would do
+    PBChunk chunk = PBChunk.parseFrom(bytes);
+    assertArrayEquals(chunk.toByteArray(), bytes);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    protoBufSerialization.serializeTreesToOutputStream(outputStream, l);
+    assertArrayEquals(outputStream.toByteArray(), bytes);
+
+    ProtoBufStreamReader reader = new ProtoBufStreamReader(bytes);
+    List<SerializedClassifierInstance> read = new ArrayList<>();
+    reader.forEachRemaining(read::add);
+    assertEquals(expected.getClassifierInstances(), read);
+    assertEquals(expected.getLanguages(), reader.getLanguages());
+  }
+
   @Test
   public void serializationIncludeBuiltinsWhenUsedInProperties() {
     Language l = new Language("l", "l", "l", "1");
@@ -0,0 +1,64 @@
+package io.lionweb.lioncore.java.serialization.data;
+
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.language.Language;
+import io.lionweb.lioncore.java.serialization.LowLevelJsonSerialization;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class MetaPointerTest {
+
+  @Test
+  public void equalMetaPointersAreShared() {
+    MetaPointer mp1 = MetaPointer.get("l", "1", "k");
+    MetaPointer mp2 = MetaPointer.get("l", "1", "k");
+    assertSame(mp1, mp2);
+    assertNotSame(mp1, MetaPointer.get("l", "2", "k"));
+    assertSame(mp1, MetaPointer.intern(new MetaPointer("l", "1", "k")));
+  }
+
+  @Test
+  public void sharedAndUnsharedMetaPointersAreEqual() {
+    MetaPointer shared = MetaPointer.get("l", null, "k");
+    MetaPointer unshared = new MetaPointer("l", null, "k");
+    assertEquals(shared, unshared);
+    assertEquals(shared.hashCode(), unshared.hashCode());
+    assertNotEquals(shared, new MetaPointer("l", null, "k2"));
+  }
+
+  @Test
+  public void metaPointersOfLanguageElementsAreShared() {
+    Language l = new Language("MyLanguage", "l-id", "l-key", "123");
+    Concept a = new Concept(l, "A", "a-id", "a-key");
+    assertSame(MetaPointer.from(a), MetaPointer.get("l-key", "123", "a-key"));
+  }
+
+  @Test
+  public void decodedChunksShareMetaPointers() {
+    SerializedChunk chunk =
+        new LowLevelJsonSerialization()
+            .deserializeSerializationBlock(
+                new InputStreamReader(
+                    this.getClass().getResourceAsStream("/serialization/lioncore.json"),
+                    StandardCharsets.UTF_8));
+    Map<MetaPointer, MetaPointer> distinct = new IdentityHashMap<>();
+    int metaPointers = 0;
+    for (SerializedClassifierInstance instance : chunk.getClassifierInstances()) {
+      distinct.put(instance.getClassifier(), instance.getClassifier());
+      metaPointers++;
+      for (SerializedPropertyValue propertyValue : instance.getProperties()) {
+        distinct.put(propertyValue.getMetaPointer(), propertyValue.getMetaPointer());
+        metaPointers++;
+      }
+    }
+    assertTrue(metaPointers > 100);
+    // Equal MetaPointers are the same instance
+    assertEquals(distinct.keySet().stream().distinct().count(), distinct.size());
+    assertTrue(distinct.size() < 20);
+  }
+}
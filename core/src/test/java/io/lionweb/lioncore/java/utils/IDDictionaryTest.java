@@ -0,0 +1,45 @@
+package io.lionweb.lioncore.java.utils;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class IDDictionaryTest {
+
+  @Test
+  public void handlesAreAssignedInOrder() {
+    IDDictionary dictionary = new IDDictionary();
+    assertEquals(0, dictionary.add("a"));
+    assertEquals(1, dictionary.add("b"));
+    assertEquals(0, dictionary.add("a"));
+    assertEquals(2, dictionary.size());
+    assertEquals(1, dictionary.indexOf("b"));
+    assertEquals(IDDictionary.NOT_FOUND, dictionary.indexOf("c"));
+    assertEquals(IDDictionary.NOT_FOUND, dictionary.indexOf(null));
+    assertEquals("b", dictionary.getID(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> dictionary.getID(2));
+  }
+
+  @Test
+  public void equalIDsAreInterned() {
+    IDDictionary dictionary = new IDDictionary();
+    String id = dictionary.intern("node-1");
+    assertSame(id, dictionary.intern(new String("node-1")));
+    assertNull(dictionary.intern(null));
+  }
+
+  @Test
+  public void dictionaryGrows() {
+    IDDictionary dictionary = new IDDictionary(2);
+    for (int i = 0; i < 100000; i++) {
+      assertEquals(i, dictionary.add("id-" + i));
+    }
+    for (int i = 0; i < 100000; i++) {
+      assertEquals(i, dictionary.indexOf("id-" + i));
+    }
+    IDDictionary copy = new IDDictionary(dictionary);
+    assertEquals(100000, copy.add("another-id"));
+    assertEquals(100000, dictionary.size());
+    assertEquals(99999, copy.indexOf("id-99999"));
+  }
+}
@@ -0,0 +1,50 @@
+package io.lionweb.lioncore.java.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.Test;
+
+public class IDMapTest {
+
+  @Test
+  public void behavesAsAMap() {
+    IDMap<Integer> map = new IDMap<>();
+    Map<String, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      map.put("id-" + i, i);
+      expected.put("id-" + i, i);
+    }
+    map.put(null, -1);
+    expected.put(null, -1);
+    map.put("null-value", null);
+    expected.put("null-value", null);
+    assertEquals(expected, map);
+    assertEquals(expected.hashCode(), map.hashCode());
+
+    assertEquals(Integer.valueOf(3), map.remove("id-3"));
+    assertNull(map.remove("id-3"));
+    assertFalse(map.containsKey("id-3"));
+    assertTrue(map.containsKey("null-value"));
+    assertTrue(map.containsKey(null));
+    assertEquals(1001, map.size());
+    assertEquals(Integer.valueOf(4), map.get(map.getDictionary().indexOf("id-4")));
+
+    map.entrySet().removeIf(e -> e.getValue() != null && e.getValue() % 2 == 0);
+    assertEquals(501, map.size());
+    assertEquals(Integer.valueOf(5), map.get("id-5"));
+    assertNull(map.get("id-6"));
+  }
+
+  @Test
+  public void copiesAreIndependent() {
+    IDMap<String> map = new IDMap<>();
+    map.put("a", "first");
+    IDMap<String> copy = new IDMap<>(map);
+    copy.put("b", "second");
+    map.put("a", "changed");
+    assertEquals(Collections.singletonMap("a", "changed"), map);
+    assertEquals("first", copy.get("a"));
+    assertEquals(2, copy.size());
+  }
+}
@@ -31,6 +31,15 @@ dependencies {
     implementation(libs.flatbuffers)
 }
 
+sourceSets {
+    create("experiments") {
+        compileClasspath += sourceSets.main.get().output
+        compileClasspath += sourceSets.main.get().compileClasspath
+        runtimeClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().runtimeClasspath
+    }
+}
+
 val isReleaseVersion = !(version as String).endsWith("SNAPSHOT")
 
 tasks.register<Jar>("sourcesJar") {
@@ -0,0 +1,174 @@
+package io.lionweb.serialization.extensions.experiments;
+
+import io.lionweb.lioncore.java.api.LocalClassifierInstanceResolver;
+import io.lionweb.lioncore.java.language.Concept;
+import io.lionweb.lioncore.java.language.Containment;
+import io.lionweb.lioncore.java.language.Language;
+import io.lionweb.lioncore.java.language.LionCoreBuiltins;
+import io.lionweb.lioncore.java.language.Property;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.AbstractSerialization;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.protobuf.PBBulkImport;
+import io.lionweb.serialization.extensions.BulkImport;
+import io.lionweb.serialization.extensions.ExtraFlatBuffersSerialization;
+import io.lionweb.serialization.extensions.ExtraProtoBufSerialization;
+import io.lionweb.serialization.extensions.ExtraSerializationProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compare the throughput of encoding and decoding bulk imports, with FlatBuffers and ProtoBuf. Each
+ * bulk import contains a number of subtrees, to be attached to the same container. Decoding is
+ * measured both sequentially and using the common ForkJoinPool as deserialization executor, and
+ * includes attaching the subtrees to the container. The number of nodes can be specified as the
+ * first argument.
+ */
+public class BulkImportThroughputExperiment {
+
+  private static final int ITERATIONS = 5;
+  private static final int NODES_PER_ROOT = 1_000;
+
+  private static final Language language;
+  private static final Concept element;
+  private static final Containment children;
+  private static final Property name;
+
+  static {
+    language = new Language("BulkLanguage", "bulk-language-id", "bulk-language-key", "1");
+    element = new Concept(language, "Element", "element-id", "element-key");
+    name = Property.createRequired("name", LionCoreBuiltins.getString(), "name-id");
+    name.setKey("name-key");
+    element.addFeature(name);
+    children = Containment.createMultiple("children", element, "children-id");
+    children.setKey("children-key");
+    element.addFeature(children);
+  }
+
+  public static void main(String[] args) {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+    BulkImport bulkImport = generate(size, new Random(1));
+
+    ExtraFlatBuffersSerialization flatBuffers =
+        ExtraSerializationProvider.getExtraStandardFlatBuffersSerialization();
+    ExtraFlatBuffersSerialization parallelFlatBuffers =
+        ExtraSerializationProvider.getExtraStandardFlatBuffersSerialization();
+    ExtraProtoBufSerialization protoBuf =
+        ExtraSerializationProvider.getExtraStandardProtoBufSerialization();
+    ExtraProtoBufSerialization parallelProtoBuf =
+        ExtraSerializationProvider.getExtraStandardProtoBufSerialization();
+    AbstractSerialization[] serializations =
+        new AbstractSerialization[] {flatBuffers, parallelFlatBuffers, protoBuf, parallelProtoBuf};
+    for (AbstractSerialization serialization : serializations) {
+      serialization.enableDynamicNodes();
+      serialization.registerLanguage(language);
+    }
+    parallelFlatBuffers.setDeserializationExecutor(ForkJoinPool.commonPool());
+    parallelProtoBuf.setDeserializationExecutor(ForkJoinPool.commonPool());
+
+    byte[] fbBytes = flatBuffers.serializeBulkImport(bulkImport);
+    byte[] pbBytes = protoBuf.serializeBulkImport(bulkImport).toByteArray();
+    System.out.println(
+        "= "
+            + size
+            + " nodes, "
+            + bulkImport.getAttachPoints().size()
+            + " attach points: FlatBuffers "
+            + fbBytes.length
+            + "B, ProtoBuf "
+            + pbBytes.length
+            + "B");
+
+    for (int round = 0; round < 2; round++) {
+      // The first round is used to warm up
+      boolean report = round == 1;
+      measure(
+          report, "FlatBuffers encoding", size, () -> flatBuffers.serializeBulkImport(bulkImport));
+      measure(
+          report,
+          "FlatBuffers decoding",
+          size,
+          () -> decodeAndAttach(flatBuffers.deserializeBulkImport(fbBytes)));
+      measure(
+          report,
+          "FlatBuffers parallel decoding",
+          size,
+          () -> decodeAndAttach(parallelFlatBuffers.deserializeBulkImport(fbBytes)));
+      measure(
+          report,
+          "ProtoBuf encoding",
+          size,
+          () -> protoBuf.serializeBulkImport(bulkImport).toByteArray());
+      measure(
+          report,
+          "ProtoBuf decoding",
+          size,
+          () -> decodeAndAttach(protoBuf.deserializeBulkImport(parse(pbBytes))));
+      measure(
+          report,
+          "ProtoBuf parallel decoding",
+          size,
+          () -> decodeAndAttach(parallelProtoBuf.deserializeBulkImport(parse(pbBytes))));
+    }
+  }
+
+  private static BulkImport generate(int size, Random random) {
+    BulkImport bulkImport = new BulkImport(new ArrayList<>(), new ArrayList<>());
+    MetaPointer containment = MetaPointer.from(children);
+    int generated = 0;
+    while (generated < size) {
+      int subtreeSize = Math.min(NODES_PER_ROOT, size - generated);
+      List<Node> subtree = new ArrayList<>(subtreeSize);
+      for (int i = 0; i < subtreeSize; i++) {
+        DynamicNode node = new DynamicNode("node-" + (generated + i), element);
+        node.setPropertyValue(name, "name-" + random.nextInt(1_000));
+        if (i > 0) {
+          subtree.get(random.nextInt(i)).addChild(children, node);
+        }
+        subtree.add(node);
+      }
+      bulkImport.addAttachPoint(
+          new BulkImport.AttachPoint("container", containment, subtree.get(0).getID()));
+      subtree.forEach(bulkImport::addNode);
+      generated += subtreeSize;
+    }
+    return bulkImport;
+  }
+
+  private static void decodeAndAttach(BulkImport bulkImport) {
+    DynamicNode container = new DynamicNode("container", element);
+    bulkImport.attachTo(new LocalClassifierInstanceResolver(container));
+    if (container.getChildren(children).size() != bulkImport.getAttachPoints().size()) {
+      throw new IllegalStateException();
+    }
+  }
+
+  private static PBBulkImport parse(byte[] bytes) {
+    try {
+      return PBBulkImport.parseFrom(bytes);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void measure(boolean report, String description, int size, Runnable action) {
+    long t0 = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      action.run();
+    }
+    long elapsed = (System.nanoTime() - t0) / ITERATIONS;
+    if (report) {
+      System.out.println(
+          "= "
+              + description
+              + ": "
+              + elapsed / 1_000_000
+              + "ms ("
+              + (long) (size / (elapsed / 1_000_000_000.0))
+              + " nodes/s)");
+    }
+  }
+}
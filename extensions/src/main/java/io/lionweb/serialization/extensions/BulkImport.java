@@ -1,9 +1,19 @@
 package io.lionweb.serialization.extensions;
 
+import io.lionweb.lioncore.java.LionWebVersion;
+import io.lionweb.lioncore.java.api.ClassifierInstanceResolver;
+import io.lionweb.lioncore.java.language.Containment;
 import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
 import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class BulkImport {
 
@@ -35,6 +45,76 @@ public class BulkImport {
     return nodes;
   }
 
+  /**
+   * Add the root of each attach point, which should be one of the nodes of this bulk import, to its
+   * container, in the order of the attach points. Containers are looked up using the given
+   * resolver, typically one wrapping the model in which the nodes are imported.
+   *
+   * @throws io.lionweb.lioncore.java.api.UnresolvedClassifierInstanceException if a container
+   *     cannot be resolved
+   * @throws IllegalArgumentException if a root is not a node of this bulk import, or the
+   *     containment does not belong to the classifier of the container
+   */
+  public void attachTo(ClassifierInstanceResolver containersResolver) {
+    if (attachPoints.isEmpty()) {
+      return;
+    }
+    Map<String, ClassifierInstance<?>> nodesByID = new HashMap<>();
+    for (ClassifierInstance<?> node : nodes) {
+      nodesByID.put(node.getID(), node);
+    }
+    for (AttachPoint attachPoint : attachPoints) {
+      ClassifierInstance<?> container = containersResolver.strictlyResolve(attachPoint.container);
+      Containment containment =
+          container.getClassifier().getContainmentByMetaPointer(attachPoint.containment);
+      if (containment == null) {
+        throw new IllegalArgumentException(
+            "Containment "
+                + attachPoint.containment
+                + " not found in the classifier of container "
+                + attachPoint.container);
+      }
+      ClassifierInstance<?> root = nodesByID.get(attachPoint.rootId);
+      if (!(root instanceof Node)) {
+        throw new IllegalArgumentException(
+            "Root " + attachPoint.rootId + " is not a node of this bulk import");
+      }
+      container.addChild(containment, (Node) root);
+    }
+  }
+
+  /**
+   * Build the chunk used to instantiate the decoded nodes of a bulk import. The roots of the attach
+   * points lose their parent, so that they are instantiated as roots, regardless of the
+   * UnavailableNodePolicy for parents, and can then be attached using {@link #attachTo}.
+   */
+  static SerializedChunk chunkToInstantiate(
+      LionWebVersion lionWebVersion,
+      List<AttachPoint> attachPoints,
+      SerializedClassifierInstance[] nodes) {
+    Set<String> rootIDs = new HashSet<>();
+    for (AttachPoint attachPoint : attachPoints) {
+      rootIDs.add(attachPoint.rootId);
+    }
+    SerializedChunk chunk = new SerializedChunk();
+    chunk.setSerializationFormatVersion(lionWebVersion.getVersionString());
+    for (SerializedClassifierInstance node : nodes) {
+      if (rootIDs.contains(node.getID())) {
+        node.setParentNodeID(null);
+      }
+      chunk.addClassifierInstance(node);
+    }
+    return chunk;
+  }
+
+  /**
+   * Estimate the encoded size of the given node. Properties and links are counted using the number
+   * of features of the classifier, which is cached, without looking at their values.
+   */
+  static long estimateSize(ClassifierInstance<?> node) {
+    return 64 + 32L * node.getClassifier().allFeatures().size();
+  }
+
   public static class AttachPoint {
     public String container;
     public MetaPointer containment;
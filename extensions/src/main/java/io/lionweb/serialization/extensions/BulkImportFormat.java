@@ -0,0 +1,29 @@
+package io.lionweb.serialization.extensions;
+
+/** The encodings which can be used for the segments of a stream of bulk imports. */
+public enum BulkImportFormat {
+  /** Each segment is an FBBulkImport. */
+  FLATBUFFERS(1),
+  /** Each segment is a PBBulkImport. */
+  PROTOBUF(2);
+
+  private final int code;
+
+  BulkImportFormat(int code) {
+    this.code = code;
+  }
+
+  /** The code identifying the format in the header of the stream. */
+  int getCode() {
+    return code;
+  }
+
+  static BulkImportFormat fromCode(int code) {
+    for (BulkImportFormat format : values()) {
+      if (format.code == code) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Unknown bulk import format " + code);
+  }
+}
@@ -0,0 +1,73 @@
+package io.lionweb.serialization.extensions;
+
+import io.lionweb.lioncore.java.serialization.DeserializationException;
+import java.io.*;
+import java.util.Objects;
+
+/**
+ * It reads, one segment at a time, a stream of bulk imports written by {@link BulkImportWriter}.
+ * Each segment is returned as the bytes of an FBBulkImport or of a PBBulkImport, according to the
+ * format of the stream.
+ *
+ * <p>A segment can be decoded on its own only if the parents of its nodes are in the same segment.
+ * To decode a tree split across segments, pass the reader to the deserializeBulkImport method of
+ * {@link ExtraFlatBuffersSerialization} or {@link ExtraProtoBufSerialization}, which resolves the
+ * nodes across segments.
+ */
+public class BulkImportSegmentReader implements Closeable {
+  private final DataInputStream inputStream;
+  private final BulkImportFormat format;
+  private boolean ended = false;
+
+  public BulkImportSegmentReader(InputStream inputStream) throws IOException {
+    Objects.requireNonNull(inputStream, "inputStream should not be null");
+    this.inputStream =
+        new DataInputStream(
+            inputStream instanceof BufferedInputStream
+                ? inputStream
+                : new BufferedInputStream(inputStream, 64 * 1024));
+    try {
+      if (this.inputStream.readInt() != BulkImportWriter.MAGIC) {
+        throw new DeserializationException("The stream does not contain bulk imports");
+      }
+      int version = this.inputStream.readUnsignedByte();
+      if (version != BulkImportWriter.FRAMING_VERSION) {
+        throw new DeserializationException("Unsupported version of bulk import stream " + version);
+      }
+      this.format = BulkImportFormat.fromCode(this.inputStream.readUnsignedByte());
+    } catch (EOFException e) {
+      throw new DeserializationException("The stream does not contain bulk imports");
+    }
+  }
+
+  public BulkImportFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Return the bytes of the next segment, or null when the end of the stream has been reached.
+   *
+   * @throws EOFException if the stream ends before its end marker
+   */
+  public byte[] nextSegment() throws IOException {
+    if (ended) {
+      return null;
+    }
+    int size = inputStream.readInt();
+    if (size == 0) {
+      ended = true;
+      return null;
+    }
+    if (size < 0) {
+      throw new DeserializationException("Invalid segment size " + size);
+    }
+    byte[] segment = new byte[size];
+    inputStream.readFully(segment);
+    return segment;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+}
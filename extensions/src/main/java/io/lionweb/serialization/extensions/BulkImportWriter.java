@@ -0,0 +1,217 @@
+package io.lionweb.serialization.extensions;
+
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * It writes a bulk import to a stream as a sequence of segments, each one being a complete
+ * FBBulkImport or PBBulkImport. Attach points and nodes are accepted incrementally, and a segment
+ * is written each time the nodes waiting reach the maximum number of nodes or the maximum size of a
+ * segment, so that only the nodes of one segment are retained by the writer, and only one segment
+ * is encoded at a time.
+ *
+ * <p>The size of the nodes waiting is estimated from their classifiers, corrected by the ratio
+ * between the encoded size and the estimate of the previous segment. A segment whose encoding
+ * exceeds the maximum size is split in two, so no segment is larger than the maximum size, unless
+ * it contains a single node.
+ *
+ * <p>The stream starts with a header made of the magic number "LWBI", the version of the framing
+ * format, and the code of the {@link BulkImportFormat} used for the segments. Each segment is
+ * preceded by its size, as a 4-byte big-endian integer, and a size of 0 marks the end of the
+ * stream. Such a stream can be read segment by segment with {@link BulkImportSegmentReader}.
+ *
+ * <p>With FlatBuffers, the parent of a node without parent is the container of its attach point,
+ * also when the attach point was written in a previous segment. The writer retains the container of
+ * each attach point until its root has been written, so attach points should not be added long
+ * before their roots.
+ */
+public class BulkImportWriter implements Closeable, Flushable {
+  static final int MAGIC = 0x4C574249;
+  static final int FRAMING_VERSION = 1;
+  public static final int DEFAULT_MAX_SEGMENT_NODES = 10_000;
+  public static final int DEFAULT_MAX_SEGMENT_BYTES = 8 * 1024 * 1024;
+
+  private final DataOutputStream outputStream;
+  private final BulkImportFormat format;
+  private final ExtraFlatBuffersSerialization flatBuffersSerialization;
+  private final ExtraProtoBufSerialization protoBufSerialization;
+  private final Map<String, String> containerByAttached = new HashMap<>();
+  private int maxSegmentNodes = DEFAULT_MAX_SEGMENT_NODES;
+  private int maxSegmentBytes = DEFAULT_MAX_SEGMENT_BYTES;
+  private List<BulkImport.AttachPoint> attachPoints = new ArrayList<>();
+  private List<ClassifierInstance<?>> nodes = new ArrayList<>();
+  // The estimated size of the nodes waiting, and the ratio used to correct it
+  private long estimatedSize = 0;
+  private double sizeRatio = 1.0;
+  private boolean closed = false;
+
+  public BulkImportWriter(ExtraFlatBuffersSerialization serialization, OutputStream outputStream)
+      throws IOException {
+    this(BulkImportFormat.FLATBUFFERS, serialization, null, outputStream);
+  }
+
+  public BulkImportWriter(ExtraProtoBufSerialization serialization, OutputStream outputStream)
+      throws IOException {
+    this(BulkImportFormat.PROTOBUF, null, serialization, outputStream);
+  }
+
+  private BulkImportWriter(
+      BulkImportFormat format,
+      ExtraFlatBuffersSerialization flatBuffersSerialization,
+      ExtraProtoBufSerialization protoBufSerialization,
+      OutputStream outputStream)
+      throws IOException {
+    Objects.requireNonNull(outputStream, "outputStream should not be null");
+    if (flatBuffersSerialization == null && protoBufSerialization == null) {
+      throw new NullPointerException("serialization should not be null");
+    }
+    this.format = format;
+    this.flatBuffersSerialization = flatBuffersSerialization;
+    this.protoBufSerialization = protoBufSerialization;
+    this.outputStream =
+        new DataOutputStream(
+            outputStream instanceof BufferedOutputStream
+                ? outputStream
+                : new BufferedOutputStream(outputStream, 64 * 1024));
+    this.outputStream.writeInt(MAGIC);
+    this.outputStream.writeByte(FRAMING_VERSION);
+    this.outputStream.writeByte(format.getCode());
+  }
+
+  public BulkImportFormat getFormat() {
+    return format;
+  }
+
+  public int getMaxSegmentNodes() {
+    return maxSegmentNodes;
+  }
+
+  /** Set the maximum number of nodes written in a single segment. */
+  public void setMaxSegmentNodes(int maxSegmentNodes) {
+    if (maxSegmentNodes <= 0) {
+      throw new IllegalArgumentException("maxSegmentNodes should be positive");
+    }
+    this.maxSegmentNodes = maxSegmentNodes;
+  }
+
+  public int getMaxSegmentBytes() {
+    return maxSegmentBytes;
+  }
+
+  /** Set the maximum size, in bytes, of a single segment. */
+  public void setMaxSegmentBytes(int maxSegmentBytes) {
+    if (maxSegmentBytes <= 0) {
+      throw new IllegalArgumentException("maxSegmentBytes should be positive");
+    }
+    this.maxSegmentBytes = maxSegmentBytes;
+  }
+
+  /** The attach point is written with the next segment. */
+  public void addAttachPoint(BulkImport.AttachPoint attachPoint) {
+    Objects.requireNonNull(attachPoint, "attachPoint should not be null");
+    checkNotClosed();
+    attachPoints.add(attachPoint);
+  }
+
+  /**
+   * The node is written with the next segment, which is written immediately if it reached the
+   * maximum number of nodes or the maximum size. Children are not added automatically: each node
+   * should be added.
+   */
+  public void addNode(ClassifierInstance<?> classifierInstance) throws IOException {
+    Objects.requireNonNull(classifierInstance, "classifierInstance should not be null");
+    checkNotClosed();
+    nodes.add(classifierInstance);
+    estimatedSize += BulkImport.estimateSize(classifierInstance);
+    if (nodes.size() >= maxSegmentNodes || estimatedSize * sizeRatio >= maxSegmentBytes) {
+      writeSegment();
+    }
+  }
+
+  /** Write the attach points and nodes added so far as a segment, then flush the stream. */
+  @Override
+  public void flush() throws IOException {
+    checkNotClosed();
+    writeSegment();
+    outputStream.flush();
+  }
+
+  /** Write the pending segment and the end of the stream, then close the underlying stream. */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      writeSegment();
+      outputStream.writeInt(0);
+      outputStream.flush();
+    } finally {
+      closed = true;
+      outputStream.close();
+    }
+  }
+
+  private void writeSegment() throws IOException {
+    if (attachPoints.isEmpty() && nodes.isEmpty()) {
+      return;
+    }
+    long size = writeSegment(attachPoints, nodes);
+    if (estimatedSize > 0) {
+      sizeRatio = (double) size / estimatedSize;
+    }
+    // The lists are replaced, not cleared, as the segment does not copy them
+    attachPoints = new ArrayList<>();
+    nodes = new ArrayList<>(Math.min(maxSegmentNodes, DEFAULT_MAX_SEGMENT_NODES));
+    estimatedSize = 0;
+  }
+
+  /**
+   * Write the given attach points and nodes as a segment, or as more segments if the encoding
+   * exceeds the maximum size, and return the number of bytes written.
+   */
+  private long writeSegment(
+      List<BulkImport.AttachPoint> attachPoints, List<ClassifierInstance<?>> nodes)
+      throws IOException {
+    BulkImport segment = new BulkImport(attachPoints, nodes);
+    // A single node cannot be split, so it is written whatever its size
+    int maxSize = nodes.size() > 1 ? maxSegmentBytes : Integer.MAX_VALUE;
+    int size;
+    if (format == BulkImportFormat.FLATBUFFERS) {
+      size =
+          flatBuffersSerialization.serializeBulkImportSegment(
+              segment, containerByAttached, outputStream, maxSize);
+    } else {
+      size = protoBufSerialization.serializeBulkImportSegment(segment, outputStream, maxSize);
+    }
+    if (size <= maxSize) {
+      return size;
+    }
+    // The attach points follow their roots
+    int half = nodes.size() / 2;
+    List<ClassifierInstance<?>> secondNodes = nodes.subList(half, nodes.size());
+    Set<String> secondIDs = new HashSet<>();
+    secondNodes.forEach(node -> secondIDs.add(node.getID()));
+    List<BulkImport.AttachPoint> firstAttachPoints = new ArrayList<>();
+    List<BulkImport.AttachPoint> secondAttachPoints = new ArrayList<>();
+    for (BulkImport.AttachPoint attachPoint : attachPoints) {
+      (secondIDs.contains(attachPoint.rootId) ? secondAttachPoints : firstAttachPoints)
+          .add(attachPoint);
+    }
+    return writeSegment(firstAttachPoints, nodes.subList(0, half))
+        + writeSegment(secondAttachPoints, secondNodes);
+  }
+
+  private void checkNotClosed() {
+    if (closed) {
+      throw new IllegalStateException("The writer has been closed");
+    }
+  }
+}
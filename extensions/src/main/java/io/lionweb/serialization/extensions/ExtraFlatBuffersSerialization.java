@@ -1,19 +1,17 @@
 package io.lionweb.serialization.extensions;
 
 import com.google.flatbuffers.FlatBufferBuilder;
-import io.lionweb.lioncore.java.language.Containment;
-import io.lionweb.lioncore.java.language.Feature;
-import io.lionweb.lioncore.java.language.Property;
-import io.lionweb.lioncore.java.language.Reference;
-import io.lionweb.lioncore.java.model.AnnotationInstance;
 import io.lionweb.lioncore.java.model.ClassifierInstance;
-import io.lionweb.lioncore.java.model.Node;
-import io.lionweb.lioncore.java.model.ReferenceValue;
 import io.lionweb.lioncore.java.serialization.FlatBuffersSerialization;
-import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
 import io.lionweb.serialization.flatbuffers.gen.*;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -21,162 +19,176 @@ import java.util.Map;
 public class ExtraFlatBuffersSerialization extends FlatBuffersSerialization {
 
   public byte[] serializeBulkImport(BulkImport bulkImport) {
-    FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+    FlatBufferBuilder builder = acquireBuilder(estimateSize(bulkImport));
+    writeBulkImport(builder, bulkImport);
+    byte[] bytes = builder.sizedByteArray();
+    releaseBuilder(builder);
+    return bytes;
+  }
+
+  /**
+   * Serialize the given bulk import to the given stream, writing the bytes directly from the buffer
+   * of the builder.
+   */
+  public void serializeBulkImport(BulkImport bulkImport, OutputStream outputStream)
+      throws IOException {
+    FlatBufferBuilder builder = acquireBuilder(estimateSize(bulkImport));
+    writeBulkImport(builder, bulkImport);
+    writeFinishedBuffer(builder, outputStream);
+    releaseBuilder(builder);
+  }
+
+  public BulkImport deserializeBulkImport(byte[] bytes) {
+    return deserializeBulkImport(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Decode a bulk import produced by serializeBulkImport, instantiating its nodes. The roots of the
+   * attach points are left without parent: they can be added to their containers with {@link
+   * BulkImport#attachTo}. When a deserialization executor is set, ranges of nodes are decoded in
+   * parallel, directly from the buffer.
+   */
+  public BulkImport deserializeBulkImport(ByteBuffer buffer) {
+    List<BulkImport.AttachPoint> attachPoints = new ArrayList<>();
+    SerializedClassifierInstance[] nodes = decodeBulkImport(buffer, attachPoints);
+    return instantiateBulkImport(attachPoints, nodes);
+  }
 
+  /**
+   * Decode all the segments of a stream written by {@link BulkImportWriter}, and then instantiate
+   * their nodes together, so that parents, children and reference targets are resolved across
+   * segments. Only the bytes of one segment are held at a time, while the decoded nodes of all the
+   * segments are kept until they are instantiated.
+   *
+   * @throws IllegalArgumentException if the segments of the stream are not FlatBuffers
+   */
+  public BulkImport deserializeBulkImport(BulkImportSegmentReader segmentReader)
+      throws IOException {
+    if (segmentReader.getFormat() != BulkImportFormat.FLATBUFFERS) {
+      throw new IllegalArgumentException(
+          "The stream contains " + segmentReader.getFormat() + " segments");
+    }
+    List<BulkImport.AttachPoint> attachPoints = new ArrayList<>();
+    List<SerializedClassifierInstance> nodes = new ArrayList<>();
+    byte[] segment;
+    while ((segment = segmentReader.nextSegment()) != null) {
+      nodes.addAll(Arrays.asList(decodeBulkImport(ByteBuffer.wrap(segment), attachPoints)));
+    }
+    return instantiateBulkImport(attachPoints, nodes.toArray(new SerializedClassifierInstance[0]));
+  }
+
+  /** Decode the nodes of a bulk import, adding its attach points to the given list. */
+  private SerializedClassifierInstance[] decodeBulkImport(
+      ByteBuffer buffer, List<BulkImport.AttachPoint> attachPoints) {
+    FBBulkImport fbBulkImport = FBBulkImport.getRootAsFBBulkImport(buffer.slice());
+    DeserializationHelper helper = new DeserializationHelper();
+    for (int i = 0; i < fbBulkImport.attachPointsLength(); i++) {
+      FBAttachPoint attachPoint = fbBulkImport.attachPoints(i);
+      attachPoints.add(
+          new BulkImport.AttachPoint(
+              attachPoint.container(),
+              helper.deserialize(attachPoint.containment()),
+              attachPoint.root()));
+    }
+
+    SerializedClassifierInstance[] nodes =
+        new SerializedClassifierInstance[fbBulkImport.nodesLength()];
+    forEachRangeInParallel(
+        nodes.length,
+        (start, end) -> {
+          // Helpers are not thread-safe, so each range gets its own
+          DeserializationHelper rangeHelper = new DeserializationHelper();
+          FBNode fbNode = new FBNode();
+          for (int i = start; i < end; i++) {
+            nodes[i] = deserializeNode(fbBulkImport.nodes(fbNode, i), rangeHelper);
+          }
+        });
+    return nodes;
+  }
+
+  private BulkImport instantiateBulkImport(
+      List<BulkImport.AttachPoint> attachPoints, SerializedClassifierInstance[] nodes) {
+    List<ClassifierInstance<?>> instances =
+        deserializeSerializationBlock(
+            BulkImport.chunkToInstantiate(getLionWebVersion(), attachPoints, nodes));
+    // Proxies created for unavailable nodes follow the decoded nodes: they are not part of the
+    // import
+    return new BulkImport(attachPoints, new ArrayList<>(instances.subList(0, nodes.length)));
+  }
+
+  private static int estimateSize(BulkImport bulkImport) {
+    long size = 64 + 64L * bulkImport.getAttachPoints().size();
+    for (ClassifierInstance<?> node : bulkImport.getNodes()) {
+      size += BulkImport.estimateSize(node);
+    }
+    return (int) Math.min(size, 1 << 30);
+  }
+
+  /**
+   * Serialize the given bulk import, preceded by its size as a 4-byte big-endian integer, unless
+   * its size exceeds maxSize. The size is returned in both cases. The containers of the attach
+   * points seen in previous segments are taken from containerByAttached, to which the attach points
+   * of this bulk import are added. Once the segment is written, the roots it contains are removed,
+   * so that only the attach points whose root has not been written yet are retained.
+   */
+  int serializeBulkImportSegment(
+      BulkImport bulkImport,
+      Map<String, String> containerByAttached,
+      DataOutputStream outputStream,
+      int maxSize)
+      throws IOException {
+    FlatBufferBuilder builder = acquireBuilder(estimateSize(bulkImport));
+    writeBulkImport(builder, bulkImport, containerByAttached);
+    int size = builder.dataBuffer().remaining();
+    if (size <= maxSize) {
+      outputStream.writeInt(size);
+      writeFinishedBuffer(builder, outputStream);
+      for (ClassifierInstance<?> node : bulkImport.getNodes()) {
+        if (node.getParent() == null) {
+          containerByAttached.remove(node.getID());
+        }
+      }
+    }
+    releaseBuilder(builder);
+    return size;
+  }
+
+  private void writeBulkImport(FlatBufferBuilder builder, BulkImport bulkImport) {
+    writeBulkImport(builder, bulkImport, new HashMap<>());
+  }
+
+  private void writeBulkImport(
+      FlatBufferBuilder builder, BulkImport bulkImport, Map<String, String> containerByAttached) {
     FBHelper helper = new FBHelper(builder);
-    Map<String, String> containerByAttached = new HashMap<>();
 
     int[] attachPointOffsets =
         serializeAttachPoints(bulkImport, helper, builder, containerByAttached);
     int attachPointsVectorOffset =
         FBBulkImport.createAttachPointsVector(builder, attachPointOffsets);
 
-    int[] nodesOffsets = serializeNodes(bulkImport, helper, builder, containerByAttached);
+    int[] nodesOffsets = serializeNodes(bulkImport, helper, containerByAttached);
     int nodesVectorOffset = FBBulkImport.createNodesVector(builder, nodesOffsets);
 
     FBBulkImport.startFBBulkImport(builder);
     FBBulkImport.addAttachPoints(builder, attachPointsVectorOffset);
     FBBulkImport.addNodes(builder, nodesVectorOffset);
     builder.finish(FBBulkImport.endFBBulkImport(builder));
-    return builder.dataBuffer().compact().array();
   }
 
-  private int[] serializeNodes(
-      BulkImport bulkImport,
-      FBHelper helper,
-      FlatBufferBuilder builder,
-      Map<String, String> containerByAttached) {
-    int i;
-
+  /**
+   * Encode the nodes of the bulk import directly. The roots of the attach points have no parent, so
+   * their containers are written as their parents.
+   */
+  private static int[] serializeNodes(
+      BulkImport bulkImport, FBHelper helper, Map<String, String> containerByAttached) {
     int[] nodesOffsets = new int[bulkImport.getNodes().size()];
-    i = 0;
+    int i = 0;
     for (ClassifierInstance<?> node : bulkImport.getNodes()) {
-
-      List<Feature<?>> features = node.getClassifier().allFeatures();
-      List<Property> properties = new LinkedList<>();
-      List<Containment> containments = new LinkedList<>();
-      List<Reference> references = new LinkedList<>();
-      for (Feature<?> feature : features) {
-        if (feature instanceof Property) {
-          properties.add((Property) feature);
-        } else if (feature instanceof Containment) {
-          containments.add((Containment) feature);
-        } else if (feature instanceof Reference) {
-          references.add((Reference) feature);
-        } else {
-          throw new IllegalStateException();
-        }
-      }
-      int[] propOffsets;
-      {
-        propOffsets = new int[properties.size()];
-        int fi = 0;
-        for (Property property : properties) {
-          int metaPointer = helper.offsetForMetaPointer(MetaPointer.from(property));
-          Object propertyValue = node.getPropertyValue(property);
-          int propertyValueOffset = -1;
-          if (propertyValue != null) {
-            String propertyValueStr =
-                this.primitiveValuesSerialization.serialize(
-                    property.getType().getID(), propertyValue);
-            propertyValueOffset = builder.createSharedString(propertyValueStr);
-          }
-          FBProperty.startFBProperty(builder);
-          FBProperty.addMetaPointer(builder, metaPointer);
-          if (propertyValueOffset != -1) {
-            FBProperty.addValue(builder, propertyValueOffset);
-          }
-          propOffsets[fi] = FBProperty.endFBProperty(builder);
-          fi++;
-        }
-      }
-      int[] contOffsets;
-      {
-        contOffsets = new int[containments.size()];
-        int fi = 0;
-        for (Containment containment : containments) {
-          List<? extends Node> children = node.getChildren(containment);
-          int[] childOffsets = new int[children.size()];
-          int ci = 0;
-          for (Node child : children) {
-            childOffsets[ci] = builder.createSharedString(child.getID());
-            ci++;
-          }
-
-          int metaPointer = helper.offsetForMetaPointer(MetaPointer.from(containment));
-          int childrenVector = FBContainment.createChildrenVector(builder, childOffsets);
-          FBContainment.startFBContainment(builder);
-          FBContainment.addMetaPointer(builder, metaPointer);
-          FBContainment.addChildren(builder, childrenVector);
-          contOffsets[fi] = FBContainment.endFBContainment(builder);
-          fi++;
-        }
-      }
-      int[] refeOffsets;
-      {
-        refeOffsets = new int[references.size()];
-        int fi = 0;
-        for (Reference reference : references) {
-          List<ReferenceValue> referenceValues = node.getReferenceValues(reference);
-          int[] refValuesOffsets = new int[referenceValues.size()];
-          int ci = 0;
-          for (ReferenceValue referenceValue : referenceValues) {
-            int resolveInfo = -1;
-            if (referenceValue.getResolveInfo() != null) {
-              resolveInfo = builder.createSharedString(referenceValue.getResolveInfo());
-            }
-            int referredID = -1;
-            if (referenceValue.getReferredID() != null) {
-              referredID = builder.createSharedString(referenceValue.getReferredID());
-            }
-            FBReferenceValue.startFBReferenceValue(builder);
-            if (resolveInfo != -1) {
-              FBReferenceValue.addResolveInfo(builder, resolveInfo);
-            }
-            if (referredID != -1) {
-              FBReferenceValue.addReferred(builder, referredID);
-            }
-            refValuesOffsets[ci] = FBReferenceValue.endFBReferenceValue(builder);
-            ci++;
-          }
-
-          int metaPointer = helper.offsetForMetaPointer(MetaPointer.from(reference));
-          int valuesVector = FBReference.createValuesVector(builder, refValuesOffsets);
-          FBReference.startFBReference(builder);
-          FBReference.addMetaPointer(builder, metaPointer);
-          FBReference.addValues(builder, valuesVector);
-          refeOffsets[fi] = FBReference.endFBReference(builder);
-          fi++;
-        }
-      }
-      int[] annOffsets = new int[node.getAnnotations().size()];
-      int ai = 0;
-      for (AnnotationInstance annotation : node.getAnnotations()) {
-        annOffsets[ai] = builder.createSharedString(annotation.getID());
-        ai++;
-      }
-
-      int classifier = helper.offsetForMetaPointer(MetaPointer.from(node.getClassifier()));
-      int id = builder.createSharedString(node.getID());
-      int propsVector = FBNode.createPropertiesVector(builder, propOffsets);
-      int consVector = FBNode.createContainmentsVector(builder, contOffsets);
-      int refsVector = FBNode.createReferencesVector(builder, refeOffsets);
-      int annsVector = FBNode.createAnnotationsVector(builder, annOffsets);
       String parentID =
           node.getParent() == null
               ? containerByAttached.get(node.getID())
               : node.getParent().getID();
-      int parent = builder.createSharedString(parentID);
-      FBNode.startFBNode(builder);
-      FBNode.addId(builder, id);
-      FBNode.addClassifier(builder, classifier);
-      FBNode.addProperties(builder, propsVector);
-      FBNode.addContainments(builder, consVector);
-      FBNode.addReferences(builder, refsVector);
-      FBNode.addAnnotations(builder, annsVector);
-      FBNode.addParent(builder, parent);
-
-      nodesOffsets[i] = FBNode.endFBNode(builder);
+      nodesOffsets[i] = helper.node(node, parentID);
       i++;
     }
     return nodesOffsets;
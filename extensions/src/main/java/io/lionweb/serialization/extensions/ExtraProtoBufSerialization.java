@@ -1,11 +1,20 @@
 package io.lionweb.serialization.extensions;
 
+import io.lionweb.lioncore.java.model.ClassifierInstance;
 import io.lionweb.lioncore.java.serialization.ProtoBufSerialization;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
 import io.lionweb.lioncore.java.serialization.data.SerializedChunk;
+import io.lionweb.lioncore.java.serialization.data.SerializedClassifierInstance;
 import io.lionweb.lioncore.protobuf.PBAttachPoint;
 import io.lionweb.lioncore.protobuf.PBBulkImport;
 import io.lionweb.lioncore.protobuf.PBMetaPointer;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 /** It contains the logic to serialize non-standard messages. */
 public class ExtraProtoBufSerialization extends ProtoBufSerialization {
@@ -51,4 +60,105 @@ public class ExtraProtoBufSerialization extends ProtoBufSerialization {
                         .build()));
     return bulkImportBuilder.build();
   }
+
+  public BulkImport deserializeBulkImport(byte[] bytes) throws IOException {
+    return deserializeBulkImport(PBBulkImport.parseFrom(bytes));
+  }
+
+  /**
+   * Decode a bulk import produced by serializeBulkImport, instantiating its nodes. The roots of the
+   * attach points are left without parent: they can be added to their containers with {@link
+   * BulkImport#attachTo}. When a deserialization executor is set, ranges of nodes are decoded in
+   * parallel.
+   */
+  public BulkImport deserializeBulkImport(PBBulkImport pbBulkImport) {
+    List<BulkImport.AttachPoint> attachPoints = new ArrayList<>();
+    SerializedClassifierInstance[] nodes = decodeBulkImport(pbBulkImport, attachPoints);
+    return instantiateBulkImport(attachPoints, nodes);
+  }
+
+  /**
+   * Decode all the segments of a stream written by {@link BulkImportWriter}, and then instantiate
+   * their nodes together, so that parents, children and reference targets are resolved across
+   * segments. Only one segment is parsed at a time, while the decoded nodes of all the segments are
+   * kept until they are instantiated.
+   *
+   * @throws IllegalArgumentException if the segments of the stream are not ProtoBuf
+   */
+  public BulkImport deserializeBulkImport(BulkImportSegmentReader segmentReader)
+      throws IOException {
+    if (segmentReader.getFormat() != BulkImportFormat.PROTOBUF) {
+      throw new IllegalArgumentException(
+          "The stream contains " + segmentReader.getFormat() + " segments");
+    }
+    List<BulkImport.AttachPoint> attachPoints = new ArrayList<>();
+    List<SerializedClassifierInstance> nodes = new ArrayList<>();
+    byte[] segment;
+    while ((segment = segmentReader.nextSegment()) != null) {
+      nodes.addAll(Arrays.asList(decodeBulkImport(PBBulkImport.parseFrom(segment), attachPoints)));
+    }
+    return instantiateBulkImport(attachPoints, nodes.toArray(new SerializedClassifierInstance[0]));
+  }
+
+  /** Decode the nodes of a bulk import, adding its attach points to the given list. */
+  private SerializedClassifierInstance[] decodeBulkImport(
+      PBBulkImport pbBulkImport, List<BulkImport.AttachPoint> attachPoints) {
+    String[] strings = pbBulkImport.getStringValuesList().toArray(new String[0]);
+    // Negative indexes represent null
+    IntFunction<String> stringAt = i -> i < 0 ? null : strings[i];
+    MetaPointer[] metaPointers = new MetaPointer[pbBulkImport.getMetaPointersCount()];
+    for (int i = 0; i < metaPointers.length; i++) {
+      PBMetaPointer mp = pbBulkImport.getMetaPointers(i);
+      metaPointers[i] =
+          MetaPointer.get(
+              stringAt.apply(mp.getLanguage()),
+              stringAt.apply(mp.getVersion()),
+              stringAt.apply(mp.getKey()));
+    }
+    IntFunction<MetaPointer> metaPointerAt = i -> i < 0 ? null : metaPointers[i];
+
+    for (PBAttachPoint attachPoint : pbBulkImport.getAttachPointsList()) {
+      attachPoints.add(
+          new BulkImport.AttachPoint(
+              stringAt.apply(attachPoint.getContainer()),
+              metaPointerAt.apply(attachPoint.getMetaPointerIndex()),
+              stringAt.apply(attachPoint.getRootId())));
+    }
+
+    SerializedClassifierInstance[] nodes =
+        new SerializedClassifierInstance[pbBulkImport.getNodesCount()];
+    forEachRangeInParallel(
+        nodes.length,
+        (start, end) -> {
+          for (int i = start; i < end; i++) {
+            nodes[i] = deserializeNode(pbBulkImport.getNodes(i), stringAt, metaPointerAt);
+          }
+        });
+    return nodes;
+  }
+
+  private BulkImport instantiateBulkImport(
+      List<BulkImport.AttachPoint> attachPoints, SerializedClassifierInstance[] nodes) {
+    List<ClassifierInstance<?>> instances =
+        deserializeSerializationBlock(
+            BulkImport.chunkToInstantiate(getLionWebVersion(), attachPoints, nodes));
+    // Proxies created for unavailable nodes follow the decoded nodes: they are not part of the
+    // import
+    return new BulkImport(attachPoints, new ArrayList<>(instances.subList(0, nodes.length)));
+  }
+
+  /**
+   * Serialize the given bulk import, preceded by its size as a 4-byte big-endian integer, unless
+   * its size exceeds maxSize. The size is returned in both cases.
+   */
+  int serializeBulkImportSegment(BulkImport bulkImport, DataOutputStream outputStream, int maxSize)
+      throws IOException {
+    PBBulkImport pbBulkImport = serializeBulkImport(bulkImport);
+    int size = pbBulkImport.getSerializedSize();
+    if (size <= maxSize) {
+      outputStream.writeInt(size);
+      pbBulkImport.writeTo(outputStream);
+    }
+    return size;
+  }
 }
@@ -0,0 +1,194 @@
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.api.LocalClassifierInstanceResolver;
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.Node;
+import io.lionweb.lioncore.java.model.ReferenceValue;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.DeserializationException;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.serialization.extensions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/** Testing the decoding of bulk imports and their attachment to a model. */
+public class BulkImportTest {
+
+  private final Language language = new Language("l", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "c", "c-id", "c-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Containment children = Containment.createMultiple("children", concept);
+  private final Reference ref = Reference.createOptional("ref", concept);
+
+  public BulkImportTest() {
+    name.setID("name-id").setKey("name-key");
+    children.setID("children-id").setKey("children-key");
+    ref.setID("ref-id").setKey("ref-key");
+    concept.addFeature(name);
+    concept.addFeature(children);
+    concept.addFeature(ref);
+  }
+
+  private ExtraFlatBuffersSerialization flatBuffersSerialization() {
+    ExtraFlatBuffersSerialization serialization =
+        ExtraSerializationProvider.getExtraStandardFlatBuffersSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  private ExtraProtoBufSerialization protoBufSerialization() {
+    ExtraProtoBufSerialization serialization =
+        ExtraSerializationProvider.getExtraStandardProtoBufSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  private DynamicNode node(String id) {
+    DynamicNode node = new DynamicNode(id, concept);
+    node.setPropertyValue(name, "name of " + id);
+    return node;
+  }
+
+  /** r > (a > (a1, a2), b), with a1 referring to b, listed depth first. */
+  private List<ClassifierInstance<?>> tree() {
+    DynamicNode r = node("r");
+    DynamicNode a = node("a");
+    DynamicNode a1 = node("a1");
+    DynamicNode a2 = node("a2");
+    DynamicNode b = node("b");
+    r.addChild(children, a);
+    r.addChild(children, b);
+    a.addChild(children, a1);
+    a.addChild(children, a2);
+    a1.addReferenceValue(ref, new ReferenceValue(b, "b"));
+    return Arrays.asList(r, a, a1, a2, b);
+  }
+
+  private BulkImport.AttachPoint attachPoint() {
+    return new BulkImport.AttachPoint("container", MetaPointer.from(children), "r");
+  }
+
+  /** Check the decoded tree, then attach it to a container. */
+  private void assertTreeCanBeAttached(BulkImport bulkImport) {
+    List<ClassifierInstance<?>> nodes = bulkImport.getNodes();
+    assertEquals(
+        Arrays.asList("r", "a", "a1", "a2", "b"),
+        nodes.stream().map(ClassifierInstance::getID).collect(Collectors.toList()));
+    Node r = (Node) nodes.get(0);
+    Node a = (Node) nodes.get(1);
+    Node a1 = (Node) nodes.get(2);
+    Node b = (Node) nodes.get(4);
+    assertNull(r.getParent());
+    assertEquals(Arrays.asList(a, b), r.getChildren(children));
+    assertEquals(Arrays.asList(a1, nodes.get(3)), a.getChildren(children));
+    assertSame(a, a1.getParent());
+    assertSame(r, b.getParent());
+    assertSame(b, a1.getReferenceValues(ref).get(0).getReferred());
+    assertEquals("name of a1", a1.getPropertyValue(name));
+
+    DynamicNode container = node("container");
+    bulkImport.attachTo(new LocalClassifierInstanceResolver(container));
+    assertEquals(Collections.singletonList(r), container.getChildren(children));
+    assertSame(container, r.getParent());
+  }
+
+  @Test
+  public void flatBuffersRoundTrip() {
+    BulkImport bulkImport = new BulkImport();
+    tree().forEach(bulkImport::addNode);
+    bulkImport.addAttachPoint(attachPoint());
+
+    ExtraFlatBuffersSerialization serialization = flatBuffersSerialization();
+    byte[] bytes = serialization.serializeBulkImport(bulkImport);
+    assertTreeCanBeAttached(serialization.deserializeBulkImport(bytes));
+  }
+
+  @Test
+  public void protoBufRoundTrip() throws IOException {
+    BulkImport bulkImport = new BulkImport();
+    tree().forEach(bulkImport::addNode);
+    bulkImport.addAttachPoint(attachPoint());
+
+    ExtraProtoBufSerialization serialization = protoBufSerialization();
+    byte[] bytes = serialization.serializeBulkImport(bulkImport).toByteArray();
+    assertTreeCanBeAttached(serialization.deserializeBulkImport(bytes));
+  }
+
+  private byte[] writeTreeInSegments(BulkImportWriter writer, ByteArrayOutputStream outputStream)
+      throws IOException {
+    try {
+      writer.setMaxSegmentNodes(2);
+      writer.addAttachPoint(attachPoint());
+      for (ClassifierInstance<?> node : tree()) {
+        writer.addNode(node);
+      }
+    } finally {
+      writer.close();
+    }
+    return outputStream.toByteArray();
+  }
+
+  @Test
+  public void flatBuffersTreeSplitAcrossSegments() throws IOException {
+    ExtraFlatBuffersSerialization serialization = flatBuffersSerialization();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] stream =
+        writeTreeInSegments(new BulkImportWriter(serialization, outputStream), outputStream);
+
+    try (BulkImportSegmentReader reader =
+        new BulkImportSegmentReader(new ByteArrayInputStream(stream))) {
+      reader.nextSegment();
+      // The parent of a1 is in the first segment
+      byte[] second = reader.nextSegment();
+      assertThrows(
+          DeserializationException.class, () -> serialization.deserializeBulkImport(second));
+    }
+    try (BulkImportSegmentReader reader =
+        new BulkImportSegmentReader(new ByteArrayInputStream(stream))) {
+      assertTreeCanBeAttached(serialization.deserializeBulkImport(reader));
+    }
+  }
+
+  @Test
+  public void protoBufTreeSplitAcrossSegments() throws IOException {
+    ExtraProtoBufSerialization serialization = protoBufSerialization();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] stream =
+        writeTreeInSegments(new BulkImportWriter(serialization, outputStream), outputStream);
+
+    try (BulkImportSegmentReader reader =
+        new BulkImportSegmentReader(new ByteArrayInputStream(stream))) {
+      assertTreeCanBeAttached(serialization.deserializeBulkImport(reader));
+    }
+    try (BulkImportSegmentReader reader =
+        new BulkImportSegmentReader(new ByteArrayInputStream(stream))) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> flatBuffersSerialization().deserializeBulkImport(reader));
+    }
+  }
+
+  @Test
+  public void attachingRequiresTheContainersAndTheRoots() {
+    BulkImport bulkImport = new BulkImport();
+    bulkImport.addNode(node("r"));
+    bulkImport.addAttachPoint(attachPoint());
+    assertThrows(
+        RuntimeException.class, () -> bulkImport.attachTo(new LocalClassifierInstanceResolver()));
+
+    BulkImport withoutRoot = new BulkImport();
+    withoutRoot.addAttachPoint(attachPoint());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> withoutRoot.attachTo(new LocalClassifierInstanceResolver(node("container"))));
+  }
+}
@@ -0,0 +1,205 @@
+import static org.junit.Assert.*;
+
+import io.lionweb.lioncore.java.language.*;
+import io.lionweb.lioncore.java.model.ClassifierInstance;
+import io.lionweb.lioncore.java.model.ClassifierInstanceUtils;
+import io.lionweb.lioncore.java.model.impl.DynamicNode;
+import io.lionweb.lioncore.java.serialization.DeserializationException;
+import io.lionweb.lioncore.java.serialization.data.MetaPointer;
+import io.lionweb.serialization.extensions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/** Testing the writing and reading of streams of bulk import segments. */
+public class BulkImportWriterTest {
+
+  private final Language language = new Language("l", "l-id", "l-key", "1");
+  private final Concept concept = new Concept(language, "c", "c-id", "c-key");
+  private final Property name = Property.createOptional("name", LionCoreBuiltins.getString());
+  private final Containment children = Containment.createMultiple("children", concept);
+
+  public BulkImportWriterTest() {
+    name.setID("name-id").setKey("name-key");
+    children.setID("children-id").setKey("children-key");
+    concept.addFeature(name);
+    concept.addFeature(children);
+  }
+
+  private ExtraFlatBuffersSerialization flatBuffersSerialization() {
+    ExtraFlatBuffersSerialization serialization =
+        ExtraSerializationProvider.getExtraStandardFlatBuffersSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  private ExtraProtoBufSerialization protoBufSerialization() {
+    ExtraProtoBufSerialization serialization =
+        ExtraSerializationProvider.getExtraStandardProtoBufSerialization();
+    serialization.registerLanguage(language);
+    serialization.enableDynamicNodes();
+    return serialization;
+  }
+
+  /** Write the given number of roots, each one with its attach point. */
+  private void writeRoots(BulkImportWriter writer, int count, String value) throws IOException {
+    for (int i = 0; i < count; i++) {
+      DynamicNode node = new DynamicNode("n" + i, concept);
+      node.setPropertyValue(name, value + i);
+      writer.addAttachPoint(
+          new BulkImport.AttachPoint("container", MetaPointer.from(children), node.getID()));
+      writer.addNode(node);
+    }
+  }
+
+  private List<byte[]> readSegments(byte[] stream, BulkImportFormat expectedFormat)
+      throws IOException {
+    List<byte[]> segments = new ArrayList<>();
+    try (BulkImportSegmentReader reader =
+        new BulkImportSegmentReader(new ByteArrayInputStream(stream))) {
+      assertEquals(expectedFormat, reader.getFormat());
+      byte[] segment;
+      while ((segment = reader.nextSegment()) != null) {
+        segments.add(segment);
+      }
+      assertNull(reader.nextSegment());
+    }
+    return segments;
+  }
+
+  private BulkImport decode(BulkImportFormat format, byte[] segment) throws IOException {
+    return format == BulkImportFormat.FLATBUFFERS
+        ? flatBuffersSerialization().deserializeBulkImport(segment)
+        : protoBufSerialization().deserializeBulkImport(segment);
+  }
+
+  private BulkImportWriter writer(BulkImportFormat format, ByteArrayOutputStream outputStream)
+      throws IOException {
+    return format == BulkImportFormat.FLATBUFFERS
+        ? new BulkImportWriter(flatBuffersSerialization(), outputStream)
+        : new BulkImportWriter(protoBufSerialization(), outputStream);
+  }
+
+  /** Decode each segment and check that together they contain the given number of roots. */
+  private void assertRoots(BulkImportFormat format, List<byte[]> segments, int count, String value)
+      throws IOException {
+    int next = 0;
+    for (byte[] segment : segments) {
+      BulkImport bulkImport = decode(format, segment);
+      assertEquals(bulkImport.getNodes().size(), bulkImport.getAttachPoints().size());
+      for (int i = 0; i < bulkImport.getNodes().size(); i++) {
+        ClassifierInstance<?> node = bulkImport.getNodes().get(i);
+        assertEquals("n" + next, node.getID());
+        assertEquals(value + next, ClassifierInstanceUtils.getPropertyValueByName(node, "name"));
+        BulkImport.AttachPoint attachPoint = bulkImport.getAttachPoints().get(i);
+        assertEquals("container", attachPoint.container);
+        assertEquals(MetaPointer.from(children), attachPoint.containment);
+        assertEquals(node.getID(), attachPoint.rootId);
+        next++;
+      }
+    }
+    assertEquals(count, next);
+  }
+
+  @Test
+  public void segmentsRollOverOnTheNumberOfNodes() throws IOException {
+    for (BulkImportFormat format : BulkImportFormat.values()) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try (BulkImportWriter writer = writer(format, outputStream)) {
+        assertEquals(format, writer.getFormat());
+        writer.setMaxSegmentNodes(10);
+        writeRoots(writer, 25, "value ");
+      }
+
+      List<byte[]> segments = readSegments(outputStream.toByteArray(), format);
+      assertEquals(3, segments.size());
+      assertEquals(10, decode(format, segments.get(0)).getNodes().size());
+      assertEquals(5, decode(format, segments.get(2)).getNodes().size());
+      assertRoots(format, segments, 25, "value ");
+    }
+  }
+
+  @Test
+  public void segmentsRollOverOnTheirSize() throws IOException {
+    char[] padding = new char[200];
+    Arrays.fill(padding, 'x');
+    String value = new String(padding);
+    for (BulkImportFormat format : BulkImportFormat.values()) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try (BulkImportWriter writer = writer(format, outputStream)) {
+        writer.setMaxSegmentBytes(4096);
+        writeRoots(writer, 100, value);
+      }
+
+      List<byte[]> segments = readSegments(outputStream.toByteArray(), format);
+      assertTrue(segments.size() > 5);
+      for (byte[] segment : segments) {
+        assertTrue(segment.length <= 4096);
+      }
+      assertRoots(format, segments, 100, value);
+    }
+  }
+
+  @Test
+  public void nodesLargerThanASegmentAreWrittenAlone() throws IOException {
+    for (BulkImportFormat format : BulkImportFormat.values()) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try (BulkImportWriter writer = writer(format, outputStream)) {
+        writer.setMaxSegmentBytes(16);
+        writeRoots(writer, 3, "value ");
+      }
+
+      List<byte[]> segments = readSegments(outputStream.toByteArray(), format);
+      assertEquals(3, segments.size());
+      assertRoots(format, segments, 3, "value ");
+    }
+  }
+
+  @Test
+  public void flushWritesThePendingSegment() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    BulkImportWriter writer = writer(BulkImportFormat.PROTOBUF, outputStream);
+    writeRoots(writer, 2, "value ");
+    writer.flush();
+    // Nothing is pending, so no empty segment is written
+    writer.flush();
+    writer.close();
+    writer.close();
+
+    assertEquals(1, readSegments(outputStream.toByteArray(), BulkImportFormat.PROTOBUF).size());
+    assertThrows(IllegalStateException.class, () -> writeRoots(writer, 1, "value "));
+    assertThrows(IllegalArgumentException.class, () -> writer.setMaxSegmentNodes(0));
+    assertThrows(IllegalArgumentException.class, () -> writer.setMaxSegmentBytes(-1));
+  }
+
+  @Test
+  public void emptyStreams() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    writer(BulkImportFormat.FLATBUFFERS, outputStream).close();
+    assertEquals(0, readSegments(outputStream.toByteArray(), BulkImportFormat.FLATBUFFERS).size());
+  }
+
+  @Test
+  public void streamsMustStartWithTheHeader() throws IOException {
+    assertThrows(
+        DeserializationException.class,
+        () -> new BulkImportSegmentReader(new ByteArrayInputStream(new byte[] {1, 2})));
+    assertThrows(
+        DeserializationException.class,
+        () -> new BulkImportSegmentReader(new ByteArrayInputStream("not a stream".getBytes())));
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    writer(BulkImportFormat.PROTOBUF, outputStream).close();
+    byte[] stream = outputStream.toByteArray();
+    // The code of the format follows the magic number and the version
+    stream[5] = 42;
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new BulkImportSegmentReader(new ByteArrayInputStream(stream)));
+  }
+}